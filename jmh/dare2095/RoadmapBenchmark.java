@@ -0,0 +1,101 @@
+package dare2095;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.clients.Team;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.simulator.BenchmarkWorld;
+import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.AStarPathFinder;
+
+/**
+ * Planning a path for every ship of a team to an asteroid each time step with a new
+ * graph for every plan (AStarSearch.createGraphToGoalWithBeacons) and with the team's
+ * kept roadmap.  All of the asteroids move: the world takes a time step (outside of
+ * the timing) before each call.  The scores are per plan.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=RoadmapBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class RoadmapBenchmark {
+	static final int SHIPS_PER_TEAM = 4;
+
+	@Param({"100", "300", "1000", "5000"})
+	public int numAsteroids;
+
+	Toroidal2DPhysics space;
+
+	Team team;
+
+	List<Asteroid> asteroids;
+
+	HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	Random random;
+
+	Roadmap roadmap;
+
+	AStarPathFinder pathFinder;
+
+	int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkWorld world = new BenchmarkWorld(numAsteroids, 2, SHIPS_PER_TEAM);
+		space = world.space;
+		team = world.teams.get(0);
+		asteroids = new ArrayList<Asteroid>(space.getAsteroids());
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+		random = new Random(3);
+		roadmap = new Roadmap(space, team.getTeamName(), new Random(5));
+		pathFinder = new AStarPathFinder();
+	}
+
+	@Setup(Level.Invocation)
+	public void advanceTime() {
+		space.advanceTime(step++, noPowerups);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SHIPS_PER_TEAM)
+	public int planWithNewGraphs() {
+		int found = 0;
+		for (Ship ship : team.getShips()) {
+			Asteroid goal = asteroids.get(random.nextInt(asteroids.size()));
+			Graph graph = AStarSearch.createGraphToGoalWithBeacons(space, ship, goal.getPosition(), new Random(5));
+			found += graph.findAStarPath(space) == null ? 0 : 1;
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SHIPS_PER_TEAM)
+	public int planWithRoadmap() {
+		int found = 0;
+		for (Ship ship : team.getShips()) {
+			Asteroid goal = asteroids.get(random.nextInt(asteroids.size()));
+			found += roadmap.findAStarPath(space, ship, goal.getPosition(), pathFinder) == null ? 0 : 1;
+		}
+		return found;
+	}
+}
@@ -0,0 +1,64 @@
+package spacesettlers.objects.resources;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The resource pile operations the simulator does every time step: copying a pile
+ * (every object clone), adding piles (mining and delivering), checking and paying for
+ * purchases and computing mass and totals.  The scores are per pile.  Add -prof gc to
+ * the JMH arguments to see the bytes allocated per pile.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=ResourcePileBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ResourcePileBenchmark {
+	static final int NUM_PILES = 1000;
+
+	ResourcePile[] piles;
+
+	ResourcePile cost;
+
+	ResourcePile bank;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(0);
+		piles = new ResourcePile[NUM_PILES];
+		for (int i = 0; i < NUM_PILES; i++) {
+			piles[i] = new ResourcePile(random.nextInt(500), random.nextInt(500), random.nextInt(500));
+		}
+		cost = new ResourcePile(1000, 1000, 1000);
+		bank = new ResourcePile();
+	}
+
+	/**
+	 * One round of operations on every pile
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NUM_PILES)
+	public long round() {
+		long sum = 0;
+		for (int i = 0; i < piles.length; i++) {
+			ResourcePile copy = new ResourcePile(piles[i]);
+			bank.add(copy);
+			if (bank.greaterThan(cost)) {
+				bank.subtract(cost);
+			}
+			sum += copy.getMass() + copy.getTotal() + copy.getResourceQuantity(ResourceTypes.METALS);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,105 @@
+package spacesettlers.objects.weapons;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.simulator.BenchmarkWorld;
+import spacesettlers.simulator.Toroidal2DPhysics;
+
+/**
+ * A step of a weapon heavy game: every ship fires a missile every step and each missile
+ * dies LIFETIME steps later.  Compares making a new missile for every shot and sweeping
+ * the dead ones into a new list (the way it used to be done) with the space's weapon
+ * pool and cleanupDeadWeapons.  Add -prof gc to the JMH arguments to see the bytes
+ * allocated per step.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=WeaponPoolBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class WeaponPoolBenchmark {
+	static final int NUM_TEAMS = 4;
+	static final int LIFETIME = 4;
+
+	@Param({"5", "25", "100"})
+	public int shipsPerTeam;
+
+	@Param({"false", "true"})
+	public boolean pooled;
+
+	Toroidal2DPhysics space;
+
+	Ship[] ships;
+
+	/**
+	 * The missiles fired by each ship in the last LIFETIME steps
+	 */
+	AbstractWeapon[][] fired;
+
+	int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		space = new BenchmarkWorld(100, NUM_TEAMS, shipsPerTeam).space;
+		ships = space.getShips().toArray(new Ship[0]);
+		fired = new AbstractWeapon[LIFETIME][ships.length];
+	}
+
+	/**
+	 * Fire, kill and clean up for one step
+	 */
+	@Benchmark
+	public Toroidal2DPhysics step() {
+		AbstractWeapon[] firedNow = fired[step++ % LIFETIME];
+		for (int s = 0; s < ships.length; s++) {
+			// the missiles fired LIFETIME steps ago die
+			if (firedNow[s] != null) {
+				firedNow[s].setAlive(false);
+				ships[s].decrementWeaponCount();
+			}
+
+			AbstractWeapon weapon = pooled
+					? ships[s].getNewWeapon(SpaceSettlersPowerupEnum.FIRE_MISSILE, space.getWeaponPool())
+					: ships[s].getNewWeapon(SpaceSettlersPowerupEnum.FIRE_MISSILE);
+			space.addObject(weapon);
+			ships[s].incrementWeaponCount();
+			firedNow[s] = weapon;
+		}
+
+		if (pooled) {
+			space.cleanupDeadWeapons();
+		} else {
+			oldCleanup();
+		}
+		return space;
+	}
+
+	/**
+	 * Remove the dead weapons the way cleanupDeadWeapons used to
+	 */
+	void oldCleanup() {
+		ArrayList<AbstractObject> deadObjects = new ArrayList<AbstractObject>();
+		for (AbstractObject object : space.getAllObjects()) {
+			if (object instanceof AbstractWeapon && !object.isAlive()) {
+				deadObjects.add(object);
+			}
+		}
+		for (AbstractObject deadObject : deadObjects) {
+			space.removeObject(deadObject);
+		}
+	}
+}
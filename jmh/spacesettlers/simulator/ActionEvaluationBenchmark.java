@@ -0,0 +1,86 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.actions.MoveToObjectAction;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+
+/**
+ * A physics step when every ship is executing a move to object action (6 teams of 10
+ * ships), with new goals every STEPS_PER_GOAL steps and what died respawned.  Only the
+ * public simulator API is used so the same benchmark can be run against older versions
+ * of the simulator.  Add -prof gc to the JMH arguments to see the bytes allocated per
+ * step (which include the respawning).
+ *
+ * Run with: ant jmh -Djmh.benchmarks=ActionEvaluationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ActionEvaluationBenchmark {
+	static final int NUM_ASTEROIDS = 300;
+	static final int NUM_TEAMS = 6;
+	static final int SHIPS_PER_TEAM = 10;
+	static final int STEPS_PER_GOAL = 50;
+
+	BenchmarkWorld world;
+
+	ArrayList<Asteroid> asteroids;
+
+	HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	Random random;
+
+	int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new BenchmarkWorld(NUM_ASTEROIDS, NUM_TEAMS, SHIPS_PER_TEAM);
+		asteroids = new ArrayList<Asteroid>(world.space.getAsteroids());
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+		random = new Random(NUM_TEAMS * SHIPS_PER_TEAM);
+	}
+
+	/**
+	 * Respawn what died (ships run out of energy and asteroids get mined, which would 
+	 * leave nothing to move after a few thousand steps) and give every ship a new action
+	 * moving it towards a random asteroid every STEPS_PER_GOAL steps.  This is done
+	 * outside of the timing.
+	 */
+	@Setup(Level.Invocation)
+	public void assignActions() {
+		world.space.respawnDeadObjects(random, 30);
+		if (step % STEPS_PER_GOAL != 0) {
+			return;
+		}
+		for (Team team : world.teams) {
+			for (Ship ship : team.getShips()) {
+				AbstractObject goal = asteroids.get(random.nextInt(asteroids.size()));
+				ship.setCurrentAction(new MoveToObjectAction(world.space, ship.getPosition(), goal));
+			}
+		}
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics advanceTime() {
+		world.space.advanceTime(step++, noPowerups);
+		return world.space;
+	}
+}
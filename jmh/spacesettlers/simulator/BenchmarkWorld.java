@@ -0,0 +1,77 @@
+package spacesettlers.simulator;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import spacesettlers.clients.DoNothingTeamClient;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Base;
+import spacesettlers.objects.Ship;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+/**
+ * Builds reproducible worlds (asteroids, teams, ships and bases) for the benchmarks.
+ */
+public class BenchmarkWorld {
+	public static final int WIDTH = 1600;
+	public static final int HEIGHT = 1080;
+	public static final double TIMESTEP = 0.05;
+
+	/**
+	 * The space that was built
+	 */
+	public Toroidal2DPhysics space;
+
+	/**
+	 * The teams in the space (in the order they were created)
+	 */
+	public List<Team> teams;
+
+	/**
+	 * Make a world with the specified number of moving asteroids, teams and ships per team.
+	 * Each team gets one base.  The same arguments always build the same world.
+	 *
+	 * @param numAsteroids
+	 * @param numTeams
+	 * @param shipsPerTeam
+	 */
+	public BenchmarkWorld(int numAsteroids, int numTeams, int shipsPerTeam) {
+		Random random = new Random(numAsteroids * 31 + numTeams * 7 + shipsPerTeam);
+		space = new Toroidal2DPhysics(HEIGHT, WIDTH, TIMESTEP);
+		teams = new ArrayList<Team>();
+
+		for (int a = 0; a < numAsteroids; a++) {
+			int radius = random.nextInt(Asteroid.MAX_ASTEROID_RADIUS - Asteroid.MIN_ASTEROID_RADIUS) + Asteroid.MIN_ASTEROID_RADIUS;
+			Asteroid asteroid = new Asteroid(randomPosition(random), random.nextDouble() < 0.5, radius, true, 0.3, 0.3, 0.4);
+			asteroid.getPosition().setTranslationalVelocity(Vector2D.getRandom(random, 30));
+			space.addObject(asteroid);
+		}
+
+		for (int t = 0; t < numTeams; t++) {
+			DoNothingTeamClient client = new DoNothingTeamClient();
+			client.setTeamName("team" + t);
+			client.setTeamColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+			client.setRandom(random);
+			Team team = new Team(client, "team" + t, shipsPerTeam);
+
+			for (int s = 0; s < shipsPerTeam; s++) {
+				Ship ship = new Ship(client.getTeamName(), client.getTeamColor(), randomPosition(random));
+				team.addShip(ship);
+				space.addObject(ship);
+			}
+
+			Base base = new Base(randomPosition(random), client.getTeamName(), team, true);
+			team.addBase(base);
+			space.addObject(base);
+			teams.add(team);
+		}
+	}
+
+	private static Position randomPosition(Random random) {
+		return new Position(random.nextDouble() * WIDTH, random.nextDouble() * HEIGHT);
+	}
+}
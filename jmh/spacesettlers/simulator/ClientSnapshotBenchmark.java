@@ -0,0 +1,69 @@
+package spacesettlers.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Giving every team a view of the space for the four client phases of a time step
+ * (movement start, power ups, movement end and purchases): a deep clone per team per
+ * phase versus one shared client snapshot per phase.  Add -prof gc to the JMH arguments
+ * to see the bytes allocated per step.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=ClientSnapshotBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ClientSnapshotBenchmark {
+	static final int NUM_ASTEROIDS = 200;
+	static final int SHIPS_PER_TEAM = 4;
+	static final int PHASES_PER_STEP = 4;
+
+	@Param({"2", "4", "8", "16"})
+	public int numTeams;
+
+	BenchmarkWorld world;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new BenchmarkWorld(NUM_ASTEROIDS, numTeams, SHIPS_PER_TEAM);
+	}
+
+	/**
+	 * Each team gets its own deep clone in every phase of a step
+	 */
+	@Benchmark
+	public Toroidal2DPhysics clonePerTeam() {
+		Toroidal2DPhysics clone = null;
+		for (int phase = 0; phase < PHASES_PER_STEP; phase++) {
+			for (int t = 0; t < world.teams.size(); t++) {
+				clone = world.space.deepClone();
+			}
+		}
+		return clone;
+	}
+
+	/**
+	 * The teams share one snapshot in every phase of a step
+	 */
+	@Benchmark
+	public Toroidal2DPhysics sharedSnapshot() {
+		Toroidal2DPhysics snapshot = null;
+		for (int phase = 0; phase < PHASES_PER_STEP; phase++) {
+			world.space.invalidateClientSnapshot();
+			for (int t = 0; t < world.teams.size(); t++) {
+				snapshot = world.space.getClientSnapshot();
+			}
+		}
+		return snapshot;
+	}
+}
@@ -0,0 +1,69 @@
+package spacesettlers.simulator;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+/**
+ * How the physics step time scales with the number of asteroids, both with the spatial
+ * grid broad phase and with the original all pairs collision detection.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=CollisionDetectionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CollisionDetectionBenchmark {
+	@Param({"250", "500", "1000", "2000", "4000"})
+	public int numAsteroids;
+
+	@Param({"true", "false"})
+	public boolean useSpatialGrid;
+
+	Toroidal2DPhysics space;
+
+	HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	int step;
+
+	/**
+	 * Make a space full of random moving (non mineable) asteroids, the same for a given
+	 * number of asteroids
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(numAsteroids);
+		space = new Toroidal2DPhysics(BenchmarkWorld.HEIGHT, BenchmarkWorld.WIDTH, BenchmarkWorld.TIMESTEP);
+		for (int a = 0; a < numAsteroids; a++) {
+			int radius = random.nextInt(Asteroid.MAX_ASTEROID_RADIUS - Asteroid.MIN_ASTEROID_RADIUS) + Asteroid.MIN_ASTEROID_RADIUS;
+			Asteroid asteroid = new Asteroid(new Position(random.nextDouble() * BenchmarkWorld.WIDTH, 
+					random.nextDouble() * BenchmarkWorld.HEIGHT), false, radius, true, 0, 0, 0);
+			asteroid.getPosition().setTranslationalVelocity(Vector2D.getRandom(random, 30));
+			space.addObject(asteroid);
+		}
+		space.useSpatialGrid = useSpatialGrid;
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics advanceTime() {
+		space.advanceTime(step++, noPowerups);
+		return space;
+	}
+}
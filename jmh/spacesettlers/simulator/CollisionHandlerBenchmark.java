@@ -0,0 +1,75 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.Asteroid;
+import spacesettlers.utilities.Vector2D;
+
+/**
+ * Collides pairs of (non mineable) asteroids.  Every pair is put back into the same
+ * overlapping positions and velocities before it is collided so each call does the
+ * same work.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=CollisionHandlerBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionHandlerBenchmark {
+
+	@State(Scope.Thread)
+	public static class Pairs {
+		public CollisionHandler collisionHandler;
+
+		/**
+		 * Pairs of asteroids (first[i] collides with second[i])
+		 */
+		public ArrayList<Asteroid> first, second;
+
+		@Setup(Level.Trial)
+		public void setUp(WorldState state) {
+			collisionHandler = new CollisionHandler();
+			first = new ArrayList<Asteroid>();
+			second = new ArrayList<Asteroid>();
+			Asteroid previous = null;
+			for (Asteroid asteroid : state.asteroids) {
+				if (asteroid.isMineable()) {
+					continue;
+				}
+				if (previous == null) {
+					previous = asteroid;
+				} else {
+					first.add(previous);
+					second.add(asteroid);
+					previous = null;
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int collide(WorldState state, Pairs pairs) {
+		for (int i = 0; i < pairs.first.size(); i++) {
+			Asteroid asteroid1 = pairs.first.get(i);
+			Asteroid asteroid2 = pairs.second.get(i);
+
+			// overlap them a little, heading into each other
+			asteroid2.getPosition().setX(asteroid1.getPosition().getX() + 0.9 * (asteroid1.getRadius() + asteroid2.getRadius()));
+			asteroid2.getPosition().setY(asteroid1.getPosition().getY());
+			asteroid1.getPosition().setTranslationalVelocity(new Vector2D(10, 0));
+			asteroid2.getPosition().setTranslationalVelocity(new Vector2D(-10, 0));
+
+			pairs.collisionHandler.collide(asteroid1, asteroid2, state.space);
+		}
+		return pairs.first.size();
+	}
+}
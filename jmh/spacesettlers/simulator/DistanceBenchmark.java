@@ -0,0 +1,81 @@
+package spacesettlers.simulator;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+import spacesettlers.utilities.Position;
+
+/**
+ * The distance queries the heuristic clients and the physics make in their inner loops,
+ * for every ship (6 teams of 10 among 300 asteroids): finding the nearest asteroid,
+ * checking the path to it is clear and checking a random location is free.  Add
+ * -prof gc to the JMH arguments to see the bytes allocated per round.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=DistanceBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+	static final int NUM_ASTEROIDS = 300;
+	static final int NUM_TEAMS = 6;
+	static final int SHIPS_PER_TEAM = 10;
+
+	Toroidal2DPhysics space;
+
+	Set<AbstractObject> obstructions;
+
+	Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		space = new BenchmarkWorld(NUM_ASTEROIDS, NUM_TEAMS, SHIPS_PER_TEAM).space;
+		obstructions = new LinkedHashSet<AbstractObject>(space.getAsteroids());
+		random = new Random(0);
+	}
+
+	/**
+	 * One round of queries for every ship
+	 */
+	@Benchmark
+	public double round() {
+		double sum = 0;
+		for (Ship ship : space.getShips()) {
+			// the nearest asteroid loop every heuristic client has
+			double minDistance = Double.MAX_VALUE;
+			Asteroid nearest = null;
+			for (Asteroid asteroid : space.getAsteroids()) {
+				double dist = space.findShortestDistance(ship.getPosition(), asteroid.getPosition());
+				if (dist < minDistance) {
+					minDistance = dist;
+					nearest = asteroid;
+				}
+			}
+
+			if (space.isPathClearOfObstructions(ship.getPosition(), nearest.getPosition(), obstructions, ship.getRadius())) {
+				sum++;
+			}
+
+			Position location = new Position(random.nextDouble() * BenchmarkWorld.WIDTH, random.nextDouble() * BenchmarkWorld.HEIGHT);
+			if (space.isLocationFree(location, ship.getRadius())) {
+				sum++;
+			}
+			sum += minDistance;
+		}
+		return sum;
+	}
+}
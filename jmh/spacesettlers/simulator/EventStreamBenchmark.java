@@ -0,0 +1,73 @@
+package spacesettlers.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import spacesettlers.objects.Ship;
+
+/**
+ * What publishing an event costs the simulator thread with the event statistics
+ * listening on the consumer thread.  The steps here do nothing but publish, so
+ * (especially on one core) the publisher gets far ahead of the consumer and events are
+ * dropped; a real game takes far longer per step than it publishes events.  The number
+ * of events published and dropped is printed at the end of each trial.  Add -prof gc
+ * to the JMH arguments to see the bytes allocated per event.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=EventStreamBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EventStreamBenchmark {
+	@Param({"10", "100", "1000"})
+	public int eventsPerStep;
+
+	SimulationEventStream events;
+
+	SimulationEventType[] types;
+
+	Ship[] ships;
+
+	/**
+	 * The number of events published so far
+	 */
+	int numEvents;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ships = new BenchmarkWorld(100, 4, 5).space.getShips().toArray(new Ship[0]);
+		types = SimulationEventType.values();
+		events = new SimulationEventStream();
+		events.addListener(new EventStatistics());
+		events.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		events.close();
+		System.out.println("published " + events.getNumPublished() + ", dropped " + events.getNumDropped());
+	}
+
+	/**
+	 * Publish the next event (starting a new time step every eventsPerStep events)
+	 */
+	@Benchmark
+	public SimulationEventStream publish() {
+		int e = numEvents++ % eventsPerStep;
+		if (e == 0) {
+			events.setTimeStep(numEvents / eventsPerStep);
+		}
+		events.publish(types[e % types.length], ships[e % ships.length], ships[(e + 1) % ships.length], e);
+		return events;
+	}
+}
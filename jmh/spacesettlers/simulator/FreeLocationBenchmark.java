@@ -0,0 +1,107 @@
+package spacesettlers.simulator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Beacon;
+import spacesettlers.utilities.Position;
+
+/**
+ * Finding random free locations for beacons as the space gets more crowded, the way it
+ * used to be done (every attempt checks every object with isLocationFree) and with
+ * getRandomFreeLocation, and respawning a tenth of the asteroids.  Both searches draw
+ * the same random numbers so they find the same locations.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=FreeLocationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FreeLocationBenchmark {
+	static final int FREE_RADIUS = Beacon.BEACON_RADIUS * 2;
+
+	@State(Scope.Thread)
+	public static class Locations {
+		@Param({"100", "300", "1000", "2000", "3000"})
+		public int numAsteroids;
+
+		public Toroidal2DPhysics space;
+
+		public Random random;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			space = new BenchmarkWorld(numAsteroids, 2, 4).space;
+			random = new Random(7);
+		}
+	}
+
+	/**
+	 * Respawning needs room for twice the asteroid's radius, which the bigger worlds
+	 * don't have
+	 */
+	@State(Scope.Thread)
+	public static class Respawns {
+		@Param({"100", "300", "1000"})
+		public int numAsteroids;
+
+		public Toroidal2DPhysics space;
+
+		public Random random;
+
+		int round;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			space = new BenchmarkWorld(numAsteroids, 2, 4).space;
+			random = new Random(3);
+		}
+
+		/**
+		 * Kill a different tenth of the asteroids each time
+		 */
+		@Setup(Level.Invocation)
+		public void killTenth() {
+			int count = 0;
+			for (AbstractObject asteroid : space.getAsteroids()) {
+				if (count++ % 10 == round % 10) {
+					asteroid.setAlive(false);
+				}
+			}
+			round++;
+		}
+	}
+
+	@Benchmark
+	public Position findByScan(Locations locations) {
+		Toroidal2DPhysics space = locations.space;
+		Random rand = locations.random;
+		Position randLocation = new Position(rand.nextFloat() * space.getWidth(), rand.nextFloat() * space.getHeight());
+		while (!space.isLocationFree(randLocation, FREE_RADIUS)) {
+			randLocation = new Position(rand.nextFloat() * space.getWidth(), rand.nextFloat() * space.getHeight());
+		}
+		return randLocation;
+	}
+
+	@Benchmark
+	public Position getRandomFreeLocation(Locations locations) {
+		return locations.space.getRandomFreeLocation(locations.random, FREE_RADIUS);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Toroidal2DPhysics respawnTenth(Respawns respawns) {
+		respawns.space.respawnDeadObjects(respawns.random, 30);
+		return respawns.space;
+	}
+}
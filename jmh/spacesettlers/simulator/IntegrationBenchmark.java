@@ -0,0 +1,54 @@
+package spacesettlers.simulator;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+
+/**
+ * A physics time step in a world of thousands of moving asteroids, moving them one
+ * object at a time (a new Position each) and through the primitive arrays.  Add
+ * -prof gc to the JMH arguments to see the allocation per step.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=IntegrationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class IntegrationBenchmark {
+	@Param({"1000", "4000"})
+	public int numAsteroids;
+
+	@Param({"false", "true"})
+	public boolean useArrayIntegration;
+
+	Toroidal2DPhysics space;
+
+	HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		space = new BenchmarkWorld(numAsteroids, 2, 1).space;
+		space.useArrayIntegration = useArrayIntegration;
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics advanceTime() {
+		space.advanceTime(step++, noPowerups);
+		return space;
+	}
+}
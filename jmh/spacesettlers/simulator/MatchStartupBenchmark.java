@@ -0,0 +1,81 @@
+package spacesettlers.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import spacesettlers.configs.SpaceSettlersConfig;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+
+/**
+ * How long a game takes to start (reading the simulator config and making the
+ * simulator, which reads the team configs and makes and initializes the clients), with
+ * the ConfigCache emptied before every game (parsing everything again, as it used to)
+ * and with the cache kept across games (as a ladder or batch does).  For the first game
+ * of a JVM, add -bm ss -wi 0 -i 1 -f 10 to the JMH arguments.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=MatchStartupBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MatchStartupBenchmark {
+	static final String CONFIG_PATH = "../config/heuristicCompetitive/";
+
+	@Param({"false", "true"})
+	public boolean cached;
+
+	JSAPResult parserConfig;
+
+	SpaceSettlersSimulator simulator;
+
+	int game;
+
+	@Setup(Level.Trial)
+	public void setUp() throws JSAPException {
+		JSAP jsap = new JSAP();
+		jsap.registerParameter(new FlaggedOption("configPath", JSAP.STRING_PARSER, CONFIG_PATH, JSAP.REQUIRED,
+				JSAP.NO_SHORTFLAG, "configPath"));
+		jsap.registerParameter(new FlaggedOption("quiet", JSAP.BOOLEAN_PARSER, "true", JSAP.REQUIRED,
+				JSAP.NO_SHORTFLAG, "quiet"));
+		jsap.registerParameter(new FlaggedOption("profileInterval", JSAP.INTEGER_PARSER, "0", JSAP.REQUIRED,
+				JSAP.NO_SHORTFLAG, "profileInterval"));
+		parserConfig = jsap.parse(new String[0]);
+	}
+
+	@Setup(Level.Invocation)
+	public void clearCache() {
+		if (!cached) {
+			ConfigCache.clear();
+		}
+	}
+
+	/**
+	 * Shut the game's teams down again (outside of the timing)
+	 */
+	@TearDown(Level.Invocation)
+	public void shutdown() {
+		simulator.shutdownTeams();
+	}
+
+	@Benchmark
+	public SpaceSettlersSimulator startGame() throws SimulatorException {
+		SpaceSettlersConfig simConfig = SpaceSettlersSimulator.readConfigFile(CONFIG_PATH + "SpaceSettlersConfig.xml");
+		simConfig.setRandomSeed(++game);
+		simulator = new SpaceSettlersSimulator(simConfig, parserConfig);
+		return simulator;
+	}
+}
@@ -0,0 +1,56 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.actions.MoveAction;
+import spacesettlers.objects.Ship;
+import spacesettlers.utilities.Movement;
+
+/**
+ * Computes the movement of a move action for every ship (the pd control every
+ * move action runs each time step).
+ *
+ * Run with: ant jmh -Djmh.benchmarks=MoveActionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveActionBenchmark {
+
+	@State(Scope.Thread)
+	public static class Actions {
+		/**
+		 * One action per ship (in the same order as the ships in the world)
+		 */
+		public ArrayList<MoveAction> actions;
+
+		@Setup(Level.Trial)
+		public void setUp(WorldState state) {
+			actions = new ArrayList<MoveAction>();
+			for (int i = 0; i < state.ships.size(); i++) {
+				Ship ship = state.ships.get(i);
+				actions.add(new MoveAction(state.space, ship.getPosition(), 
+						state.asteroids.get(i % state.asteroids.size()).getPosition()));
+			}
+		}
+	}
+
+	@Benchmark
+	public double getMovement(WorldState state, Actions actions) {
+		double sum = 0;
+		for (int i = 0; i < state.ships.size(); i++) {
+			Movement movement = actions.actions.get(i).getMovement(state.space, state.ships.get(i));
+			sum += movement.getAngularAccleration();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,152 @@
+package spacesettlers.simulator;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Beacon;
+import spacesettlers.utilities.Position;
+
+/**
+ * The bookkeeping of a space full of objects the way it used to be done (a LinkedHashSet
+ * and a HashMap by UUID, with every new id from UUID.randomUUID) and with the space's
+ * ObjectRegistry: giving a tenth of the objects new ids (as respawning does), finding
+ * every object by its id, iterating over all of them and removing and adding a tenth of
+ * them (as weapons come and go).
+ *
+ * Run with: ant jmh -Djmh.benchmarks=ObjectRegistryBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ObjectRegistryBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int numObjects;
+
+	Beacon[] objects;
+
+	LinkedHashSet<AbstractObject> all;
+
+	HashMap<UUID, AbstractObject> byId;
+
+	/**
+	 * The ids of the objects in byId
+	 */
+	UUID[] oldIds;
+
+	Toroidal2DPhysics space;
+
+	/**
+	 * The ids of the objects in the space
+	 */
+	UUID[] newIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objects = new Beacon[numObjects];
+		all = new LinkedHashSet<AbstractObject>();
+		byId = new HashMap<UUID, AbstractObject>();
+		oldIds = new UUID[numObjects];
+		newIds = new UUID[numObjects];
+		space = new Toroidal2DPhysics(1080, 1600, 0.05);
+		for (int i = 0; i < numObjects; i++) {
+			objects[i] = new Beacon(new Position(i % 1600, i % 1080));
+			oldIds[i] = UUID.randomUUID();
+			all.add(objects[i]);
+			byId.put(oldIds[i], objects[i]);
+			space.addObject(objects[i]);
+			newIds[i] = objects[i].getId();
+		}
+	}
+
+	@Benchmark
+	public HashMap<UUID, AbstractObject> newIdsOld() {
+		for (int i = 0; i < objects.length; i += 10) {
+			byId.remove(oldIds[i]);
+			oldIds[i] = UUID.randomUUID();
+			byId.put(oldIds[i], objects[i]);
+		}
+		return byId;
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics newIdsRegistry() {
+		for (int i = 0; i < objects.length; i += 10) {
+			space.resetId(objects[i]);
+			newIds[i] = objects[i].getId();
+		}
+		return space;
+	}
+
+	@Benchmark
+	public double lookupsOld() {
+		double sum = 0;
+		for (UUID id : oldIds) {
+			sum += byId.get(id).getRadius();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double lookupsRegistry() {
+		double sum = 0;
+		for (UUID id : newIds) {
+			sum += space.getObjectById(id).getRadius();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double iterationOld() {
+		double sum = 0;
+		for (AbstractObject object : all) {
+			sum += object.getRadius();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double iterationRegistry() {
+		double sum = 0;
+		for (AbstractObject object : space.getAllObjects()) {
+			sum += object.getRadius();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public LinkedHashSet<AbstractObject> removeAndAddOld() {
+		for (int i = 0; i < objects.length; i += 10) {
+			all.remove(objects[i]);
+			byId.remove(oldIds[i]);
+		}
+		for (int i = 0; i < objects.length; i += 10) {
+			all.add(objects[i]);
+			byId.put(oldIds[i], objects[i]);
+		}
+		return all;
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics removeAndAddRegistry() {
+		for (int i = 0; i < objects.length; i += 10) {
+			space.removeObject(objects[i]);
+		}
+		for (int i = 0; i < objects.length; i += 10) {
+			space.addObject(objects[i]);
+		}
+		return space;
+	}
+}
@@ -0,0 +1,60 @@
+package spacesettlers.simulator;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+
+/**
+ * How the physics time step scales with the number of physics threads in a world of
+ * thousands of moving asteroids.  Compare the scores for physicsThreads=1 and the
+ * others to get the speedup.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=ParallelPhysicsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ParallelPhysicsBenchmark {
+	@Param({"8000"})
+	public int numAsteroids;
+
+	@Param({"1", "2", "4"})
+	public int physicsThreads;
+
+	Toroidal2DPhysics space;
+
+	HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		space = new BenchmarkWorld(numAsteroids, 2, 1).space;
+		space.setPhysicsThreads(physicsThreads);
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		space.setPhysicsThreads(1);
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics advanceTime() {
+		space.advanceTime(step++, noPowerups);
+		return space;
+	}
+}
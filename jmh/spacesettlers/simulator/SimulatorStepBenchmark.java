@@ -0,0 +1,133 @@
+package spacesettlers.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import spacesettlers.configs.SpaceSettlersConfig;
+
+/**
+ * A full simulator time step (clients, physics, purchases, respawns and scoring) with
+ * aggressive heuristic teams.  The config files for each set of parameters are written
+ * to a temporary directory so no config in the repository has to change.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=SimulatorStepBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SimulatorStepBenchmark {
+	@Param({"100", "400"})
+	public int numAsteroids;
+
+	@Param({"2", "8"})
+	public int numTeams;
+
+	@Param({"1", "4"})
+	public int shipsPerTeam;
+
+	SpaceSettlersSimulator simulator;
+
+	File configDir;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SimulatorException {
+		configDir = File.createTempFile("spacesettlers-jmh", "");
+		configDir.delete();
+		configDir.mkdirs();
+		writeConfigs();
+
+		RunBatch batch = new RunBatch(new String[] {
+				"--simulatorConfigFile", "SpaceSettlersConfig.xml",
+				"--configPath", configDir.getPath() + File.separator,
+				"--quiet", "true"});
+		SpaceSettlersConfig simConfig = SpaceSettlersSimulator.readConfigFile(
+				configDir.getPath() + File.separator + "SpaceSettlersConfig.xml");
+		simulator = new SpaceSettlersSimulator(simConfig, batch.config);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		simulator.shutdownTeams();
+		for (File file : configDir.listFiles()) {
+			file.delete();
+		}
+		configDir.delete();
+	}
+
+	@Benchmark
+	public int advanceTime() throws SimulatorException {
+		simulator.timestep++;
+		simulator.advanceTime();
+		return simulator.timestep;
+	}
+
+	/**
+	 * Write the simulator config and one client config with the benchmark parameters
+	 *
+	 * @throws IOException
+	 */
+	void writeConfigs() throws IOException {
+		PrintWriter client = new PrintWriter(new File(configDir, "heuristic-clientinit.xml"));
+		client.println("<TeamClientConfig>");
+		client.println("	<classname>spacesettlers.clients.AggressiveHeuristicAsteroidCollectorTeamClient</classname>");
+		client.println("	<teamColorRed>0</teamColorRed>");
+		client.println("	<teamColorGreen>200</teamColorGreen>");
+		client.println("	<teamColorBlue>200</teamColorBlue>");
+		client.println("	<ladderName>Aggressive Heuristic Asteroid Collector Team</ladderName>");
+		client.println("	<numberInitialShipsInTeam>" + shipsPerTeam + "</numberInitialShipsInTeam>");
+		client.println("</TeamClientConfig>");
+		client.close();
+
+		PrintWriter sim = new PrintWriter(new File(configDir, "SpaceSettlersConfig.xml"));
+		sim.println("<SpaceSettlersConfig>");
+		sim.println("	<height>1080</height>");
+		sim.println("	<width>1600</width>");
+		sim.println("	<simulationSteps>" + Integer.MAX_VALUE + "</simulationSteps>");
+		sim.println("	<simulationTimeStep>0.05</simulationTimeStep>");
+		sim.println("	<randomSeed>1</randomSeed>");
+		sim.println("	<scoringMethod>Resources</scoringMethod>");
+		sim.println("	<numBeacons>6</numBeacons>");
+		sim.println("	<maximumShipsPerTeam>" + shipsPerTeam + "</maximumShipsPerTeam>");
+		sim.println("	<maximumInitialShipsPerTeam>" + shipsPerTeam + "</maximumInitialShipsPerTeam>");
+		sim.println("	<teams>");
+		for (int t = 0; t < numTeams; t++) {
+			sim.println("		<HighLevelTeamConfig>");
+			sim.println("			<teamName>Team" + t + "</teamName>");
+			sim.println("			<configFile>heuristic-clientinit.xml</configFile>");
+			sim.println("		</HighLevelTeamConfig>");
+		}
+		sim.println("	</teams>");
+		sim.println("	<bases>");
+		for (int t = 0; t < numTeams; t++) {
+			sim.println("		<BaseConfig>");
+			sim.println("			<teamName>Team" + t + "</teamName>");
+			sim.println("		</BaseConfig>");
+		}
+		sim.println("	</bases>");
+		sim.println("	<randomAsteroids>");
+		sim.println("		<probabilityMineable>0.5</probabilityMineable>");
+		sim.println("		<numberInitialAsteroids>" + numAsteroids + "</numberInitialAsteroids>");
+		sim.println("		<maximumNumberAsteroids>" + numAsteroids + "</maximumNumberAsteroids>");
+		sim.println("		<probabilityMoveable>0.5</probabilityMoveable>");
+		sim.println("		<maxInitialVelocity>15</maxInitialVelocity>");
+		sim.println("		<probabilityFuelType>0.2</probabilityFuelType>");
+		sim.println("		<probabilityWaterType>0.5</probabilityWaterType>");
+		sim.println("		<probabilityMetalsType>0.3</probabilityMetalsType>");
+		sim.println("	</randomAsteroids>");
+		sim.println("</SpaceSettlersConfig>");
+		sim.close();
+	}
+}
@@ -0,0 +1,82 @@
+package spacesettlers.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+
+/**
+ * Finding the nearest mineable asteroid to every ship the way the heuristic clients
+ * used to (a loop over all of the asteroids) and through the spatial index.  Every
+ * call gets a fresh client snapshot (made outside of the timing) so the cost of
+ * building the index is included.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=SpatialQueryBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SpatialQueryBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int numAsteroids;
+
+	@Param({"8"})
+	public int numTeams;
+
+	@Param({"4"})
+	public int shipsPerTeam;
+
+	Toroidal2DPhysics space;
+
+	Toroidal2DPhysics snapshot;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		space = new BenchmarkWorld(numAsteroids, numTeams, shipsPerTeam).space;
+	}
+
+	@Setup(Level.Invocation)
+	public void makeSnapshot() {
+		space.invalidateClientSnapshot();
+		snapshot = space.getClientSnapshot();
+	}
+
+	@Benchmark
+	public int findByLoop() {
+		int found = 0;
+		for (Ship ship : snapshot.getShips()) {
+			double minDistance = Double.MAX_VALUE;
+			Asteroid nearest = null;
+			for (Asteroid asteroid : snapshot.getAsteroids()) {
+				if (asteroid.isMineable()) {
+					double distance = snapshot.findShortestDistanceSquared(ship.getPosition(), asteroid.getPosition());
+					if (distance < minDistance) {
+						minDistance = distance;
+						nearest = asteroid;
+					}
+				}
+			}
+			found += nearest == null ? 0 : 1;
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int findByIndex() {
+		int found = 0;
+		for (Ship ship : snapshot.getShips()) {
+			found += snapshot.findNearestMineableAsteroid(ship.getPosition(), null) == null ? 0 : 1;
+		}
+		return found;
+	}
+}
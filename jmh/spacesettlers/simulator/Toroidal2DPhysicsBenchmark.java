@@ -0,0 +1,54 @@
+package spacesettlers.simulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+
+/**
+ * The physics hot paths: a whole physics step, collision detection on its own,
+ * cloning the space for the clients and the distance queries the clients make.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=Toroidal2DPhysicsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Toroidal2DPhysicsBenchmark {
+
+	@Benchmark
+	public Toroidal2DPhysics advanceTime(WorldState state) {
+		state.space.advanceTime(state.step++, state.noPowerups);
+		return state.space;
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics detectCollisions(WorldState state) {
+		state.space.detectCollisions();
+		return state.space;
+	}
+
+	@Benchmark
+	public Toroidal2DPhysics deepClone(WorldState state) {
+		return state.space.deepClone();
+	}
+
+	/**
+	 * The distance from every ship to every asteroid (what a heuristic client does to
+	 * find the nearest asteroid)
+	 */
+	@Benchmark
+	public double findShortestDistance(WorldState state) {
+		double sum = 0;
+		for (Ship ship : state.ships) {
+			for (Asteroid asteroid : state.asteroids) {
+				sum += state.space.findShortestDistance(ship.getPosition(), asteroid.getPosition());
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,68 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import spacesettlers.actions.MoveToObjectAction;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+
+/**
+ * The world shared by the physics benchmarks: a space with the given number of asteroids,
+ * teams and ships per team (built the same way every time) where every ship is moving
+ * towards an asteroid.
+ */
+@State(Scope.Thread)
+public class WorldState {
+	@Param({"100", "400"})
+	public int numAsteroids;
+
+	@Param({"2", "8"})
+	public int numTeams;
+
+	@Param({"1", "4"})
+	public int shipsPerTeam;
+
+	public BenchmarkWorld world;
+
+	public Toroidal2DPhysics space;
+
+	public ArrayList<Asteroid> asteroids;
+
+	public ArrayList<Ship> ships;
+
+	public HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups;
+
+	/**
+	 * The time step passed to advanceTime
+	 */
+	public int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new BenchmarkWorld(numAsteroids, numTeams, shipsPerTeam);
+		space = world.space;
+		asteroids = new ArrayList<Asteroid>(space.getAsteroids());
+		ships = new ArrayList<Ship>();
+		noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+
+		Random random = new Random(numAsteroids + numTeams + shipsPerTeam);
+		for (Team team : world.teams) {
+			for (Ship ship : team.getShips()) {
+				Asteroid goal = asteroids.get(random.nextInt(asteroids.size()));
+				ship.setCurrentAction(new MoveToObjectAction(space, ship.getPosition(), goal));
+				ships.add(ship);
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package spacesettlers.utilities;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * AStarPathFinder searches on random roadmaps (vertices in a square joined to the ones
+ * near them).  Add -prof gc to the JMH arguments to see the memory the searches
+ * allocate once the finder is warm.
+ *
+ * Run with: ant jmh -Djmh.benchmarks=AStarPathFinderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AStarPathFinderBenchmark {
+	static final int NEIGHBORS = 8;
+
+	@Param({"200", "1000", "5000"})
+	public int numVertices;
+
+	AStarPathFinder finder;
+
+	/**
+	 * Make a roadmap with the start at 0 and the goal at the last vertex
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(numVertices);
+		double size = Math.sqrt(numVertices) * 100;
+		double[] x = new double[numVertices];
+		double[] y = new double[numVertices];
+		for (int v = 0; v < numVertices; v++) {
+			x[v] = random.nextDouble() * size;
+			y[v] = random.nextDouble() * size;
+		}
+		int goal = numVertices - 1;
+
+		finder = new AStarPathFinder();
+		for (int v = 0; v < numVertices; v++) {
+			finder.addVertex(Math.hypot(x[goal] - x[v], y[goal] - y[v]), v == goal);
+		}
+		// join vertices closer than the distance that gives about NEIGHBORS neighbors each
+		double maxDistance = Math.sqrt(NEIGHBORS / Math.PI) * 100;
+		for (int v1 = 0; v1 < numVertices; v1++) {
+			for (int v2 = 0; v2 < numVertices; v2++) {
+				double distance = Math.hypot(x[v2] - x[v1], y[v2] - y[v1]);
+				if (v1 != v2 && distance < maxDistance) {
+					finder.addEdge(v1, v2, distance);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int findPath() {
+		finder.findPath(0, Integer.MAX_VALUE);
+		return finder.getPathLength();
+	}
+}
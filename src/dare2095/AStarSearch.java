@@ -24,9 +24,9 @@ public class AStarSearch  {
 	/**
 	 * Fudge factor keeps you from going too close to obstacles
 	 */
-	private static final int fudge_factor = 10;
-	private static final int numGraphNodes = 200;
-	private static final double maxNodeDistance = 200;
+	static final int fudge_factor = 10;
+	static final int numGraphNodes = 200;
+	static final double maxNodeDistance = 200;
 	
 
 	/**
@@ -1,27 +1,25 @@
 package dare2095;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.List;
 import java.util.Set;
-import java.util.Vector;
-
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.TreeNode;
 
 import spacesettlers.graphics.SpacewarGraphics;
 import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.AStarPathFinder;
 
 public class Graph {
-	private Vector <Vertex> vertices;
-	private Vector <Edge> edges;
-	private Vector <Vertex>goals;
+	private List<Vertex> vertices;
+	private List<Edge> edges;
+	private List<Vertex> goals;
 	private Vertex start;
-	private static final int maxSearchSteps = 100;
+	static final int maxSearchSteps = 100;
 
 	public Graph() {
-		vertices = new Vector<Vertex>();
-		edges = new Vector<Edge>();
-		goals = new Vector<Vertex>();
+		vertices = new ArrayList<Vertex>();
+		edges = new ArrayList<Edge>();
+		goals = new ArrayList<Vertex>();
 	}
 
 	public void reset() {
@@ -51,7 +49,24 @@ public class Graph {
 		edges.add(e);
 	}
 
-	public Vector<Vertex> getVertices() {
+	/**
+	 * Adds the vertices of a path and the edges between them
+	 * @param path
+	 */
+	public void addPath(Vertex[] path) {
+		for (int t = 0; t < path.length; t++) {
+			addVertex(path[t]);
+			if (t > 0) {
+				for (Edge edge : path[t].edges) {
+					if (edge.getVertex1() == path[t - 1] || edge.getVertex2() == path[t - 1]) {
+						addEdge(edge);
+					}
+				}
+			}
+		}
+	}
+
+	public List<Vertex> getVertices() {
 		return vertices;
 	}
 
@@ -101,24 +116,27 @@ public class Graph {
 	}
 
 	
-	private void resetGraphForSearch() {
-		for (int v = 0; v < vertices.size(); v++) {
-			vertices.get(v).setExpanded(false);
-			vertices.get(v).setPathCost(0);
-		}
-	}
-
 	/**
 	 * find an optimal path from the start to the goal using astar
 	 * @return
 	 */
 	public Vertex[] findAStarPath(Toroidal2DPhysics state) {
-		double minDist, dist;
+		return findAStarPath(state, new AStarPathFinder());
+	}
 
-		// initialize the graph
-		resetGraphForSearch();
+	/**
+	 * find an optimal path from the start to the goal using astar.  The path finder
+	 * can be kept and used for every search so the search itself makes no new objects.
+	 * 
+	 * @param state
+	 * @param pathFinder
+	 * @return
+	 */
+	public Vertex[] findAStarPath(Toroidal2DPhysics state, AStarPathFinder pathFinder) {
+		double minDist, dist;
 
-		// setup the H distances.  G is already stored in the edges
+		// the vertices with their H distances.  G is stored in the edges
+		pathFinder.clear();
 		for (int v = 0; v < vertices.size(); v++) {
 			minDist = Double.MAX_VALUE;
 			Vertex vertex = vertices.get(v);
@@ -129,114 +147,37 @@ public class Graph {
 				}
 			}
 			vertex.setHeuristicCostToGoal(minDist);
+			vertex.index = pathFinder.addVertex(minDist, vertex.isGoal());
 		}
 
-		// now search for a goal using AStar.  The priority queue uses the search tree nodes
-		// because of Astar's ability to jump around in the search.  This is a clean way to
-		// both know where you are in the search tree and to know what the next node's priority is
-		PriorityQueue <DefaultMutableTreeNode>queue = 
-			new PriorityQueue<DefaultMutableTreeNode>(edges.size(), new TreeNodeComparator());
-
-		// start the search with the children of the start node.  
-		DefaultMutableTreeNode searchTree = new DefaultMutableTreeNode(new SearchNode(start, null));
-		start.setExpanded(true);
-		visitSuccessors(queue, searchTree, start);
-
-		// initilize the loop
-		boolean goalFound = false;
-		int steps = 0;
-		DefaultMutableTreeNode goalNode = null;
-
-		// search until we find a goal node, reach a maximum number of steps, or run out of 
-		// nodes to search
-		while (!goalFound && steps < maxSearchSteps && !queue.isEmpty()) {
-			// get the next node from the queue
-			DefaultMutableTreeNode currentNode = queue.poll();
-
-			// get the vertex object
-			SearchNode node = (SearchNode) currentNode.getUserObject();
-			Vertex nextVertex = node.getVertex();
-			while (nextVertex.isExpanded()) {
-				if (queue.isEmpty()) {
-					// we ran out of objects before finding the goal, return failure
-					return null;
-				}
-				
-				currentNode = queue.poll();
-
-				// get the vertex object
-				node = (SearchNode) currentNode.getUserObject();
-				nextVertex = node.getVertex();
+		// edges are bi-directional, so each edge of a vertex goes to its other end
+		// (in the order the vertex has them, which is the order they are searched)
+		for (int v = 0; v < vertices.size(); v++) {
+			Vertex vertex = vertices.get(v);
+			vertex.firstEdgeIndex = pathFinder.getNumEdges();
+			for (int e = 0; e < vertex.edges.size(); e++) {
+				Edge edge = vertex.edges.get(e);
+				Vertex other = edge.getVertex1() != vertex ? edge.getVertex1() : edge.getVertex2();
+				pathFinder.addEdge(vertex.index, other.index, edge.getPathCost());
 			}
-
-			// if it is a goal, quit
-			if (nextVertex.isGoal()) {
-				goalFound = true;
-				goalNode = currentNode;
-				break;
-			} 
-
-			// otherwise, mark it as expanded and visit it's successors
-			nextVertex.setExpanded(true);
-			visitSuccessors(queue, currentNode, nextVertex);
-
-			steps++;
 		}
 
-		// find the solution path for the agent to follow
-		// and mark it as a solution (so it changes color)
-		if (goalFound) {
-			TreeNode[] path = goalNode.getPath();
-			Vertex[] solutionPath = new Vertex[path.length];
-			
-			//System.out.println("Path is length " + path.length);
-
-			for (int t = 0; t < path.length; t++) {
-				TreeNode node = path[t];
-				
-				SearchNode searchNode = (SearchNode) ((DefaultMutableTreeNode) node).getUserObject();
-				searchNode.getVertex().setSolution();
-				solutionPath[t] = searchNode.getVertex();
-
-				if (searchNode.getEdge() != null) {
-					searchNode.getEdge().setSolution();
-				} 
-			}
-			return solutionPath;
-
-		} else {
+		if (!pathFinder.findPath(start.index, maxSearchSteps)) {
 			return null;
 		}
-	}
 
-	/**
-	 * Visits all successors of the listed vertex, adds all non-expanded ones 
-	 * to the queue and saves them in the search tree
-	 */
-	private void visitSuccessors(PriorityQueue<DefaultMutableTreeNode> queue, 
-			DefaultMutableTreeNode tree, Vertex vertex) {
-		for (Edge edge : vertex.getEdges()) {
-			Vertex child = edge.getVertex1();
-			if (!child.isExpanded()) {
-				child.setPathCost(vertex.getPathCost() + edge.getPathCost());
-				child.updateF();
-
-				DefaultMutableTreeNode node = new DefaultMutableTreeNode(new SearchNode(child, edge));
-				tree.add(node);
-				queue.add(node);
-			}
-
-			// edges are bi-directional
-			child = edge.getVertex2();
-			if (!child.isExpanded()) {
-				child.setPathCost(vertex.getPathCost() + edge.getPathCost());
-				child.updateF();
-
-				DefaultMutableTreeNode node = new DefaultMutableTreeNode(new SearchNode(child, edge));
-				tree.add(node);
-				queue.add(node);
+		// find the solution path for the agent to follow
+		// and mark it as a solution (so it changes color)
+		Vertex[] solutionPath = new Vertex[pathFinder.getPathLength()];
+		for (int t = 0; t < solutionPath.length; t++) {
+			solutionPath[t] = vertices.get(pathFinder.getPathVertex(t));
+			solutionPath[t].setSolution();
+			if (t > 0) {
+				Vertex previous = solutionPath[t - 1];
+				previous.edges.get(pathFinder.getPathEdge(t) - previous.firstEdgeIndex).setSolution();
 			}
 		}
+		return solutionPath;
 	}
 
 	public Vertex getStart() {
@@ -27,7 +27,9 @@ import spacesettlers.objects.Flag;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.ObjectFilter;
 import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.AStarPathFinder;
 import spacesettlers.utilities.Position;
 
 /**
@@ -47,6 +49,12 @@ public class MagicSchoolBusCTF extends TeamClient {
 	HashMap <UUID, Boolean> aimingForBase;
 	FollowPathAction followPathAction;
 	HashMap <UUID, Graph> graphByShip;
+
+	// the team's roadmap (kept for the whole game and updated as the obstacles move)
+	Roadmap roadmap;
+
+	// reused for every A* search (the roadmap puts each plan's graph into its arrays)
+	AStarPathFinder pathFinder = new AStarPathFinder();
 	
 	HashSet<Ship> flagCollectors;
 	HashSet<Ship> resourceCollectors;
@@ -245,19 +253,12 @@ public class MagicSchoolBusCTF extends TeamClient {
 	 * @return
 	 */
 	private Base findNearestBase(Toroidal2DPhysics space, Ship ship) {
-		double minDistance = Double.MAX_VALUE;
-		Base nearestBase = null;
-
-		for (Base base : space.getBases()) {
-			if (base.getTeamName().equalsIgnoreCase(ship.getTeamName())) {
-				double dist = space.findShortestDistance(ship.getPosition(), base.getPosition());
-				if (dist < minDistance) {
-					minDistance = dist;
-					nearestBase = base;
-				}
+		final String teamName = ship.getTeamName();
+		return space.findNearest(ship.getPosition(), Base.class, new ObjectFilter<Base>() {
+			public boolean accept(Base base) {
+				return base.getTeamName().equalsIgnoreCase(teamName);
 			}
-		}
-		return nearestBase;
+		});
 	}
 
 	/**
@@ -296,21 +297,7 @@ public class MagicSchoolBusCTF extends TeamClient {
 	 * @return
 	 */
 	private Beacon pickNearestBeacon(Toroidal2DPhysics space, Ship ship) {
-		// get the current beacons
-		Set<Beacon> beacons = space.getBeacons();
-
-		Beacon closestBeacon = null;
-		double bestDistance = Double.POSITIVE_INFINITY;
-
-		for (Beacon beacon : beacons) {
-			double dist = space.findShortestDistance(ship.getPosition(), beacon.getPosition());
-			if (dist < bestDistance) {
-				bestDistance = dist;
-				closestBeacon = beacon;
-			}
-		}
-
-		return closestBeacon;
+		return space.findNearest(ship.getPosition(), Beacon.class);
 	}
 
 
@@ -377,8 +364,8 @@ public class MagicSchoolBusCTF extends TeamClient {
 		HashSet<SpacewarGraphics> graphics = new HashSet<SpacewarGraphics>();
 		if (graphByShip != null) {
 			for (Graph graph : graphByShip.values()) {
-				// uncomment to see the full graph
-				//graphics.addAll(graph.getAllGraphics());
+				// the graphs only have the paths (roadmap.createGraphToGoalWithBeacons 
+				// makes the whole graph to draw with getAllGraphics)
 				graphics.addAll(graph.getSolutionPathGraphics());
 			}
 		}
@@ -538,11 +525,19 @@ public class MagicSchoolBusCTF extends TeamClient {
 	private AbstractAction getAStarPathToGoal(Toroidal2DPhysics space, Ship ship, Position goalPosition) {
 		AbstractAction newAction;
 		
-		Graph graph = AStarSearch.createGraphToGoalWithBeacons(space, ship, goalPosition, new Random());
-		Vertex[] path = graph.findAStarPath(space);
+		if (roadmap == null) {
+			roadmap = new Roadmap(space, getTeamName(), random == null ? new Random() : random);
+		}
+		Vertex[] path = roadmap.findAStarPath(space, ship, goalPosition, pathFinder);
 		followPathAction = new FollowPathAction(path);
 		//followPathAction.followNewPath(path);
 		newAction = followPathAction.followPath(space, ship);
+
+		// only the path is drawn
+		Graph graph = new Graph();
+		if (path != null) {
+			graph.addPath(path);
+		}
 		graphByShip.put(ship.getId(), graph);
 		return newAction;
 	}
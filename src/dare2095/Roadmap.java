@@ -0,0 +1,859 @@
+package dare2095;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Base;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Ship;
+import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.AStarPathFinder;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+/**
+ * A random roadmap for a team that is kept for the whole game (instead of making a new one
+ * for every plan like AStarSearch.createGraphToGoalWithBeacons).  Every pair of roadmap
+ * vertices closer than the maximum edge length is a possible edge, and the roadmap counts
+ * the obstacles in the way of each edge (in each direction) and the asteroids each vertex
+ * is inside.  When the obstacles move only the counts near them are updated, and the start,
+ * beacons and goal of a plan are connected to the roadmap when the plan is made.  When
+ * most of the obstacles have moved since the last plan, taking each one out of the counts
+ * and putting it back costs more than checking the edges from scratch, so the counts are
+ * dropped and the roadmap is checked against the obstacles near it instead (stopping at
+ * the first obstacle in the way and remembering it until the obstacles change) until most
+ * of the obstacles stay put again.
+ *
+ * A plan's graph goes straight into the arrays of an AStarPathFinder (see findAStarPath) 
+ * instead of being made as Vertex and Edge objects.
+ *
+ * The graphs are the same as createGraphToGoalWithBeacons makes for the same random
+ * vertices: a vertex is used if it is in free space and an edge if either direction is
+ * clear of every asteroid (except the goal) and every other team's base.
+ */
+public class Roadmap {
+	/**
+	 * An obstacle as it was the last time the roadmap was updated
+	 */
+	static class Obstacle {
+		Position position;
+		int radius;
+		boolean isAsteroid;
+		int generation;
+
+		Obstacle(AbstractObject object, boolean isAsteroid) {
+			this.position = new Position(object.getPosition().getX(), object.getPosition().getY());
+			this.radius = object.getRadius();
+			this.isAsteroid = isAsteroid;
+		}
+	}
+
+	String teamName;
+
+	Position[] vertexPositions;
+
+	/**
+	 * Number of asteroids each vertex is inside (it is only used when there are none)
+	 */
+	int[] vertexBlockers;
+
+	/**
+	 * The possible edges (from the lower numbered vertex to the higher one)
+	 */
+	int numEdges;
+	int[] edgeStart, edgeEnd;
+	Vector2D[] edgeLines;
+
+	/**
+	 * Number of obstacles in the way of each edge going forwards (start to end) and backwards
+	 */
+	int[] forwardBlockers, backwardBlockers;
+
+	/**
+	 * The possible edges of each vertex (in the order of the edges):
+	 * vertexEdges[firstVertexEdge[v]] to vertexEdges[firstVertexEdge[v + 1] - 1]
+	 */
+	int[] firstVertexEdge, vertexEdges;
+
+	/**
+	 * The vertices in each cell of a grid with cells at least the maximum edge length
+	 * across (so an obstacle can only change the vertices and edges of the cells around it)
+	 */
+	int gridColumns, gridRows;
+	double cellWidth, cellHeight;
+	int[][] cellVertices;
+
+	/**
+	 * Marks the edges already checked against an obstacle
+	 */
+	int[] edgeStamps;
+	int stamp;
+
+	/**
+	 * The obstacles by id and the number of updates (to find the ones that are gone)
+	 */
+	Map<UUID, Obstacle> obstacles;
+	int generation;
+
+	/**
+	 * True if the blocker counts are kept up to date (false after most of the obstacles moved)
+	 */
+	boolean isCounting;
+
+	/**
+	 * While not counting, the obstacles in each cell of the grid and the ones too big for 
+	 * the cells (as of the last update that changed anything)
+	 */
+	List<List<Obstacle>> cellObstacles;
+	List<Obstacle> bigObstacles;
+	int[] nearCells = new int[9];
+
+	/**
+	 * While not counting, whether each vertex is inside an asteroid and the first obstacle 
+	 * found in the way of each direction of each edge (null if it is clear), kept until the 
+	 * obstacles are binned again.  They are found as they are needed and the generation 
+	 * they were found in tells if they are still good.
+	 */
+	int binGeneration;
+	int[] vertexGenerations, forwardGenerations, backwardGenerations;
+	boolean[] vertexInside;
+	Obstacle[] forwardFirstBlockers, backwardFirstBlockers;
+
+	/**
+	 * Which way each possible edge can be used in the plan
+	 */
+	static final byte NONE = 0, FORWARDS = 1, BACKWARDS = 2;
+
+	/**
+	 * The graph of the last plan (kept between plans so the arrays are only made once).  The
+	 * new vertices (the start, the beacons and the goal) are numbered first and then the 
+	 * roadmap vertices in free space (planIndices is -1 for the others).  The roadmap edges 
+	 * are kept as the way they can be used.  The connection of new vertex n to roadmap 
+	 * vertex v is at connectionCosts[n * stride + v] and to a later new vertex m at 
+	 * [n * stride + the number of roadmap vertices + m]: the length of the edge, negative if
+	 * it goes to n, or 0 if there is none.
+	 */
+	List<Position> newPositions;
+	int numNewVertices, numPlanVertices;
+	int[] planIndices;
+	Position[] planPositions;
+	double[] edgeCosts;
+	byte[] edgeDirections;
+	double[] connectionCosts;
+
+	/**
+	 * Make the roadmap for a team
+	 *
+	 * @param space
+	 * @param teamName the team (its own bases aren't obstacles)
+	 * @param random used to place the vertices
+	 */
+	public Roadmap(Toroidal2DPhysics space, String teamName, Random random) {
+		this.teamName = teamName;
+		obstacles = new HashMap<UUID, Obstacle>();
+
+		// random vertices (the same ones createGraphToGoalWithBeacons would make)
+		vertexPositions = new Position[AStarSearch.numGraphNodes];
+		for (int v = 0; v < vertexPositions.length; v++) {
+			double newX = random.nextFloat() * space.getWidth();
+			double newY = random.nextFloat() * space.getHeight();
+			vertexPositions[v] = new Position(newX, newY);
+		}
+		vertexBlockers = new int[vertexPositions.length];
+		makeGrid(space);
+		vertexGenerations = new int[vertexPositions.length];
+		vertexInside = new boolean[vertexPositions.length];
+		newPositions = new ArrayList<Position>();
+		planIndices = new int[vertexPositions.length];
+		planPositions = new Position[0];
+		connectionCosts = new double[0];
+		cellObstacles = new ArrayList<List<Obstacle>>();
+		for (int cell = 0; cell < gridColumns * gridRows; cell++) {
+			cellObstacles.add(new ArrayList<Obstacle>());
+		}
+		bigObstacles = new ArrayList<Obstacle>();
+
+		// every pair close enough to be connected
+		List<int[]> pairs = new ArrayList<int[]>();
+		int[] numVertexEdges = new int[vertexPositions.length];
+		for (int v1 = 0; v1 < vertexPositions.length; v1++) {
+			for (int v2 = v1 + 1; v2 < vertexPositions.length; v2++) {
+				double distance = space.findShortestDistance(vertexPositions[v1], vertexPositions[v2]);
+				if (distance > 0 && distance < AStarSearch.maxNodeDistance) {
+					pairs.add(new int[] {v1, v2});
+					numVertexEdges[v1]++;
+					numVertexEdges[v2]++;
+				}
+			}
+		}
+
+		numEdges = pairs.size();
+		edgeStart = new int[numEdges];
+		edgeEnd = new int[numEdges];
+		edgeLines = new Vector2D[numEdges];
+		forwardBlockers = new int[numEdges];
+		backwardBlockers = new int[numEdges];
+		edgeStamps = new int[numEdges];
+		forwardGenerations = new int[numEdges];
+		backwardGenerations = new int[numEdges];
+		forwardFirstBlockers = new Obstacle[numEdges];
+		backwardFirstBlockers = new Obstacle[numEdges];
+		edgeCosts = new double[numEdges];
+		edgeDirections = new byte[numEdges];
+		firstVertexEdge = new int[vertexPositions.length + 1];
+		for (int v = 0; v < vertexPositions.length; v++) {
+			firstVertexEdge[v + 1] = firstVertexEdge[v] + numVertexEdges[v];
+			numVertexEdges[v] = firstVertexEdge[v];
+		}
+		vertexEdges = new int[2 * numEdges];
+		for (int e = 0; e < numEdges; e++) {
+			int v1 = pairs.get(e)[0];
+			int v2 = pairs.get(e)[1];
+			edgeStart[e] = v1;
+			edgeEnd[e] = v2;
+			edgeLines[e] = space.findShortestDistanceVector(vertexPositions[v1], vertexPositions[v2]);
+			edgeCosts[e] = edgeLines[e].getMagnitude();
+			vertexEdges[numVertexEdges[v1]++] = e;
+			vertexEdges[numVertexEdges[v2]++] = e;
+		}
+		binObstacles();
+	}
+
+	/**
+	 * Put the vertices into the cells of the grid
+	 */
+	private void makeGrid(Toroidal2DPhysics space) {
+		gridColumns = Math.max(1, (int) (space.getWidth() / AStarSearch.maxNodeDistance));
+		gridRows = Math.max(1, (int) (space.getHeight() / AStarSearch.maxNodeDistance));
+		cellWidth = (double) space.getWidth() / gridColumns;
+		cellHeight = (double) space.getHeight() / gridRows;
+
+		int[] cells = new int[vertexPositions.length];
+		int[] cellSizes = new int[gridColumns * gridRows];
+		for (int v = 0; v < vertexPositions.length; v++) {
+			cells[v] = getCell(vertexPositions[v]);
+			cellSizes[cells[v]]++;
+		}
+		cellVertices = new int[cellSizes.length][];
+		for (int cell = 0; cell < cellSizes.length; cell++) {
+			cellVertices[cell] = new int[cellSizes[cell]];
+			cellSizes[cell] = 0;
+		}
+		for (int v = 0; v < vertexPositions.length; v++) {
+			cellVertices[cells[v]][cellSizes[cells[v]]++] = v;
+		}
+	}
+
+	private int getCell(Position position) {
+		return getRow(position) * gridColumns + getColumn(position);
+	}
+
+	private int getColumn(Position position) {
+		return Math.min(gridColumns - 1, Math.max(0, (int) (position.getX() / cellWidth)));
+	}
+
+	private int getRow(Position position) {
+		return Math.min(gridRows - 1, Math.max(0, (int) (position.getY() / cellHeight)));
+	}
+
+	/**
+	 * Find the cell of the position and the cells around it (each once)
+	 *
+	 * @param position
+	 * @param cells filled with the cells (needs room for 9)
+	 * @return the number of cells
+	 */
+	private int getNearCells(Position position, int[] cells) {
+		int firstColumn = 0, lastColumn = gridColumns - 1;
+		if (gridColumns >= 3) {
+			firstColumn = getColumn(position) - 1;
+			lastColumn = firstColumn + 2;
+		}
+		int firstRow = 0, lastRow = gridRows - 1;
+		if (gridRows >= 3) {
+			firstRow = getRow(position) - 1;
+			lastRow = firstRow + 2;
+		}
+
+		int count = 0;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				cells[count++] = ((row + gridRows) % gridRows) * gridColumns + (column + gridColumns) % gridColumns;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Is the obstacle too big to only change the cells around it?
+	 */
+	private boolean isBig(Obstacle obstacle) {
+		return obstacle.radius + AStarSearch.fudge_factor > AStarSearch.maxNodeDistance;
+	}
+
+	/**
+	 * Catch up with the obstacles in the space: the ones that are new, moved, changed
+	 * size or are gone update the counts of the vertices and edges near them.  If most
+	 * of the obstacles changed, the counts are dropped instead (and counted again from
+	 * scratch once an update finds most of them where they were).
+	 *
+	 * @param space
+	 * @param goalPosition
+	 * @return the asteroids at the goal (they don't block the plan to it)
+	 */
+	List<Obstacle> update(Toroidal2DPhysics space, Position goalPosition) {
+		generation++;
+		List<Obstacle> goalObstacles = new ArrayList<Obstacle>();
+
+		List<AbstractObject> objects = new ArrayList<AbstractObject>(space.getAsteroids());
+		for (Base base : space.getBases()) {
+			if (!base.getTeamName().equalsIgnoreCase(teamName)) {
+				objects.add(base);
+			}
+		}
+
+		// count the obstacles that are new, moved, changed size or are gone
+		int numChanged = 0;
+		int numKept = 0;
+		for (AbstractObject object : objects) {
+			Obstacle obstacle = obstacles.get(object.getId());
+			if (obstacle == null) {
+				numChanged++;
+			} else {
+				numKept++;
+				if (isChanged(obstacle, object)) {
+					numChanged++;
+				}
+			}
+		}
+		numChanged += obstacles.size() - numKept;
+
+		// a plan that sees no change keeps doing what the last one did
+		boolean wasCounting = isCounting;
+		if (numChanged > 0) {
+			isCounting = 2 * numChanged <= objects.size() + obstacles.size() - numKept;
+		}
+		boolean updateCounts = isCounting && wasCounting;
+
+		for (AbstractObject object : objects) {
+			Obstacle obstacle = updateObstacle(space, object, object instanceof Asteroid, updateCounts);
+			if (object instanceof Asteroid && object.getPosition().equals(goalPosition)) {
+				goalObstacles.add(obstacle);
+			}
+		}
+
+		// anything not seen is gone
+		Iterator<Obstacle> iterator = obstacles.values().iterator();
+		while (iterator.hasNext()) {
+			Obstacle obstacle = iterator.next();
+			if (obstacle.generation != generation) {
+				if (updateCounts) {
+					addBlocker(space, obstacle, -1, true);
+				}
+				iterator.remove();
+			}
+		}
+
+		if (isCounting && !wasCounting) {
+			countBlockers(space);
+		} else if (!isCounting && numChanged > 0) {
+			binObstacles();
+		}
+		return goalObstacles;
+	}
+
+	private boolean isChanged(Obstacle obstacle, AbstractObject object) {
+		return !obstacle.position.equalsLocationOnly(object.getPosition()) || obstacle.radius != object.getRadius();
+	}
+
+	private Obstacle updateObstacle(Toroidal2DPhysics space, AbstractObject object, boolean isAsteroid, boolean updateCounts) {
+		Obstacle obstacle = obstacles.get(object.getId());
+		if (obstacle == null) {
+			obstacle = new Obstacle(object, isAsteroid);
+			obstacles.put(object.getId(), obstacle);
+			if (updateCounts) {
+				addBlocker(space, obstacle, 1, true);
+			}
+		} else if (isChanged(obstacle, object)) {
+			if (updateCounts) {
+				addBlocker(space, obstacle, -1, true);
+			}
+			obstacle.position = new Position(object.getPosition().getX(), object.getPosition().getY());
+			obstacle.radius = object.getRadius();
+			if (updateCounts) {
+				addBlocker(space, obstacle, 1, true);
+			}
+		}
+		obstacle.generation = generation;
+		return obstacle;
+	}
+
+	/**
+	 * Count the blockers of every vertex and edge from scratch
+	 */
+	private void countBlockers(Toroidal2DPhysics space) {
+		Arrays.fill(vertexBlockers, 0);
+		Arrays.fill(forwardBlockers, 0);
+		Arrays.fill(backwardBlockers, 0);
+		for (Obstacle obstacle : obstacles.values()) {
+			addBlocker(space, obstacle, 1, true);
+		}
+	}
+
+	/**
+	 * Put the obstacles into the cells of the grid (for checking without the counts)
+	 */
+	private void binObstacles() {
+		binGeneration++;
+		for (List<Obstacle> cell : cellObstacles) {
+			cell.clear();
+		}
+		bigObstacles.clear();
+		for (Obstacle obstacle : obstacles.values()) {
+			if (isBig(obstacle)) {
+				bigObstacles.add(obstacle);
+			} else {
+				cellObstacles.get(getCell(obstacle.position)).add(obstacle);
+			}
+		}
+	}
+
+	/**
+	 * Add (or take away) an obstacle from the counts of the vertices it is in and the
+	 * edges it is in the way of.  Only edges with an end within the maximum edge length
+	 * can be blocked (isPathClearOfObstructions ignores obstructions further from the
+	 * start than the end).
+	 *
+	 * @param space
+	 * @param obstacle
+	 * @param count 1 to add the obstacle or -1 to take it away
+	 * @param includeVertices false to only change the edges
+	 */
+	void addBlocker(Toroidal2DPhysics space, Obstacle obstacle, int count, boolean includeVertices) {
+		stamp++;
+
+		// the cells around the obstacle (all of them if it is too big)
+		if (isBig(obstacle)) {
+			for (int cell = 0; cell < cellVertices.length; cell++) {
+				addBlocker(space, obstacle, count, includeVertices, cellVertices[cell]);
+			}
+		} else {
+			int numCells = getNearCells(obstacle.position, nearCells);
+			for (int c = 0; c < numCells; c++) {
+				addBlocker(space, obstacle, count, includeVertices, cellVertices[nearCells[c]]);
+			}
+		}
+	}
+
+	private void addBlocker(Toroidal2DPhysics space, Obstacle obstacle, int count, boolean includeVertices, int[] cellVertices) {
+		for (int v : cellVertices) {
+			double distance = space.findShortestDistance(obstacle.position, vertexPositions[v]);
+			if (includeVertices && obstacle.isAsteroid && distance < obstacle.radius + AStarSearch.fudge_factor) {
+				vertexBlockers[v] += count;
+			}
+			if (distance > AStarSearch.maxNodeDistance) {
+				continue;
+			}
+
+			for (int i = firstVertexEdge[v]; i < firstVertexEdge[v + 1]; i++) {
+				int e = vertexEdges[i];
+				if (edgeStamps[e] == stamp) {
+					continue;
+				}
+				edgeStamps[e] = stamp;
+				Position start = vertexPositions[edgeStart[e]];
+				Position end = vertexPositions[edgeEnd[e]];
+				if (!space.isPathClearOfObstruction(start, end, obstacle.position, obstacle.radius, AStarSearch.fudge_factor)) {
+					forwardBlockers[e] += count;
+				}
+				if (!space.isPathClearOfObstruction(end, start, obstacle.position, obstacle.radius, AStarSearch.fudge_factor)) {
+					backwardBlockers[e] += count;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Make the graph to plan a path from the ship to the goal (the roadmap as it is now plus
+	 * the ship, the beacons and the goal) and keep it in the plan arrays
+	 *
+	 * @param space
+	 * @param myShip
+	 * @param goalPosition
+	 */
+	private void makePlan(Toroidal2DPhysics space, Ship myShip, Position goalPosition) {
+		List<Obstacle> goalObstacles = update(space, goalPosition);
+
+		// the goal asteroid isn't in the way (but the vertices inside it still aren't used)
+		if (isCounting) {
+			for (Obstacle obstacle : goalObstacles) {
+				addBlocker(space, obstacle, -1, false);
+			}
+		}
+
+		// the start, the beacons and the goal
+		newPositions.clear();
+		newPositions.add(myShip.getPosition());
+		for (Beacon beacon : space.getBeacons()) {
+			newPositions.add(beacon.getPosition());
+		}
+		newPositions.add(goalPosition);
+		numNewVertices = newPositions.size();
+
+		// then the roadmap vertices that are in free space
+		numPlanVertices = numNewVertices;
+		for (int v = 0; v < vertexPositions.length; v++) {
+			if (isCounting ? vertexBlockers[v] == 0 : !isInsideAsteroid(space, v)) {
+				planIndices[v] = numPlanVertices++;
+			} else {
+				planIndices[v] = -1;
+			}
+		}
+		if (planPositions.length < numPlanVertices) {
+			planPositions = new Position[numPlanVertices * 2];
+		}
+		for (int n = 0; n < numNewVertices; n++) {
+			planPositions[n] = newPositions.get(n);
+		}
+		for (int v = 0; v < vertexPositions.length; v++) {
+			if (planIndices[v] >= 0) {
+				planPositions[planIndices[v]] = vertexPositions[v];
+			}
+		}
+
+		// the roadmap edges that are clear
+		for (int e = 0; e < numEdges; e++) {
+			edgeDirections[e] = NONE;
+			if (planIndices[edgeStart[e]] < 0 || planIndices[edgeEnd[e]] < 0) {
+				continue;
+			}
+			if (isCounting ? forwardBlockers[e] == 0 : isEdgeClear(space, e, true, goalObstacles)) {
+				edgeDirections[e] = FORWARDS;
+			} else if (isCounting ? backwardBlockers[e] == 0 : isEdgeClear(space, e, false, goalObstacles)) {
+				edgeDirections[e] = BACKWARDS;
+			}
+		}
+
+		// connect the new vertices to the roadmap and each other
+		int stride = getConnectionStride();
+		if (connectionCosts.length < numNewVertices * stride) {
+			connectionCosts = new double[numNewVertices * stride * 2];
+		}
+		for (int n = 0; n < numNewVertices; n++) {
+			Position position = newPositions.get(n);
+			List<Obstacle> nearObstacles = getNearObstacles(space, position, goalObstacles);
+			for (int v = 0; v < vertexPositions.length; v++) {
+				connectionCosts[n * stride + v] = planIndices[v] < 0 ? 0 
+						: getConnectionCost(space, position, vertexPositions[v], nearObstacles);
+			}
+			for (int other = n + 1; other < numNewVertices; other++) {
+				connectionCosts[n * stride + vertexPositions.length + other] = 
+						getConnectionCost(space, position, newPositions.get(other), nearObstacles);
+			}
+		}
+
+		if (isCounting) {
+			for (Obstacle obstacle : goalObstacles) {
+				addBlocker(space, obstacle, 1, false);
+			}
+		}
+	}
+
+	/**
+	 * Where the connections of each new vertex start in connectionCosts
+	 */
+	private int getConnectionStride() {
+		return vertexPositions.length + numNewVertices;
+	}
+
+	/**
+	 * Plan a path from the ship to the goal with A*.  The graph goes straight into the 
+	 * arrays of the path finder (no vertex or edge objects are made for it), so keeping the 
+	 * path finder for every plan keeps the arrays as well.  The vertices and edges of the 
+	 * graph are in the same order as in createGraphToGoalWithBeacons, so the path is the 
+	 * one Graph.findAStarPath finds in that graph.
+	 *
+	 * @param space
+	 * @param myShip
+	 * @param goalPosition
+	 * @param pathFinder
+	 * @return the path (marked as the solution) or null if there is none
+	 */
+	public Vertex[] findAStarPath(Toroidal2DPhysics space, Ship myShip, Position goalPosition, AStarPathFinder pathFinder) {
+		makePlan(space, myShip, goalPosition);
+
+		pathFinder.clear();
+		for (int i = 0; i < numPlanVertices; i++) {
+			pathFinder.addVertex(space.findShortestDistance(planPositions[i], goalPosition), i == numNewVertices - 1);
+		}
+
+		// the edges of each vertex in the order createGraphToGoalWithBeacons gives them to 
+		// it: a new vertex has its edges from the new vertices before it, then to the roadmap 
+		// and then to the new vertices after it, and a roadmap vertex has its roadmap edges 
+		// and then its edges from the new vertices
+		int stride = getConnectionStride();
+		for (int n = 0; n < numNewVertices; n++) {
+			for (int other = 0; other < n; other++) {
+				addConnection(pathFinder, n, other, connectionCosts[other * stride + vertexPositions.length + n]);
+			}
+			for (int v = 0; v < vertexPositions.length; v++) {
+				addConnection(pathFinder, n, planIndices[v], connectionCosts[n * stride + v]);
+			}
+			for (int other = n + 1; other < numNewVertices; other++) {
+				addConnection(pathFinder, n, other, connectionCosts[n * stride + vertexPositions.length + other]);
+			}
+		}
+		for (int v = 0; v < vertexPositions.length; v++) {
+			if (planIndices[v] < 0) {
+				continue;
+			}
+			for (int i = firstVertexEdge[v]; i < firstVertexEdge[v + 1]; i++) {
+				int e = vertexEdges[i];
+				if (edgeDirections[e] != NONE) {
+					int other = edgeStart[e] == v ? edgeEnd[e] : edgeStart[e];
+					pathFinder.addEdge(planIndices[v], planIndices[other], edgeCosts[e]);
+				}
+			}
+			for (int n = 0; n < numNewVertices; n++) {
+				addConnection(pathFinder, planIndices[v], n, connectionCosts[n * stride + v]);
+			}
+		}
+
+		if (!pathFinder.findPath(0, Graph.maxSearchSteps)) {
+			return null;
+		}
+
+		// only the vertices and edges of the path are made
+		Vertex[] path = new Vertex[pathFinder.getPathLength()];
+		for (int t = 0; t < path.length; t++) {
+			path[t] = new Vertex(planPositions[pathFinder.getPathVertex(t)]);
+			path[t].setSolution();
+			if (t > 0) {
+				Edge edge = new Edge(path[t - 1], path[t], 
+						space.findShortestDistanceVector(path[t - 1].getPosition(), path[t].getPosition()));
+				edge.setSolution();
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Add the edge of a connection to the path finder (if there is one)
+	 */
+	private void addConnection(AStarPathFinder pathFinder, int from, int to, double cost) {
+		if (cost != 0) {
+			pathFinder.addEdge(from, to, Math.abs(cost));
+		}
+	}
+
+	/**
+	 * Make the graph to plan a path from the ship to the goal: the roadmap (as it is now)
+	 * plus the ship, the beacons and the goal.  Planning with findAStarPath is faster; this
+	 * makes the whole graph as objects (to draw it or check it).
+	 *
+	 * @param space
+	 * @param myShip
+	 * @param goalPosition
+	 * @return
+	 */
+	public Graph createGraphToGoalWithBeacons(Toroidal2DPhysics space, Ship myShip, Position goalPosition) {
+		makePlan(space, myShip, goalPosition);
+
+		Graph graph = new Graph();
+		Vertex[] vertices = new Vertex[numPlanVertices];
+		for (int i = 0; i < numPlanVertices; i++) {
+			vertices[i] = new Vertex(planPositions[i]);
+			if (i == 0) {
+				vertices[i].setStart();
+			} else if (i == numNewVertices - 1) {
+				vertices[i].setGoal();
+			}
+			graph.addVertex(vertices[i]);
+		}
+
+		for (int e = 0; e < numEdges; e++) {
+			if (edgeDirections[e] == NONE) {
+				continue;
+			}
+			Vertex start = vertices[planIndices[edgeStart[e]]];
+			Vertex end = vertices[planIndices[edgeEnd[e]]];
+			if (edgeDirections[e] == FORWARDS) {
+				graph.addEdge(new Edge(start, end, edgeLines[e]));
+			} else {
+				graph.addEdge(new Edge(end, start, edgeLines[e].negate()));
+			}
+		}
+
+		int stride = getConnectionStride();
+		for (int n = 0; n < numNewVertices; n++) {
+			for (int v = 0; v < vertexPositions.length; v++) {
+				if (planIndices[v] >= 0) {
+					addConnection(space, graph, vertices[n], vertices[planIndices[v]], connectionCosts[n * stride + v]);
+				}
+			}
+			for (int other = n + 1; other < numNewVertices; other++) {
+				addConnection(space, graph, vertices[n], vertices[other], connectionCosts[n * stride + vertexPositions.length + other]);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Add the edge of a connection to the graph (if there is one)
+	 */
+	private void addConnection(Toroidal2DPhysics space, Graph graph, Vertex vertex1, Vertex vertex2, double cost) {
+		if (cost > 0) {
+			graph.addEdge(new Edge(vertex1, vertex2, space.findShortestDistanceVector(vertex1.getPosition(), vertex2.getPosition())));
+		} else if (cost < 0) {
+			graph.addEdge(new Edge(vertex2, vertex1, space.findShortestDistanceVector(vertex2.getPosition(), vertex1.getPosition())));
+		}
+	}
+
+	/**
+	 * Is the vertex inside an asteroid (checked against the binned obstacles instead of 
+	 * the counts)?
+	 */
+	private boolean isInsideAsteroid(Toroidal2DPhysics space, int v) {
+		if (vertexGenerations[v] != binGeneration) {
+			vertexGenerations[v] = binGeneration;
+			vertexInside[v] = isInsideAsteroid(space, vertexPositions[v]);
+		}
+		return vertexInside[v];
+	}
+
+	private boolean isInsideAsteroid(Toroidal2DPhysics space, Position position) {
+		for (Obstacle obstacle : bigObstacles) {
+			if (obstacle.isAsteroid && space.findShortestDistance(obstacle.position, position) < obstacle.radius + AStarSearch.fudge_factor) {
+				return true;
+			}
+		}
+		int numCells = getNearCells(position, nearCells);
+		for (int c = 0; c < numCells; c++) {
+			for (Obstacle obstacle : cellObstacles.get(nearCells[c])) {
+				if (obstacle.isAsteroid && space.findShortestDistance(obstacle.position, position) < obstacle.radius + AStarSearch.fudge_factor) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Is a direction of an edge clear of the binned obstacles (other than the goal)?
+	 *
+	 * @param space
+	 * @param e the edge
+	 * @param forwards true for start to end, false for end to start
+	 * @param goalObstacles
+	 * @return
+	 */
+	private boolean isEdgeClear(Toroidal2DPhysics space, int e, boolean forwards, List<Obstacle> goalObstacles) {
+		int[] generations = forwards ? forwardGenerations : backwardGenerations;
+		Obstacle[] firstBlockers = forwards ? forwardFirstBlockers : backwardFirstBlockers;
+		if (generations[e] != binGeneration) {
+			generations[e] = binGeneration;
+			firstBlockers[e] = findFirstBlocker(space, e, forwards, Collections.<Obstacle>emptyList());
+		}
+
+		if (firstBlockers[e] == null) {
+			return true;
+		}
+		if (!goalObstacles.contains(firstBlockers[e])) {
+			return false;
+		}
+		// the goal is in the way but something else may be as well
+		return findFirstBlocker(space, e, forwards, goalObstacles) == null;
+	}
+
+	/**
+	 * Find an obstacle (other than the ones skipped) in the way of a direction of an edge.  
+	 * An obstacle is only checked if it is within the maximum edge length of an end of the 
+	 * edge, the same as for the counts in addBlocker.
+	 *
+	 * @param space
+	 * @param e the edge
+	 * @param forwards true for start to end, false for end to start
+	 * @param skipped
+	 * @return the first obstacle found in the way or null if the edge is clear
+	 */
+	private Obstacle findFirstBlocker(Toroidal2DPhysics space, int e, boolean forwards, List<Obstacle> skipped) {
+		Position start = vertexPositions[forwards ? edgeStart[e] : edgeEnd[e]];
+		Position end = vertexPositions[forwards ? edgeEnd[e] : edgeStart[e]];
+		Obstacle blocker = findFirstBlocker(space, start, end, bigObstacles, skipped);
+
+		// the obstacles near an end are in the cells around it
+		for (int side = 0; side < 2 && blocker == null; side++) {
+			int numCells = getNearCells(side == 0 ? start : end, nearCells);
+			for (int c = 0; c < numCells && blocker == null; c++) {
+				blocker = findFirstBlocker(space, start, end, cellObstacles.get(nearCells[c]), skipped);
+			}
+		}
+		return blocker;
+	}
+
+	private Obstacle findFirstBlocker(Toroidal2DPhysics space, Position start, Position end, 
+			List<Obstacle> candidates, List<Obstacle> skipped) {
+		for (Obstacle obstacle : candidates) {
+			if (space.findShortestDistance(obstacle.position, start) > AStarSearch.maxNodeDistance
+					&& space.findShortestDistance(obstacle.position, end) > AStarSearch.maxNodeDistance) {
+				continue;
+			}
+			if (!space.isPathClearOfObstruction(start, end, obstacle.position, obstacle.radius, AStarSearch.fudge_factor)
+					&& !skipped.contains(obstacle)) {
+				return obstacle;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The obstacles that can be in the way of an edge from the position (in either
+	 * direction, so twice the maximum edge length)
+	 */
+	private List<Obstacle> getNearObstacles(Toroidal2DPhysics space, Position position, List<Obstacle> goalObstacles) {
+		List<Obstacle> nearObstacles = new ArrayList<Obstacle>();
+		for (Obstacle obstacle : obstacles.values()) {
+			if (space.findShortestDistance(position, obstacle.position) <= 2 * AStarSearch.maxNodeDistance
+					&& !goalObstacles.contains(obstacle)) {
+				nearObstacles.add(obstacle);
+			}
+		}
+		return nearObstacles;
+	}
+
+	/**
+	 * Two positions are connected if they are close enough and one of the directions is clear
+	 *
+	 * @return the length of the edge (negative if it goes from position2 to position1) or 0 if there is none
+	 */
+	private double getConnectionCost(Toroidal2DPhysics space, Position position1, Position position2, List<Obstacle> nearObstacles) {
+		double distance = space.findShortestDistance(position1, position2);
+		if (distance <= 0 || distance >= AStarSearch.maxNodeDistance) {
+			return 0;
+		}
+		if (isClear(space, position1, position2, nearObstacles)) {
+			return space.findShortestDistanceVector(position1, position2).getMagnitude();
+		} else if (isClear(space, position2, position1, nearObstacles)) {
+			return -space.findShortestDistanceVector(position2, position1).getMagnitude();
+		}
+		return 0;
+	}
+
+	private boolean isClear(Toroidal2DPhysics space, Position start, Position end, List<Obstacle> nearObstacles) {
+		for (Obstacle obstacle : nearObstacles) {
+			if (!space.isPathClearOfObstruction(start, end, obstacle.position, obstacle.radius, AStarSearch.fudge_factor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
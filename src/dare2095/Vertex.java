@@ -1,7 +1,8 @@
 package dare2095;
 
 import java.awt.Color;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 import spacesettlers.graphics.CircleGraphics;
 import spacesettlers.graphics.SpacewarGraphics;
@@ -15,7 +16,13 @@ public class Vertex {
 	private boolean isSolution;
 	private double heuristicCostToGoal, pathCost, F;
 	private boolean expanded;
-	private Vector <Edge> edges;
+	List<Edge> edges;
+
+	/**
+	 * Number of the vertex and of its first edge in the path finder
+	 * (its edges are numbered from there in the order it has them)
+	 */
+	int index, firstEdgeIndex;
 	
 	public Vertex(Position location) {
 		this.location = location;
@@ -24,7 +31,7 @@ public class Vertex {
 		isGoal = false;
 		isStart = false;
 		isSolution = false;
-		edges = new Vector<Edge>();
+		edges = new ArrayList<Edge>();
 	}
 	
 	public boolean isConnectedTo(Vertex v) {
@@ -1,16 +1,10 @@
 package spacesettlers.actions;
 
-import java.util.HashMap;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.weapons.AbstractWeapon;
+import spacesettlers.simulator.CallbackScheduler;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Movement;
 
@@ -36,39 +30,54 @@ abstract public class AbstractAction {
 	 */
 	abstract public Movement getMovement(Toroidal2DPhysics space, Ship ship);
 
+	/**
+	 * The scheduler of the timed getMovement that is not given one.  All of its calls 
+	 * share one lane, so it never holds more than one (daemon) thread.
+	 */
+	static CallbackScheduler sharedScheduler;
+
+	/**
+	 * The lane of every call on the shared scheduler
+	 */
+	static final String SHARED_LANE = "getMovement";
+
+	static synchronized CallbackScheduler getSharedScheduler() {
+		if (sharedScheduler == null) {
+			sharedScheduler = new CallbackScheduler();
+		}
+		return sharedScheduler;
+	}
+
 	/**
 	 * Calls the abstract getMovement with supplied timeout for response. If
-	 * nothing is returned in that time, simple return DoNothingAction (new Movement())
+	 * nothing is returned in that time, simple return DoNothingAction (new Movement()).
+	 * The calls of every ship take turns on one reused thread, so one that runs out of 
+	 * time makes the others return DoNothingAction until it finishes.
 	 *   
+	 * @deprecated pass a scheduler so each ship gets its own lane (the simulator 
+	 * passes in its scheduler)
 	 * @return
 	 */
+	@Deprecated
 	public Movement getMovement(Toroidal2DPhysics space, Ship ship, int timeout){
-		ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<Movement> future = executor.submit(new SpacewarActionCallable(this, space, ship));
-        
-        Movement movement = null;
-        try {
-            //start
-        	movement = future.get(timeout, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//return no movement
-        	movement = new Movement();
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//return no movement
-        	movement = new Movement();
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-			//return no movement
-        	movement = new Movement();
-		}
+		Object owner = (ship == null) ? SHARED_LANE : ship.getTeamName();
+		return getSharedScheduler().call(owner, SHARED_LANE, "getMovement", 
+				new SpacewarActionCallable(this, space, ship), timeout, new Movement());
+	}
 
-        executor.shutdownNow();
-        
-        return movement;
+	/**
+	 * Calls the abstract getMovement on the ship's lane of the scheduler with supplied 
+	 * timeout for response. If nothing is returned in that time (or the ship's last 
+	 * movement is still running), simple return DoNothingAction (new Movement()).
+	 * The time taken is reported under the ship's team.
+	 *   
+	 * @return
+	 */
+	public Movement getMovement(Toroidal2DPhysics space, Ship ship, int timeout, CallbackScheduler scheduler){
+		Object lane = (ship == null) ? this : ship.getId();
+		Object owner = (ship == null) ? this : ship.getTeamName();
+		return scheduler.call(owner, lane, "getMovement", new SpacewarActionCallable(this, space, ship), 
+				timeout, new Movement());
 	}
 	
 	/**
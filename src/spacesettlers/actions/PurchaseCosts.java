@@ -5,6 +5,7 @@ import java.util.Map;
 
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.CheckpointRecord;
 /**
  * Keeps track of the costs of buying each item for a team.  Costs go up as a team makes purchases.
  * 
@@ -49,6 +50,36 @@ public class PurchaseCosts {
 		}
 		return newCosts;
 	}
+
+	/**
+	 * Write the current costs into a checkpoint of the simulation
+	 * 
+	 * @param record
+	 */
+	public void writeCheckpoint(CheckpointRecord record) {
+		// in the order of the types (the map's order changes from run to run)
+		record.putInt(costs.size());
+		for (PurchaseTypes type : PurchaseTypes.values()) {
+			if (costs.containsKey(type)) {
+				record.putInt(type.ordinal());
+				record.putResources(costs.get(type));
+			}
+		}
+	}
+
+	/**
+	 * Set the costs from a checkpoint
+	 * 
+	 * @param record
+	 */
+	public void readCheckpoint(CheckpointRecord record) {
+		costs.clear();
+		int size = record.getInt();
+		for (int i = 0; i < size; i++) {
+			PurchaseTypes type = PurchaseTypes.values()[record.getInt()];
+			costs.put(type, record.getResources());
+		}
+	}
 	
 	
 	/**
@@ -21,6 +21,7 @@ import spacesettlers.objects.Beacon;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.ObjectFilter;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Position;
 
@@ -213,22 +214,13 @@ public class AggressiveHeuristicAsteroidCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Ship pickNearestEnemyShip(Toroidal2DPhysics space, Ship ship) {
-		double minDistance = Double.POSITIVE_INFINITY;
-		Ship nearestShip = null;
-		for (Ship otherShip : space.getShips()) {
-			// don't aim for our own team (or ourself)
-			if (otherShip.getTeamName().equals(ship.getTeamName())) {
-				continue;
+		final String teamName = ship.getTeamName();
+		// don't aim for our own team (or ourself)
+		return space.findNearest(ship.getPosition(), Ship.class, new ObjectFilter<Ship>() {
+			public boolean accept(Ship otherShip) {
+				return !otherShip.getTeamName().equals(teamName);
 			}
-			
-			double distance = space.findShortestDistance(ship.getPosition(), otherShip.getPosition());
-			if (distance < minDistance) {
-				minDistance = distance;
-				nearestShip = otherShip;
-			}
-		}
-		
-		return nearestShip;
+		});
 	}
 
 	/**
@@ -239,19 +231,12 @@ public class AggressiveHeuristicAsteroidCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Base findNearestBase(Toroidal2DPhysics space, Ship ship) {
-		double minDistance = Double.MAX_VALUE;
-		Base nearestBase = null;
-
-		for (Base base : space.getBases()) {
-			if (base.getTeamName().equalsIgnoreCase(ship.getTeamName())) {
-				double dist = space.findShortestDistance(ship.getPosition(), base.getPosition());
-				if (dist < minDistance) {
-					minDistance = dist;
-					nearestBase = base;
-				}
+		final String teamName = ship.getTeamName();
+		return space.findNearest(ship.getPosition(), Base.class, new ObjectFilter<Base>() {
+			public boolean accept(Base base) {
+				return base.getTeamName().equalsIgnoreCase(teamName);
 			}
-		}
-		return nearestBase;
+		});
 	}
 
 	/**
@@ -268,7 +253,7 @@ public class AggressiveHeuristicAsteroidCollectorTeamClient extends TeamClient {
 		for (Asteroid asteroid : asteroids) {
 			if (!asteroidToShipMap.containsKey(asteroid.getId())) {
 				if (asteroid.isMineable() && asteroid.getResources().getTotal() > bestMoney) {
-					double dist = space.findShortestDistance(asteroid.getPosition(), ship.getPosition());
+					double dist = space.findShortestDistanceSquared(asteroid.getPosition(), ship.getPosition());
 					if (dist < minDistance) {
 						bestMoney = asteroid.getResources().getTotal();
 						//System.out.println("Considering asteroid " + asteroid.getId() + " as a best one");
@@ -289,21 +274,7 @@ public class AggressiveHeuristicAsteroidCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Beacon pickNearestBeacon(Toroidal2DPhysics space, Ship ship) {
-		// get the current beacons
-		Set<Beacon> beacons = space.getBeacons();
-
-		Beacon closestBeacon = null;
-		double bestDistance = Double.POSITIVE_INFINITY;
-
-		for (Beacon beacon : beacons) {
-			double dist = space.findShortestDistance(ship.getPosition(), beacon.getPosition());
-			if (dist < bestDistance) {
-				bestDistance = dist;
-				closestBeacon = beacon;
-			}
-		}
-
-		return closestBeacon;
+		return space.findNearest(ship.getPosition(), Beacon.class);
 	}
 
 
@@ -17,6 +17,7 @@ import spacesettlers.objects.Beacon;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.ObjectFilter;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Position;
 
@@ -83,25 +84,11 @@ public class BeaconCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Beacon pickNearestFreeBeacon(Toroidal2DPhysics space, Ship ship) {
-		// get the current beacons
-		Set<Beacon> beacons = space.getBeacons();
-
-		Beacon closestBeacon = null;
-		double bestDistance = Double.POSITIVE_INFINITY;
-
-		for (Beacon beacon : beacons) {
-			if (beaconToShipMap.containsKey(beacon)) {
-				continue;
-			}
-
-			double dist = space.findShortestDistance(ship.getPosition(), beacon.getPosition());
-			if (dist < bestDistance) {
-				bestDistance = dist;
-				closestBeacon = beacon;
+		return space.findNearest(ship.getPosition(), Beacon.class, new ObjectFilter<Beacon>() {
+			public boolean accept(Beacon beacon) {
+				return !beaconToShipMap.containsKey(beacon);
 			}
-		}
-
-		return closestBeacon;
+		});
 	}
 
 
@@ -30,6 +30,7 @@ import spacesettlers.objects.Flag;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.ObjectFilter;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Position;
 
@@ -163,7 +164,7 @@ public class PacifistFlagCollectorTeamClient extends TeamClient {
 			if (actionable instanceof Ship) {
 				Ship ship = (Ship) actionable;
 				
-				double dist = space.findShortestDistance(ship.getPosition(), enemyFlag.getPosition());
+				double dist = space.findShortestDistanceSquared(ship.getPosition(), enemyFlag.getPosition());
 				if (dist < minDistance && ship.getEnergy() > minHealth) {
 					if (ship.getEnergy() > maxHealth) {
 						minDistance = dist;
@@ -246,19 +247,12 @@ public class PacifistFlagCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Base findNearestBase(Toroidal2DPhysics space, Ship ship) {
-		double minDistance = Double.MAX_VALUE;
-		Base nearestBase = null;
-
-		for (Base base : space.getBases()) {
-			if (base.getTeamName().equalsIgnoreCase(ship.getTeamName())) {
-				double dist = space.findShortestDistance(ship.getPosition(), base.getPosition());
-				if (dist < minDistance) {
-					minDistance = dist;
-					nearestBase = base;
-				}
+		final String teamName = ship.getTeamName();
+		return space.findNearest(ship.getPosition(), Base.class, new ObjectFilter<Base>() {
+			public boolean accept(Base base) {
+				return base.getTeamName().equalsIgnoreCase(teamName);
 			}
-		}
-		return nearestBase;
+		});
 	}
 
 	/**
@@ -275,7 +269,7 @@ public class PacifistFlagCollectorTeamClient extends TeamClient {
 		for (Asteroid asteroid : asteroids) {
 			if (!asteroidToShipMap.containsKey(asteroid.getId())) {
 				if (asteroid.isMineable() && asteroid.getResources().getTotal() > bestMoney) {
-					double dist = space.findShortestDistance(asteroid.getPosition(), ship.getPosition());
+					double dist = space.findShortestDistanceSquared(asteroid.getPosition(), ship.getPosition());
 					if (dist < minDistance) {
 						bestMoney = asteroid.getResources().getTotal();
 						//System.out.println("Considering asteroid " + asteroid.getId() + " as a best one");
@@ -297,21 +291,7 @@ public class PacifistFlagCollectorTeamClient extends TeamClient {
 	 * @return
 	 */
 	private Beacon pickNearestBeacon(Toroidal2DPhysics space, Ship ship) {
-		// get the current beacons
-		Set<Beacon> beacons = space.getBeacons();
-
-		Beacon closestBeacon = null;
-		double bestDistance = Double.POSITIVE_INFINITY;
-
-		for (Beacon beacon : beacons) {
-			double dist = space.findShortestDistance(ship.getPosition(), beacon.getPosition());
-			if (dist < bestDistance) {
-				bestDistance = dist;
-				closestBeacon = beacon;
-			}
-		}
-
-		return closestBeacon;
+		return space.findNearest(ship.getPosition(), Beacon.class);
 	}
 
 
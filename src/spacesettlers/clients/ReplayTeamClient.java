@@ -0,0 +1,60 @@
+package spacesettlers.clients;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import spacesettlers.actions.AbstractAction;
+import spacesettlers.actions.PurchaseCosts;
+import spacesettlers.actions.PurchaseTypes;
+import spacesettlers.graphics.SpacewarGraphics;
+import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.Toroidal2DPhysics;
+
+/**
+ * Stands in for a team's client when a game is replayed.  The simulator takes the
+ * movements, power ups and purchases from the replay file so this client is never
+ * asked for anything and the real client's class is never loaded.
+ */
+public class ReplayTeamClient extends TeamClient {
+	@Override
+	public void initialize(Toroidal2DPhysics space) {
+	}
+
+	@Override
+	public void shutDown(Toroidal2DPhysics space) {
+	}
+
+	@Override
+	public Map<UUID, AbstractAction> getMovementStart(Toroidal2DPhysics space,
+			Set<AbstractActionableObject> actionableObjects) {
+		return new HashMap<UUID, AbstractAction>();
+	}
+
+	@Override
+	public void getMovementEnd(Toroidal2DPhysics space, Set<AbstractActionableObject> actionableObjects) {
+	}
+
+	@Override
+	public Map<UUID, SpaceSettlersPowerupEnum> getPowerups(Toroidal2DPhysics space,
+			Set<AbstractActionableObject> actionableObjects) {
+		return new HashMap<UUID, SpaceSettlersPowerupEnum>();
+	}
+
+	@Override
+	public Map<UUID, PurchaseTypes> getTeamPurchases(Toroidal2DPhysics space,
+			Set<AbstractActionableObject> actionableObjects,
+			ResourcePile resourcesAvailable,
+			PurchaseCosts purchaseCosts) {
+		return new HashMap<UUID, PurchaseTypes>();
+	}
+
+	@Override
+	public Set<SpacewarGraphics> getGraphics() {
+		return new LinkedHashSet<SpacewarGraphics>();
+	}
+}
@@ -10,23 +10,19 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import spacesettlers.actions.AbstractAction;
 import spacesettlers.actions.PurchaseCosts;
 import spacesettlers.actions.PurchaseTypes;
 import spacesettlers.graphics.SpacewarGraphics;
 import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.AbstractObject;
 import spacesettlers.objects.Base;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.CallbackScheduler;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.simulator.SpaceSettlersSimulator;
 import spacesettlers.simulator.Toroidal2DPhysics;
 
@@ -128,9 +124,9 @@ public class Team {
 	int maxNumberShips;
 	
 	/**
-	 * Thread for this team
+	 * Runs the client callbacks for this team (on a thread that is reused every call)
 	 */
-	ExecutorService executor;
+	CallbackScheduler scheduler;
 	
 	/**
 	 * Initialize the team client to have an empty list of ships.
@@ -154,7 +150,7 @@ public class Team {
 		this.totalDamageInflicted = 0;
 		this.totalDamageReceived = 0;
 		this.totalFlagsCollected = 0;
-		executor = null;
+		scheduler = null;
 	}
 	
 	/**
@@ -188,6 +184,56 @@ public class Team {
 		newTeam.totalFlagsCollected = this.totalFlagsCollected;
 		return newTeam;
 	}
+
+	/**
+	 * Write the state of the team into a checkpoint of the simulation (the ships
+	 * are written as references to the ships in the checkpoint)
+	 * 
+	 * @param record
+	 */
+	public void writeCheckpoint(CheckpointRecord record) {
+		record.putString(teamName);
+		record.putReferences(teamShips);
+		record.putUUIDs(teamBaseIDs);
+		record.putUUIDs(teamIDs);
+		record.putDouble(score);
+		record.putInt(totalFlagsCollected);
+		record.putResources(availableResources);
+		record.putResources(totalResources);
+		record.putInt(totalBeaconsCollected);
+		record.putInt(totalKillsInflicted);
+		record.putInt(totalKillsReceived);
+		record.putInt(totalHitsInflicted);
+		record.putInt(totalDamageInflicted);
+		record.putInt(totalDamageReceived);
+		costToPurchase.writeCheckpoint(record);
+	}
+
+	/**
+	 * Set the state of the team from a checkpoint (after the objects in it were read)
+	 * 
+	 * @param record
+	 */
+	public void readCheckpoint(CheckpointRecord record) {
+		record.getString();
+		teamShips.clear();
+		for (AbstractObject ship : record.getReferences()) {
+			teamShips.add((Ship) ship);
+		}
+		teamBaseIDs = record.getUUIDs();
+		teamIDs = record.getUUIDs();
+		score = record.getDouble();
+		totalFlagsCollected = record.getInt();
+		availableResources = record.getResources();
+		totalResources = record.getResources();
+		totalBeaconsCollected = record.getInt();
+		totalKillsInflicted = record.getInt();
+		totalKillsReceived = record.getInt();
+		totalHitsInflicted = record.getInt();
+		totalDamageInflicted = record.getInt();
+		totalDamageReceived = record.getInt();
+		costToPurchase.readCheckpoint(record);
+	}
 	
 	/**
 	 * Return the maximum number of ships for this team
@@ -246,6 +292,14 @@ public class Team {
 		addTeamID(base.getId());
 	}
 	
+	/**
+	 * Return the ids of the team's bases (in the order they were added)
+	 * @return
+	 */
+	public Set<UUID> getBaseIDs() {
+		return teamBaseIDs;
+	}
+
 	/**
 	 * Remove the base because it died
 	 * @param base
@@ -338,62 +392,18 @@ public class Team {
 	 * @return
 	 */
 	public Map<UUID, AbstractAction> getTeamMovementStart(Toroidal2DPhysics space) {
-        Map<UUID, AbstractAction> teamActions = new HashMap<UUID, AbstractAction>();
-
 		// ask the client for its movement
-		final Toroidal2DPhysics clonedSpace = space.deepClone();
+		final Toroidal2DPhysics clonedSpace = space.getClientSnapshot();
 		final Set<AbstractActionableObject> clonedActionableObjects = getTeamActionableObjectsClone(space);
 		
-		// if the previous thread call hasn't finished, then just return default
-		if (executor == null || executor.isTerminated()) {
-			executor = Executors.newSingleThreadExecutor();
-		} else {
-			return teamActions;
-		}
-		
-        Future<Map<UUID, AbstractAction>> future = executor.submit(
-        		new Callable<Map<UUID, AbstractAction>>(){
-        			public Map<UUID, AbstractAction> call() {
-        				Map<UUID, AbstractAction> teamActions = null;
-    					teamActions = teamClient.getMovementStart(clonedSpace, clonedActionableObjects);
-        				return teamActions;
-        			}
-        		});
-        
-        try {
-            //start
-            teamActions = future.get(SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//return empty map, this will invoke default behavior of using DoNothingAction
-        	teamActions = new HashMap<UUID, AbstractAction>();
-        	System.err.println(getTeamName() + " timed out in getTeamMovementStart");
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//return empty map, this will invoke default behavior of using DoNothingAction
-        	teamActions = new HashMap<UUID, AbstractAction>();
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-        	//return empty map, this will invoke default behavior of using DoNothingAction
-        	teamActions = new HashMap<UUID, AbstractAction>();
-			e.printStackTrace();
-		} catch (Exception e) {
-			// we shouldn't do this but it seems necessary to make
-			// the agent behave (do nothing) if it crashes
-			System.err.println("Error in agent, stack trace to follow");
-			e.printStackTrace();
-        	teamActions = new HashMap<UUID, AbstractAction>();
-		}
-
-
-        executor.shutdownNow();
-        
-        return teamActions;
-		
-// 		HashMap<UUID, AbstractAction> teamActions = teamClient.getAction(clonedSpace, clonedTeamShips);
-//		return teamActions;
+		// an empty map (if the client is still busy, times out or crashes) 
+		// will invoke default behavior of using DoNothingAction
+		return getScheduler().call(getTeamName(), "getMovementStart",
+				new Callable<Map<UUID, AbstractAction>>(){
+					public Map<UUID, AbstractAction> call() {
+						return teamClient.getMovementStart(clonedSpace, clonedActionableObjects);
+					}
+				}, SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, new HashMap<UUID, AbstractAction>());
 	}
 
 	/**
@@ -404,58 +414,26 @@ public class Team {
 	 * @return
 	 */
 	public void getTeamMovementEnd(Toroidal2DPhysics space) {
-		final Toroidal2DPhysics clonedSpace = space.deepClone();
+		final Toroidal2DPhysics clonedSpace = space.getClientSnapshot();
 		final Set<AbstractActionableObject> clonedActionableObjects = getTeamActionableObjectsClone(space);
 
-		// if the previous thread call hasn't finished, then just return default
-		if (executor == null || executor.isTerminated()) {
-			executor = Executors.newSingleThreadExecutor();
-		} else {
-			return;
-		}
+		getScheduler().call(getTeamName(), "getMovementEnd",
+				new Callable<Boolean>(){
+					public Boolean call() throws Exception {
+						teamClient.getMovementEnd(clonedSpace, clonedActionableObjects);
+						return true;
+					}
+				}, SpaceSettlersSimulator.TEAM_END_ACTION_TIMEOUT, false);
 
-		//System.out.println("exec " + executor.isTerminated());
-        Future<Boolean> future = executor.submit(
-        		new Callable<Boolean>(){
-        			public Boolean call() throws Exception {
-        				teamClient.getMovementEnd(clonedSpace, clonedActionableObjects);
-        				return true;
-        			}
-        		});
-        
-        Boolean didReturn = false;
-        try {
-            //start
-        	didReturn = future.get(SpaceSettlersSimulator.TEAM_END_ACTION_TIMEOUT, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//set didReturn false
-        	System.out.println(getTeamName() + " timed out in getTeamMovementEnd");
-        	didReturn = false;
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//set didReturn false
-        	didReturn = false;
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-			//set didReturn false
-        	didReturn = false;
-			e.printStackTrace();
-		} catch (RejectedExecutionException e) {
-			System.err.println("exec" + executor.isTerminated());
-			e.printStackTrace();
-		}catch (Exception e) {
-			// we shouldn't do this but it seems necessary to make
-			// the agent behave (do nothing) if it crashes
-        	didReturn = false;
-        	System.err.println("Error in agent.  Printing stack trace.");
-			e.printStackTrace();
-		}
+		updateTotals(space);
+	}
 
-        executor.shutdownNow();
-		
+	/**
+	 * Add up the beacons, hits, kills and damage of the team's ships and bases
+	 * 
+	 * @param space
+	 */
+	public void updateTotals(Toroidal2DPhysics space) {
 		// figure out how many beacons the team has collected
 		// figure out how many hitsInflicted and killsInflicted the team has
 		int beacons = 0;
@@ -498,59 +476,19 @@ public class Team {
 	 * @return
 	 */
 	public Map<UUID,PurchaseTypes> getTeamPurchases(Toroidal2DPhysics space) {
-        Map<UUID,PurchaseTypes> purchase = new HashMap<UUID,PurchaseTypes>();
-
-		final Toroidal2DPhysics clonedSpace = space.deepClone();
+		final Toroidal2DPhysics clonedSpace = space.getClientSnapshot();
 		final Set<AbstractActionableObject> clonedActionableObjects = getTeamActionableObjectsClone(space);
 		final PurchaseCosts clonedPurchaseCost = getPurchaseCostClone();
 		final ResourcePile clonedResources = new ResourcePile(availableResources);
 		
-        // if the previous thread call hasn't finished, then just return default
-		if (executor == null || executor.isTerminated()) {
-			executor = Executors.newSingleThreadExecutor();
-		} else {
-			return purchase;
-		}
-
-		//System.out.println("exec " + executor.isTerminated());
-        Future<Map<UUID,PurchaseTypes>> future = executor.submit(
-        		new Callable<Map<UUID,PurchaseTypes>>(){
-        			public Map<UUID,PurchaseTypes> call() throws Exception {
-        				return teamClient.getTeamPurchases(clonedSpace, 
-        						clonedActionableObjects, clonedResources , clonedPurchaseCost);
-        			}
-        		});
-        
-        try {
-            //start
-        	purchase = future.get(SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//return empty map, don't buy anything
-        	System.out.println(getTeamName() + " timed out in getTeamPurchases");
-        	purchase = new HashMap<UUID,PurchaseTypes>();
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//return empty map, don't buy anything
-        	purchase = new HashMap<UUID,PurchaseTypes>();
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-        	//return empty map, don't buy anything
-        	purchase = new HashMap<UUID,PurchaseTypes>();
-			e.printStackTrace();
-		} catch (RejectedExecutionException e) {
-			System.err.println("exec" + executor.isTerminated());
-			e.printStackTrace();
-		} catch (Exception e) {
-        	purchase = new HashMap<UUID,PurchaseTypes>();
-			e.printStackTrace();
-		}
-
-        executor.shutdownNow();
-        
-        return purchase;
+		// an empty map (if the client is still busy, times out or crashes) doesn't buy anything
+		return getScheduler().call(getTeamName(), "getTeamPurchases",
+				new Callable<Map<UUID,PurchaseTypes>>(){
+					public Map<UUID,PurchaseTypes> call() throws Exception {
+						return teamClient.getTeamPurchases(clonedSpace, 
+								clonedActionableObjects, clonedResources , clonedPurchaseCost);
+					}
+				}, SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, new HashMap<UUID,PurchaseTypes>());
 	}
 
 	/**
@@ -568,54 +506,16 @@ public class Team {
 	 * @return
 	 */
 	public Map<UUID, SpaceSettlersPowerupEnum> getTeamPowerups(Toroidal2DPhysics space) {
-        Map<UUID, SpaceSettlersPowerupEnum> powerups = new HashMap<UUID,SpaceSettlersPowerupEnum>();
-
-		final Toroidal2DPhysics clonedSpace = space.deepClone();
+		final Toroidal2DPhysics clonedSpace = space.getClientSnapshot();
 		final Set<AbstractActionableObject> clonedActionableObjects = getTeamActionableObjectsClone(space);
 		
-        // if the previous thread call hasn't finished, then just return default
-		if (executor == null || executor.isTerminated()) {
-			executor = Executors.newSingleThreadExecutor();
-		} else {
-			return powerups;
-		}
-
-		//System.out.println("exec " + executor.isTerminated());
-        Future<Map<UUID,SpaceSettlersPowerupEnum>> future = executor.submit(
-        		new Callable<Map<UUID,SpaceSettlersPowerupEnum>>(){
-        			public Map<UUID,SpaceSettlersPowerupEnum> call() throws Exception {
-        				return teamClient.getPowerups(clonedSpace, clonedActionableObjects);
-        			}
-        		});
-        
-        try {
-            //start
-        	powerups = future.get(SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//return empty map, don't buy anything
-        	System.out.println(getTeamName() + " timed out in getTeamPowerups");
-        	powerups = new HashMap<UUID,SpaceSettlersPowerupEnum>();
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//return empty map, don't buy anything
-        	powerups = new HashMap<UUID,SpaceSettlersPowerupEnum>();
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-        	//return empty map, don't buy anything
-			powerups = new HashMap<UUID,SpaceSettlersPowerupEnum>();
-			e.printStackTrace();
-		} catch (Exception e) {
-			System.err.println("Error in agent.  Printing stack trace");
-        	powerups = new HashMap<UUID,SpaceSettlersPowerupEnum>();
-			e.printStackTrace();
-		}
-
-        executor.shutdownNow();
-        
-        return powerups;
+		// an empty map (if the client is still busy, times out or crashes) doesn't use any power ups
+		return getScheduler().call(getTeamName(), "getTeamPowerups",
+				new Callable<Map<UUID,SpaceSettlersPowerupEnum>>(){
+					public Map<UUID,SpaceSettlersPowerupEnum> call() throws Exception {
+						return teamClient.getPowerups(clonedSpace, clonedActionableObjects);
+					}
+				}, SpaceSettlersSimulator.TEAM_ACTION_TIMEOUT, new HashMap<UUID,SpaceSettlersPowerupEnum>());
 	}
 
 
@@ -625,50 +525,35 @@ public class Team {
 	 * @return  
 	 */
 	public Set<SpacewarGraphics> getGraphics() {
-        Set<SpacewarGraphics> graphics = new LinkedHashSet<SpacewarGraphics>();
+		// an empty set (if the client is still busy, times out or crashes) draws nothing
+		return getScheduler().call(getTeamName(), "getGraphics",
+				new Callable<Set<SpacewarGraphics>>(){
+					public Set<SpacewarGraphics> call() throws Exception {
+						return teamClient.getGraphics();
+					}
+				}, SpaceSettlersSimulator.TEAM_GRAPHICS_TIMEOUT, new LinkedHashSet<SpacewarGraphics>());
+	}
 
-        // if the previous thread call hasn't finished, then just return default
-		if (executor == null || executor.isTerminated()) {
-			executor = Executors.newSingleThreadExecutor();
-		} else {
-			return graphics;
-		}
+	/**
+	 * Use the simulator's scheduler for all the client callbacks of this team
+	 * 
+	 * @param scheduler
+	 */
+	public synchronized void setScheduler(CallbackScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
 
-		Future<Set<SpacewarGraphics>> future = executor.submit(
-        		new Callable<Set<SpacewarGraphics>>(){
-        			public Set<SpacewarGraphics> call() throws Exception {
-        				return teamClient.getGraphics();
-        			}
-        		});
-        
-        try {
-            //start
-        	graphics = future.get(SpaceSettlersSimulator.TEAM_GRAPHICS_TIMEOUT, TimeUnit.MILLISECONDS);
-            //finished in time
-        } catch (TimeoutException e) {
-            //was terminated
-        	//set empty array of graphics
-        	System.out.println(getTeamName() + " timed out in getTeamGraphics");
-        	graphics = new LinkedHashSet<SpacewarGraphics>();
-        } catch (InterruptedException e) {
-        	//we were interrupted (should not happen but lets be good programmers) 
-        	//set empty array of graphics
-        	graphics = new LinkedHashSet<SpacewarGraphics>();
-			e.printStackTrace();
-		} catch (ExecutionException e) {
-			//the executor threw and exception (should not happen but lets be good programmers) 
-			//set empty array of graphics
-        	graphics = new LinkedHashSet<SpacewarGraphics>();
-			e.printStackTrace();
-		} catch (Exception e) {
-			System.err.println("Error in agent.  Printing stack trace");
-        	graphics = new LinkedHashSet<SpacewarGraphics>();
-			e.printStackTrace();
+	/**
+	 * Returns the scheduler for the client callbacks (the team makes its own 
+	 * if the simulator didn't give it one)
+	 * 
+	 * @return
+	 */
+	public synchronized CallbackScheduler getScheduler() {
+		if (scheduler == null) {
+			scheduler = new CallbackScheduler();
 		}
-
-        executor.shutdownNow();
-        
-		return graphics;
+		return scheduler;
 	}
 
 	/**
@@ -800,7 +685,7 @@ public class Team {
 	 * Called at the end of a simulation to cleanup the clients
 	 */
 	public void shutdownClients(Toroidal2DPhysics space) {
-		teamClient.shutDown(space.deepClone());
+		teamClient.shutDown(space.getClientSnapshot());
 	}
 
 	/**
@@ -57,7 +57,7 @@ abstract public class TeamClient {
 	AffineTransform mouseTransform;
 	
 	/**
-	 * Sets the random number generator to the global one (for repeatability)
+	 * Sets the random number generator (seeded from the global one for repeatability)
 	 * @param random
 	 */
 	public void setRandom(Random random) {
@@ -1,7 +1,5 @@
 package spacesettlers.clients.examples;
 
-import java.util.Set;
-
 import spacesettlers.objects.Asteroid;
 import spacesettlers.objects.Ship;
 import spacesettlers.simulator.Toroidal2DPhysics;
@@ -31,18 +29,12 @@ public class ExampleGAState {
 	 * @param myShip
 	 */
 	public void updateState(Toroidal2DPhysics space, Ship myShip) {
-		Set<Asteroid> asteroids = space.getAsteroids();
 		distanceToNearestMineableAsteroid = Integer.MAX_VALUE;
-		double distance;
 
-		for (Asteroid asteroid : asteroids) {
-			if (asteroid.isMineable()) {
-				distance = space.findShortestDistance(myShip.getPosition(), asteroid.getPosition());
-				if (distance < distanceToNearestMineableAsteroid) {
-					distanceToNearestMineableAsteroid = distance;
-					nearestMineableAsteroid = asteroid;
-				}
-			}
+		Asteroid asteroid = space.findNearestMineableAsteroid(myShip.getPosition(), null);
+		if (asteroid != null) {
+			distanceToNearestMineableAsteroid = space.findShortestDistance(myShip.getPosition(), asteroid.getPosition());
+			nearestMineableAsteroid = asteroid;
 		}
 	}
 
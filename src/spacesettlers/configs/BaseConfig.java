@@ -78,8 +78,21 @@ public class BaseConfig {
 	public int getBoundingBoxLRY() {
 		return boundingBoxLRY;
 	}
-	
-	
-	
-	
+
+	/**
+	 * Make a copy (the ladder renames the bases for each game)
+	 * 
+	 * @return
+	 */
+	public BaseConfig deepCopy() {
+		BaseConfig copy = new BaseConfig(teamName);
+		copy.fixedLocation = fixedLocation;
+		copy.x = x;
+		copy.y = y;
+		copy.boundingBoxULX = boundingBoxULX;
+		copy.boundingBoxULY = boundingBoxULY;
+		copy.boundingBoxLRX = boundingBoxLRX;
+		copy.boundingBoxLRY = boundingBoxLRY;
+		return copy;
+	}
 }
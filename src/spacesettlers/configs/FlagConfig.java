@@ -29,6 +29,19 @@ public class FlagConfig {
 	public void setTeamName(String teamName) {
 		this.teamName = teamName;
 	}
+
+	/**
+	 * Make a copy (the ladder renames the flags for each game; the starting locations are shared)
+	 * 
+	 * @return
+	 */
+	public FlagConfig deepCopy() {
+		FlagConfig copy = new FlagConfig();
+		copy.teamName = teamName;
+		copy.startX = startX;
+		copy.startY = startY;
+		return copy;
+	}
 	
 	
 
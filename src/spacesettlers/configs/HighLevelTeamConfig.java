@@ -25,6 +25,10 @@ public class HighLevelTeamConfig {
 		this.teamName = teamName;
 	}
 
+	public void setConfigFile(String configFile) {
+		this.configFile = configFile;
+	}
+
 	/**
 	 * @return the teamName
 	 */
@@ -72,6 +76,22 @@ public class HighLevelTeamConfig {
 		this.initialRegionLRY = initialRegionLRY;
 	}
 
+	/**
+	 * Make a copy (the simulator fills in the initial region so each game needs its own)
+	 * 
+	 * @return
+	 */
+	public HighLevelTeamConfig deepCopy() {
+		HighLevelTeamConfig copy = new HighLevelTeamConfig();
+		copy.teamName = teamName;
+		copy.configFile = configFile;
+		copy.initialRegionULX = initialRegionULX;
+		copy.initialRegionULY = initialRegionULY;
+		copy.initialRegionLRX = initialRegionLRX;
+		copy.initialRegionLRY = initialRegionLRY;
+		return copy;
+	}
+
 	
 	
 	
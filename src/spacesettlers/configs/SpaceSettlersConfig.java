@@ -181,4 +181,49 @@ public class SpaceSettlersConfig {
 	public void setBases(BaseConfig[] bases) {
 		this.bases = bases;
 	}
+
+	public void setRandomSeed(long randomSeed) {
+		this.randomSeed = randomSeed;
+	}
+
+	/**
+	 * Make a copy that a game can change (the teams, bases and flags are copied; the 
+	 * asteroid configs are never changed so the copy shares them)
+	 * 
+	 * @return
+	 */
+	public SpaceSettlersConfig deepCopy() {
+		SpaceSettlersConfig copy = new SpaceSettlersConfig();
+		copy.height = height;
+		copy.width = width;
+		copy.simulationTimeStep = simulationTimeStep;
+		copy.simulationSteps = simulationSteps;
+		copy.randomSeed = randomSeed;
+		copy.numBeacons = numBeacons;
+		copy.maximumShipsPerTeam = maximumShipsPerTeam;
+		copy.maximumInitialShipsPerTeam = maximumInitialShipsPerTeam;
+		copy.randomAsteroids = randomAsteroids;
+		copy.fixedAsteroids = fixedAsteroids;
+		copy.scoringMethod = scoringMethod;
+
+		if (teams != null) {
+			copy.teams = new HighLevelTeamConfig[teams.length];
+			for (int i = 0; i < teams.length; i++) {
+				copy.teams[i] = teams[i].deepCopy();
+			}
+		}
+		if (bases != null) {
+			copy.bases = new BaseConfig[bases.length];
+			for (int i = 0; i < bases.length; i++) {
+				copy.bases[i] = bases[i].deepCopy();
+			}
+		}
+		if (flags != null) {
+			copy.flags = new FlagConfig[flags.length];
+			for (int i = 0; i < flags.length; i++) {
+				copy.flags[i] = flags[i].deepCopy();
+			}
+		}
+		return copy;
+	}
 }
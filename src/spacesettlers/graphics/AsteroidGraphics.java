@@ -23,27 +23,67 @@ public class AsteroidGraphics extends SpacewarGraphics {
     public static final Color MOVEABLE_LINE_COLOR = new Color(1, 124, 76);
 
     Asteroid asteroid;
+
+    /**
+     * What is drawn of the asteroid (copied from it when the graphic is drawn or copied)
+     */
+    Position location;
+    int radius;
+    boolean mineable;
+    double fuel, water, metals;
     
     public AsteroidGraphics(Asteroid asteroid) {
 		super(asteroid.getRadius(), asteroid.getRadius());
 		this.asteroid = asteroid;
 	}
 
+    /**
+     * Copy the graphic with what the asteroid looks like now (for the GUI to draw)
+     * 
+     * @param graphic
+     */
+    AsteroidGraphics(AsteroidGraphics graphic) {
+    	super(graphic.height, graphic.width);
+    	copyAsteroid(graphic.asteroid);
+    }
+
+    /**
+     * Remember what is drawn of the asteroid
+     * 
+     * @param asteroid
+     */
+    void copyAsteroid(Asteroid asteroid) {
+    	location = asteroid.getPosition().deepCopy();
+    	radius = asteroid.getRadius();
+    	mineable = asteroid.isMineable();
+    	fuel = asteroid.getFuelProportion();
+    	water = asteroid.getWaterProportion();
+    	metals = asteroid.getMetalsProportion();
+    }
+
+    @Override
+    public SpacewarGraphics getFrameCopy() {
+    	if (isDrawable()) {
+    		return new AsteroidGraphics(this);
+    	} else {
+    		return null;
+    	}
+    }
+
 
 	@Override
 	public void draw(Graphics2D graphics) {
-        final float radius = asteroid.getRadius();
-        final float diameter = asteroid.getRadius() * 2;
+		if (asteroid != null) {
+			copyAsteroid(asteroid);
+		}
+        final float radius = this.radius;
+        final float diameter = this.radius * 2;
 
 
         // show minable asteroids in a different color
-        if (asteroid.isMineable()) {
+        if (mineable) {
         	// mineable asteroids have concentric circles showing the proportion of the different resources
         	
-        	double fuel = asteroid.getFuelProportion();
-        	double water = asteroid.getWaterProportion();
-        	double metals = asteroid.getMetalsProportion();
-        	
         	double fuelDiameter = fuel * diameter;
             double waterDiameter = (water + fuel) * diameter;
             double metalsDiameter = Math.round((water + fuel + metals) * diameter);
@@ -80,13 +120,17 @@ public class AsteroidGraphics extends SpacewarGraphics {
 	 * Only draw the asteroid if it alive and drawable
 	 */
 	public boolean isDrawable() {
-		return (asteroid.isAlive() && asteroid.isDrawable());
+		// copies are only made of asteroids that are drawn
+		return asteroid == null || (asteroid.isAlive() && asteroid.isDrawable());
 	}
 
 	/**
 	 * Return the actual location of the asteroid
 	 */
 	public Position getActualLocation() {
+		if (asteroid == null) {
+			return location;
+		}
 		return asteroid.getPosition();
 	}
 
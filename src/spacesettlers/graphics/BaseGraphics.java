@@ -20,6 +20,13 @@ public class BaseGraphics extends SpacewarGraphics {
 	Base base;
 	Color teamColor;
 	public static final Color BASE_SHIELD_COLOR = Color.WHITE;
+
+	/**
+	 * What is drawn of the base (copied from it when the graphic is drawn or copied)
+	 */
+	Position location;
+	int alpha, healingEnergy;
+	boolean shielded, homeBase;
 	
 	/**
 	 * Make a new base graphic for a specific team
@@ -32,20 +39,59 @@ public class BaseGraphics extends SpacewarGraphics {
 		this.teamColor = teamColor;
 	}
 
+	/**
+	 * Copy the graphic with what the base looks like now (for the GUI to draw)
+	 * 
+	 * @param graphic
+	 */
+	BaseGraphics(BaseGraphics graphic) {
+		super(graphic.height, graphic.width);
+		this.teamColor = graphic.teamColor;
+		copyBase(graphic.base);
+	}
+
+	/**
+	 * Remember what is drawn of the base
+	 * 
+	 * @param base
+	 */
+	void copyBase(Base base) {
+		location = base.getPosition().deepCopy();
+		// the base's transparency is based on its energy level
+		alpha = (int) (((float) base.getEnergy() / base.getMaxEnergy()) * 255.0);
+		healingEnergy = base.getHealingEnergy();
+		shielded = base.isShielded();
+		homeBase = base.isHomeBase();
+	}
+
+	@Override
+	public SpacewarGraphics getFrameCopy() {
+		if (isDrawable()) {
+			return new BaseGraphics(this);
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Return the location of the base
 	 */
 	public Position getActualLocation() {
+		if (base == null) {
+			return location;
+		}
 		return base.getPosition();
 	}
 
 	@Override
 	public void draw(Graphics2D graphics) {
+		if (base != null) {
+			copyBase(base);
+		}
 		float radius = Base.BASE_RADIUS;
 		float diameter = Base.BASE_RADIUS * 2;
 
 		// change the base's transparency based upon the energy level
-		int alpha =  (int) (((float) base.getEnergy() / base.getMaxEnergy()) * 255.0);
 		Color energyColor = new Color(teamColor.getRed(), teamColor.getGreen(), teamColor.getBlue(), alpha);
 		graphics.setColor(energyColor);
 		
@@ -61,7 +107,7 @@ public class BaseGraphics extends SpacewarGraphics {
         graphics.draw(shape);
 
 		// if the base is shielded, put a white circle around the outside
-        if (base.isShielded()) {
+        if (shielded) {
 	        double shieldRadius = radius + 8;
 	        final Ellipse2D.Double shieldShape = new Ellipse2D.Double(drawLocation.getX() - shieldRadius,
 	        		drawLocation.getY() - shieldRadius, 2 * shieldRadius, 2 * shieldRadius);
@@ -74,7 +120,7 @@ public class BaseGraphics extends SpacewarGraphics {
 		final Font font = new Font("Arial", Font.BOLD, 12);
 		graphics.setFont(font);
 
-		String number = Integer.toString(base.getHealingEnergy());
+		String number = Integer.toString(healingEnergy);
 		graphics.setPaint(JSpaceSettlersComponent.TEXT_COLOR);
 		graphics.drawString(number, (int) drawLocation.getX() + 12, (int) drawLocation.getY() + 12);
 		
@@ -84,7 +130,7 @@ public class BaseGraphics extends SpacewarGraphics {
 		//graphics.drawString(number, (int) drawLocation.getX() + 12, (int) drawLocation.getY() - 12);
 		
 		// if it is a home base, put a H inside it
-		if (base.isHomeBase()) {
+		if (homeBase) {
 			graphics.setPaint(Color.BLACK);
 			graphics.drawString("H", (int) drawLocation.getX()-4, (int) drawLocation.getY() + 4);
 		}
@@ -94,7 +140,8 @@ public class BaseGraphics extends SpacewarGraphics {
 
 	@Override
 	public boolean isDrawable() {
-		return (base.isAlive() && base.isDrawable());
+		// copies are only made of bases that are drawn
+		return base == null || (base.isAlive() && base.isDrawable());
 	}
 
 }
@@ -22,11 +22,36 @@ public class BeaconGraphics extends SpacewarGraphics {
 
     private final Beacon beacon;
 
+    /**
+     * Where the beacon was when the graphic was copied
+     */
+    Position location;
+
     public BeaconGraphics(Beacon b) {
     	super(Beacon.BEACON_RADIUS, Beacon.BEACON_RADIUS);
         this.beacon = b;
     }
 
+    /**
+     * Copy the graphic with where the beacon is now (for the GUI to draw)
+     * 
+     * @param graphic
+     */
+    BeaconGraphics(BeaconGraphics graphic) {
+    	super(graphic.height, graphic.width);
+    	this.beacon = null;
+    	location = graphic.beacon.getPosition().deepCopy();
+    }
+
+    @Override
+    public SpacewarGraphics getFrameCopy() {
+    	if (isDrawable()) {
+    		return new BeaconGraphics(this);
+    	} else {
+    		return null;
+    	}
+    }
+
     public void draw(Graphics2D g) {
         float radius = Beacon.BEACON_RADIUS;
         float diameter = Beacon.BEACON_RADIUS * 2;
@@ -51,7 +76,8 @@ public class BeaconGraphics extends SpacewarGraphics {
 	 * Only draw if the beacon is alive
 	 */
 	public boolean isDrawable() {
-		if (beacon.isAlive() && beacon.isDrawable()) {
+		// copies are only made of beacons that are drawn
+		if (beacon == null || (beacon.isAlive() && beacon.isDrawable())) {
 			return true;
 		}
 		return false;
@@ -61,6 +87,9 @@ public class BeaconGraphics extends SpacewarGraphics {
 	 * Return the actual location of the beacon
 	 */
 	public Position getActualLocation() {
+		if (beacon == null) {
+			return location;
+		}
 		return beacon.getPosition();
 	}
 
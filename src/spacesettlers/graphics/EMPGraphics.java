@@ -18,6 +18,12 @@ public class EMPGraphics extends SpacewarGraphics {
 	//public static final Color EMP_OUTER_COLOR = new Color(200, 0, 200);
 	public static final Color EMP_INNER_COLOR = new Color(200, 200, 200);
 	Color outerColor;
+
+	/**
+	 * What is drawn of the EMP (copied from it when the graphic is drawn or copied)
+	 */
+	Position location;
+	int radius;
 	
 	public EMPGraphics(EMP emp) {
         super((int)(emp.getRadius() * 2), (int)(emp.getRadius()  * 2));
@@ -26,16 +32,49 @@ public class EMPGraphics extends SpacewarGraphics {
         this.emp = emp;
 	}
 
+	/**
+	 * Change the color (when the EMP is fired again by another ship)
+	 * 
+	 * @param outerColor
+	 */
+	public void setOuterColor(Color outerColor) {
+		this.outerColor = outerColor;
+	}
+
+	/**
+	 * Copy the graphic with what the EMP looks like now (for the GUI to draw)
+	 * 
+	 * @param graphic
+	 */
+	EMPGraphics(EMPGraphics graphic) {
+		super(graphic.height, graphic.width);
+		outerColor = graphic.outerColor;
+		location = graphic.emp.getPosition().deepCopy();
+		radius = graphic.emp.getRadius();
+	}
+
+	@Override
+	public SpacewarGraphics getFrameCopy() {
+		if (isDrawable()) {
+			return new EMPGraphics(this);
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Return the position of the emp
 	 */
 	public Position getActualLocation() {
+		if (emp == null) {
+			return location;
+		}
 		return emp.getPosition();
 	}
 
 	@Override
 	public void draw(Graphics2D graphics) {
-        float radius = emp.getRadius();
+        float radius = emp == null ? this.radius : emp.getRadius();
         float diameter = radius * 2;
 
         // inner ring
@@ -54,7 +93,8 @@ public class EMPGraphics extends SpacewarGraphics {
 
 	@Override
 	public boolean isDrawable() {
-		return emp.isAlive();
+		// copies are only made of EMPs that are drawn
+		return emp == null || emp.isAlive();
 	}
 
 }
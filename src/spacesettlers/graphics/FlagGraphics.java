@@ -22,6 +22,11 @@ public class FlagGraphics extends SpacewarGraphics {
     Flag flag;
     
     double scale;
+
+    /**
+     * Where the flag was when the graphic was copied
+     */
+    Position location;
     
 	public FlagGraphics(Flag flag, Color color) {
 		super(flag.getRadius(), flag.getRadius());
@@ -31,8 +36,32 @@ public class FlagGraphics extends SpacewarGraphics {
 		this.scale = flag.getRadius();
 	}
 
+	/**
+	 * Copy the graphic with where the flag is now (for the GUI to draw)
+	 * 
+	 * @param graphic
+	 */
+	FlagGraphics(FlagGraphics graphic) {
+		super(graphic.height, graphic.width);
+		this.flagColor = graphic.flagColor;
+		this.scale = graphic.scale;
+		location = graphic.flag.getPosition().deepCopy();
+	}
+
+	@Override
+	public SpacewarGraphics getFrameCopy() {
+		if (isDrawable()) {
+			return new FlagGraphics(this);
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public Position getActualLocation() {
+		if (flag == null) {
+			return location;
+		}
 		return flag.getPosition();
 	}
 
@@ -55,7 +84,8 @@ public class FlagGraphics extends SpacewarGraphics {
 
 	@Override
 	public boolean isDrawable() {
-		if (flag.isAlive() && flag.isDrawable()) {
+		// copies are only made of flags that are drawn
+		if (flag == null || (flag.isAlive() && flag.isDrawable())) {
 			return true;
 		} else {
 			return false;
@@ -16,6 +16,12 @@ public class MissileGraphics extends SpacewarGraphics {
 	Missile missile;
 	//Color missile_color = new Color(200, 200, 200);
 	Color firingShipColor;
+
+	/**
+	 * What is drawn of the missile (copied from it when the graphic is drawn or copied)
+	 */
+	Position location;
+	int radius;
 	
 	public MissileGraphics(Missile missle) {
         super((int)(missle.getRadius() * 2), (int)(missle.getRadius()  * 2));
@@ -25,16 +31,49 @@ public class MissileGraphics extends SpacewarGraphics {
         this.missile = missle;
 	}
 
+	/**
+	 * Change the color (when the missile is fired again by another ship)
+	 * 
+	 * @param firingShipColor
+	 */
+	public void setFiringShipColor(Color firingShipColor) {
+		this.firingShipColor = firingShipColor;
+	}
+
+	/**
+	 * Copy the graphic with what the missile looks like now (for the GUI to draw)
+	 * 
+	 * @param graphic
+	 */
+	MissileGraphics(MissileGraphics graphic) {
+		super(graphic.height, graphic.width);
+		firingShipColor = graphic.firingShipColor;
+		location = graphic.missile.getPosition().deepCopy();
+		radius = graphic.missile.getRadius();
+	}
+
+	@Override
+	public SpacewarGraphics getFrameCopy() {
+		if (isDrawable()) {
+			return new MissileGraphics(this);
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Return the position of the bullet
 	 */
 	public Position getActualLocation() {
+		if (missile == null) {
+			return location;
+		}
 		return missile.getPosition();
 	}
 
 	@Override
 	public void draw(Graphics2D graphics) {
-        float radius = missile.getRadius();
+        float radius = missile == null ? this.radius : missile.getRadius();
         float diameter = radius * 2;
 
         graphics.setColor(firingShipColor);
@@ -45,7 +84,8 @@ public class MissileGraphics extends SpacewarGraphics {
 
 	@Override
 	public boolean isDrawable() {
-		return missile.isAlive();
+		// copies are only made of missiles that are drawn
+		return missile == null || missile.isAlive();
 	}
 
 }
@@ -34,6 +34,13 @@ public class ShipGraphics extends SpacewarGraphics {
     private Ship ship;
     Color shipColor, idColor;
 
+    /**
+     * What is drawn of the ship (copied from it when the graphic is drawn or copied)
+     */
+    Position location;
+    int radius, energy, numBeacons;
+    boolean shielded, frozen, carryingFlag;
+
     /**
      * Create a new ship graphic and specify the ship and the color for the team
      * 
@@ -47,15 +54,53 @@ public class ShipGraphics extends SpacewarGraphics {
         this.idColor = new Color(255 - shipColor.getRed(), 255 - shipColor.getGreen(), 255 - shipColor.getBlue());
 
     }
-    
+
+    /**
+     * Copy the graphic with what the ship looks like now (for the GUI to draw)
+     * 
+     * @param graphic
+     */
+    ShipGraphics(ShipGraphics graphic) {
+    	super(graphic.height, graphic.width);
+    	this.shipColor = graphic.shipColor;
+    	this.idColor = graphic.idColor;
+    	copyShip(graphic.ship);
+    }
+
+    /**
+     * Remember what is drawn of the ship
+     * 
+     * @param ship
+     */
+    void copyShip(Ship ship) {
+    	location = ship.getPosition().deepCopy();
+    	radius = ship.getRadius();
+    	energy = (int) ship.getEnergy();
+    	numBeacons = ship.getNumBeacons();
+    	shielded = ship.isShielded();
+    	frozen = ship.getFreezeCount() > 0;
+    	carryingFlag = ship.isCarryingFlag();
+    }
+
+    @Override
+    public SpacewarGraphics getFrameCopy() {
+    	if (isDrawable()) {
+    		return new ShipGraphics(this);
+    	} else {
+    		return null;
+    	}
+    }
 
 	@Override
 	public void draw(Graphics2D graphics) {
+		if (ship != null) {
+			copyShip(ship);
+		}
 		graphics.setStroke(JSpaceSettlersComponent.THIN_STROKE);
 				
         final AffineTransform transform =
                 AffineTransform.getTranslateInstance(drawLocation.getX(), drawLocation.getY());
-        transform.rotate(ship.getPosition().getOrientation() + Math.PI / 2);
+        transform.rotate(location.getOrientation() + Math.PI / 2);
         transform.scale(.10, .10);
 
 //        if (ship.getActiveCommand().thrust) {
@@ -81,7 +126,7 @@ public class ShipGraphics extends SpacewarGraphics {
        // graphics.setPaint(idColor);
         //graphics.drawString(ship.getId().toString(), (int) drawLocation.getX() - 3, (int) drawLocation.getY() + 3);
 
-        String number = Integer.toString((int)ship.getEnergy());
+        String number = Integer.toString(energy);
         graphics.setPaint(idColor);
         graphics.drawString(number, (int) drawLocation.getX() + 12, (int) drawLocation.getY() + 12);
         
@@ -97,8 +142,8 @@ public class ShipGraphics extends SpacewarGraphics {
         graphics.drawLine(
                 (int) drawLocation.getX(),
                 (int) drawLocation.getY(),
-                (int) (drawLocation.getX() + ship.getPosition().getTranslationalVelocityX()),
-                (int) (drawLocation.getY() + ship.getPosition().getTranslationalVelocityY()));
+                (int) (drawLocation.getX() + location.getTranslationalVelocityX()),
+                (int) (drawLocation.getY() + location.getTranslationalVelocityY()));
 
 //        number = Integer.toString(ship.getKills());
 //        g.setPaint(Color.PINK);
@@ -109,13 +154,13 @@ public class ShipGraphics extends SpacewarGraphics {
 //        g.drawString(number, ship.getPosition().getX() - 24, ship.getPosition().getY() + 1);
 //
         // paint the number of beacons
-        number = Integer.toString(ship.getNumBeacons());
+        number = Integer.toString(numBeacons);
         graphics.setPaint(BeaconGraphics.BEACON_COLOR);
         graphics.drawString(number, (int) drawLocation.getX() - 24, (int) drawLocation.getY() + 23);
 
         // if the ship is shielded, show the shield around it
-        if (ship.isShielded()) {
-	        double shieldRadius = ship.getRadius() + 4;
+        if (shielded) {
+	        double shieldRadius = radius + 4;
 	        final Ellipse2D.Double shieldShape = new Ellipse2D.Double(drawLocation.getX() - shieldRadius,
 	        		drawLocation.getY() - shieldRadius, 2 * shieldRadius, 2 * shieldRadius);
 	        graphics.setStroke(JSpaceSettlersComponent.THIN_STROKE);
@@ -124,8 +169,8 @@ public class ShipGraphics extends SpacewarGraphics {
         }
 
         // if the ship is frozen from an EMP, show a ring around it (in the ship's own color)
-        if (ship.getFreezeCount() > 0) {
-	        double shieldRadius = ship.getRadius() + 2;
+        if (frozen) {
+	        double shieldRadius = radius + 2;
 	        final Ellipse2D.Double shieldShape = new Ellipse2D.Double(drawLocation.getX() - shieldRadius,
 	        		drawLocation.getY() - shieldRadius, 2 * shieldRadius, 2 * shieldRadius);
 	        graphics.setStroke(JSpaceSettlersComponent.THIN_STROKE);
@@ -134,7 +179,7 @@ public class ShipGraphics extends SpacewarGraphics {
         }
         
         // if the ship has a flag, put a tiny flag inside the ship
-        if (ship.isCarryingFlag()) {
+        if (carryingFlag) {
         	AffineTransform transformFlag =
                     AffineTransform.getTranslateInstance(drawLocation.getX(), drawLocation.getY());
         	transformFlag.scale(Flag.FLAG_RADIUS / 2.0, Flag.FLAG_RADIUS / 2.0);
@@ -153,7 +198,8 @@ public class ShipGraphics extends SpacewarGraphics {
 	 * Only draw a ship if it is alive and drawable (ships should always be drawable)
 	 */
 	public boolean isDrawable() {
-		if (ship.isAlive() && ship.isDrawable()) {
+		// copies are only made of ships that are drawn
+		if (ship == null || (ship.isAlive() && ship.isDrawable())) {
 			return true;
 		} else {
 			return false;
@@ -165,6 +211,9 @@ public class ShipGraphics extends SpacewarGraphics {
 	 * Return the location of the center of the ship
 	 */
 	public Position getActualLocation() {
+		if (ship == null) {
+			return location;
+		}
 		return ship.getPosition();
 	}
 
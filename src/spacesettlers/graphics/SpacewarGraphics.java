@@ -100,4 +100,19 @@ abstract public class SpacewarGraphics {
 	 * @return
 	 */
 	abstract public boolean isDrawable();
+
+	/**
+	 * Copy the graphic as it looks right now so the GUI can draw it while the
+	 * simulation moves on.  Graphics that follow a game object copy what they draw
+	 * of it.  The others don't change once they are made, so they are their own copy.
+	 *
+	 * @return the copy or null if the graphic isn't drawn right now
+	 */
+	public SpacewarGraphics getFrameCopy() {
+		if (isDrawable()) {
+			return this;
+		} else {
+			return null;
+		}
+	}
 }
@@ -11,16 +11,11 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
-import java.util.LinkedHashSet;
-import java.util.Set;
 
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 
-import spacesettlers.clients.Team;
 import spacesettlers.graphics.SpacewarGraphics;
-import spacesettlers.objects.AbstractObject;
-import spacesettlers.simulator.SpaceSettlersSimulator;
 import spacesettlers.utilities.Position;
 
 /**
@@ -45,9 +40,9 @@ public class JSpaceSettlersComponent extends JComponent {
 	AffineTransform scaleTransform;
 	
 	/**
-	 * Current state of the simulator
+	 * The latest frame from the simulator (only set and read on the Swing thread)
 	 */
-	SpaceSettlersSimulator simulator;
+	RenderFrame frame;
 	
 	public JSpaceSettlersComponent(int height, int width) {
 		super();
@@ -82,33 +77,19 @@ public class JSpaceSettlersComponent extends JComponent {
         g.setColor(Color.BLACK);
         g.fillRect(0, 0, this.width, this.height);
 
-        // handle an annoying race condition in the GUI
-        if (simulator == null) {
+        // nothing to draw until the simulator sends the first frame
+        if (frame == null) {
         	return;
         }
 
-        // draw graphic for all the objects
-        Set<AbstractObject> allObjects = new LinkedHashSet<AbstractObject>(simulator.getAllObjects());
-
-        for (AbstractObject object : allObjects) {
-        	SpacewarGraphics graphic = object.getGraphic();
-        	if (graphic != null) {
-            	if (graphic.isDrawable()) {
-            		drawShadow(graphic, graphics);
-            	}
-        	}
+        // draw graphic for all the objects (the frame only has the ones that are drawn)
+        for (int i = 0; i < frame.getNumObjects(); i++) {
+        	drawShadow(frame.getObjectGraphic(i), graphics);
         }
         
         // and draw any team graphics from this round
-        for (Team team : simulator.getTeams()) {
-        	Set<SpacewarGraphics>teamShadows = team.getGraphics();
-        	if (teamShadows != null) {
-        		for (SpacewarGraphics graphic : teamShadows) {
-                	if (graphic.isDrawable()) {
-                		drawShadow(graphic, graphics);
-                	}
-        		}
-        	}
+        for (SpacewarGraphics graphic : frame.getTeamGraphics()) {
+        	drawShadow(graphic, graphics);
         }
 	}
 	
@@ -179,11 +160,19 @@ public class JSpaceSettlersComponent extends JComponent {
     }
 
     /**
-     * Set the current sim
-     * @param simulator
+     * Set the frame to draw (on the Swing thread)
+     * @param frame
      */
-	public void setSimulator(SpaceSettlersSimulator spacewarSimulator) {
-		this.simulator = spacewarSimulator;
+	public void setFrame(RenderFrame frame) {
+		this.frame = frame;
+	}
+
+	/**
+	 * The frame being drawn
+	 * @return
+	 */
+	public RenderFrame getFrame() {
+		return frame;
 	}
 
 	/**
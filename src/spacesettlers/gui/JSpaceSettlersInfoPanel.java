@@ -36,6 +36,8 @@ public class JSpaceSettlersInfoPanel extends JPanel {
 	Map<String, TeamInfoPanel> teamComponents;
 	
 	ObjectInfoPanel objectPanel;
+	
+	ProfilerPanel profilerPanel;
 
 	public JSpaceSettlersInfoPanel(SpaceSettlersSimulator simulator) {
 		super();
@@ -70,6 +72,12 @@ public class JSpaceSettlersInfoPanel extends JPanel {
 		constraints.gridy = simulator.getTeams().size() + 1;
         constraints.gridwidth = GridBagConstraints.REMAINDER;
         add(objectPanel, constraints);
+
+        profilerPanel = new ProfilerPanel();
+		constraints.gridx = 0;
+		constraints.gridy = simulator.getTeams().size() + 2;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        add(profilerPanel, constraints);
 	}
 	
 	public void updateData() {
@@ -80,6 +88,7 @@ public class JSpaceSettlersInfoPanel extends JPanel {
 		}
 		
 		objectPanel.updateData(simulator);
+		profilerPanel.updateData(simulator);
 	}
 	
 
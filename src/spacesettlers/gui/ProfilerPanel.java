@@ -0,0 +1,98 @@
+package spacesettlers.gui;
+
+import java.awt.Font;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+import spacesettlers.simulator.LatencyHistogram;
+import spacesettlers.simulator.PhaseTimes;
+import spacesettlers.simulator.SimulatorPhase;
+import spacesettlers.simulator.SpaceSettlersSimulator;
+import spacesettlers.simulator.StepProfiler;
+
+/**
+ * Shows the step profiler: the average time (and 99th percentile) of each phase of
+ * the time steps, the allocations per step and the slowest team.
+ */
+@SuppressWarnings("serial")
+public class ProfilerPanel extends JPanel {
+	GridBagConstraints constraints;
+	JLabel[] phaseData;
+	JLabel stepData;
+	JLabel allocatedData;
+	JLabel slowestTeamData;
+
+	public ProfilerPanel() {
+		setFont(new Font("SansSerif", Font.PLAIN, 12));
+
+		constraints = new GridBagConstraints();
+		constraints.anchor = GridBagConstraints.WEST;
+		setLayout(new GridBagLayout());
+
+		int row = 0;
+		stepData = addRow("Step: ", row++);
+
+		SimulatorPhase[] phases = SimulatorPhase.values();
+		phaseData = new JLabel[phases.length];
+		for (SimulatorPhase phase : phases) {
+			phaseData[phase.ordinal()] = addRow(phase + ": ", row++);
+		}
+
+		allocatedData = addRow("Allocated: ", row++);
+		slowestTeamData = addRow("Slowest team: ", row++);
+	}
+
+	/**
+	 * Add a label and its data on the row
+	 * @param name
+	 * @param row
+	 * @return the label for the data
+	 */
+	JLabel addRow(String name, int row) {
+		constraints.gridx = 0;
+		constraints.gridy = row;
+		constraints.gridwidth = 1;
+		add(new JLabel(name), constraints);
+
+		constraints.gridx = 1;
+		constraints.gridwidth = GridBagConstraints.REMAINDER;
+		JLabel data = new JLabel("0");
+		add(data, constraints);
+		return data;
+	}
+
+	public void updateData(SpaceSettlersSimulator simulator) {
+		StepProfiler profiler = simulator.getProfiler();
+		PhaseTimes phaseTimes = profiler.getPhaseTimes();
+		long steps = Math.max(1, phaseTimes.getSteps());
+
+		stepData.setText(String.format("%.3f ms (p99 < %d ms)", phaseTimes.getTotalNanos() / 1e6 / steps,
+				profiler.getStepLatency().getPercentileMicros(0.99) / 1000));
+
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			phaseData[phase.ordinal()].setText(String.format("%.3f ms (p99 < %d ms)",
+					phaseTimes.getNanos(phase) / 1e6 / steps,
+					profiler.getPhaseLatency(phase).getPercentileMicros(0.99) / 1000));
+		}
+
+		if (profiler.isCountingAllocations()) {
+			long bytes = 0;
+			for (SimulatorPhase phase : SimulatorPhase.values()) {
+				bytes += profiler.getAllocatedBytes(phase);
+			}
+			allocatedData.setText(bytes / 1024 / steps + " KB per step");
+		} else {
+			allocatedData.setText("not counted");
+		}
+
+		LatencyHistogram slowest = profiler.getSlowestOwner();
+		if (slowest != null) {
+			slowestTeamData.setText(slowest.getName() + " (mean " + slowest.getMeanMicros() + " us, "
+					+ slowest.getTimeouts() + " timeouts)");
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package spacesettlers.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import spacesettlers.clients.Team;
+import spacesettlers.graphics.SpacewarGraphics;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.utilities.Position;
+
+/**
+ * What the GUI draws for one time step.  The simulation thread makes it between steps
+ * from copies of the graphics (see SpacewarGraphics.getFrameCopy) and it never changes
+ * after that, so Swing can draw it while the simulation moves on.
+ */
+public class RenderFrame {
+	/**
+	 * The time step the frame shows
+	 */
+	final int timestep;
+
+	/**
+	 * The copied graphics of the objects that are drawn, in the order of the objects
+	 */
+	final SpacewarGraphics[] objectGraphics;
+
+	/**
+	 * The object each graphic draws and its radius (to find clicked objects).  The objects
+	 * themselves are only for the info panel, which shows their current values.
+	 */
+	final AbstractObject[] objects;
+	final int[] objectRadii;
+
+	/**
+	 * The graphics the teams asked for this step (drawn over the objects)
+	 */
+	final List<SpacewarGraphics> teamGraphics;
+
+	/**
+	 * Copy what is drawn of the objects and teams.  Call it from the simulation thread
+	 * between steps.
+	 *
+	 * @param timestep
+	 * @param objects
+	 * @param teams
+	 */
+	public RenderFrame(int timestep, Collection<AbstractObject> objects, Collection<Team> teams) {
+		this.timestep = timestep;
+
+		SpacewarGraphics[] graphics = new SpacewarGraphics[objects.size()];
+		AbstractObject[] drawn = new AbstractObject[objects.size()];
+		int[] radii = new int[objects.size()];
+		int numDrawn = 0;
+		for (AbstractObject object : objects) {
+			SpacewarGraphics graphic = object.getGraphic();
+			if (graphic == null) {
+				continue;
+			}
+			SpacewarGraphics copy = graphic.getFrameCopy();
+			if (copy != null) {
+				graphics[numDrawn] = copy;
+				drawn[numDrawn] = object;
+				radii[numDrawn] = object.getRadius();
+				numDrawn++;
+			}
+		}
+		objectGraphics = numDrawn == graphics.length ? graphics : Arrays.copyOf(graphics, numDrawn);
+		this.objects = numDrawn == drawn.length ? drawn : Arrays.copyOf(drawn, numDrawn);
+		objectRadii = numDrawn == radii.length ? radii : Arrays.copyOf(radii, numDrawn);
+
+		List<SpacewarGraphics> copies = new ArrayList<SpacewarGraphics>();
+		for (Team team : teams) {
+			Set<SpacewarGraphics> teamShadows = team.getGraphics();
+			if (teamShadows != null) {
+				for (SpacewarGraphics graphic : teamShadows) {
+					SpacewarGraphics copy = graphic.getFrameCopy();
+					if (copy != null) {
+						copies.add(copy);
+					}
+				}
+			}
+		}
+		teamGraphics = Collections.unmodifiableList(copies);
+	}
+
+	public int getTimestep() {
+		return timestep;
+	}
+
+	public int getNumObjects() {
+		return objectGraphics.length;
+	}
+
+	/**
+	 * The copied graphic of an object
+	 *
+	 * @param index
+	 * @return
+	 */
+	public SpacewarGraphics getObjectGraphic(int index) {
+		return objectGraphics[index];
+	}
+
+	/**
+	 * Where an object was in the frame
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Position getObjectPosition(int index) {
+		return objectGraphics[index].getActualLocation();
+	}
+
+	public AbstractObject getObject(int index) {
+		return objects[index];
+	}
+
+	public int getObjectRadius(int index) {
+		return objectRadii[index];
+	}
+
+	public List<SpacewarGraphics> getTeamGraphics() {
+		return teamGraphics;
+	}
+}
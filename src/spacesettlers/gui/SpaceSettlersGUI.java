@@ -19,7 +19,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -32,10 +32,10 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JViewport;
 import javax.swing.KeyStroke;
+import javax.swing.Timer;
 
 import spacesettlers.clients.Team;
 import spacesettlers.configs.SpaceSettlersConfig;
-import spacesettlers.objects.AbstractObject;
 import spacesettlers.simulator.SpaceSettlersSimulator;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Position;
@@ -57,19 +57,46 @@ public class SpaceSettlersGUI {
 	SpaceSettlersSimulator simulator;
 	
 	AffineTransform graphicsTransform, clickTransform;
+
+	/**
+	 * Frames per second drawn if none is asked for
+	 */
+	public static final int DEFAULT_FRAMES_PER_SECOND = 25;
+
+	/**
+	 * The newest frame from the simulator that hasn't been drawn yet.  The simulator
+	 * replaces it without waiting, so a frame that wasn't drawn in time is dropped.
+	 */
+	AtomicReference<RenderFrame> nextFrame;
+
+	/**
+	 * Time between frames (and when the simulator last made one)
+	 */
+	long framePeriodNanos, lastFrameNanos;
+
+	/**
+	 * Draws the newest frame on the Swing thread at the frame rate
+	 */
+	Timer renderTimer;
 	
 	/**
 	 * Make a new GUI
 	 * @param config
+	 * @param simulator
+	 * @param framesPerSecond how often the simulator's state is drawn
 	 */
-	public SpaceSettlersGUI(SpaceSettlersConfig config, SpaceSettlersSimulator simulator) {
+	public SpaceSettlersGUI(SpaceSettlersConfig config, SpaceSettlersSimulator simulator, int framesPerSecond) {
 		super();
 		this.simulator = simulator;
+		nextFrame = new AtomicReference<RenderFrame>();
+		framePeriodNanos = 1000000000L / framesPerSecond;
+		lastFrameNanos = System.nanoTime() - framePeriodNanos;
 		
 		mainFrame = new JFrame("Space Settlers");
 
 		// make the inner panel and components
 		infoPanel = new JSpaceSettlersInfoPanel(simulator);
+		infoPanel.setSimulator(simulator);
 		infoPanel.setBorder(BorderFactory.createRaisedBevelBorder());
 		mainComponent = new JSpaceSettlersComponent(config.getHeight(), config.getWidth());
 		//JScrollPane mainScrollPane = new JScrollPane(mainComponent);
@@ -210,6 +237,15 @@ public class SpaceSettlersGUI {
 
 		mainFrame.pack();
 		mainFrame.setVisible(true);
+
+		// draw whatever the simulator sent last at the frame rate
+		renderTimer = new Timer(1000 / framesPerSecond, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				drawNextFrame();
+			}
+		});
+		renderTimer.start();
 		//System.out.println("Info component width x height " + infoPanel.getWidth() + " x " + infoPanel.getHeight());
 		//System.out.println("Main component width x height " + mainPanel.getWidth() + " x " + mainPanel.getHeight());
 	}
@@ -233,15 +269,17 @@ public class SpaceSettlersGUI {
 			
 			// only listens to left clicks
 			if (e.getButton() == MouseEvent.BUTTON1) {
-				// get the set of all objects and figure out if the user clicked inside an object
-				Set<AbstractObject> allObjects = simulator.getAllObjects();
+				// figure out if the user clicked inside an object where it is drawn
+				RenderFrame frame = mainComponent.getFrame();
+				if (frame == null) {
+					return;
+				}
 				Toroidal2DPhysics space = simulator.getSimulatedSpace();
 				//System.out.println("Received a click at " + clickPosition);
 				
-				for (AbstractObject obj : allObjects) {
-					//System.out.println("Object " + obj + " distance to click " + space.findShortestDistance(clickPosition, obj.getPosition()) + " radius is " + obj.getRadius());
-					if (space.findShortestDistance(clickPosition, obj.getPosition()) <= obj.getRadius()) {
-						infoPanel.setClickedObject(obj);
+				for (int i = 0; i < frame.getNumObjects(); i++) {
+					if (space.findShortestDistance(clickPosition, frame.getObjectPosition(i)) <= frame.getObjectRadius(i)) {
+						infoPanel.setClickedObject(frame.getObject(i));
 						//System.out.println("Click matched object " + obj);
 						return;
 					}
@@ -268,10 +306,13 @@ public class SpaceSettlersGUI {
 	}
 
 	/**
-	 * Double the sim speed (by halving graphics sleep)
+	 * Double the sim speed (by halving graphics sleep, down to not sleeping at all)
 	 */
 	protected void doubleSpeed() {
-		int newSpeed = Math.max(5, simulator.getGraphicsSleep() / 2);
+		int newSpeed = simulator.getGraphicsSleep() / 2;
+		if (newSpeed < 5) {
+			newSpeed = 0;
+		}
 		simulator.setGraphicsSleep(newSpeed);
 	}
 
@@ -279,20 +320,38 @@ public class SpaceSettlersGUI {
 	 * Slow the sim speed (by doubling graphics sleep)
 	 */
 	protected void slowSpeed() {
-		int newSpeed = Math.min(simulator.getGraphicsSleep() * 2, 240);
+		int newSpeed = Math.min(Math.max(5, simulator.getGraphicsSleep() * 2), 240);
 		simulator.setGraphicsSleep(newSpeed);
 	}
 
-	
 	/**
-	 * Redraws the graphics
-	 * @param simulator
+	 * Send the state of the simulator to be drawn.  Called by the simulator between
+	 * steps; it never waits for Swing, and frames come no faster than the frame rate.
+	 * 
+	 * @param always true to send a frame even if one was sent less than a frame ago
+	 * (for the first and last steps)
 	 */
-	public void redraw() {
-		infoPanel.setSimulator(simulator);
+	public void publishFrame(boolean always) {
+		long now = System.nanoTime();
+		if (!always && now - lastFrameNanos < framePeriodNanos) {
+			return;
+		}
+		lastFrameNanos = now;
+		nextFrame.set(new RenderFrame(simulator.getTimestep(), simulator.getAllObjects(), simulator.getTeams()));
+	}
+
+	/**
+	 * Draw the newest frame (on the Swing thread)
+	 */
+	void drawNextFrame() {
+		RenderFrame frame = nextFrame.getAndSet(null);
+
+		// nothing new since the last frame (when paused or the simulation is slow)
+		if (frame == null) {
+			return;
+		}
+		mainComponent.setFrame(frame);
 		infoPanel.updateData();
-		//mainFrame.paintComponents(getGraphics());
-		mainComponent.setSimulator(simulator);
 		mainFrame.repaint();
 	}
 	
@@ -310,7 +369,7 @@ public class SpaceSettlersGUI {
 			String helpText = "Summary of all the keyboard commands.\n\n\n";
 			helpText += " Main GUI commands:\n";
 			helpText += "p/P  pauses and unpauses the simulation\n";
-			helpText += "+  speeds up the simulation\n";
+			helpText += "+  speeds up the simulation (until it runs as fast as it can)\n";
 			helpText += "-  slows down the simulation\n";
 			helpText += "h  brings up this menu\n\n";
 
@@ -7,8 +7,12 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import spacesettlers.clients.Team;
 import spacesettlers.configs.*;
@@ -26,13 +30,16 @@ import com.thoughtworks.xstream.XStream;
 public class Ladder {
 	LadderConfig ladderConfig;
 
-	SpaceSettlersSimulator simulator;
-
 	SpaceSettlersConfig simConfig;
 
+	/**
+	 * Path to the simulator config file (read again for every match)
+	 */
+	String simConfigFile;
+
 	JSAPResult parserConfig;
 
-	HashMap <String, TeamRecord> ladderResultsMap;
+	LinkedHashMap <String, TeamRecord> ladderResultsMap;
 	
 	ArrayList<TeamRecord> sortedLadderResults;
 	
@@ -47,7 +54,7 @@ public class Ladder {
 		loadConfigFiles(parserConfig);
 		this.parserConfig = parserConfig;
 
-		ladderResultsMap = new HashMap<String, TeamRecord>();
+		ladderResultsMap = new LinkedHashMap<String, TeamRecord>();
 		ladderOutputString = new ArrayList<String>();
 	}
 
@@ -65,27 +72,13 @@ public class Ladder {
 	 */
 	public void loadConfigFiles(JSAPResult parserConfig) throws SimulatorException {
 		// load in the simulator config file
-		String configFile = parserConfig.getString("configPath") + parserConfig.getString("simulatorConfigFile");
-
-		XStream xstream = new XStream();
-		xstream.alias("SpaceSettlersConfig", SpaceSettlersConfig.class);
-		xstream.alias("HighLevelTeamConfig", HighLevelTeamConfig.class);
-		xstream.alias("BaseConfig", BaseConfig.class);
-		xstream.alias("AsteroidConfig", RandomAsteroidConfig.class);
-		xstream.alias("FixedAsteroidConfig", FixedAsteroidConfig.class);
-		xstream.alias("FlagConfig", FlagConfig.class);
-
-
-		try { 
-			simConfig = (SpaceSettlersConfig) xstream.fromXML(new File(configFile));
-		} catch (Exception e) {
-			throw new SimulatorException("Error parsing config file at string " + e.getMessage());
-		}
+		simConfigFile = parserConfig.getString("configPath") + parserConfig.getString("simulatorConfigFile");
+		simConfig = SpaceSettlersSimulator.readConfigFile(simConfigFile);
 
 		// load in the ladder config file
-		configFile = parserConfig.getString("configPath") + parserConfig.getString("ladderConfigFile");
+		String configFile = parserConfig.getString("configPath") + parserConfig.getString("ladderConfigFile");
 
-		xstream = new XStream();
+		XStream xstream = new XStream();
 		xstream.alias("LadderConfig", LadderConfig.class);
 		xstream.alias("HighLevelTeamConfig", HighLevelTeamConfig.class);
 
@@ -103,7 +96,9 @@ public class Ladder {
 	}
 
 	/**
-	 * Runs the ladder for the specified number of games
+	 * Runs the ladder for the specified number of games.  The matches run in parallel
+	 * (numThreads at a time) but the results are always combined in game order so the
+	 * ladder doesn't depend on which match finishes first.
 	 * @throws SimulatorException 
 	 */
 	@SuppressWarnings("unchecked")
@@ -114,85 +109,44 @@ public class Ladder {
 		System.out.println("Ladder will run " + numGames + " games");
 		int gameIndex = 0;
 
+		ExecutorService matchExecutor = Executors.newFixedThreadPool(Math.max(1, parserConfig.getInt("numThreads", 1)));
+		ArrayList<Future<MatchResult>> matchResults = new ArrayList<Future<MatchResult>>();
+
 		for (int repeat = 0; repeat < ladderConfig.getNumRepeatMatches(); repeat++) {
 			for (HighLevelTeamConfig[] teamsForMatch : clientsPerMatch) {
 				gameIndex++;
-				// setup the simulator for this match
-				simConfig.setTeams(teamsForMatch);
-
-				// set the bases to match the teams for this game.  Read in the ones
-				// from the config file first (and rename them)
-				// only make new ones if we don't have enough
-				BaseConfig[] defaultBases = simConfig.getBases();
-				BaseConfig[] baseConfig = new BaseConfig[teamsForMatch.length];
-				for (int i = 0; i < teamsForMatch.length; i++) {
-					if (i < defaultBases.length) {
-						baseConfig[i] = defaultBases[i];
-						baseConfig[i].setTeamName(teamsForMatch[i].getTeamName());
-					} else {
-						baseConfig[i] = new BaseConfig(teamsForMatch[i].getTeamName());
+				// every match gets its own copy of the config (and so its own seeded simulator)
+				final SpaceSettlersConfig matchConfig = getMatchConfig(teamsForMatch);
+				final int matchIndex = gameIndex;
+				final int matchCount = numGames;
+				final HighLevelTeamConfig[] matchTeams = teamsForMatch;
+
+				matchResults.add(matchExecutor.submit(new Callable<MatchResult>() {
+					public MatchResult call() {
+						return runMatch(matchConfig, matchTeams, matchIndex, matchCount);
 					}
-				}
-				simConfig.setBases(baseConfig);
-				
-				// if there are flags, then set the flags to also match the teams for this game
-				FlagConfig[] flagConfigs = simConfig.getFlags();
-				if (flagConfigs != null && flagConfigs.length > 0) {
-					if (flagConfigs.length != teamsForMatch.length) {
-						throw new SimulatorException("Error: The number of flags in the config file doesn't match the number of teams for the match");
-					}
-					for (int i = 0; i < teamsForMatch.length; i++) {
-						flagConfigs[i].setTeamName(teamsForMatch[i].getTeamName());
-					}
-				}
-
-				// tell the user the match is about to begin
-				String str = "***Game " + gameIndex + " / " + numGames + " with teams ";
-				for (HighLevelTeamConfig team : teamsForMatch) {
-					str += (team.getTeamName() + " ");
-				}
-				str += "***";
-				System.out.println(str);
-				ladderOutputString.add(str);
-
-				try {
-					// try to make a simulator and run it
-					simulator = new SpaceSettlersSimulator(simConfig, parserConfig);
+				}));
+			}
+		}
+		matchExecutor.shutdown();
+
+		// put the results together in game order
+		for (Future<MatchResult> future : matchResults) {
+			MatchResult result;
+			try {
+				result = future.get();
+			} catch (Exception e) {
+				throw new SimulatorException("Error running ladder match " + e.getMessage());
+			}
+			ladderOutputString.addAll(result.output);
 
-					str = "***Game " + gameIndex + " / " + numGames + " with teams ";
-					Set<Team> teams = simulator.getTeams();
-					for (Team team : teams) {
-						str += (team.getTeamName() + " = " + team.getLadderName() + " ");
-					}
-					str += "***";
-					System.out.println(str);
-					ladderOutputString.add(str);
-
-					// run the game
-					simulator.run();
-
-					// get the teams and print out their scores
-					for (Team team : teams) {
-						str = "Team: " + team.getLadderName() + " scored " + team.getScore();
-						ladderOutputString.add(str);
-						System.out.println(str);
-						
-						TeamRecord thisRecord;
-						if (ladderResultsMap.containsKey(team.getLadderName())) {
-							thisRecord = ladderResultsMap.get(team.getLadderName());
-						} else {
-							thisRecord = new TeamRecord(team);
-						}
-
-						thisRecord.update(team);
-						ladderResultsMap.put(team.getLadderName(), thisRecord);
-					}
-				} catch (Exception e) {
-					System.err.println("Error in match : skipping and moving to next one");
-					ladderOutputString.add("Error in match : skipping and moving to next one");
-					ladderOutputString.add(e.toString());
-					e.printStackTrace();
+			for (TeamRecord gameRecord : result.teamRecords) {
+				TeamRecord thisRecord = ladderResultsMap.get(gameRecord.teamName);
+				if (thisRecord == null) {
+					thisRecord = new TeamRecord(gameRecord.teamName);
+					ladderResultsMap.put(gameRecord.teamName, thisRecord);
 				}
+				thisRecord.add(gameRecord);
 			}
 		}
 
@@ -208,6 +162,118 @@ public class Ladder {
 		}
 	}
 
+	/**
+	 * Make the simulator config for one match
+	 * 
+	 * @param teamsForMatch
+	 * @return
+	 * @throws SimulatorException
+	 */
+	SpaceSettlersConfig getMatchConfig(HighLevelTeamConfig[] teamsForMatch) throws SimulatorException {
+		SpaceSettlersConfig simConfig = SpaceSettlersSimulator.readConfigFile(simConfigFile);
+		
+		// setup the simulator for this match (with copies of the teams because the 
+		// simulator fills in their initial regions)
+		HighLevelTeamConfig[] matchTeams = new HighLevelTeamConfig[teamsForMatch.length];
+		for (int i = 0; i < teamsForMatch.length; i++) {
+			matchTeams[i] = teamsForMatch[i].deepCopy();
+		}
+		teamsForMatch = matchTeams;
+		simConfig.setTeams(teamsForMatch);
+
+		// set the bases to match the teams for this game.  Read in the ones
+		// from the config file first (and rename them)
+		// only make new ones if we don't have enough
+		BaseConfig[] defaultBases = simConfig.getBases();
+		BaseConfig[] baseConfig = new BaseConfig[teamsForMatch.length];
+		for (int i = 0; i < teamsForMatch.length; i++) {
+			if (i < defaultBases.length) {
+				baseConfig[i] = defaultBases[i];
+				baseConfig[i].setTeamName(teamsForMatch[i].getTeamName());
+			} else {
+				baseConfig[i] = new BaseConfig(teamsForMatch[i].getTeamName());
+			}
+		}
+		simConfig.setBases(baseConfig);
+		
+		// if there are flags, then set the flags to also match the teams for this game
+		FlagConfig[] flagConfigs = simConfig.getFlags();
+		if (flagConfigs != null && flagConfigs.length > 0) {
+			if (flagConfigs.length != teamsForMatch.length) {
+				throw new SimulatorException("Error: The number of flags in the config file doesn't match the number of teams for the match");
+			}
+			for (int i = 0; i < teamsForMatch.length; i++) {
+				flagConfigs[i].setTeamName(teamsForMatch[i].getTeamName());
+			}
+		}
+		return simConfig;
+	}
+
+	/**
+	 * Run one match on its own simulator (called from the match threads)
+	 * 
+	 * @param simConfig
+	 * @param teamsForMatch
+	 * @param gameIndex
+	 * @param numGames
+	 * @return the output and team records of the match
+	 */
+	MatchResult runMatch(SpaceSettlersConfig simConfig, HighLevelTeamConfig[] teamsForMatch, int gameIndex, int numGames) {
+		MatchResult result = new MatchResult();
+
+		// tell the user the match is about to begin
+		String str = "***Game " + gameIndex + " / " + numGames + " with teams ";
+		for (HighLevelTeamConfig team : teamsForMatch) {
+			str += (team.getTeamName() + " ");
+		}
+		str += "***";
+		System.out.println(str);
+		result.output.add(str);
+
+		try {
+			// try to make a simulator and run it
+			SpaceSettlersSimulator simulator = new SpaceSettlersSimulator(simConfig, parserConfig);
+			System.out.println(String.format("***Game %d started in %.1f ms***", gameIndex, simulator.getStartupMillis()));
+
+			str = "***Game " + gameIndex + " / " + numGames + " with teams ";
+			Set<Team> teams = simulator.getTeams();
+			for (Team team : teams) {
+				str += (team.getTeamName() + " = " + team.getLadderName() + " ");
+			}
+			str += "***";
+			System.out.println(str);
+			result.output.add(str);
+
+			// run the game
+			simulator.run();
+
+			// get the teams and print out their scores
+			for (Team team : teams) {
+				str = "Team: " + team.getLadderName() + " scored " + team.getScore();
+				result.output.add(str);
+				System.out.println(str);
+				
+				TeamRecord gameRecord = new TeamRecord(team);
+				gameRecord.update(team);
+				result.teamRecords.add(gameRecord);
+			}
+		} catch (Exception e) {
+			System.err.println("Error in match : skipping and moving to next one");
+			result.output.add("Error in match : skipping and moving to next one");
+			result.output.add(e.toString());
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	/**
+	 * The output and team records of one match
+	 */
+	static class MatchResult {
+		ArrayList<String> output = new ArrayList<String>();
+
+		ArrayList<TeamRecord> teamRecords = new ArrayList<TeamRecord>();
+	}
 
 	/**
 	 * Return the results of the ladder
@@ -17,8 +17,16 @@ public class RunLadder {
 	 * @throws SimulatorException 
 	 */
 	public RunLadder(String[] args) throws SimulatorException {
-		SimpleJSAP parser = initializeParser(args);
-		config = parseArgs(args, parser);
+		this(parseArgs(args, initializeParser()));
+	}
+
+	/**
+	 * Make a new ladder from arguments that were already parsed (with the parser from initializeParser)
+	 * @param config
+	 * @throws SimulatorException
+	 */
+	public RunLadder(JSAPResult config) throws SimulatorException {
+		this.config = config;
 		verifyArguments();
 	}
 
@@ -28,7 +36,7 @@ public class RunLadder {
 	 * @param parser
 	 * @return
 	 */
-	private JSAPResult parseArgs(String[] args, SimpleJSAP parser) {
+	private static JSAPResult parseArgs(String[] args, SimpleJSAP parser) {
 		// parse the arguments
 		JSAPResult parserConfig = parser.parse(args);
 		// exit if it failed to parse
@@ -63,10 +71,9 @@ public class RunLadder {
 
 	/**
 	 * Initialize the parser with all of the command line arguments
-	 * @param args
 	 * @return
 	 */
-	private SimpleJSAP initializeParser(String[] args) {
+	public static SimpleJSAP initializeParser() {
 		SimpleJSAP parser = null;
 
 		// create the parser and specify all the command line arguments
@@ -91,6 +98,10 @@ public class RunLadder {
 								JSAP.BOOLEAN_PARSER, "false", JSAP.REQUIRED,
 								JSAP.NO_SHORTFLAG, "graphics",
 								"boolean stating if graphics are to be shown (true) or not (false)"),
+						new FlaggedOption("numThreads",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "numThreads",
+								"number of ladder matches to run at the same time"),
 						new FlaggedOption("debug",
 								JSAP.BOOLEAN_PARSER, "false", JSAP.REQUIRED,
 								JSAP.NO_SHORTFLAG, "debug",
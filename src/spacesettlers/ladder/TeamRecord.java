@@ -91,6 +91,23 @@ public class TeamRecord {
 		averageBeacons = totalBeacons / numGames;
 	}
 
+	/**
+	 * Add in the games from another record of the same team
+	 * @param other
+	 */
+	public void add(TeamRecord other) {
+		numGames += other.numGames;
+		
+		totalScore += other.totalScore;
+		averageScore = totalScore / numGames;
+		
+		totalResources += other.totalResources;
+		averageResources = totalResources / numGames;
+		
+		totalBeacons += other.totalBeacons;
+		averageBeacons = totalBeacons / numGames;
+	}
+
 	public double getAverageScore() {
 		return averageScore;
 	}
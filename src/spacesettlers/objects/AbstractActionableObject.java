@@ -1,10 +1,12 @@
 package spacesettlers.objects;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import spacesettlers.objects.powerups.SpaceSettlersPowerup;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -93,6 +95,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param weaponCapacity
 	 */
 	public void setWeaponCapacity(int weaponCapacity) {
+		checkWritable();
 		this.weaponCapacity = weaponCapacity;
 	}
 
@@ -117,6 +120,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param powerup
 	 */
 	public void addPowerup(SpaceSettlersPowerupEnum powerup) {
+		checkWritable();
 		currentPowerups.add(powerup);
 	}
 	
@@ -124,6 +128,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * When an item dies, its power ups disappear
 	 */
 	public void resetPowerups() {
+		checkWritable();
 		currentPowerups.clear();
 	}
 	
@@ -132,6 +137,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param powerup
 	 */
 	public void removePowerup(SpaceSettlersPowerupEnum powerup) {
+		checkWritable();
 		currentPowerups.remove(powerup);
 	}
 	
@@ -148,6 +154,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param isShielded
 	 */
 	public void setShielded(boolean isShielded) {
+		checkWritable();
 		this.isShielded = isShielded;
 	}
 
@@ -172,6 +179,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param maxEnergy
 	 */
 	public void setMaxEnergy(int maxEnergy) {
+		checkWritable();
 		this.maxEnergy = maxEnergy;
 	}
 
@@ -196,6 +204,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param freezeCount
 	 */
 	public void setFreezeCount(int freezeCount) {
+		checkWritable();
 		this.freezeCount = freezeCount;
 		if (freezeCount > 0) {
 			super.isControllable = false;
@@ -207,6 +216,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * and set the ship back to controllable when it gets to 0
 	 */
 	public void decrementFreezeCount() {
+		checkWritable();
 		freezeCount--;
 		if (freezeCount <= 0) {
 			super.isControllable = true;
@@ -217,6 +227,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * @param teamName the teamName to set
 	 */
 	public void setTeamName(String teamName) {
+		checkWritable();
 		this.teamName = teamName;
 	}
 
@@ -240,6 +251,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * increment the hitsInflicted for this ship
 	 */
 	public void incrementHitsInflicted() {
+		checkWritable();
 		this.hitsInflicted++;
 	}
 
@@ -263,6 +275,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * increment the kill for this object
 	 */
 	public void incrementKillsInflicted() {
+		checkWritable();
 		this.killsInflicted++;
 	}
 	
@@ -270,6 +283,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * increment the kill received for this object
 	 */
 	public void incrementKillsReceived() {
+		checkWritable();
 		this.killsReceived++;
 	}
 
@@ -285,6 +299,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * increment the damageReceived for this object
 	 */
 	public void incrementDamageReceived(int increment) {
+		checkWritable();
 		this.damageReceived += increment;
 	}
 	
@@ -300,6 +315,7 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	 * increment the damageInflicted for this ship
 	 */
 	public void incrementDamageInflicted(int increment) {
+		checkWritable();
 		this.damageInflicted += increment;
 	}
 	
@@ -312,7 +328,47 @@ abstract public class AbstractActionableObject extends AbstractObject {
 	public Set<SpaceSettlersPowerupEnum> getCurrentPowerups() {
 		return currentPowerups;
 	}
-	
-	
-	
+
+	/**
+	 * The power ups of a read-only object can't be changed either
+	 */
+	@Override
+	public void makeReadOnly() {
+		super.makeReadOnly();
+		currentPowerups = Collections.unmodifiableSet(currentPowerups);
+	}
+
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putBoolean(isShielded);
+		record.putPowerups(currentPowerups);
+		record.putInt(energy);
+		record.putInt(maxEnergy);
+		record.putInt(weaponCapacity);
+		record.putInt(freezeCount);
+		record.putString(teamName);
+		record.putInt(hitsInflicted);
+		record.putInt(killsInflicted);
+		record.putInt(damageInflicted);
+		record.putInt(damageReceived);
+		record.putInt(killsReceived);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		isShielded = record.getBoolean();
+		currentPowerups = record.getPowerups();
+		energy = record.getInt();
+		maxEnergy = record.getInt();
+		weaponCapacity = record.getInt();
+		freezeCount = record.getInt();
+		teamName = record.getString();
+		hitsInflicted = record.getInt();
+		killsInflicted = record.getInt();
+		damageInflicted = record.getInt();
+		damageReceived = record.getInt();
+		killsReceived = record.getInt();
+	}
 }
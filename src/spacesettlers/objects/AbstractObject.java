@@ -1,10 +1,12 @@
 package spacesettlers.objects;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import spacesettlers.graphics.SpacewarGraphics;
 import spacesettlers.objects.resources.ResourceFactory;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -66,14 +68,37 @@ abstract public class AbstractObject {
 	protected boolean isControllable;
 
 	/**
-	 * Id to track over cloning
+	 * Id to track over cloning.  It is kept as the two halves of a UUID (the high half is
+	 * ID_HIGH_BITS and the low half counts up for every new id) and only made into a UUID
+	 * when getId is called, so making and comparing ids never needs SecureRandom or a UUID.
 	 */
-	protected UUID id;
+	protected long idHigh, idLow;
+	private UUID id;
+
+	/**
+	 * The high half of every id made in the simulator ("SpaceObj" in ASCII)
+	 */
+	public static final long ID_HIGH_BITS = 0x53706163654f626aL;
+
+	/**
+	 * The low half of the last id made
+	 */
+	private static final AtomicLong lastIdLow = new AtomicLong();
+
+	/**
+	 * The handle of the object in the space it was last added to (see ObjectRegistry)
+	 */
+	private int handle = -1;
 	
 	/**
 	 * flag to allow an object to respawn or not
 	 */
 	protected boolean respawn;
+
+	/**
+	 * True once the object belongs to the read-only client snapshot (see makeReadOnly)
+	 */
+	boolean readOnly;
 	
 	/**
 	 * All objects start at rest
@@ -83,7 +108,7 @@ abstract public class AbstractObject {
 		this.originalMass = mass;
 		this.radius = radius;
 		position = new Position(0,0);
-		this.id = UUID.randomUUID();
+		newId();
 		resources = new ResourcePile();
 		this.numFlags = 0;
 		this.respawn = true;
@@ -97,7 +122,7 @@ abstract public class AbstractObject {
 		this.originalMass = mass;
 		this.radius = radius;
 		this.position = position;
-		this.id = UUID.randomUUID();
+		newId();
 		resources = new ResourcePile();
 		this.numFlags = 0;
 		this.respawn = true;
@@ -108,6 +133,7 @@ abstract public class AbstractObject {
 	 * @param isAlive set to true if the object is alive
 	 */
 	public void setAlive(boolean isAlive) {
+		checkWritable();
 		this.isAlive = isAlive;
 	}
 
@@ -116,6 +142,7 @@ abstract public class AbstractObject {
 	 * drawn if it is alive as well.
 	 */
 	public void setDrawable(boolean isDrawable) {
+		checkWritable();
 		this.isDrawable = isDrawable;
 	}
 	
@@ -150,6 +177,7 @@ abstract public class AbstractObject {
 	 * @param location
 	 */
 	public void setPosition(Position location) {
+		checkWritable();
 		this.position = location;
 	}
 
@@ -175,6 +203,7 @@ abstract public class AbstractObject {
 	 * @param mass the new mass
 	 */
 	public void setMass(int mass) {
+		checkWritable();
 		this.mass = mass;
 	}
 
@@ -184,6 +213,7 @@ abstract public class AbstractObject {
 	 * @param newResources new list of AbstractResource to add to the cargo bay
 	 */
 	public void addResources(ResourcePile newResources) {
+		checkWritable();
 		resources.add(newResources);
 		setMass((int) (ResourceFactory.REFINED_RESOURCE_DENSITY_MULTIPLIER * resources.getMass() + originalMass));
 	}
@@ -201,6 +231,7 @@ abstract public class AbstractObject {
 	 * Reset the list of resources (probably because the ship died)
 	 */
 	public void resetResources() {
+		checkWritable();
 		resources.reset();
 		setMass(originalMass);
 	}
@@ -245,6 +276,7 @@ abstract public class AbstractObject {
 	 * @return
 	 */
 	public void setRespawn(boolean newRespawn) {
+		checkWritable();
 		this.respawn = newRespawn;
 	}
 	
@@ -253,19 +285,74 @@ abstract public class AbstractObject {
 	 * @return
 	 */
 	public UUID getId() {
-		return id;
+		UUID uuid = id;
+		if (uuid == null) {
+			uuid = new UUID(idHigh, idLow);
+			id = uuid;
+		}
+		return uuid;
+	}
+
+	/**
+	 * Gets the high half of the id (getId().getMostSignificantBits() without making the UUID)
+	 * @return
+	 */
+	public long getIdHigh() {
+		return idHigh;
+	}
+
+	/**
+	 * Gets the low half of the id (getId().getLeastSignificantBits() without making the UUID)
+	 * @return
+	 */
+	public long getIdLow() {
+		return idLow;
+	}
+
+	/**
+	 * Gets the handle of the object in the space it was last added to 
+	 * (see Toroidal2DPhysics.getObjectByHandle)
+	 * @return the handle or -1 if it was never added to a space
+	 */
+	public int getHandle() {
+		return handle;
+	}
+
+	/**
+	 * Set by the space when the object is added to it
+	 * @param handle
+	 */
+	public void setHandle(int handle) {
+		checkWritable();
+		this.handle = handle;
+	}
+
+	/**
+	 * Give the object the next id
+	 */
+	private void newId() {
+		idHigh = ID_HIGH_BITS;
+		idLow = lastIdLow.incrementAndGet();
+		id = null;
 	}
 
-	
 	/**
-	 * Hash on the UUID
+	 * Give this object (a clone) the id of the other object
+	 * @param other
+	 */
+	protected void copyId(AbstractObject other) {
+		idHigh = other.idHigh;
+		idLow = other.idLow;
+		id = other.id;
+	}
+
+	/**
+	 * Hash on the id (the same as the hash of the UUID)
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((id == null) ? 0 : id.hashCode());
-		return result;
+		long bits = idHigh ^ idLow;
+		return 31 + ((int) (bits >> 32) ^ (int) bits);
 	}
 
 	/**
@@ -280,12 +367,7 @@ abstract public class AbstractObject {
 		if (getClass() != obj.getClass())
 			return false;
 		AbstractObject other = (AbstractObject) obj;
-		if (id == null) {
-			if (other.id != null)
-				return false;
-		} else if (!id.equals(other.id))
-			return false;
-		return true;
+		return idHigh == other.idHigh && idLow == other.idLow;
 	}
 
 	/**
@@ -296,16 +378,100 @@ abstract public class AbstractObject {
 	 */
 	abstract public AbstractObject deepClone();
 
+	/**
+	 * Write the whole state of the object into a checkpoint of the simulation (unlike
+	 * deepClone, this is everything the simulator needs to carry on from the checkpoint).
+	 * Subclasses write their own state after calling this.
+	 *
+	 * @param record
+	 */
+	public void writeCheckpoint(CheckpointRecord record) {
+		record.putLong(idHigh);
+		record.putLong(idLow);
+		record.putPosition(position);
+		record.putInt(radius);
+		record.putInt(mass);
+		record.putInt(originalMass);
+		record.putBoolean(isAlive);
+		record.putBoolean(isDrawable);
+		record.putBoolean(isMoveable);
+		record.putBoolean(isControllable);
+		record.putBoolean(respawn);
+		record.putInt(numFlags);
+		record.putResources(resources);
+	}
+
+	/**
+	 * Set the state of the object from a checkpoint (reading it in the order writeCheckpoint wrote it)
+	 *
+	 * @param record
+	 */
+	public void readCheckpoint(CheckpointRecord record) {
+		checkWritable();
+		idHigh = record.getLong();
+		idLow = record.getLong();
+		id = null;
+		if (idHigh == ID_HIGH_BITS) {
+			// ids made after the checkpoint is restored must not repeat its ids
+			long last = lastIdLow.get();
+			while (last < idLow && !lastIdLow.compareAndSet(last, idLow)) {
+				last = lastIdLow.get();
+			}
+		}
+		position = record.getPosition();
+		radius = record.getInt();
+		mass = record.getInt();
+		originalMass = record.getInt();
+		isAlive = record.getBoolean();
+		isDrawable = record.getBoolean();
+		isMoveable = record.getBoolean();
+		isControllable = record.getBoolean();
+		respawn = record.getBoolean();
+		numFlags = record.getInt();
+		resources = record.getResources();
+	}
+
 	@Override
 	public String toString() {
 		return "AbstractObject at " + position;
 	}
+
+	/**
+	 * Stop the object (with its position and resources) from being changed.  This is 
+	 * done to the objects of the client snapshot, which all of the teams share (see 
+	 * Toroidal2DPhysics.getClientSnapshot); deepClone still makes a copy that can be 
+	 * changed.
+	 */
+	public void makeReadOnly() {
+		readOnly = true;
+		position.makeReadOnly();
+		resources.makeReadOnly();
+	}
+
+	/**
+	 * @return true if the object can't be changed
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Throws an UnsupportedOperationException if the object is read-only (every method
+	 * that changes the object calls this first)
+	 */
+	protected void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("Objects of the client snapshot are read-only (deepClone makes a copy to change)");
+		}
+	}
 	
 	/**
-	 * Resets the UUID of the object (for respawning)
+	 * Resets the UUID of the object (for respawning).  The space it is in should 
+	 * do this (see Toroidal2DPhysics.resetId) so it can still be found by its id.
 	 */
 	public void resetId() {
-		id = UUID.randomUUID();
+		checkWritable();
+		newId();
 	}
 
 	/**
@@ -320,6 +486,7 @@ abstract public class AbstractObject {
 	 * Increment the number of flags held by this object
 	 */
 	public void incrementFlags() {
+		checkWritable();
 		numFlags++;
 	}
 	
@@ -4,6 +4,7 @@ import spacesettlers.graphics.AsteroidGraphics;
 import spacesettlers.objects.resources.ResourceFactory;
 import spacesettlers.objects.resources.ResourcePile;
 import spacesettlers.objects.resources.ResourceTypes;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -95,9 +96,29 @@ public class Asteroid extends AbstractObject {
     	Asteroid newAsteroid = new Asteroid(getPosition().deepCopy(), isMineable, radius, isMoveable, 
     			fuelProportion, waterProportion, metalsProportion);
     	newAsteroid.setAlive(isAlive);
-    	newAsteroid.id = id;
+    	newAsteroid.copyId(this);
     	return newAsteroid;
     }
+
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putBoolean(isMineable);
+		record.putDouble(fuelProportion);
+		record.putDouble(waterProportion);
+		record.putDouble(metalsProportion);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		isMineable = record.getBoolean();
+		fuelProportion = record.getDouble();
+		waterProportion = record.getDouble();
+		metalsProportion = record.getDouble();
+		// the graphic is sized from the radius
+		graphic = new AsteroidGraphics(this);
+	}
     
     
     /**
@@ -146,11 +167,12 @@ public class Asteroid extends AbstractObject {
 	 * @param newMineable
 	 */
 	public void setMineable(boolean newMineable) {
+		checkWritable();
 		this.isMineable = newMineable;
 	}
 
 	public String toString() {
-		String str = "Asteroid id " + super.id + " mass " + mass + " resources " + resources;
+		String str = "Asteroid id " + getId() + " mass " + mass + " resources " + resources;
 		return str;
 		
 	}
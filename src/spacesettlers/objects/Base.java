@@ -7,6 +7,7 @@ import spacesettlers.clients.Team;
 import spacesettlers.graphics.BaseGraphics;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -66,7 +67,7 @@ public class Base extends AbstractActionableObject {
 		
 		newBase.energy = energy;
 		newBase.setAlive(isAlive);
-		newBase.id = id;
+		newBase.copyId(this);
 		newBase.maxEnergy = maxEnergy;
 		newBase.currentPowerups = new LinkedHashSet<SpaceSettlersPowerupEnum>(currentPowerups);
 		newBase.weaponCapacity = weaponCapacity;
@@ -77,6 +78,20 @@ public class Base extends AbstractActionableObject {
 		return newBase;
 	}
 
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putBoolean(isHomeBase);
+		record.putInt(healingIncrement);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		isHomeBase = record.getBoolean();
+		healingIncrement = record.getInt();
+	}
+
 	/**
 	 * Get the team
 	 * @return
@@ -114,6 +129,7 @@ public class Base extends AbstractActionableObject {
 	 * @param healingIncrement
 	 */
 	public void setHealingIncrement(int healingIncrement) {
+		checkWritable();
 		this.healingIncrement = healingIncrement;
 	}
 
@@ -125,6 +141,7 @@ public class Base extends AbstractActionableObject {
 	 * @param difference
 	 */
 	public void addResources(ResourcePile newResources) {
+		checkWritable();
 		super.addResources(newResources);
 		
 		// and increment the resources for the entire team
@@ -138,6 +155,7 @@ public class Base extends AbstractActionableObject {
 	 * @param flag
 	 */
 	public void addFlag(Flag flag) {
+		checkWritable();
 		flag.depositFlag();
 		super.incrementFlags();
 		team.incrementTotalFlagsCollected();
@@ -149,6 +167,7 @@ public class Base extends AbstractActionableObject {
 	 * @param difference
 	 */
 	public void updateEnergy(int difference) {
+		checkWritable();
 		energy += difference;
 		
 		if (energy < 0) {
@@ -164,7 +183,7 @@ public class Base extends AbstractActionableObject {
 	}
 
 	public String toString() {
-		String str = "Base id " + super.id + " team " + super.teamName + " at " + position + " resources " + resources;
+		String str = "Base id " + getId() + " team " + super.teamName + " at " + position + " resources " + resources;
 		return str;
 	}
 
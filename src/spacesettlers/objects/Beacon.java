@@ -28,12 +28,12 @@ public class Beacon extends AbstractObject {
 	public Beacon deepClone() {
 		Beacon newBeacon = new Beacon(getPosition().deepCopy());
 		newBeacon.setAlive(isAlive);
-		newBeacon.id = id;
+		newBeacon.copyId(this);
 		return newBeacon;
 	}
 
 	public String toString() {
-		String str = "Beacon id " + id + " energy boost " + BEACON_ENERGY_BOOST;
+		String str = "Beacon id " + getId() + " energy boost " + BEACON_ENERGY_BOOST;
 		return str;
 	}
 
@@ -6,6 +6,7 @@ import java.util.Random;
 import spacesettlers.clients.Team;
 import spacesettlers.graphics.BaseGraphics;
 import spacesettlers.graphics.FlagGraphics;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -86,10 +87,26 @@ public class Flag extends AbstractObject {
 		if (newFlag.carryingShip != null) {
 			newFlag.carryingShip = this.carryingShip.deepClone();
 		}
-		newFlag.id = id;
+		newFlag.copyId(this);
 		return newFlag;
 	}
 
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putPositions(startingLocations);
+		record.putBoolean(beingCarried);
+		record.putReference(carryingShip);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		startingLocations = record.getPositions();
+		beingCarried = record.getBoolean();
+		carryingShip = (Ship) record.getReference();
+	}
+
 	/**
 	 * Return the team that this flag belongs to
 	 * 
@@ -114,6 +131,7 @@ public class Flag extends AbstractObject {
 	 * @param ship
 	 */
 	public void pickupFlag(Ship ship) {
+		checkWritable();
 		this.beingCarried = true;
 		this.carryingShip = ship;
 		setPosition(ship.getPosition().deepCopy());
@@ -127,11 +145,12 @@ public class Flag extends AbstractObject {
 	 * Drop the flag (likely the ship died)
 	 */
 	public void dropFlag() {
+		checkWritable();
 		this.beingCarried = false;
 		this.setDrawable(true);
 		this.setAlive(true);
 		this.setRespawn(false);
-		this.setPosition(carryingShip.getPosition());
+		this.setPosition(carryingShip.getPosition().deepCopy());
 		this.carryingShip = null;
 	}
 
@@ -140,6 +159,7 @@ public class Flag extends AbstractObject {
 	 * and sets it to not being carried.  It will regenerate on the next timestep.
 	 */
 	public void depositFlag() {
+		checkWritable();
 		this.beingCarried = false;
 		this.setAlive(false);
 		this.setDrawable(false);
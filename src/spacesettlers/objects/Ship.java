@@ -10,6 +10,8 @@ import spacesettlers.objects.resources.ResourcePile;
 import spacesettlers.objects.weapons.AbstractWeapon;
 import spacesettlers.objects.weapons.EMP;
 import spacesettlers.objects.weapons.Missile;
+import spacesettlers.objects.weapons.WeaponPool;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -110,7 +112,7 @@ public class Ship extends AbstractActionableObject {
 		newShip.graphic = new ShipGraphics(newShip, teamColor);
 		newShip.currentAction = currentAction;
 		newShip.numWeaponsInAir = numWeaponsInAir;
-		newShip.id = id;
+		newShip.copyId(this);
 		newShip.maxEnergy = maxEnergy;
 		newShip.currentPowerups = new LinkedHashSet<SpaceSettlersPowerupEnum>(currentPowerups);
 		newShip.weaponCapacity = weaponCapacity;
@@ -126,11 +128,39 @@ public class Ship extends AbstractActionableObject {
 		return newShip;
 	}
 
+	/**
+	 * The current action is not part of a checkpoint (it belongs to the client, which
+	 * starts again when the checkpoint is restored)
+	 */
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putInt(respawnCounter);
+		record.putInt(numBeacons);
+		record.putInt(lastRespawnCounter);
+		record.putInt(numWeaponsInAir);
+		record.putBoolean(carryingFlag);
+		record.putReference(flag);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		respawnCounter = record.getInt();
+		numBeacons = record.getInt();
+		lastRespawnCounter = record.getInt();
+		numWeaponsInAir = record.getInt();
+		carryingFlag = record.getBoolean();
+		flag = (Flag) record.getReference();
+		currentAction = null;
+	}
+
 
 	/**
 	 * Resets the ship energy to the initial level
 	 */
 	public void resetEnergy() {
+		checkWritable();
 		energy = SHIP_INITIAL_ENERGY;
 	}
 
@@ -158,6 +188,7 @@ public class Ship extends AbstractActionableObject {
 	 * @param flag
 	 */
 	public void addFlag(Flag flag) {
+		checkWritable();
 		this.flag = flag;
 		this.carryingFlag = true;
 		this.incrementFlags();
@@ -191,10 +222,29 @@ public class Ship extends AbstractActionableObject {
 		return null;
 	}
 
+	/**
+	 * Same as getNewWeapon but the weapon comes from the pool (a used one if it has one)
+	 * 
+	 * @param weaponType
+	 * @param pool
+	 * @return
+	 */
+	public AbstractWeapon getNewWeapon(SpaceSettlersPowerupEnum weaponType, WeaponPool pool) {
+		if (numWeaponsInAir < weaponCapacity) {
+			if (weaponType == SpaceSettlersPowerupEnum.FIRE_MISSILE) {
+				return pool.getMissile(this);
+			} else if (weaponType == SpaceSettlersPowerupEnum.FIRE_EMP) {
+				return pool.getEMP(this);
+			}
+		} 
+		return null;
+	}
+
 	/**
 	 * Increment the weapons in play
 	 */
 	public void incrementWeaponCount(){
+		checkWritable();
 		numWeaponsInAir++;
 	}
 
@@ -202,6 +252,7 @@ public class Ship extends AbstractActionableObject {
 	 * Decrease the weapon count by one
 	 */
 	public void decrementWeaponCount() {
+		checkWritable();
 		numWeaponsInAir--;
 	}
 
@@ -212,6 +263,7 @@ public class Ship extends AbstractActionableObject {
 	 * so this is an override of the abstract class
 	 */
 	public void setAlive(boolean value) {
+		checkWritable();
 		if (value == false) {
 			respawnCounter = Math.min(lastRespawnCounter + RESPAWN_INCREMENT, MAX_RESPAWN_INTERVAL);
 			lastRespawnCounter = respawnCounter; 
@@ -242,6 +294,7 @@ public class Ship extends AbstractActionableObject {
 	 * When an item dies, its power ups disappear
 	 */
 	public void resetPowerups() {
+		checkWritable();
 		super.resetPowerups();
 		currentPowerups.add(SpaceSettlersPowerupEnum.FIRE_MISSILE);
 	}
@@ -259,6 +312,7 @@ public class Ship extends AbstractActionableObject {
 	 * Increment the number of beacons for this ship
 	 */
 	public void incrementBeaconCount() {
+		checkWritable();
 		numBeacons++;
 	}
 
@@ -278,11 +332,12 @@ public class Ship extends AbstractActionableObject {
 	 * @param currentAction
 	 */
 	public void setCurrentAction(AbstractAction currentAction) {
+		checkWritable();
 		this.currentAction = currentAction;
 	}
 
 	public String toString() {
-		String str = "Ship id " + id + " team " + teamName + " at " + position + " resources " + resources + 
+		String str = "Ship id " + getId() + " team " + teamName + " at " + position + " resources " + resources + 
 				" flags: " + numFlags;
 		return str;
 	}
@@ -291,6 +346,7 @@ public class Ship extends AbstractActionableObject {
 	 * Ships have to wait a certain amount of time until they can respawn
 	 */
 	public boolean canRespawn() {
+		checkWritable();
 		respawnCounter--;
 
 		if (respawnCounter <= 0) {
@@ -306,6 +362,7 @@ public class Ship extends AbstractActionableObject {
 	 */
 	@Override
 	public void updateEnergy(int difference) {
+		checkWritable();
 		energy += difference;
 
 		if (energy > maxEnergy) {
@@ -317,6 +374,7 @@ public class Ship extends AbstractActionableObject {
 	 * Deposit the flag by setting the ship to not carry it
 	 */
 	public void depositFlag() {
+		checkWritable();
 		this.carryingFlag = false;
 		flag.depositFlag();
 		flag = null;
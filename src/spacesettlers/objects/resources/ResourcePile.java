@@ -1,15 +1,26 @@
 package spacesettlers.objects.resources;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
- * A grouping of resources to be used for holding and for purchasing items
+ * A grouping of resources to be used for holding and for purchasing items.
+ *
+ * The amounts are kept in int fields (one per resource type) so copying piles and
+ * doing arithmetic on them never allocates.  Piles are copied and added many times
+ * every time step (every object clone copies its pile).
  * 
  * @author amy
  */
 public class ResourcePile {
-	Map<ResourceTypes, Integer> resources;
+	int water;
+	int fuel;
+	int metals;
+
+	/**
+	 * True once the pile belongs to the read-only client snapshot (see makeReadOnly)
+	 */
+	boolean readOnly;
 
 	/**
 	 * Initialize with zero resources (can be set using setResource)
@@ -17,8 +28,6 @@ public class ResourcePile {
 	 */
 	public ResourcePile() {
 		super();
-		resources = new HashMap<ResourceTypes, Integer>();
-		reset();
 	}
 	
 	/**
@@ -30,10 +39,9 @@ public class ResourcePile {
 	 */
 	public ResourcePile(int water, int fuel, int metals) {
 		super();
-		resources = new HashMap<ResourceTypes, Integer>();
-		resources.put(ResourceTypes.WATER, water);
-		resources.put(ResourceTypes.FUEL, fuel);
-		resources.put(ResourceTypes.METALS, metals);
+		this.water = water;
+		this.fuel = fuel;
+		this.metals = metals;
 	}
 	
 	/**
@@ -43,10 +51,7 @@ public class ResourcePile {
 	 */
 	public ResourcePile(ResourcePile other) {
 		super();
-		resources = new HashMap<ResourceTypes, Integer>();
-		resources.put(ResourceTypes.WATER, other.getResourceQuantity(ResourceTypes.WATER));
-		resources.put(ResourceTypes.FUEL, other.getResourceQuantity(ResourceTypes.FUEL));
-		resources.put(ResourceTypes.METALS, other.getResourceQuantity(ResourceTypes.METALS));
+		setResources(other);
 	}
 
 	
@@ -56,16 +61,43 @@ public class ResourcePile {
 	 * @param value the new value
 	 */
 	public void setResources(ResourceTypes type, int value) {
-		resources.put(type, value);
+		checkWritable();
+		switch (type) {
+		case WATER:
+			water = value;
+			break;
+		case FUEL:
+			fuel = value;
+			break;
+		case METALS:
+			metals = value;
+			break;
+		}
 	}
 
+	/**
+	 * Set all the resources to the amounts in the other pile (a copy that doesn't allocate)
+	 *
+	 * @param other resource pile to copy
+	 */
+	public void setResources(ResourcePile other) {
+		checkWritable();
+		water = other.water;
+		fuel = other.fuel;
+		metals = other.metals;
+	}
 
 	/**
-	 * Returns the resources currently held in this pile
+	 * Returns the resources currently held in this pile.  The map is a new copy
+	 * so changing it does not change the pile (use setResources for that).
 	 * 
 	 * @return the current resources
 	 */
 	public Map<ResourceTypes, Integer> getResources() {
+		Map<ResourceTypes, Integer> resources = new EnumMap<ResourceTypes, Integer>(ResourceTypes.class);
+		resources.put(ResourceTypes.FUEL, fuel);
+		resources.put(ResourceTypes.WATER, water);
+		resources.put(ResourceTypes.METALS, metals);
 		return resources;
 	}
 	
@@ -76,7 +108,16 @@ public class ResourcePile {
 	 * @return the amount of that resource available
 	 */
 	public int getResourceQuantity(ResourceTypes type) {
-		return resources.get(type);
+		switch (type) {
+		case WATER:
+			return water;
+		case FUEL:
+			return fuel;
+		case METALS:
+			return metals;
+		default:
+			return 0;
+		}
 	}
 	
 	/**
@@ -85,27 +126,30 @@ public class ResourcePile {
 	 * @param newResource new resource to add in
 	 */
 	public void add(ResourcePile otherPile) {
-		for (ResourceTypes type : resources.keySet()) {
-			resources.put(type, resources.get(type) + otherPile.getResourceQuantity(type));
-		}
+		checkWritable();
+		water += otherPile.water;
+		fuel += otherPile.fuel;
+		metals += otherPile.metals;
 	}
 
 	/**
 	 * Resets the resources available
 	 */
 	public void reset() {
-		resources.put(ResourceTypes.WATER, 0);
-		resources.put(ResourceTypes.FUEL, 0);
-		resources.put(ResourceTypes.METALS, 0);
+		checkWritable();
+		water = 0;
+		fuel = 0;
+		metals = 0;
 	}
 
 	/**
 	 * Double the costs (e.g. how much an item costs, which piles are also used for, in addition to storage)
 	 */
 	public void doubleCosts() {
-		resources.put(ResourceTypes.WATER, resources.get(ResourceTypes.WATER) * 2);
-		resources.put(ResourceTypes.FUEL, resources.get(ResourceTypes.FUEL) * 2);
-		resources.put(ResourceTypes.METALS, resources.get(ResourceTypes.METALS) * 2);
+		checkWritable();
+		water *= 2;
+		fuel *= 2;
+		metals *= 2;
 	}
 
 	/**
@@ -115,13 +159,7 @@ public class ResourcePile {
 	 * @return true if this resource pile is greater in all resources than the cost pile
 	 */
 	public boolean greaterThan(ResourcePile otherPile) {
-		for (ResourceTypes type : resources.keySet()) {
-			if (resources.get(type) < otherPile.getResourceQuantity(type)) {
-				return false;
-			}
-		}
-		// it never failed so it was true
-		return true;
+		return water >= otherPile.water && fuel >= otherPile.fuel && metals >= otherPile.metals;
 	}
 
 	/**
@@ -130,9 +168,10 @@ public class ResourcePile {
 	 * @param removeResources
 	 */
 	public void subtract(ResourcePile removeResources) {
-		for (ResourceTypes type : resources.keySet()) {
-			resources.put(type, Math.max(resources.get(type) - removeResources.getResourceQuantity(type), 0));
-		}
+		checkWritable();
+		water = Math.max(water - removeResources.water, 0);
+		fuel = Math.max(fuel - removeResources.fuel, 0);
+		metals = Math.max(metals - removeResources.metals, 0);
 	}
 
 	/**
@@ -141,9 +180,9 @@ public class ResourcePile {
 	 * @return the mass of the resources
 	 */
 	public int getMass() {
-		int mass = (int) (resources.get(ResourceTypes.FUEL) * ResourceFactory.FUEL_DENSITY +
-				resources.get(ResourceTypes.WATER) * ResourceFactory.WATER_DENSITY + 
-				resources.get(ResourceTypes.METALS) * ResourceFactory.METALS_DENSITY);
+		int mass = (int) (fuel * ResourceFactory.FUEL_DENSITY +
+				water * ResourceFactory.WATER_DENSITY +
+				metals * ResourceFactory.METALS_DENSITY);
 		return mass;
 	}
 	
@@ -153,16 +192,31 @@ public class ResourcePile {
 	 * @return the total resources collected (type doesn't matter)
 	 */
 	public int getTotal() {
-		int sum = 0;
-		for (ResourceTypes type : resources.keySet()) {
-			sum += resources.get(type);
-		}
-		return sum;
+		return water + fuel + metals;
 	}
 	
+	/**
+	 * Stop the pile from being changed (a new ResourcePile copied from it can be changed)
+	 */
+	public void makeReadOnly() {
+		readOnly = true;
+	}
+
+	/**
+	 * @return true if the pile can't be changed
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("This resource pile is read-only");
+		}
+	}
+
 	public String toString() {
-		String str = "Water: " + resources.get(ResourceTypes.WATER) + " Fuel: " + resources.get(ResourceTypes.FUEL) + 
-				" Metals: " + resources.get(ResourceTypes.METALS);
+		String str = "Water: " + water + " Fuel: " + fuel + " Metals: " + metals;
 		return str;
 	}
 
@@ -3,6 +3,7 @@ package spacesettlers.objects.weapons;
 import spacesettlers.objects.AbstractObject;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerup;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 import spacesettlers.utilities.Vector2D;
 
@@ -26,6 +27,12 @@ abstract public class AbstractWeapon extends AbstractObject implements SpaceSett
 	 * The ship that fired this weapon
 	 */
 	Ship firingShip;
+
+	/**
+	 * The next free weapon while this one is in a WeaponPool
+	 */
+	AbstractWeapon nextFree;
+	boolean inPool;
 	
 	/**
 	 * Make a new weapon with the required information
@@ -59,6 +66,28 @@ abstract public class AbstractWeapon extends AbstractObject implements SpaceSett
 		position.setTranslationalVelocity(newVelocity);
 	}
 	
+	/**
+	 * Make a weapon that was in play before ready to fire again, the same as a new one
+	 * fired by the ship from where it is now (with a new id)
+	 * 
+	 * @param firingShip
+	 * @param initialSpeed
+	 */
+	void reuse(Ship firingShip, double initialSpeed) {
+		Position shipPosition = firingShip.getPosition();
+		position.setX(shipPosition.getX());
+		position.setY(shipPosition.getY());
+		position.setOrientation(shipPosition.getOrientation());
+		position.setAngularVelocity(shipPosition.getAngularVelocity());
+		this.firingShip = firingShip;
+		resetId();
+		resetResources();
+		numFlags = 0;
+		setDrawable(true);
+		setAlive(true);
+		shiftWeaponFiringLocation(initialSpeed);
+	}
+	
 	/**
 	 * Returns the damageInflicted for the weapon
 	 * @return
@@ -88,8 +117,36 @@ abstract public class AbstractWeapon extends AbstractObject implements SpaceSett
 	 * @param firingShip
 	 */
 	public void setFiringShip(Ship firingShip) {
+		checkWritable();
 		this.firingShip = firingShip;
 	}
+
+	/**
+	 * The copy of the firing ship that a cloned weapon carries is read-only as well
+	 */
+	@Override
+	public void makeReadOnly() {
+		super.makeReadOnly();
+		if (firingShip != null) {
+			firingShip.makeReadOnly();
+		}
+	}
+
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putInt(damage);
+		record.putInt(costToUse);
+		record.putReference(firingShip);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		damage = record.getInt();
+		costToUse = record.getInt();
+		firingShip = (Ship) record.getReference();
+	}
 	
 	
 	/**
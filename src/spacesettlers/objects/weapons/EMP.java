@@ -6,6 +6,7 @@ import spacesettlers.objects.AbstractActionableObject;
 import spacesettlers.objects.AbstractObject;
 import spacesettlers.objects.powerups.SpaceSettlersPowerup;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.simulator.CheckpointRecord;
 import spacesettlers.utilities.Position;
 
 /**
@@ -40,6 +41,15 @@ public final class EMP extends AbstractWeapon implements SpaceSettlersPowerup {
 		this.freezeCount = FREEZE_STEPS;
 	}
 
+	/**
+	 * Fire the EMP again from the ship (see WeaponPool)
+	 */
+	void reuse(Ship firingShip) {
+		reuse(firingShip, INITIAL_VELOCITY);
+		((EMPGraphics) graphic).setOuterColor(firingShip.getTeamColor());
+		freezeCount = FREEZE_STEPS;
+	}
+
 	/**
 	 * Make a deep copy
 	 */
@@ -47,11 +57,23 @@ public final class EMP extends AbstractWeapon implements SpaceSettlersPowerup {
 	public AbstractObject deepClone() {
 		EMP newEMP = new EMP(position.deepCopy(), firingShip.deepClone());
 		newEMP.setAlive(isAlive);
-		newEMP.id = id;
+		newEMP.copyId(this);
 		newEMP.freezeCount = freezeCount;
 		newEMP.position = position.deepCopy();
 		return newEMP;
 	}
+
+	@Override
+	public void writeCheckpoint(CheckpointRecord record) {
+		super.writeCheckpoint(record);
+		record.putInt(freezeCount);
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointRecord record) {
+		super.readCheckpoint(record);
+		freezeCount = record.getInt();
+	}
 	
 	/**
 	 * Return the number of steps the EMP freezes a ship for
@@ -33,13 +33,21 @@ public final class Missile extends AbstractWeapon {
 		this.isMoveable = true;
 	}
 
+	/**
+	 * Fire the missile again from the ship (see WeaponPool)
+	 */
+	void reuse(Ship firingShip) {
+		reuse(firingShip, INITIAL_VELOCITY);
+		((MissileGraphics) graphic).setFiringShipColor(firingShip.getTeamColor());
+	}
+
 	/**
 	 * Copy the bullet
 	 */
 	public Missile deepClone() {
 		Missile newBullet = new Missile(position.deepCopy(), firingShip.deepClone());
 		newBullet.setAlive(isAlive);
-		newBullet.id = id;
+		newBullet.copyId(this);
 		newBullet.position = position.deepCopy();
 		return newBullet;
 	}
@@ -0,0 +1,89 @@
+package spacesettlers.objects.weapons;
+
+import spacesettlers.objects.Ship;
+
+/**
+ * Weapons that are out of play, kept to be fired again instead of making new ones.
+ * Each kind of weapon has its own free list linked through the weapons themselves, so
+ * keeping a weapon doesn't allocate.  A weapon must only be released once nothing in the
+ * simulator refers to it any more (the space releases the dead weapons as it removes them).
+ */
+public class WeaponPool {
+	/**
+	 * The first free weapon of each kind
+	 */
+	AbstractWeapon freeMissiles, freeEMPs;
+	int numFree;
+
+	/**
+	 * Get a missile fired by the ship (a used one if there is one)
+	 *
+	 * @param firingShip
+	 * @return
+	 */
+	public Missile getMissile(Ship firingShip) {
+		if (freeMissiles == null) {
+			return new Missile(firingShip.getPosition().deepCopy(), firingShip);
+		}
+		Missile missile = (Missile) take(freeMissiles);
+		freeMissiles = missile.nextFree;
+		missile.nextFree = null;
+		missile.reuse(firingShip);
+		return missile;
+	}
+
+	/**
+	 * Get an EMP fired by the ship (a used one if there is one)
+	 *
+	 * @param firingShip
+	 * @return
+	 */
+	public EMP getEMP(Ship firingShip) {
+		if (freeEMPs == null) {
+			return new EMP(firingShip.getPosition().deepCopy(), firingShip);
+		}
+		EMP emp = (EMP) take(freeEMPs);
+		freeEMPs = emp.nextFree;
+		emp.nextFree = null;
+		emp.reuse(firingShip);
+		return emp;
+	}
+
+	private AbstractWeapon take(AbstractWeapon weapon) {
+		weapon.inPool = false;
+		numFree--;
+		return weapon;
+	}
+
+	/**
+	 * Keep a weapon that is out of play to fire again (weapons that are already
+	 * in the pool and other kinds of weapon are ignored)
+	 *
+	 * @param weapon
+	 */
+	public void release(AbstractWeapon weapon) {
+		if (weapon.inPool) {
+			return;
+		}
+		if (weapon instanceof Missile) {
+			weapon.nextFree = freeMissiles;
+			freeMissiles = weapon;
+		} else if (weapon instanceof EMP) {
+			weapon.nextFree = freeEMPs;
+			freeEMPs = weapon;
+		} else {
+			return;
+		}
+		weapon.inPool = true;
+		numFree++;
+	}
+
+	/**
+	 * The number of weapons waiting to be fired again
+	 *
+	 * @return
+	 */
+	public int getNumFree() {
+		return numFree;
+	}
+}
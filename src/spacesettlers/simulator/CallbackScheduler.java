@@ -0,0 +1,355 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the client callbacks (team and action code) with a timeout on long lived threads
+ * instead of making new threads every call.  Each owner (usually a team) gets its own
+ * lane: a single thread that is reused for all of its calls.  If a call runs out of time
+ * it is interrupted and the default is returned.  If a client ignores the interrupt
+ * (or loops forever) only its own lane stays busy and its later calls return the
+ * default right away, just as they did when every call made its own thread.
+ *
+ * The latency of every callback (by callback name and by owner) and the number of 
+ * threads made are kept for reporting.
+ */
+public class CallbackScheduler {
+	/**
+	 * A single thread for one owner and whether it is still running a call
+	 */
+	static class Lane {
+		ExecutorService executor;
+		volatile boolean busy;
+	}
+
+	/**
+	 * Wraps the client code so the lane knows when it really finished
+	 * (a cancelled future is done even if the client is still running)
+	 */
+	static class LaneCallable<T> implements Callable<T> {
+		Callable<T> callback;
+		Lane lane;
+		volatile boolean started;
+
+		LaneCallable(Callable<T> callback, Lane lane) {
+			this.callback = callback;
+			this.lane = lane;
+		}
+
+		public T call() throws Exception {
+			started = true;
+			try {
+				return callback.call();
+			} finally {
+				lane.busy = false;
+			}
+		}
+	}
+
+	/**
+	 * Lanes indexed by owner
+	 */
+	Map<Object, Lane> lanes;
+
+	/**
+	 * Latencies indexed by callback name
+	 */
+	Map<String, LatencyHistogram> latencies;
+
+	/**
+	 * Latencies indexed by owner (all the callbacks of a team together)
+	 */
+	Map<Object, LatencyHistogram> ownerLatencies;
+
+	/**
+	 * Every thread made by this scheduler (used to report thread counts)
+	 */
+	List<Thread> threads;
+
+	ThreadFactory threadFactory;
+
+	boolean isShutdown;
+
+	public CallbackScheduler() {
+		lanes = new LinkedHashMap<Object, Lane>();
+		latencies = new LinkedHashMap<String, LatencyHistogram>();
+		ownerLatencies = new LinkedHashMap<Object, LatencyHistogram>();
+		threads = new ArrayList<Thread>();
+
+		// daemon threads so a client that never returns can't keep the JVM alive
+		threadFactory = new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread;
+				synchronized (threads) {
+					thread = new Thread(runnable, "spacesettlers-callback-" + threads.size());
+					threads.add(thread);
+				}
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Make a pool for work that the simulator spreads over the teams.  The threads come
+	 * from this scheduler (so they are counted and are daemons) and are reused between
+	 * time steps.
+	 *
+	 * @param singleThreaded true to run everything on one thread (debug mode)
+	 * @return
+	 */
+	public ExecutorService newPool(boolean singleThreaded) {
+		if (singleThreaded) {
+			return Executors.newSingleThreadExecutor(threadFactory);
+		} else {
+			return Executors.newCachedThreadPool(threadFactory);
+		}
+	}
+
+	/**
+	 * Run the callback on the owner's lane and wait for at most timeoutMillis for it.
+	 * Returns the default if the previous call for this owner is still running, if the
+	 * callback runs out of time or if it throws an exception.
+	 *
+	 * @param owner who the callback belongs to (the key for the lane and the name printed on a timeout)
+	 * @param callbackName name the latency is recorded under
+	 * @param callback the client code
+	 * @param timeoutMillis
+	 * @param defaultValue
+	 * @return
+	 */
+	public <T> T call(Object owner, String callbackName, Callable<T> callback, long timeoutMillis, T defaultValue) {
+		return call(owner, owner, callbackName, callback, timeoutMillis, defaultValue);
+	}
+
+	/**
+	 * Same as call(owner, ...) but the callback runs on the lane of laneOwner, so an owner 
+	 * can have several lanes (for example one for each ship of a team) while its latencies 
+	 * are still reported together.
+	 *
+	 * @param owner who the latency is recorded for (and the name printed on a timeout)
+	 * @param laneOwner the key for the lane
+	 * @param callbackName name the latency is recorded under
+	 * @param callback the client code
+	 * @param timeoutMillis
+	 * @param defaultValue
+	 * @return
+	 */
+	public <T> T call(Object owner, Object laneOwner, String callbackName, Callable<T> callback, long timeoutMillis, T defaultValue) {
+		LatencyHistogram latency = getLatency(callbackName);
+		LatencyHistogram ownerLatency = getOwnerLatency(owner);
+		Lane lane;
+		synchronized (this) {
+			if (isShutdown) {
+				return defaultValue;
+			}
+			lane = lanes.get(laneOwner);
+			if (lane == null) {
+				lane = new Lane();
+				lane.executor = Executors.newSingleThreadExecutor(threadFactory);
+				lanes.put(laneOwner, lane);
+			}
+
+			// if the previous call hasn't finished, then just return default
+			if (lane.busy) {
+				latency.recordSkipped();
+				ownerLatency.recordSkipped();
+				return defaultValue;
+			}
+			lane.busy = true;
+		}
+
+		LaneCallable<T> laneCallable = new LaneCallable<T>(callback, lane);
+		long start = System.nanoTime();
+		Future<T> future;
+		try {
+			future = lane.executor.submit(laneCallable);
+		} catch (RejectedExecutionException e) {
+			// the scheduler was shutdown while we were submitting
+			lane.busy = false;
+			return defaultValue;
+		}
+
+		try {
+			T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			long nanos = System.nanoTime() - start;
+			latency.record(nanos);
+			ownerLatency.record(nanos);
+			return result;
+		} catch (TimeoutException e) {
+			latency.recordTimeout();
+			ownerLatency.recordTimeout();
+			System.err.println(owner + " timed out in " + callbackName);
+		} catch (InterruptedException e) {
+			//we were interrupted (should not happen but lets be good programmers)
+			e.printStackTrace();
+		} catch (ExecutionException e) {
+			// the client threw an exception so it gets the default behavior
+			System.err.println("Error in " + owner + " in " + callbackName + ", stack trace to follow");
+			e.getCause().printStackTrace();
+			return defaultValue;
+		}
+
+		// interrupt the client (a call that never started will never run)
+		future.cancel(true);
+		if (!laneCallable.started) {
+			lane.busy = false;
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Get (or make) the latency histogram for a callback
+	 *
+	 * @param callbackName
+	 * @return
+	 */
+	public LatencyHistogram getLatency(String callbackName) {
+		synchronized (latencies) {
+			LatencyHistogram latency = latencies.get(callbackName);
+			if (latency == null) {
+				latency = new LatencyHistogram(callbackName);
+				latencies.put(callbackName, latency);
+			}
+			return latency;
+		}
+	}
+
+	/**
+	 * Returns the latencies for every callback seen so far
+	 *
+	 * @return
+	 */
+	public List<LatencyHistogram> getLatencies() {
+		synchronized (latencies) {
+			return new ArrayList<LatencyHistogram>(latencies.values());
+		}
+	}
+
+	/**
+	 * Get (or make) the latency histogram for all the callbacks of an owner
+	 *
+	 * @param owner
+	 * @return
+	 */
+	public LatencyHistogram getOwnerLatency(Object owner) {
+		synchronized (ownerLatencies) {
+			LatencyHistogram latency = ownerLatencies.get(owner);
+			if (latency == null) {
+				latency = new LatencyHistogram(String.valueOf(owner));
+				ownerLatencies.put(owner, latency);
+			}
+			return latency;
+		}
+	}
+
+	/**
+	 * Returns the latencies for every owner seen so far
+	 *
+	 * @return
+	 */
+	public List<LatencyHistogram> getOwnerLatencies() {
+		synchronized (ownerLatencies) {
+			return new ArrayList<LatencyHistogram>(ownerLatencies.values());
+		}
+	}
+
+	/**
+	 * Ids of the threads made by this scheduler that are still alive
+	 *
+	 * @return
+	 */
+	public long[] getLiveThreadIds() {
+		synchronized (threads) {
+			long[] ids = new long[threads.size()];
+			int numLive = 0;
+			for (Thread thread : threads) {
+				if (thread.isAlive()) {
+					ids[numLive++] = thread.getId();
+				}
+			}
+			return Arrays.copyOf(ids, numLive);
+		}
+	}
+
+	/**
+	 * Number of threads this scheduler has ever made
+	 *
+	 * @return
+	 */
+	public int getThreadsCreated() {
+		synchronized (threads) {
+			return threads.size();
+		}
+	}
+
+	/**
+	 * Number of threads made by this scheduler that are still alive
+	 *
+	 * @return
+	 */
+	public int getLiveThreads() {
+		int live = 0;
+		synchronized (threads) {
+			for (Thread thread : threads) {
+				if (thread.isAlive()) {
+					live++;
+				}
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Number of owners whose last call is still running (hung or slow clients)
+	 *
+	 * @return
+	 */
+	public synchronized int getBusyLanes() {
+		int busy = 0;
+		for (Lane lane : lanes.values()) {
+			if (lane.busy) {
+				busy++;
+			}
+		}
+		return busy;
+	}
+
+	/**
+	 * A human readable summary of the threads and callback latencies
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append("Callback threads: " + getThreadsCreated() + " created, " + getLiveThreads() + " alive, "
+				+ getBusyLanes() + " busy lanes");
+		for (LatencyHistogram latency : getLatencies()) {
+			report.append("\n  " + latency);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Stop all the lanes (interrupting any client still running)
+	 */
+	public synchronized void shutdown() {
+		isShutdown = true;
+		for (Lane lane : lanes.values()) {
+			lane.executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package spacesettlers.simulator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.objects.resources.ResourceTypes;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+/**
+ * The part of a simulation checkpoint that the objects and teams write their state into
+ * (and read it back from) one field after the other, the same way deepClone copies them.
+ * Objects refer to each other (and teams to their ships) by their index in the checkpoint.
+ */
+public class CheckpointRecord {
+	ByteBuffer buffer;
+
+	/**
+	 * The index of each object (when writing)
+	 */
+	Map<AbstractObject, Integer> objectIndexes;
+
+	/**
+	 * The objects by index (when reading)
+	 */
+	AbstractObject[] objects;
+
+	/**
+	 * Make a record to write into
+	 *
+	 * @param objects all of the objects in the order they are written
+	 */
+	CheckpointRecord(List<AbstractObject> objects) {
+		buffer = ByteBuffer.allocate(1 << 16);
+		objectIndexes = new IdentityHashMap<AbstractObject, Integer>();
+		for (int i = 0; i < objects.size(); i++) {
+			objectIndexes.put(objects.get(i), i);
+		}
+	}
+
+	/**
+	 * Make a record to read from
+	 *
+	 * @param buffer the checkpoint (its position is moved to each record before reading it)
+	 * @param objects the objects (made before any of them are read)
+	 */
+	CheckpointRecord(ByteBuffer buffer, AbstractObject[] objects) {
+		this.buffer = buffer;
+		this.objects = objects;
+	}
+
+	/**
+	 * Make room to write the bytes
+	 *
+	 * @param bytes
+	 */
+	void ensureCapacity(int bytes) {
+		if (buffer.remaining() < bytes) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+	}
+
+	public void putInt(int value) {
+		ensureCapacity(4);
+		buffer.putInt(value);
+	}
+
+	public int getInt() {
+		return buffer.getInt();
+	}
+
+	public void putLong(long value) {
+		ensureCapacity(8);
+		buffer.putLong(value);
+	}
+
+	public long getLong() {
+		return buffer.getLong();
+	}
+
+	public void putDouble(double value) {
+		ensureCapacity(8);
+		buffer.putDouble(value);
+	}
+
+	public double getDouble() {
+		return buffer.getDouble();
+	}
+
+	public void putBoolean(boolean value) {
+		ensureCapacity(1);
+		buffer.put(value ? (byte) 1 : (byte) 0);
+	}
+
+	public boolean getBoolean() {
+		return buffer.get() != 0;
+	}
+
+	/**
+	 * Write a string (which can be null)
+	 *
+	 * @param value
+	 */
+	public void putString(String value) {
+		if (value == null) {
+			putInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putBytes(bytes);
+	}
+
+	public String getString() {
+		byte[] bytes = getBytes();
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	void putBytes(byte[] bytes) {
+		putInt(bytes.length);
+		ensureCapacity(bytes.length);
+		buffer.put(bytes);
+	}
+
+	byte[] getBytes() {
+		int length = getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	public void putUUID(UUID id) {
+		putLong(id.getMostSignificantBits());
+		putLong(id.getLeastSignificantBits());
+	}
+
+	public UUID getUUID() {
+		long most = getLong();
+		return new UUID(most, getLong());
+	}
+
+	/**
+	 * Write all of a position (location, orientation and velocities)
+	 *
+	 * @param position
+	 */
+	public void putPosition(Position position) {
+		putDouble(position.getX());
+		putDouble(position.getY());
+		putDouble(position.getOrientation());
+		putDouble(position.getTranslationalVelocityX());
+		putDouble(position.getTranslationalVelocityY());
+		putDouble(position.getAngularVelocity());
+	}
+
+	public Position getPosition() {
+		Position position = new Position(getDouble(), getDouble(), getDouble());
+		position.setTranslationalVelocity(new Vector2D(getDouble(), getDouble()));
+		position.setAngularVelocity(getDouble());
+		return position;
+	}
+
+	/**
+	 * Write an array of positions (which can be null)
+	 *
+	 * @param positions
+	 */
+	public void putPositions(Position[] positions) {
+		if (positions == null) {
+			putInt(-1);
+			return;
+		}
+		putInt(positions.length);
+		for (Position position : positions) {
+			putPosition(position);
+		}
+	}
+
+	public Position[] getPositions() {
+		int length = getInt();
+		if (length < 0) {
+			return null;
+		}
+		Position[] positions = new Position[length];
+		for (int i = 0; i < length; i++) {
+			positions[i] = getPosition();
+		}
+		return positions;
+	}
+
+	public void putResources(ResourcePile resources) {
+		putInt(resources.getResourceQuantity(ResourceTypes.WATER));
+		putInt(resources.getResourceQuantity(ResourceTypes.FUEL));
+		putInt(resources.getResourceQuantity(ResourceTypes.METALS));
+	}
+
+	public ResourcePile getResources() {
+		int water = getInt();
+		int fuel = getInt();
+		return new ResourcePile(water, fuel, getInt());
+	}
+
+	/**
+	 * Write a set of power ups (in its order)
+	 *
+	 * @param powerups
+	 */
+	public void putPowerups(Set<SpaceSettlersPowerupEnum> powerups) {
+		putInt(powerups.size());
+		for (SpaceSettlersPowerupEnum powerup : powerups) {
+			putInt(powerup.ordinal());
+		}
+	}
+
+	public Set<SpaceSettlersPowerupEnum> getPowerups() {
+		int size = getInt();
+		Set<SpaceSettlersPowerupEnum> powerups = new LinkedHashSet<SpaceSettlersPowerupEnum>();
+		for (int i = 0; i < size; i++) {
+			powerups.add(SpaceSettlersPowerupEnum.values()[getInt()]);
+		}
+		return powerups;
+	}
+
+	/**
+	 * Write a set of ids (in its order)
+	 *
+	 * @param ids
+	 */
+	public void putUUIDs(Set<UUID> ids) {
+		putInt(ids.size());
+		for (UUID id : ids) {
+			putUUID(id);
+		}
+	}
+
+	public Set<UUID> getUUIDs() {
+		int size = getInt();
+		Set<UUID> ids = new LinkedHashSet<UUID>();
+		for (int i = 0; i < size; i++) {
+			ids.add(getUUID());
+		}
+		return ids;
+	}
+
+	/**
+	 * Write a reference to another object in the checkpoint (or null)
+	 *
+	 * @param object
+	 */
+	public void putReference(AbstractObject object) {
+		putInt(getIndex(object));
+	}
+
+	/**
+	 * Read a reference to another object
+	 *
+	 * @return the object (or null)
+	 */
+	public AbstractObject getReference() {
+		int index = getInt();
+		return index < 0 ? null : objects[index];
+	}
+
+	/**
+	 * Write references to other objects (in the order of the collection)
+	 *
+	 * @param references
+	 */
+	public void putReferences(Set<? extends AbstractObject> references) {
+		putInt(references.size());
+		for (AbstractObject object : references) {
+			putReference(object);
+		}
+	}
+
+	public List<AbstractObject> getReferences() {
+		int size = getInt();
+		List<AbstractObject> list = new ArrayList<AbstractObject>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(getReference());
+		}
+		return list;
+	}
+
+	/**
+	 * The index of an object in the checkpoint
+	 *
+	 * @param object
+	 * @return the index or -1 for null
+	 * @throws IllegalArgumentException if the object is not in the checkpoint
+	 */
+	int getIndex(AbstractObject object) {
+		if (object == null) {
+			return -1;
+		}
+		Integer index = objectIndexes.get(object);
+		if (index == null) {
+			throw new IllegalArgumentException("Object " + object.getId() + " is not in the simulator so it can't be checkpointed");
+		}
+		return index;
+	}
+}
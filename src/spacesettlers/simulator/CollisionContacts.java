@@ -0,0 +1,158 @@
+package spacesettlers.simulator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.utilities.Position;
+
+/**
+ * The pairs of objects that overlap at the start of collision detection, found on a
+ * fork-join pool.  For every object index i the contacts are the indices j > i (in
+ * ascending order) of the live objects in the neighboring grid cells that it overlaps,
+ * which is exactly what the one thread collision loop would find for i if no collision
+ * had been handled yet.  The collision loop uses them for the objects whose neighborhood
+ * hasn't been changed by a collision so far in the time step.
+ *
+ * Each task finds the contacts for a range of indices into its own buffer so the tasks
+ * never write to the same memory.  The tasks and buffers are reused every time step.
+ */
+public class CollisionContacts {
+	/**
+	 * Objects per task
+	 */
+	static final int OBJECTS_PER_TASK = 128;
+
+	/**
+	 * Where the contacts of each object start in its task's buffer and how many there are
+	 */
+	int[] offsets, counts;
+
+	/**
+	 * The tasks (task t handles the objects from t * OBJECTS_PER_TASK)
+	 */
+	ContactTask[] tasks;
+
+	/**
+	 * What the tasks search (set by find)
+	 */
+	Toroidal2DPhysics space;
+	ToroidalSpatialGrid grid;
+	AbstractObject[] objects;
+
+	/**
+	 * Finds the contacts for a range of objects
+	 */
+	class ContactTask extends RangeTask {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The contacts of the objects in this range (one after the other)
+		 */
+		int[] contacts = new int[64];
+
+		/**
+		 * Query buffer for the grid (one per task so they can search at the same time)
+		 */
+		ToroidalSpatialGrid.Candidates candidates = new ToroidalSpatialGrid.Candidates();
+
+		@Override
+		void compute(int start, int end) {
+			int size = 0;
+			for (int i = start; i < end; i++) {
+				offsets[i] = size;
+				AbstractObject object1 = objects[i];
+				if (!object1.isAlive()) {
+					counts[i] = 0;
+					continue;
+				}
+
+				Position position1 = object1.getPosition();
+				int numCandidates = grid.findCandidates(position1.getX(), position1.getY(), i, candidates);
+				int[] indices = candidates.getIndices();
+				for (int c = 0; c < numCandidates; c++) {
+					int j = indices[c];
+					AbstractObject object2 = objects[j];
+					if (!object2.isAlive() || object1.equals(object2)) {
+						continue;
+					}
+
+					double distance = space.findShortestDistance(position1, object2.getPosition());
+					if (distance < (object1.getRadius() + object2.getRadius())) {
+						if (size == contacts.length) {
+							contacts = Arrays.copyOf(contacts, size * 2);
+						}
+						contacts[size++] = j;
+					}
+				}
+				counts[i] = size - offsets[i];
+			}
+		}
+	}
+
+	public CollisionContacts() {
+		offsets = new int[0];
+		counts = new int[0];
+		tasks = new ContactTask[0];
+	}
+
+	/**
+	 * Find the contacts of the first numObjects objects (the grid must have been built
+	 * from the same array and nothing may change the objects or the grid until this returns)
+	 *
+	 * @param pool
+	 * @param space
+	 * @param grid
+	 * @param objects
+	 * @param numObjects
+	 */
+	public void find(ForkJoinPool pool, Toroidal2DPhysics space, ToroidalSpatialGrid grid,
+			AbstractObject[] objects, int numObjects) {
+		this.space = space;
+		this.grid = grid;
+		this.objects = objects;
+
+		if (offsets.length < numObjects) {
+			offsets = new int[Math.max(numObjects, offsets.length * 2)];
+			counts = new int[offsets.length];
+		}
+
+		int numTasks = (numObjects + OBJECTS_PER_TASK - 1) / OBJECTS_PER_TASK;
+		if (tasks.length < numTasks) {
+			int oldLength = tasks.length;
+			tasks = Arrays.copyOf(tasks, numTasks);
+			for (int t = oldLength; t < numTasks; t++) {
+				tasks[t] = new ContactTask();
+			}
+		}
+		for (int t = 0; t < numTasks; t++) {
+			tasks[t].start = t * OBJECTS_PER_TASK;
+			tasks[t].end = Math.min(numObjects, tasks[t].start + OBJECTS_PER_TASK);
+		}
+		RangeTask.runAll(pool, tasks, numTasks);
+
+		// don't hold onto objects that may be removed later
+		this.objects = null;
+	}
+
+	/**
+	 * Number of contacts of the object at the index
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getCount(int index) {
+		return counts[index];
+	}
+
+	/**
+	 * The k-th contact (in ascending order) of the object at the index
+	 *
+	 * @param index
+	 * @param k
+	 * @return
+	 */
+	public int getContact(int index, int k) {
+		return tasks[index / OBJECTS_PER_TASK].contacts[offsets[index] + k];
+	}
+}
@@ -27,6 +27,11 @@ import spacesettlers.utilities.Vector2D;
 public class CollisionHandler {
     public static final double COLLISION_PENALTY = 2.0;
 
+	/**
+	 * Where the collisions and their side effects are published (null for nowhere)
+	 */
+	SimulationEventStream events;
+
 	class CollisionData {
 		double v1, v2;
 	}
@@ -98,6 +103,9 @@ public class CollisionHandler {
 		} else {
 			elasticCollision2D(object1, object2, space);
 		}
+		if (events != null) {
+			events.publish(SimulationEventType.COLLISION, object1, object2, 0);
+		}
 
 		// if it is a ship, give it an energy penalty for running into the object
 		if (object1.getClass() == Ship.class) {
@@ -137,6 +145,9 @@ public class CollisionHandler {
 		} else {
 			ship.addFlag(flag);
 			flag.pickupFlag(ship);
+			if (events != null) {
+				events.publish(SimulationEventType.FLAG_PICKUP, ship, flag, 0);
+			}
 		}
 		
 	}
@@ -159,18 +170,22 @@ public class CollisionHandler {
 			if (!ship.isShielded()) {
 				double initialEnergy = ship.getEnergy();
 				ship.updateEnergy(missile.getDamage());				
+				int damage;
 				if (ship.getEnergy() <= 0) {
 					// if you killed the ship, only count the final amount of damage needed to kill it 
-					firingShip.incrementDamageInflicted((int) initialEnergy);
-					ship.incrementDamageReceived(-(int) initialEnergy);
+					damage = (int) initialEnergy;
 				} else {
 					// otherwise a missile is a fixed amount of damage
-					firingShip.incrementDamageInflicted(-missile.getDamage());
-					ship.incrementDamageReceived(missile.getDamage());
+					damage = -missile.getDamage();
 				}
+				firingShip.incrementDamageInflicted(damage);
+				ship.incrementDamageReceived(-damage);
 
 				// it hit a ship
 				firingShip.incrementHitsInflicted();
+				if (events != null) {
+					events.publish(SimulationEventType.HIT, firingShip, ship, damage);
+				}
 			}
 			
 			// if the bullet killed the ship, credit the ship that hit it
@@ -180,6 +195,9 @@ public class CollisionHandler {
 				// it killed a ship
 				firingShip.incrementKillsInflicted();
 				ship.incrementKillsReceived();
+				if (events != null) {
+					events.publish(SimulationEventType.KILL, firingShip, ship, 0);
+				}
 			}
 
 		}
@@ -193,19 +211,23 @@ public class CollisionHandler {
 				double initialEnergy = base.getEnergy();
 				base.updateEnergy(missile.getDamage());
 				
+				int damage;
 				if (base.getEnergy() <= 0) {
 					// if the base is dead, you can only count the energy it had prior to being dead
-					firingShip.incrementDamageInflicted((int) initialEnergy);
-					base.incrementDamageReceived(-(int) initialEnergy);
+					damage = (int) initialEnergy;
 					//System.out.println("Firing at a dead base - should give only " + (int) -initialEnergy + " in damage");
 				} else {
 					// otherwise the missles count constant
-					firingShip.incrementDamageInflicted(-missile.getDamage());
-					base.incrementDamageReceived(missile.getDamage());
+					damage = -missile.getDamage();
 				}
+				firingShip.incrementDamageInflicted(damage);
+				base.incrementDamageReceived(-damage);
 
 				// it hit a base
 				firingShip.incrementHitsInflicted();
+				if (events != null) {
+					events.publish(SimulationEventType.HIT, firingShip, base, damage);
+				}
 			}
 			
 		}
@@ -242,6 +264,9 @@ public class CollisionHandler {
 
 				// it hit a ship
 				firingShip.incrementHitsInflicted();
+				if (events != null) {
+					events.publish(SimulationEventType.HIT, firingShip, ship, -emp.getDamage());
+				}
 			}
 			
 		}
@@ -257,6 +282,9 @@ public class CollisionHandler {
 
 				// it hit a base
 				firingShip.incrementHitsInflicted();
+				if (events != null) {
+					events.publish(SimulationEventType.HIT, firingShip, base, -emp.getDamage());
+				}
 			}
 			
 		}
@@ -288,6 +316,9 @@ public class CollisionHandler {
 		// if a ship ran into it, it "mines" the asteroid
 		ship.addResources(asteroid.getResources());
 		asteroid.setAlive(false);
+		if (events != null) {
+			events.publish(SimulationEventType.MINE, ship, asteroid, asteroid.getResources().getTotal());
+		}
 		//System.out.println("ship " + ship.getTeamName() + ship.getId() +" now has resourcesAvailable " + ship.getMoney());
 	}
 
@@ -315,6 +346,9 @@ public class CollisionHandler {
 			Ship ship = (Ship) object;
 			ship.incrementBeaconCount();
 			ship.updateEnergy(Beacon.BEACON_ENERGY_BOOST);
+			if (events != null) {
+				events.publish(SimulationEventType.BEACON, ship, beacon, Beacon.BEACON_ENERGY_BOOST);
+			}
 		}
 	}
 	
@@ -335,8 +369,12 @@ public class CollisionHandler {
 				
 				// deposit the flag (if there is one)
 				if (ship.isCarryingFlag()) {
-					base.addFlag(ship.getFlag());
+					Flag flag = ship.getFlag();
+					base.addFlag(flag);
 					ship.depositFlag();
+					if (events != null) {
+						events.publish(SimulationEventType.FLAG_CAPTURE, ship, flag, 0);
+					}
 				}
 
 				// heal the ship 
@@ -523,23 +561,21 @@ public class CollisionHandler {
 		//	==>
 		//  Gives two results for t
 		 
+		//  The squares are multiplications rather than Math.pow because the JIT compiled 
+		//  Math.pow can differ by an ulp from the interpreted one (on Java 8) and the 
+		//  cancellation in this formula turns an ulp into pixels, so the same game could 
+		//  play out differently depending on what had been compiled.
+		double a = u1*u1-2*u1*u2+u2*u2+v1*v1-2*v1*v2+v2*v2;
+		double b = 2*u1*x1-2*u2*x1-2*u1*x2+2*u2*x2+2*v1*y1-2*v2*y1-2*v1*y2+2*v2*y2;
+		double c = x1*x1+x2*x2+y1*y1+y2*y2-r1*r1-r2*r2-2*r1*r2-2*x1*x2-2*y1*y2;
+		 
 		double tPlus = 	(-2*u1*x1+2*u2*x1+2*u1*x2-2*u2*x2-2*v1*y1+2*v2*y1+2*v1*y2-2*v2*y2 
-							+ Math.sqrt( //+
-									Math.pow(2*u1*x1-2*u2*x1-2*u1*x2+2*u2*x2+2*v1*y1-2*v2*y1-2*v1*y2+2*v2*y2,2)
-									- 4*(Math.pow(u1,2)-2*u1*u2+Math.pow(u2,2)+Math.pow(v1,2)-2*v1*v2+Math.pow(v2,2))
-									*(Math.pow(x1,2)+Math.pow(x2,2)+Math.pow(y1,2)+Math.pow(y2,2)-Math.pow(r1,2)
-										-Math.pow(r2,2)-2*r1*r2-2*x1*x2-2*y1*y2)
-							)
-						)/(2*(Math.pow(u1,2)-2*u1*u2+Math.pow(u2,2)+Math.pow(v1,2)-2*v1*v2+Math.pow(v2,2)));
+							+ Math.sqrt(b*b - 4*a*c) //+
+						)/(2*a);
 		
 		double tMinus = (-2*u1*x1+2*u2*x1+2*u1*x2-2*u2*x2-2*v1*y1+2*v2*y1+2*v1*y2-2*v2*y2 
-							- Math.sqrt( //-
-									Math.pow(2*u1*x1-2*u2*x1-2*u1*x2+2*u2*x2+2*v1*y1-2*v2*y1-2*v1*y2+2*v2*y2,2)
-									- 4*(Math.pow(u1,2)-2*u1*u2+Math.pow(u2,2)+Math.pow(v1,2)-2*v1*v2+Math.pow(v2,2))
-									*(Math.pow(x1,2)+Math.pow(x2,2)+Math.pow(y1,2)+Math.pow(y2,2)-Math.pow(r1,2)
-										-Math.pow(r2,2)-2*r1*r2-2*x1*x2-2*y1*y2)
-							)
-						)/(2*(Math.pow(u1,2)-2*u1*u2+Math.pow(u2,2)+Math.pow(v1,2)-2*v1*v2+Math.pow(v2,2)));
+							- Math.sqrt(b*b - 4*a*c) //-
+						)/(2*a);
 		
 		//determine which solution is correct
 		//t must lie between 0 and the length of a simulator time step
@@ -0,0 +1,152 @@
+package spacesettlers.simulator;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import spacesettlers.clients.TeamClient;
+import spacesettlers.configs.SpaceSettlersConfig;
+import spacesettlers.configs.TeamClientConfig;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Keeps the parsed config files and the team client classes for the life of the JVM, so
+ * every game after the first (in a ladder, a batch or anything else that plays many games
+ * on one JVM) starts without parsing XML or looking up classes.
+ *
+ * A file is parsed again if its size or modification time changes.  Games may change
+ * their simulator config, so each one gets its own copy; team client configs are never
+ * changed and are shared.  Everything here can be used from many threads at once.
+ */
+public class ConfigCache {
+	/**
+	 * A parsed file and the size and time it had when it was parsed
+	 */
+	static class CachedFile {
+		final long lastModified, length;
+		final Object config;
+
+		CachedFile(long lastModified, long length, Object config) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.config = config;
+		}
+	}
+
+	static final ConcurrentHashMap<String, CachedFile> files = new ConcurrentHashMap<String, CachedFile>();
+
+	static final ConcurrentHashMap<String, Class<? extends TeamClient>> clientClasses = new ConcurrentHashMap<String, Class<? extends TeamClient>>();
+
+	/**
+	 * Reads all of the config files (XStream is thread safe once it is set up)
+	 */
+	static final XStream xstream = SpaceSettlersSimulator.createConfigXStream();
+
+	static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+	/**
+	 * Read a simulator config file
+	 * 
+	 * @param fileName
+	 * @return a copy of the config for the caller to change as it likes
+	 * @throws SimulatorException
+	 */
+	public static SpaceSettlersConfig readSimulatorConfig(String fileName) throws SimulatorException {
+		Object config = read(fileName, "Error parsing config file at string ");
+		if (!(config instanceof SpaceSettlersConfig)) {
+			throw new SimulatorException("Error: " + fileName + " is not a simulator config file");
+		}
+		return ((SpaceSettlersConfig) config).deepCopy();
+	}
+
+	/**
+	 * Read a team client config file
+	 * 
+	 * @param fileName
+	 * @return the config (shared, so it must not be changed)
+	 * @throws SimulatorException
+	 */
+	public static TeamClientConfig readTeamClientConfig(String fileName) throws SimulatorException {
+		Object config = read(fileName, "Error parsing config team config file " + fileName + " at string ");
+		if (!(config instanceof TeamClientConfig)) {
+			throw new SimulatorException("Error: " + fileName + " is not a team client config file");
+		}
+		return (TeamClientConfig) config;
+	}
+
+	/**
+	 * Parse the file (unless it was parsed before and hasn't changed)
+	 */
+	private static Object read(String fileName, String error) throws SimulatorException {
+		File file = new File(fileName);
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+
+		CachedFile cached = files.get(key);
+		if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+			hits.incrementAndGet();
+			return cached.config;
+		}
+
+		// two threads may both parse a new file, which is harmless
+		misses.incrementAndGet();
+		Object config;
+		try {
+			config = xstream.fromXML(file);
+		} catch (Exception e) {
+			throw new SimulatorException(error + e.getMessage());
+		}
+		files.put(key, new CachedFile(lastModified, length, config));
+		return config;
+	}
+
+	/**
+	 * Find a team client class by name
+	 * 
+	 * @param className
+	 * @return
+	 * @throws ClassNotFoundException if there is no such class or it isn't a TeamClient
+	 */
+	public static Class<? extends TeamClient> getClientClass(String className) throws ClassNotFoundException {
+		Class<? extends TeamClient> clientClass = clientClasses.get(className);
+		if (clientClass != null) {
+			hits.incrementAndGet();
+			return clientClass;
+		}
+
+		misses.incrementAndGet();
+		Class<?> found = Class.forName(className);
+		if (!TeamClient.class.isAssignableFrom(found)) {
+			throw new ClassNotFoundException(className + " is not a TeamClient");
+		}
+		clientClass = found.asSubclass(TeamClient.class);
+		clientClasses.put(className, clientClass);
+		return clientClass;
+	}
+
+	/**
+	 * @return the number of files and classes found in the cache
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of files parsed and classes looked up
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Forget everything (the next game parses and looks up everything again)
+	 */
+	public static void clear() {
+		files.clear();
+		clientClasses.clear();
+		hits.set(0);
+		misses.set(0);
+	}
+}
@@ -0,0 +1,66 @@
+package spacesettlers.simulator;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes every event to a CSV file, one line per event
+ */
+public class EventLogWriter implements SimulationEventListener {
+	public static final String CSV_HEADER = "step,type,subjectType,subjectId,subjectTeam,otherType,otherId,otherTeam,x,y,value,purchase";
+
+	BufferedWriter out;
+	String fileName;
+
+	/**
+	 * Open the file and write the header
+	 *
+	 * @param fileName
+	 * @throws SimulatorException
+	 */
+	public EventLogWriter(String fileName) throws SimulatorException {
+		this.fileName = fileName;
+		try {
+			out = new BufferedWriter(new FileWriter(fileName), 1 << 16);
+			out.write(CSV_HEADER);
+			out.newLine();
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't write event log " + e.getMessage());
+		}
+	}
+
+	public void handleEvent(SimulationEvent event) {
+		StringBuilder line = new StringBuilder(160);
+		line.append(event.getTimeStep()).append(',').append(event.getType()).append(',');
+		line.append(event.getSubjectType().getSimpleName()).append(',').append(event.getSubjectId()).append(',');
+		line.append(orEmpty(event.getSubjectTeam())).append(',');
+		if (event.getOtherType() != null) {
+			line.append(event.getOtherType().getSimpleName()).append(',').append(event.getOtherId()).append(',');
+		} else {
+			line.append(",,");
+		}
+		line.append(orEmpty(event.getOtherTeam())).append(',');
+		line.append(event.getX()).append(',').append(event.getY()).append(',');
+		line.append(event.getValue()).append(',');
+		line.append(event.getPurchase() == null ? "" : event.getPurchase().toString());
+		try {
+			out.write(line.toString());
+			out.newLine();
+		} catch (IOException e) {
+			throw new RuntimeException("Error: can't write event log " + fileName + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static String orEmpty(String string) {
+		return string == null ? "" : string;
+	}
+
+	public void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			System.err.println("Error: can't close event log " + fileName + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package spacesettlers.simulator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the events of each type for each team (events whose subject has no team,
+ * such as collisions between asteroids, are counted under "none") and totals their values.
+ */
+public class EventStatistics implements SimulationEventListener {
+	static final String NO_TEAM = "none";
+
+	/**
+	 * Counts and summed values by team, indexed by SimulationEventType ordinal
+	 */
+	Map<String, long[]> counts;
+	Map<String, double[]> values;
+
+	public EventStatistics() {
+		counts = new LinkedHashMap<String, long[]>();
+		values = new LinkedHashMap<String, double[]>();
+	}
+
+	public synchronized void handleEvent(SimulationEvent event) {
+		String team = event.getSubjectTeam() == null ? NO_TEAM : event.getSubjectTeam();
+		long[] teamCounts = counts.get(team);
+		if (teamCounts == null) {
+			teamCounts = new long[SimulationEventType.values().length];
+			counts.put(team, teamCounts);
+			values.put(team, new double[teamCounts.length]);
+		}
+		int type = event.getType().ordinal();
+		teamCounts[type]++;
+		values.get(team)[type] += event.getValue();
+	}
+
+	public void close() {
+	}
+
+	/**
+	 * @param team
+	 * @param type
+	 * @return the number of events of the type whose subject was on the team
+	 */
+	public synchronized long getCount(String team, SimulationEventType type) {
+		long[] teamCounts = counts.get(team);
+		return teamCounts == null ? 0 : teamCounts[type.ordinal()];
+	}
+
+	/**
+	 * @param team
+	 * @param type
+	 * @return the summed values of the events of the type whose subject was on the team
+	 */
+	public synchronized double getTotalValue(String team, SimulationEventType type) {
+		double[] teamValues = values.get(team);
+		return teamValues == null ? 0 : teamValues[type.ordinal()];
+	}
+
+	/**
+	 * @return a line per team with the count of each type of event it had
+	 */
+	public synchronized String getReport() {
+		StringBuilder report = new StringBuilder("Events:");
+		for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+			report.append("\n  ").append(entry.getKey()).append(':');
+			for (SimulationEventType type : SimulationEventType.values()) {
+				long count = entry.getValue()[type.ordinal()];
+				if (count > 0) {
+					report.append(' ').append(type).append('=').append(count);
+				}
+			}
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,117 @@
+package spacesettlers.simulator;
+
+/**
+ * Histogram of how long a callback took, with power of two buckets in microseconds
+ * (bucket b holds latencies below 2^b microseconds).  Also counts the calls that timed
+ * out and the calls that were skipped because the previous one was still running.
+ * All methods are synchronized because the team callbacks are timed in parallel.
+ */
+public class LatencyHistogram {
+	/**
+	 * Number of buckets (the last one holds everything above 2^30 microseconds)
+	 */
+	public static final int NUM_BUCKETS = 32;
+
+	/**
+	 * Name of the callback being timed
+	 */
+	String name;
+
+	long[] buckets;
+
+	long count, totalMicros, maxMicros;
+
+	long timeouts, skipped;
+
+	public LatencyHistogram(String name) {
+		this.name = name;
+		buckets = new long[NUM_BUCKETS];
+	}
+
+	/**
+	 * Record a call that finished in time
+	 *
+	 * @param nanos how long the call took
+	 */
+	public synchronized void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		int bucket = Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		buckets[bucket]++;
+		count++;
+		totalMicros += micros;
+		maxMicros = Math.max(maxMicros, micros);
+	}
+
+	/**
+	 * Record a call that ran out of time
+	 */
+	public synchronized void recordTimeout() {
+		timeouts++;
+	}
+
+	/**
+	 * Record a call that was never made because the last one was still running
+	 */
+	public synchronized void recordSkipped() {
+		skipped++;
+	}
+
+	/**
+	 * Returns the upper bound (in microseconds) of the bucket holding the given
+	 * fraction of the calls that finished in time
+	 *
+	 * @param fraction between 0 and 1
+	 * @return
+	 */
+	public synchronized long getPercentileMicros(double fraction) {
+		long target = (long) Math.ceil(fraction * count);
+		long seen = 0;
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			seen += buckets[b];
+			if (seen >= target && seen > 0) {
+				return 1L << b;
+			}
+		}
+		return 0;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getMaxMicros() {
+		return maxMicros;
+	}
+
+	public synchronized long getMeanMicros() {
+		return count == 0 ? 0 : totalMicros / count;
+	}
+
+	public synchronized long getTimeouts() {
+		return timeouts;
+	}
+
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Returns a copy of the bucket counts
+	 *
+	 * @return
+	 */
+	public synchronized long[] getBuckets() {
+		return buckets.clone();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return name + ": " + count + " calls, mean " + getMeanMicros() + "us, p50 < " + getPercentileMicros(0.5)
+				+ "us, p90 < " + getPercentileMicros(0.9) + "us, p99 < " + getPercentileMicros(0.99)
+				+ "us, max " + maxMicros + "us, " + timeouts + " timeouts, " + skipped + " skipped";
+	}
+}
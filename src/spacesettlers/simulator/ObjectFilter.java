@@ -0,0 +1,17 @@
+package spacesettlers.simulator;
+
+import spacesettlers.objects.AbstractObject;
+
+/**
+ * Decides which objects a spatial query returns (for example, only the bases of
+ * your own team or only the asteroids nobody is chasing yet)
+ *
+ * @param <T> type of object being queried
+ */
+public interface ObjectFilter<T extends AbstractObject> {
+	/**
+	 * @param object
+	 * @return true if the query may return the object
+	 */
+	public boolean accept(T object);
+}
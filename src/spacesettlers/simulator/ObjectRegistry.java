@@ -0,0 +1,421 @@
+package spacesettlers.simulator;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import spacesettlers.objects.AbstractObject;
+
+/**
+ * The objects in a space, each in a numbered slot.  An object added gets a free slot (the
+ * slots of removed objects are used again, the most recently freed first) and a handle: the
+ * slot and a generation that changes whenever the object in the slot is removed or gets a new
+ * id, so an old handle never finds the wrong object.
+ *
+ * Objects are found by their id through an open addressing table of slots keyed by the two
+ * halves of the id (as they were when the object was added or given a new id by resetId),
+ * so finding one never makes or hashes a UUID.
+ *
+ * The ObjectSets made by newSet are the objects of one type in the order they were added.
+ */
+public class ObjectRegistry {
+	/**
+	 * A handle is the slot in the low bits and the generation of the slot above them
+	 */
+	static final int SLOT_BITS = 22;
+	static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+	/**
+	 * The object in each slot (null if the slot is free), the id it is in the table under
+	 * and the generation of the slot
+	 */
+	AbstractObject[] slots;
+	long[] idHighs, idLows;
+	int[] generations;
+
+	/**
+	 * Slots used so far (in use or free) and the free ones
+	 */
+	int numSlots;
+	int[] freeSlots;
+	int numFreeSlots;
+
+	/**
+	 * Number of objects
+	 */
+	int size;
+
+	/**
+	 * Slot + 1 of the objects by id (0 is empty), with linear probing.  The length is a power
+	 * of two and at least twice the number of objects.
+	 */
+	int[] idTable;
+
+	public ObjectRegistry() {
+		slots = new AbstractObject[16];
+		idHighs = new long[16];
+		idLows = new long[16];
+		generations = new int[16];
+		freeSlots = new int[16];
+		idTable = new int[32];
+	}
+
+	/**
+	 * Make a set for the objects of one type.  The registry doesn't add to it: that
+	 * is up to whoever adds objects to the registry.
+	 *
+	 * @return
+	 */
+	public <T extends AbstractObject> ObjectSet<T> newSet() {
+		return new ObjectSet<T>(this);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add an object
+	 *
+	 * @param object
+	 * @return its slot or -1 if an object with its id is already in the registry
+	 * @throws IllegalStateException if there are already 2^22 slots in use
+	 */
+	public int add(AbstractObject object) {
+		if (slotOf(object) >= 0) {
+			return -1;
+		}
+
+		int slot;
+		if (numFreeSlots > 0) {
+			slot = freeSlots[--numFreeSlots];
+		} else {
+			if (numSlots > SLOT_MASK) {
+				throw new IllegalStateException("No room for more than " + (SLOT_MASK + 1) + " objects");
+			}
+			if (numSlots == slots.length) {
+				int length = numSlots * 2;
+				slots = Arrays.copyOf(slots, length);
+				idHighs = Arrays.copyOf(idHighs, length);
+				idLows = Arrays.copyOf(idLows, length);
+				generations = Arrays.copyOf(generations, length);
+			}
+			slot = numSlots++;
+		}
+
+		slots[slot] = object;
+		size++;
+		addId(slot);
+		object.setHandle(getHandle(slot));
+		return slot;
+	}
+
+	/**
+	 * Remove an object (or the object with the same id)
+	 *
+	 * @param object
+	 * @return the slot it was in or -1 if it wasn't in the registry
+	 */
+	public int remove(AbstractObject object) {
+		int slot = slotOf(object);
+		if (slot < 0) {
+			return -1;
+		}
+
+		removeId(slot);
+		slots[slot] = null;
+		generations[slot]++;
+		size--;
+		if (numFreeSlots == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, numFreeSlots * 2);
+		}
+		freeSlots[numFreeSlots++] = slot;
+		return slot;
+	}
+
+	/**
+	 * Give the object in the slot a new id (see AbstractObject.resetId) and a new handle
+	 *
+	 * @param slot
+	 */
+	public void resetId(int slot) {
+		AbstractObject object = slots[slot];
+		removeId(slot);
+		object.resetId();
+		generations[slot]++;
+		addId(slot);
+		object.setHandle(getHandle(slot));
+	}
+
+	/**
+	 * The slot of an object (or of the object with the same id)
+	 *
+	 * @param object
+	 * @return the slot or -1 if it is not in the registry
+	 */
+	public int slotOf(AbstractObject object) {
+		int handle = object.getHandle();
+		if (handle >= 0) {
+			int slot = handle & SLOT_MASK;
+			if (slot < numSlots && slots[slot] == object) {
+				return slot;
+			}
+		}
+
+		// the object was added to another space after this one, or it is an equal copy
+		return findSlot(object.getIdHigh(), object.getIdLow());
+	}
+
+	/**
+	 * Find an object by its id
+	 *
+	 * @param idHigh
+	 * @param idLow
+	 * @return the object or null if none has the id
+	 */
+	public AbstractObject get(long idHigh, long idLow) {
+		int slot = findSlot(idHigh, idLow);
+		return slot < 0 ? null : slots[slot];
+	}
+
+	/**
+	 * Find an object by its handle
+	 *
+	 * @param handle
+	 * @return the object or null if the object with that handle was removed or got a new id
+	 */
+	public AbstractObject get(int handle) {
+		if (handle < 0) {
+			return null;
+		}
+		int slot = handle & SLOT_MASK;
+		if (slot >= numSlots || slots[slot] == null || getHandle(slot) != handle) {
+			return null;
+		}
+		return slots[slot];
+	}
+
+	private int getHandle(int slot) {
+		return ((generations[slot] & GENERATION_MASK) << SLOT_BITS) | slot;
+	}
+
+	/**
+	 * Where the probing for an id starts (the halves are mixed so ids that only differ
+	 * in their counting low half still spread out)
+	 */
+	private int idHash(long idHigh, long idLow) {
+		long bits = (idHigh ^ idLow) * 0x9E3779B97F4A7C15L;
+		return (int) (bits >>> 32);
+	}
+
+	private int findSlot(long idHigh, long idLow) {
+		int mask = idTable.length - 1;
+		for (int i = idHash(idHigh, idLow) & mask; idTable[i] != 0; i = (i + 1) & mask) {
+			int slot = idTable[i] - 1;
+			if (idHighs[slot] == idHigh && idLows[slot] == idLow) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Put the slot in the id table under the current id of its object
+	 */
+	private void addId(int slot) {
+		if (size * 2 > idTable.length) {
+			idTable = new int[idTable.length * 2];
+			for (int s = 0; s < numSlots; s++) {
+				if (slots[s] != null && s != slot) {
+					putId(s);
+				}
+			}
+		}
+		idHighs[slot] = slots[slot].getIdHigh();
+		idLows[slot] = slots[slot].getIdLow();
+		putId(slot);
+	}
+
+	private void putId(int slot) {
+		int mask = idTable.length - 1;
+		int i = idHash(idHighs[slot], idLows[slot]) & mask;
+		while (idTable[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		idTable[i] = slot + 1;
+	}
+
+	/**
+	 * Take the slot out of the id table, moving back the entries after it that
+	 * would no longer be found
+	 */
+	private void removeId(int slot) {
+		int mask = idTable.length - 1;
+		int i = idHash(idHighs[slot], idLows[slot]) & mask;
+		while (idTable[i] != slot + 1) {
+			i = (i + 1) & mask;
+		}
+
+		idTable[i] = 0;
+		for (int j = (i + 1) & mask; idTable[j] != 0; j = (j + 1) & mask) {
+			int other = idTable[j] - 1;
+			int home = idHash(idHighs[other], idLows[other]) & mask;
+			// the entry stays unless the hole is between its home and where it is
+			boolean stays = (i < j) ? (home > i && home <= j) : (home > i || home <= j);
+			if (!stays) {
+				idTable[i] = idTable[j];
+				idTable[j] = 0;
+				i = j;
+			}
+		}
+	}
+
+	/**
+	 * Objects of one type in the order they were added, in an array that is walked to
+	 * iterate over them (so the order is the same as a LinkedHashSet would give).
+	 * Removing an object leaves a hole and the holes are closed up when the array is full.
+	 * It is a read only view: objects are added and removed through the space.  Like the
+	 * sets of the java.util, iterating over it while it is changed throws
+	 * ConcurrentModificationException.
+	 */
+	public static class ObjectSet<T extends AbstractObject> extends AbstractSet<T> {
+		final ObjectRegistry registry;
+
+		/**
+		 * The objects (with null holes) up to end and the slot of each
+		 */
+		AbstractObject[] objects;
+		int[] objectSlots;
+		int end, size;
+
+		/**
+		 * Index + 1 in objects of the object in each slot (0 if it is not in the set)
+		 */
+		int[] positions;
+
+		int modCount;
+
+		ObjectSet(ObjectRegistry registry) {
+			this.registry = registry;
+			objects = new AbstractObject[16];
+			objectSlots = new int[16];
+			positions = new int[16];
+		}
+
+		/**
+		 * Add the object in the slot to the end of the set
+		 *
+		 * @param object
+		 * @param slot its slot in the registry
+		 * @return false if it was already in the set
+		 */
+		public boolean add(T object, int slot) {
+			if (slot >= positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(positions.length * 2, slot + 1));
+			} else if (positions[slot] != 0) {
+				return false;
+			}
+
+			if (end == objects.length) {
+				if ((end - size) * 2 >= end) {
+					closeHoles();
+				} else {
+					objects = Arrays.copyOf(objects, end * 2);
+					objectSlots = Arrays.copyOf(objectSlots, end * 2);
+				}
+			}
+			objects[end] = object;
+			objectSlots[end] = slot;
+			positions[slot] = ++end;
+			size++;
+			modCount++;
+			return true;
+		}
+
+		/**
+		 * Remove the object in the slot from the set
+		 *
+		 * @param slot
+		 * @return false if it wasn't in the set
+		 */
+		public boolean remove(int slot) {
+			if (slot >= positions.length || positions[slot] == 0) {
+				return false;
+			}
+			objects[positions[slot] - 1] = null;
+			positions[slot] = 0;
+			size--;
+			while (end > 0 && objects[end - 1] == null) {
+				end--;
+			}
+			modCount++;
+			return true;
+		}
+
+		private void closeHoles() {
+			int to = 0;
+			for (int from = 0; from < end; from++) {
+				if (objects[from] != null) {
+					objects[to] = objects[from];
+					objectSlots[to] = objectSlots[from];
+					positions[objectSlots[to]] = ++to;
+				}
+			}
+			Arrays.fill(objects, to, end, null);
+			end = to;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof AbstractObject)) {
+				return false;
+			}
+			int slot = registry.slotOf((AbstractObject) o);
+			return slot >= 0 && slot < positions.length && positions[slot] != 0;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+				int next = skipHoles(0);
+				int expectedModCount = modCount;
+
+				public boolean hasNext() {
+					return next < end;
+				}
+
+				@SuppressWarnings("unchecked")
+				public T next() {
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					if (next >= end) {
+						throw new NoSuchElementException();
+					}
+					T object = (T) objects[next];
+					next = skipHoles(next + 1);
+					return object;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException("Remove objects through the space");
+				}
+			};
+		}
+
+		private int skipHoles(int index) {
+			while (index < end && objects[index] == null) {
+				index++;
+			}
+			return index;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package spacesettlers.simulator;
+
+/**
+ * Total time spent in each phase of the simulator time steps.  The simulator adds to 
+ * it from its own thread; use add() to combine the times of several games.
+ */
+public class PhaseTimes {
+	/**
+	 * Nanoseconds spent in each phase (indexed by SimulatorPhase ordinal)
+	 */
+	long[] nanos;
+
+	/**
+	 * Number of time steps timed
+	 */
+	long steps;
+
+	public PhaseTimes() {
+		nanos = new long[SimulatorPhase.values().length];
+	}
+
+	/**
+	 * Charge the time since start to the phase
+	 * 
+	 * @param phase
+	 * @param start time the phase started (from System.nanoTime())
+	 * @return the current time (the start of the next phase)
+	 */
+	public long lap(SimulatorPhase phase, long start) {
+		long now = System.nanoTime();
+		nanos[phase.ordinal()] += now - start;
+		return now;
+	}
+
+	/**
+	 * Count one more time step
+	 */
+	public void endStep() {
+		steps++;
+	}
+
+	/**
+	 * Add the times from another set of phase times (for example another game)
+	 * 
+	 * @param other
+	 */
+	public synchronized void add(PhaseTimes other) {
+		for (int p = 0; p < nanos.length; p++) {
+			nanos[p] += other.nanos[p];
+		}
+		steps += other.steps;
+	}
+
+	public synchronized long getNanos(SimulatorPhase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	public synchronized long getTotalNanos() {
+		long total = 0;
+		for (long phaseNanos : nanos) {
+			total += phaseNanos;
+		}
+		return total;
+	}
+
+	public synchronized long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * One line per phase with the time per step and the share of the total
+	 */
+	@Override
+	public synchronized String toString() {
+		long total = Math.max(1, getTotalNanos());
+		long timedSteps = Math.max(1, steps);
+		StringBuilder str = new StringBuilder();
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			if (str.length() > 0) {
+				str.append("\n");
+			}
+			long phaseNanos = nanos[phase.ordinal()];
+			str.append(String.format("%s: %.4f ms/step (%.1f%%)", phase, phaseNanos / 1e6 / timedSteps,
+					100.0 * phaseNanos / total));
+		}
+		return str.toString();
+	}
+}
@@ -0,0 +1,279 @@
+package spacesettlers.simulator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.utilities.Position;
+
+/**
+ * Structure of arrays for the objects that move on their own (everything that moves
+ * except the ships being controlled by an action).  Each object gets a dense slot and
+ * its position, velocities, radius and mass are copied into parallel primitive arrays
+ * so a whole time step of motion is a few tight loops over doubles.  The results are
+ * written back into the objects' own positions (no new Position per object per step).
+ *
+ * The objects' positions stay the real state of the game (the clients, the collision
+ * handler and deepClone all use them) so the arrays are filled again every time step.
+ * All of the arrays are reused, so nothing is allocated once they have grown to the
+ * size of the world.
+ */
+public class PhysicsArrays {
+	/**
+	 * The object in each slot
+	 */
+	AbstractObject[] objects;
+
+	/**
+	 * Location and velocities of each slot
+	 */
+	double[] x, y, orientation;
+	double[] velocityX, velocityY, angularVelocity;
+
+	/**
+	 * Size of each slot
+	 */
+	int[] radius, mass;
+
+	/**
+	 * Number of slots in use
+	 */
+	int size;
+
+	/**
+	 * Slots per task when moving on a fork-join pool
+	 */
+	static final int SLOTS_PER_TASK = 512;
+
+	/**
+	 * Tasks that move and store a range of slots (reused every time step)
+	 */
+	MoveTask[] moveTasks;
+
+	/**
+	 * Moves and stores a range of slots (each slot is independent of the others)
+	 */
+	class MoveTask extends RangeTask {
+		private static final long serialVersionUID = 1L;
+		double timeStep;
+		int width, height;
+
+		@Override
+		void compute(int start, int end) {
+			integrate(start, end, timeStep, width, height);
+			store(start, end);
+		}
+	}
+
+	public PhysicsArrays() {
+		objects = new AbstractObject[0];
+		x = new double[0];
+		y = new double[0];
+		orientation = new double[0];
+		velocityX = new double[0];
+		velocityY = new double[0];
+		angularVelocity = new double[0];
+		radius = new int[0];
+		mass = new int[0];
+		moveTasks = new MoveTask[0];
+	}
+
+	/**
+	 * Empty all the slots (the arrays are kept)
+	 */
+	public void clear() {
+		Arrays.fill(objects, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Copy the object into the next slot
+	 *
+	 * @param object
+	 * @return the slot of the object
+	 */
+	public int add(AbstractObject object) {
+		if (size == objects.length) {
+			grow(Math.max(16, size * 2));
+		}
+		Position position = object.getPosition();
+		int slot = size++;
+		objects[slot] = object;
+		x[slot] = position.getX();
+		y[slot] = position.getY();
+		orientation[slot] = position.getOrientation();
+		velocityX[slot] = position.getTranslationalVelocityX();
+		velocityY[slot] = position.getTranslationalVelocityY();
+		angularVelocity[slot] = position.getAngularVelocity();
+		radius[slot] = object.getRadius();
+		mass[slot] = object.getMass();
+		return slot;
+	}
+
+	private void grow(int capacity) {
+		objects = Arrays.copyOf(objects, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		orientation = Arrays.copyOf(orientation, capacity);
+		velocityX = Arrays.copyOf(velocityX, capacity);
+		velocityY = Arrays.copyOf(velocityY, capacity);
+		angularVelocity = Arrays.copyOf(angularVelocity, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+		mass = Arrays.copyOf(mass, capacity);
+	}
+
+	/**
+	 * Advance every slot one time step using its velocities and wrap it back into the
+	 * space.  This does exactly the same arithmetic (in the same order) as
+	 * Toroidal2DPhysics.moveOneTimestep so the results are identical.
+	 *
+	 * @param timeStep
+	 * @param width width of the space
+	 * @param height height of the space
+	 */
+	public void moveOneTimestep(double timeStep, int width, int height) {
+		integrate(0, size, timeStep, width, height);
+	}
+
+	/**
+	 * Advance every slot one time step and store the results in the objects, splitting
+	 * the slots across the pool.  Every slot gets exactly the same arithmetic as it would
+	 * on one thread so the results do not depend on the number of threads.
+	 *
+	 * @param timeStep
+	 * @param width width of the space
+	 * @param height height of the space
+	 * @param pool
+	 */
+	public void moveOneTimestepAndStore(double timeStep, int width, int height, ForkJoinPool pool) {
+		int numTasks = (size + SLOTS_PER_TASK - 1) / SLOTS_PER_TASK;
+		if (pool == null || numTasks < 2) {
+			moveOneTimestep(timeStep, width, height);
+			store();
+			return;
+		}
+
+		if (moveTasks.length < numTasks) {
+			int oldLength = moveTasks.length;
+			moveTasks = Arrays.copyOf(moveTasks, numTasks);
+			for (int t = oldLength; t < numTasks; t++) {
+				moveTasks[t] = new MoveTask();
+			}
+		}
+		for (int t = 0; t < numTasks; t++) {
+			MoveTask task = moveTasks[t];
+			task.start = t * SLOTS_PER_TASK;
+			task.end = Math.min(size, task.start + SLOTS_PER_TASK);
+			task.timeStep = timeStep;
+			task.width = width;
+			task.height = height;
+		}
+		RangeTask.runAll(pool, moveTasks, numTasks);
+	}
+
+	/**
+	 * Advance the slots from start (inclusive) to end (exclusive) one time step
+	 *
+	 * @param start
+	 * @param end
+	 * @param timeStep
+	 * @param width
+	 * @param height
+	 */
+	void integrate(int start, int end, double timeStep, int width, int height) {
+		final double twoPi = 2 * Math.PI;
+		for (int i = start; i < end; i++) {
+			double newOrientation = orientation[i] + (angularVelocity[i] * timeStep);
+
+			// make sure orientation wraps correctly (-pi to pi)
+			if (newOrientation > Math.PI) {
+				newOrientation -= twoPi;
+			} else if (newOrientation < -Math.PI) {
+				newOrientation += twoPi;
+			}
+			orientation[i] = newOrientation;
+		}
+
+		for (int i = start; i < end; i++) {
+			x[i] = x[i] + (velocityX[i] * timeStep);
+			y[i] = y[i] + (velocityY[i] * timeStep);
+		}
+
+		// toroidal wrap (the loops are only taken by objects that left the space)
+		for (int i = start; i < end; i++) {
+			double newX = x[i];
+			while (newX < 0) {
+				newX = newX + width;
+			}
+			x[i] = newX % width;
+
+			double newY = y[i];
+			while (newY < 0) {
+				newY = newY + height;
+			}
+			y[i] = newY % height;
+		}
+	}
+
+	/**
+	 * Write the location of every slot back into its object's position
+	 */
+	public void store() {
+		store(0, size);
+	}
+
+	/**
+	 * Write the location of the slots from start (inclusive) to end (exclusive) back
+	 *
+	 * @param start
+	 * @param end
+	 */
+	void store(int start, int end) {
+		for (int i = start; i < end; i++) {
+			Position position = objects[i].getPosition();
+			position.setX(x[i]);
+			position.setY(y[i]);
+			position.setOrientation(orientation[i]);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public AbstractObject getObject(int slot) {
+		return objects[slot];
+	}
+
+	public double getX(int slot) {
+		return x[slot];
+	}
+
+	public double getY(int slot) {
+		return y[slot];
+	}
+
+	public double getOrientation(int slot) {
+		return orientation[slot];
+	}
+
+	public double getVelocityX(int slot) {
+		return velocityX[slot];
+	}
+
+	public double getVelocityY(int slot) {
+		return velocityY[slot];
+	}
+
+	public double getAngularVelocity(int slot) {
+		return angularVelocity[slot];
+	}
+
+	public int getRadius(int slot) {
+		return radius[slot];
+	}
+
+	public int getMass(int slot) {
+		return mass[slot];
+	}
+}
@@ -0,0 +1,53 @@
+package spacesettlers.simulator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Work on a range of object indices that can run on a fork-join pool at the same time as
+ * the tasks for the other ranges.  The tasks are kept and reused every time step.
+ */
+abstract class RangeTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The range of indices (start inclusive, end exclusive)
+	 */
+	int start, end;
+
+	/**
+	 * Do the work for the range
+	 * 
+	 * @param start
+	 * @param end
+	 */
+	abstract void compute(int start, int end);
+
+	@Override
+	protected void compute() {
+		compute(start, end);
+	}
+
+	/**
+	 * Run the first numTasks tasks on the pool and wait for all of them to finish
+	 * 
+	 * @param pool
+	 * @param tasks
+	 * @param numTasks
+	 */
+	static void runAll(ForkJoinPool pool, RangeTask[] tasks, int numTasks) {
+		for (int t = 0; t < numTasks; t++) {
+			tasks[t].reinitialize();
+		}
+		final RangeTask[] toRun = Arrays.copyOf(tasks, numTasks);
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(toRun);
+			}
+		});
+	}
+}
@@ -0,0 +1,156 @@
+package spacesettlers.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import spacesettlers.configs.SpaceSettlersConfig;
+import spacesettlers.configs.TeamClientConfig;
+
+/**
+ * Reads a replay written by ReplayWriter one time step at a time
+ */
+public class ReplayReader {
+	DataInputStream in;
+
+	String fileName;
+
+	long randomSeed;
+	SpaceSettlersConfig config;
+
+	/**
+	 * The client configuration of each team (by team name, in the order of the teams)
+	 */
+	Map<String, TeamClientConfig> teamClientConfigs;
+
+	/**
+	 * The step just read and the one before it
+	 */
+	ReplayStep step, previous;
+
+	/**
+	 * The scores at the end of the recorded game (null until the end is read)
+	 */
+	double[] recordedScores;
+
+	int stepsRead;
+
+	/**
+	 * Open the replay and read the header
+	 *
+	 * @param fileName
+	 * @throws SimulatorException
+	 */
+	public ReplayReader(String fileName) throws SimulatorException {
+		this.fileName = fileName;
+		teamClientConfigs = new LinkedHashMap<String, TeamClientConfig>();
+		try {
+			in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(fileName), 1 << 16)));
+			if (in.readInt() != ReplayWriter.MAGIC) {
+				throw new SimulatorException("Error: " + fileName + " is not a replay file");
+			}
+			int version = in.readInt();
+			if (version != ReplayWriter.VERSION) {
+				throw new SimulatorException("Error: replay file " + fileName + " is version " + version
+						+ " but only version " + ReplayWriter.VERSION + " can be read");
+			}
+			randomSeed = in.readLong();
+			config = (SpaceSettlersConfig) SpaceSettlersSimulator.createConfigXStream().fromXML(readString());
+			int numTeams = ReplayStep.readVarInt(in);
+			for (int t = 0; t < numTeams; t++) {
+				String teamName = readString();
+				TeamClientConfig teamClientConfig = (TeamClientConfig) SpaceSettlersSimulator.createConfigXStream().fromXML(readString());
+				teamClientConfigs.put(teamName, teamClientConfig);
+			}
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't read replay file " + fileName + ": " + e.getMessage());
+		}
+
+		step = new ReplayStep();
+		previous = new ReplayStep();
+	}
+
+	/**
+	 * Read the next time step
+	 *
+	 * @return the step (reused by the next call) or null if the recorded game ended
+	 * @throws SimulatorException
+	 */
+	public ReplayStep readStep() throws SimulatorException {
+		if (recordedScores != null) {
+			return null;
+		}
+
+		try {
+			if (in.readByte() == ReplayWriter.END) {
+				recordedScores = new double[ReplayStep.readVarInt(in)];
+				for (int t = 0; t < recordedScores.length; t++) {
+					recordedScores[t] = in.readDouble();
+				}
+				in.close();
+				return null;
+			}
+
+			ReplayStep read = previous;
+			read.read(in, step, teamClientConfigs.size());
+			previous = step;
+			step = read;
+			stepsRead++;
+			return step;
+		} catch (IOException e) {
+			throw new SimulatorException("Error: replay file " + fileName + " ended early after "
+					+ stepsRead + " steps: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Close the file (if the replay is stopped before it ends)
+	 */
+	public void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing more will be read anyway
+		}
+	}
+
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public SpaceSettlersConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * @param teamName
+	 * @return the recorded client configuration of the team (or null if there was no such team)
+	 */
+	public TeamClientConfig getTeamClientConfig(String teamName) {
+		return teamClientConfigs.get(teamName);
+	}
+
+	/**
+	 * The scores of the teams (in the order of the teams) at the end of the recorded game
+	 *
+	 * @return the scores or null if the end of the replay hasn't been read yet
+	 */
+	public double[] getRecordedScores() {
+		return recordedScores;
+	}
+
+	public int getStepsRead() {
+		return stepsRead;
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[ReplayStep.readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,415 @@
+package spacesettlers.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import spacesettlers.actions.PurchaseTypes;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.utilities.Movement;
+
+/**
+ * Everything the teams decided in one time step of a recorded game: the power ups (in
+ * the order the physics used them), the movement of every ship that was controlled by
+ * an action and each team's purchases (in the order the simulator handled them).
+ * Replaying these into a simulator made with the same seed and configuration gives
+ * exactly the same game without asking any client.
+ *
+ * Objects are referred to by their place in their team (the i-th ship or the i-th base)
+ * since the ids are random in every game.  Numbers are written as varints and a ship
+ * whose movement is zero, or the same as the ship in its place had the step before,
+ * takes a single byte.
+ */
+public class ReplayStep {
+	/**
+	 * How each movement is written
+	 */
+	static final int MOVEMENT_NEW = 0;
+	static final int MOVEMENT_SAME = 1;
+	static final int MOVEMENT_ZERO = 2;
+
+	/**
+	 * The power ups: team index, reference into the team and power up type
+	 */
+	int numPowerups;
+	int[] powerupTeams, powerupReferences, powerupTypes;
+
+	/**
+	 * The movements of the controlled ships (in the order the physics visits them)
+	 */
+	int numMovements;
+	double[] accelerationX, accelerationY, angularAcceleration;
+
+	/**
+	 * The purchases of each team: reference into the team and purchase type
+	 */
+	int[] numPurchases;
+	int[][] purchaseReferences, purchaseTypes;
+
+	public ReplayStep() {
+		powerupTeams = new int[4];
+		powerupReferences = new int[4];
+		powerupTypes = new int[4];
+		accelerationX = new double[16];
+		accelerationY = new double[16];
+		angularAcceleration = new double[16];
+		numPurchases = new int[0];
+		purchaseReferences = new int[0][];
+		purchaseTypes = new int[0][];
+	}
+
+	/**
+	 * Empty the step (the arrays are kept)
+	 *
+	 * @param numTeams
+	 */
+	public void clear(int numTeams) {
+		numPowerups = 0;
+		numMovements = 0;
+		if (numPurchases.length != numTeams) {
+			numPurchases = new int[numTeams];
+			purchaseReferences = new int[numTeams][4];
+			purchaseTypes = new int[numTeams][4];
+		}
+		Arrays.fill(numPurchases, 0);
+	}
+
+	/**
+	 * The reference of the object in the team: twice the index of the ship or twice
+	 * the index of the base plus one
+	 *
+	 * @param team
+	 * @param id
+	 * @return the reference or -1 if the object isn't one of the team's ships or bases
+	 */
+	static int getReference(Team team, UUID id) {
+		int index = 0;
+		for (Ship ship : team.getShips()) {
+			if (ship.getId().equals(id)) {
+				return 2 * index;
+			}
+			index++;
+		}
+		index = 0;
+		for (UUID baseId : team.getBaseIDs()) {
+			if (baseId.equals(id)) {
+				return 2 * index + 1;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	/**
+	 * The id of the object the reference refers to
+	 *
+	 * @param team
+	 * @param reference
+	 * @return
+	 * @throws SimulatorException if the team has no such object (the replay is out of step with the game)
+	 */
+	static UUID getId(Team team, int reference) throws SimulatorException {
+		int index = reference / 2;
+		if (reference % 2 == 0) {
+			for (Ship ship : team.getShips()) {
+				if (index-- == 0) {
+					return ship.getId();
+				}
+			}
+		} else {
+			for (UUID baseId : team.getBaseIDs()) {
+				if (index-- == 0) {
+					return baseId;
+				}
+			}
+		}
+		throw new SimulatorException("Error: the replay refers to object " + reference + " of team "
+				+ team.getTeamName() + " which doesn't exist");
+	}
+
+	/**
+	 * Record the power ups being used this step (in the order of the map)
+	 *
+	 * @param teams
+	 * @param powerups
+	 */
+	public void recordPowerups(Collection<Team> teams, Map<UUID, SpaceSettlersPowerupEnum> powerups) {
+		for (Map.Entry<UUID, SpaceSettlersPowerupEnum> entry : powerups.entrySet()) {
+			int teamIndex = 0;
+			for (Team team : teams) {
+				int reference = getReference(team, entry.getKey());
+				if (reference >= 0) {
+					if (numPowerups == powerupTeams.length) {
+						powerupTeams = Arrays.copyOf(powerupTeams, numPowerups * 2);
+						powerupReferences = Arrays.copyOf(powerupReferences, numPowerups * 2);
+						powerupTypes = Arrays.copyOf(powerupTypes, numPowerups * 2);
+					}
+					powerupTeams[numPowerups] = teamIndex;
+					powerupReferences[numPowerups] = reference;
+					powerupTypes[numPowerups++] = entry.getValue().ordinal();
+					break;
+				}
+				teamIndex++;
+			}
+		}
+	}
+
+	/**
+	 * The power ups used this step (in the order they were recorded)
+	 *
+	 * @param teams
+	 * @return
+	 * @throws SimulatorException
+	 */
+	public Map<UUID, SpaceSettlersPowerupEnum> getPowerups(Collection<Team> teams) throws SimulatorException {
+		Map<UUID, SpaceSettlersPowerupEnum> powerups = new LinkedHashMap<UUID, SpaceSettlersPowerupEnum>();
+		if (numPowerups > 0) {
+			List<Team> teamList = new ArrayList<Team>(teams);
+			SpaceSettlersPowerupEnum[] types = SpaceSettlersPowerupEnum.values();
+			for (int i = 0; i < numPowerups; i++) {
+				powerups.put(getId(teamList.get(powerupTeams[i]), powerupReferences[i]), types[powerupTypes[i]]);
+			}
+		}
+		return powerups;
+	}
+
+	/**
+	 * Record the movements of the controlled ships
+	 *
+	 * @param movements
+	 * @param count number of movements in the array
+	 */
+	public void recordMovements(Movement[] movements, int count) {
+		if (accelerationX.length < count) {
+			accelerationX = new double[count * 2];
+			accelerationY = new double[count * 2];
+			angularAcceleration = new double[count * 2];
+		}
+		for (int i = 0; i < count; i++) {
+			accelerationX[i] = movements[i].getTranslationalAcceleration().getXValue();
+			accelerationY[i] = movements[i].getTranslationalAcceleration().getYValue();
+			angularAcceleration[i] = movements[i].getAngularAccleration();
+		}
+		numMovements = count;
+	}
+
+	/**
+	 * The movements of the controlled ships
+	 *
+	 * @return an array of exactly getNumMovements() movements
+	 */
+	public Movement[] getMovements() {
+		Movement[] movements = new Movement[numMovements];
+		for (int i = 0; i < numMovements; i++) {
+			Movement movement = new Movement();
+			// set the vector directly since it was already limited when it was recorded
+			movement.getTranslationalAcceleration().setX(accelerationX[i]);
+			movement.getTranslationalAcceleration().setY(accelerationY[i]);
+			movement.setAngularAccleration(angularAcceleration[i]);
+			movements[i] = movement;
+		}
+		return movements;
+	}
+
+	public int getNumMovements() {
+		return numMovements;
+	}
+
+	/**
+	 * Record the purchases of a team (in the order of the map).  Purchases on objects
+	 * that aren't the team's are left out since the simulator ignores them.
+	 *
+	 * @param teamIndex
+	 * @param team
+	 * @param purchases (may be null)
+	 */
+	public void recordPurchases(int teamIndex, Team team, Map<UUID, PurchaseTypes> purchases) {
+		if (purchases == null) {
+			return;
+		}
+		for (Map.Entry<UUID, PurchaseTypes> entry : purchases.entrySet()) {
+			int reference = getReference(team, entry.getKey());
+			if (reference < 0 || entry.getValue() == null) {
+				continue;
+			}
+			int count = numPurchases[teamIndex];
+			if (count == purchaseReferences[teamIndex].length) {
+				purchaseReferences[teamIndex] = Arrays.copyOf(purchaseReferences[teamIndex], count * 2);
+				purchaseTypes[teamIndex] = Arrays.copyOf(purchaseTypes[teamIndex], count * 2);
+			}
+			purchaseReferences[teamIndex][count] = reference;
+			purchaseTypes[teamIndex][count] = entry.getValue().ordinal();
+			numPurchases[teamIndex]++;
+		}
+	}
+
+	/**
+	 * The purchases of a team (in the order they were recorded)
+	 *
+	 * @param teamIndex
+	 * @param team
+	 * @return
+	 * @throws SimulatorException
+	 */
+	public Map<UUID, PurchaseTypes> getPurchases(int teamIndex, Team team) throws SimulatorException {
+		Map<UUID, PurchaseTypes> purchases = new LinkedHashMap<UUID, PurchaseTypes>();
+		PurchaseTypes[] types = PurchaseTypes.values();
+		for (int i = 0; i < numPurchases[teamIndex]; i++) {
+			purchases.put(getId(team, purchaseReferences[teamIndex][i]), types[purchaseTypes[teamIndex][i]]);
+		}
+		return purchases;
+	}
+
+	/**
+	 * Write the step
+	 *
+	 * @param out
+	 * @param previous the step written before this one (for the movements that didn't change)
+	 * @throws IOException
+	 */
+	public void write(DataOutput out, ReplayStep previous) throws IOException {
+		writeVarInt(out, numPowerups);
+		for (int i = 0; i < numPowerups; i++) {
+			writeVarInt(out, powerupTeams[i]);
+			writeVarInt(out, powerupReferences[i]);
+			writeVarInt(out, powerupTypes[i]);
+		}
+
+		writeVarInt(out, numMovements);
+		for (int i = 0; i < numMovements; i++) {
+			double x = accelerationX[i];
+			double y = accelerationY[i];
+			double angular = angularAcceleration[i];
+			if (isSame(x, 0) && isSame(y, 0) && isSame(angular, 0)) {
+				out.writeByte(MOVEMENT_ZERO);
+			} else if (i < previous.numMovements && isSame(x, previous.accelerationX[i])
+					&& isSame(y, previous.accelerationY[i]) && isSame(angular, previous.angularAcceleration[i])) {
+				out.writeByte(MOVEMENT_SAME);
+			} else {
+				out.writeByte(MOVEMENT_NEW);
+				out.writeDouble(x);
+				out.writeDouble(y);
+				out.writeDouble(angular);
+			}
+		}
+
+		for (int team = 0; team < numPurchases.length; team++) {
+			writeVarInt(out, numPurchases[team]);
+			for (int i = 0; i < numPurchases[team]; i++) {
+				writeVarInt(out, purchaseReferences[team][i]);
+				writeVarInt(out, purchaseTypes[team][i]);
+			}
+		}
+	}
+
+	/**
+	 * Read a step written by write
+	 *
+	 * @param in
+	 * @param previous the step read before this one
+	 * @param numTeams
+	 * @throws IOException
+	 */
+	public void read(DataInput in, ReplayStep previous, int numTeams) throws IOException {
+		clear(numTeams);
+
+		int count = readVarInt(in);
+		for (int i = 0; i < count; i++) {
+			if (numPowerups == powerupTeams.length) {
+				powerupTeams = Arrays.copyOf(powerupTeams, numPowerups * 2);
+				powerupReferences = Arrays.copyOf(powerupReferences, numPowerups * 2);
+				powerupTypes = Arrays.copyOf(powerupTypes, numPowerups * 2);
+			}
+			powerupTeams[numPowerups] = readVarInt(in);
+			powerupReferences[numPowerups] = readVarInt(in);
+			powerupTypes[numPowerups++] = readVarInt(in);
+		}
+
+		count = readVarInt(in);
+		if (accelerationX.length < count) {
+			accelerationX = new double[count * 2];
+			accelerationY = new double[count * 2];
+			angularAcceleration = new double[count * 2];
+		}
+		for (int i = 0; i < count; i++) {
+			int kind = in.readByte();
+			if (kind == MOVEMENT_ZERO) {
+				accelerationX[i] = 0;
+				accelerationY[i] = 0;
+				angularAcceleration[i] = 0;
+			} else if (kind == MOVEMENT_SAME) {
+				accelerationX[i] = previous.accelerationX[i];
+				accelerationY[i] = previous.accelerationY[i];
+				angularAcceleration[i] = previous.angularAcceleration[i];
+			} else {
+				accelerationX[i] = in.readDouble();
+				accelerationY[i] = in.readDouble();
+				angularAcceleration[i] = in.readDouble();
+			}
+		}
+		numMovements = count;
+
+		for (int team = 0; team < numTeams; team++) {
+			count = readVarInt(in);
+			if (purchaseReferences[team].length < count) {
+				purchaseReferences[team] = new int[count];
+				purchaseTypes[team] = new int[count];
+			}
+			for (int i = 0; i < count; i++) {
+				purchaseReferences[team][i] = readVarInt(in);
+				purchaseTypes[team][i] = readVarInt(in);
+			}
+			numPurchases[team] = count;
+		}
+	}
+
+	/**
+	 * True if the doubles have exactly the same bits (so -0.0 isn't written as 0.0)
+	 */
+	private static boolean isSame(double value1, double value2) {
+		return Double.doubleToRawLongBits(value1) == Double.doubleToRawLongBits(value2);
+	}
+
+	/**
+	 * Write a non-negative int in 7 bit groups (one byte if it is below 128)
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Read an int written by writeVarInt
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint in the replay");
+	}
+}
@@ -0,0 +1,126 @@
+package spacesettlers.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import spacesettlers.clients.Team;
+
+/**
+ * Records a game as a compact binary replay (gzipped).  The file starts with the random
+ * seed, the simulator configuration and each team's client configuration, then holds one
+ * ReplayStep per time step and ends with the final scores (so a replay can check that it
+ * got the same result).
+ */
+public class ReplayWriter {
+	/**
+	 * Marks a replay file ("SSRP") and its format
+	 */
+	static final int MAGIC = 0x53535250;
+	static final int VERSION = 1;
+
+	/**
+	 * What follows in the file
+	 */
+	static final int STEP = 1;
+	static final int END = 0;
+
+	DataOutputStream out;
+
+	/**
+	 * The step being recorded and the one written before it
+	 */
+	ReplayStep step, previous;
+
+	int numTeams;
+
+	/**
+	 * Open the replay file and write the header
+	 *
+	 * @param fileName
+	 * @param randomSeed seed of the game's random number generator
+	 * @param configXML the simulator configuration (as it was before the game was made)
+	 * @param teamClientConfigXML the client configuration of each team (by team name, in the order of the teams)
+	 * @throws SimulatorException
+	 */
+	public ReplayWriter(String fileName, long randomSeed, String configXML, Map<String, String> teamClientConfigXML)
+			throws SimulatorException {
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(fileName), 1 << 16)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(randomSeed);
+			writeString(configXML);
+			ReplayStep.writeVarInt(out, teamClientConfigXML.size());
+			for (Map.Entry<String, String> entry : teamClientConfigXML.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't write replay file " + fileName + ": " + e.getMessage());
+		}
+
+		numTeams = teamClientConfigXML.size();
+		step = new ReplayStep();
+		previous = new ReplayStep();
+		step.clear(numTeams);
+		previous.clear(numTeams);
+	}
+
+	/**
+	 * The step being recorded (cleared after each writeStep)
+	 * @return
+	 */
+	public ReplayStep getStep() {
+		return step;
+	}
+
+	/**
+	 * Write the step being recorded and start the next one
+	 *
+	 * @throws SimulatorException
+	 */
+	public void writeStep() throws SimulatorException {
+		try {
+			out.writeByte(STEP);
+			step.write(out, previous);
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't write the replay: " + e.getMessage());
+		}
+
+		ReplayStep written = step;
+		step = previous;
+		previous = written;
+		step.clear(numTeams);
+	}
+
+	/**
+	 * Write the final scores and close the file
+	 *
+	 * @param teams
+	 * @throws SimulatorException
+	 */
+	public void close(Collection<Team> teams) throws SimulatorException {
+		try {
+			out.writeByte(END);
+			ReplayStep.writeVarInt(out, teams.size());
+			for (Team team : teams) {
+				out.writeDouble(team.getScore());
+			}
+			out.close();
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't finish the replay: " + e.getMessage());
+		}
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		ReplayStep.writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+}
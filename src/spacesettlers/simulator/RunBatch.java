@@ -0,0 +1,386 @@
+package spacesettlers.simulator;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import spacesettlers.clients.Team;
+import spacesettlers.configs.HighLevelTeamConfig;
+import spacesettlers.configs.SpaceSettlersConfig;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+
+/**
+ * Runs many games without graphics as fast as possible (one after the other or several at
+ * once on one JVM).  The GUI is never created so no Swing classes are loaded.  Each team
+ * in each game is written as one CSV record and a summary of the throughput (steps per
+ * second, time per phase and total wall time) is written at the end as # comment lines.
+ */
+public class RunBatch {
+	/**
+	 * Header of the CSV records
+	 */
+	public static final String RESULTS_HEADER = "game,seed,steps,wallSeconds,team,ladderName,score,totalResources,"
+			+ "beacons,flags,killsInflicted,killsReceived,hitsInflicted,damageInflicted,damageReceived";
+
+	JSAPResult config;
+
+	/**
+	 * Where the records are written
+	 */
+	PrintStream results;
+
+	/**
+	 * The phase times summed over all the games
+	 */
+	PhaseTimes phaseTimes;
+
+	int failedGames;
+
+	/**
+	 * Time spent making the simulators (summed over all the games)
+	 */
+	double startupMillis;
+
+	/**
+	 * The checkpoint all of the games carry on from (null for new games)
+	 */
+	SimulationCheckpoint checkpoint;
+
+	/**
+	 * The client config file to use for each team named in teamConfigs (instead of the
+	 * one in the simulator config)
+	 */
+	Map<String, String> teamConfigFiles;
+
+	/**
+	 * Create a batch with the command line arguments parsed.  If they fail to parse, this will die
+	 * before moving on.
+	 * @param args
+	 * @throws SimulatorException
+	 */
+	public RunBatch(String[] args) throws SimulatorException {
+		this(parseArgs(args, initializeParser()));
+	}
+
+	/**
+	 * Create a batch from arguments that were already parsed (with the parser from initializeParser)
+	 * @param config
+	 * @throws SimulatorException
+	 */
+	public RunBatch(JSAPResult config) throws SimulatorException {
+		this.config = config;
+		verifyArguments();
+		phaseTimes = new PhaseTimes();
+	}
+
+	/**
+	 * Initialize the parser with all of the command line arguments
+	 * @return
+	 */
+	static SimpleJSAP initializeParser() {
+		SimpleJSAP parser = null;
+
+		// create the parser and specify all the command line arguments
+		try {
+			parser = new SimpleJSAP(
+					"Batch",
+					"Runs Spacewar games without graphics",
+					new Parameter[] {
+						new FlaggedOption("simulatorConfigFile",
+								JSAP.STRING_PARSER, null, JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "simulatorConfigFile",
+								"configuration file for the simulator (xml)"),
+						new FlaggedOption("configPath",
+								JSAP.STRING_PARSER, null, JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "configPath",
+								"path to the configuration files"),
+						new FlaggedOption("numGames",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "numGames",
+								"number of games to run"),
+						new FlaggedOption("numThreads",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "numThreads",
+								"number of games to run at the same time"),
+						new FlaggedOption("randomSeed",
+								JSAP.LONG_PARSER, "0", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "randomSeed",
+								"if not 0, game i uses randomSeed + i (otherwise the seed in the config file)"),
+						new FlaggedOption("resultsFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "resultsFile",
+								"file for the CSV results (standard out if not given)"),
+						new FlaggedOption("physicsThreads",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "physicsThreads",
+								"number of threads that step the physics (the results are the same for any number)"),
+						new FlaggedOption("replayDirectory",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "replayDirectory",
+								"if given, game i is recorded in game-i.replay in this directory (play it back with RunReplay)"),
+						new FlaggedOption("restoreFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "restoreFile",
+								"if given, every game carries on from this checkpoint (game i with seed randomSeed + i if randomSeed is not 0)"),
+						new FlaggedOption("teamConfigs",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "teamConfigs",
+								"client config files to use instead of the simulator config's, as team=file.xml,team=file.xml (in configPath)"),
+						new FlaggedOption("quiet",
+								JSAP.BOOLEAN_PARSER, "true", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "quiet",
+								"boolean stating if the simulator progress messages are hidden (true) or not (false)"),
+						new FlaggedOption("debug",
+								JSAP.BOOLEAN_PARSER, "false", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "debug",
+								"boolean stating if debugging mode (single threading) is on (true) or not (false)"),
+					});
+		} catch (JSAPException e) {
+			e.printStackTrace();
+			System.err.println("Error in the parser - exiting");
+			System.exit(-1);
+		}
+		return parser;
+	}
+
+	/**
+	 * Actually parse the command line arguments
+	 * @param args
+	 * @param parser
+	 * @return
+	 */
+	private static JSAPResult parseArgs(String[] args, SimpleJSAP parser) {
+		// parse the arguments
+		JSAPResult parserConfig = parser.parse(args);
+		// exit if it failed to parse
+		if (parser.messagePrinted()) {
+			System.exit(-1);
+		}
+		return parserConfig;
+	}
+
+	/**
+	 * Verify that the arguments are valid.
+	 */
+	private void verifyArguments() throws SimulatorException {
+		String configName = config.getString("simulatorConfigFile");
+
+		// verify that the argument ended in .xml
+		if (!configName.endsWith("xml")) {
+			throw new SimulatorException("Error: invalid simulator config file name " + configName + " It must end in .xml");
+		}
+
+		if (config.getInt("numGames") < 1 || config.getInt("numThreads") < 1) {
+			throw new SimulatorException("Error: numGames and numThreads must be at least 1");
+		}
+
+		teamConfigFiles = new LinkedHashMap<String, String>();
+		if (config.getString("teamConfigs") != null) {
+			if (config.getString("restoreFile") != null) {
+				throw new SimulatorException("Error: teamConfigs can't be used with restoreFile (the checkpoint has the teams' configs)");
+			}
+			for (String teamConfig : config.getString("teamConfigs").split(",")) {
+				int equals = teamConfig.indexOf('=');
+				if (equals <= 0 || equals == teamConfig.length() - 1) {
+					throw new SimulatorException("Error: invalid team config " + teamConfig + " It must be team=file.xml");
+				}
+				teamConfigFiles.put(teamConfig.substring(0, equals).trim(), teamConfig.substring(equals + 1).trim());
+			}
+		}
+	}
+
+	/**
+	 * Run all the games and print the summary
+	 *
+	 * @throws SimulatorException
+	 */
+	public void run() throws SimulatorException {
+		run(System.out);
+	}
+
+	/**
+	 * Run all the games and print the summary
+	 *
+	 * @param out where the results go if there is no resultsFile
+	 * @throws SimulatorException
+	 */
+	public void run(PrintStream out) throws SimulatorException {
+		if (config.getString("resultsFile") != null) {
+			try {
+				results = new PrintStream(config.getString("resultsFile"));
+			} catch (FileNotFoundException e) {
+				throw new SimulatorException("Error: can't write results file " + e.getMessage());
+			}
+		} else {
+			results = out;
+		}
+		results.println(RESULTS_HEADER);
+
+		int numGames = config.getInt("numGames");
+		int numThreads = config.getInt("numThreads");
+		long start = System.nanoTime();
+
+		// all of the games read the checkpoint from the same mapped file
+		if (config.getString("restoreFile") != null) {
+			checkpoint = SimulationCheckpoint.read(config.getString("restoreFile"));
+		}
+
+		ExecutorService gameExecutor = Executors.newFixedThreadPool(numThreads);
+		for (int game = 0; game < numGames; game++) {
+			final int gameIndex = game;
+			gameExecutor.execute(new Runnable() {
+				public void run() {
+					runGame(gameIndex);
+				}
+			});
+		}
+		gameExecutor.shutdown();
+		try {
+			while (!gameExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+				// keep waiting, games can take a long time
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+
+		double wallSeconds = (System.nanoTime() - start) / 1e9;
+		results.println("# games: " + numGames + " (" + failedGames + " failed), threads: " + numThreads);
+		results.println(String.format("# wall time: %.3f s", wallSeconds));
+		results.println(String.format("# steps: %d, steps/second: %.1f", phaseTimes.getSteps(),
+				phaseTimes.getSteps() / wallSeconds));
+		results.println(String.format("# startup: %.1f ms/game", startupMillis / Math.max(1, numGames - failedGames)));
+		for (String line : phaseTimes.toString().split("\n")) {
+			results.println("# " + line);
+		}
+		results.flush();
+		if (results != out) {
+			results.close();
+		}
+	}
+
+	/**
+	 * Run one game and write a record for each team
+	 *
+	 * @param gameIndex
+	 */
+	void runGame(int gameIndex) {
+		try {
+			SpaceSettlersSimulator simulator;
+			SpaceSettlersConfig simConfig;
+			long start;
+			if (checkpoint != null) {
+				long seed = config.getLong("randomSeed") == 0 ? 0 : config.getLong("randomSeed") + gameIndex;
+				start = System.nanoTime();
+				simulator = new SpaceSettlersSimulator(checkpoint, config, seed);
+				simConfig = simulator.getSimConfig();
+				simConfig.setRandomSeed(simulator.getRandomSeed());
+			} else {
+				simConfig = SpaceSettlersSimulator.readConfigFile(
+						config.getString("configPath") + config.getString("simulatorConfigFile"));
+				if (config.getLong("randomSeed") != 0) {
+					simConfig.setRandomSeed(config.getLong("randomSeed") + gameIndex);
+				}
+				setTeamConfigFiles(simConfig);
+
+				start = System.nanoTime();
+				String replayFile = null;
+				if (config.getString("replayDirectory") != null) {
+					replayFile = new File(config.getString("replayDirectory"), "game-" + gameIndex + ".replay").getPath();
+				}
+				simulator = new SpaceSettlersSimulator(simConfig, config, replayFile);
+			}
+			simulator.run();
+			double wallSeconds = (System.nanoTime() - start) / 1e9;
+			phaseTimes.add(simulator.getPhaseTimes());
+
+			StringBuilder records = new StringBuilder();
+			for (Team team : simulator.getTeams()) {
+				records.append(gameIndex).append(',')
+					.append(simConfig.getRandomSeed()).append(',')
+					.append(simConfig.getSimulationSteps()).append(',')
+					.append(String.format("%.3f", wallSeconds)).append(',')
+					.append(csv(team.getTeamName())).append(',')
+					.append(csv(team.getLadderName())).append(',')
+					.append(team.getScore()).append(',')
+					.append(team.getSummedTotalResources()).append(',')
+					.append(team.getTotalBeaconsCollected()).append(',')
+					.append(team.getTotalFlagsCollected()).append(',')
+					.append(team.getTotalKillsInflicted()).append(',')
+					.append(team.getTotalKillsReceived()).append(',')
+					.append(team.getTotalHitsInflicted()).append(',')
+					.append(team.getTotalDamageInflicted()).append(',')
+					.append(team.getTotalDamageReceived()).append('\n');
+			}
+			synchronized (this) {
+				startupMillis += simulator.getStartupMillis();
+				results.print(records);
+				results.flush();
+			}
+		} catch (Exception e) {
+			synchronized (this) {
+				failedGames++;
+				results.println("# game " + gameIndex + " failed: " + e);
+			}
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Use the client config files given in teamConfigs
+	 *
+	 * @param simConfig
+	 * @throws SimulatorException if a team in teamConfigs isn't in the game
+	 */
+	void setTeamConfigFiles(SpaceSettlersConfig simConfig) throws SimulatorException {
+		for (Map.Entry<String, String> entry : teamConfigFiles.entrySet()) {
+			boolean found = false;
+			for (HighLevelTeamConfig teamConfig : simConfig.getTeams()) {
+				if (teamConfig.getTeamName().equalsIgnoreCase(entry.getKey())) {
+					teamConfig.setConfigFile(entry.getValue());
+					found = true;
+				}
+			}
+			if (!found) {
+				throw new SimulatorException("Error: there is no team " + entry.getKey() + " in the simulator config");
+			}
+		}
+	}
+
+	/**
+	 * Quote a CSV field if it needs it
+	 *
+	 * @param field
+	 * @return
+	 */
+	static String csv(String field) {
+		if (field == null) {
+			return "";
+		}
+		if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+			return "\"" + field.replace("\"", "\"\"") + "\"";
+		}
+		return field;
+	}
+
+	/**
+	 * Run the batch of games.  First parse and verify the command line arguments and then run the games.
+	 *
+	 * @param args
+	 * @throws SimulatorException
+	 */
+	public static void main(String[] args) throws SimulatorException {
+		RunBatch batch = new RunBatch(args);
+		batch.run();
+	}
+}
@@ -0,0 +1,362 @@
+package spacesettlers.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import spacesettlers.ladder.Ladder;
+import spacesettlers.ladder.RunLadder;
+import spacesettlers.ladder.TeamRecord;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+
+/**
+ * Keeps one JVM running to play the batch and ladder jobs sent to it over a local socket,
+ * so scripts that run many short jobs don't start (and warm up) a new JVM for each one.
+ * The classes stay loaded, the configs stay in the ConfigCache and the simulator stays
+ * compiled from one job to the next.
+ *
+ * A job is one line sent to the daemon's port on the loopback address: "batch" or "ladder"
+ * followed by the arguments RunBatch or RunLadder would get (an argument with spaces goes
+ * in double quotes), for example
+ *
+ *     batch --configPath ../config/heuristicCompetitive/ --simulatorConfigFile SpaceSettlersConfig.xml --numGames 4 --randomSeed 7
+ *
+ * The daemon answers on the same connection and then closes it.  A batch job sends its
+ * CSV records as its games finish and then the RunBatch summary; a ladder job sends each
+ * team and its average score in the final order.  Every answer ends with "# done", or with
+ * "# Error: " and the reason if the job couldn't run.  "ping" just answers "# done" and
+ * "shutdown" stops the daemon once the jobs already sent have finished.
+ *
+ * Jobs run numWorkers at a time and up to maxQueuedJobs more wait for a worker; any more
+ * than that are turned away.  Jobs in debug mode or with graphics are refused since they
+ * would change the simulator for every other job.
+ */
+public class RunDaemon {
+	public static final int DEFAULT_PORT = 7711;
+
+	/**
+	 * The last line of every answer
+	 */
+	public static final String DONE = "# done";
+	public static final String ERROR = "# Error: ";
+
+	ServerSocket serverSocket;
+
+	/**
+	 * Runs the jobs (and holds the ones waiting for a worker)
+	 */
+	ThreadPoolExecutor workers;
+
+	volatile boolean shuttingDown;
+
+	/**
+	 * Listen for jobs
+	 *
+	 * @param port the port on the loopback address (0 for any free port)
+	 * @param numWorkers number of jobs run at the same time
+	 * @param maxQueuedJobs number of jobs that can wait for a worker
+	 * @throws IOException if the port can't be opened
+	 */
+	public RunDaemon(int port, int numWorkers, int maxQueuedJobs) throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueuedJobs)));
+	}
+
+	/**
+	 * @return the port the daemon is listening on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Take jobs until the daemon is shut down, then wait for the jobs already taken
+	 */
+	public void serve() {
+		while (!shuttingDown) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!shuttingDown) {
+					System.err.println("Error accepting a job: " + e.getMessage());
+				}
+				continue;
+			}
+
+			try {
+				workers.execute(new Runnable() {
+					public void run() {
+						handleJob(socket);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				refuseJob(socket);
+			}
+		}
+
+		workers.shutdown();
+		try {
+			while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+				// keep waiting, jobs can take a long time
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stop taking jobs (the ones already taken still run)
+	 */
+	public void shutdown() {
+		shuttingDown = true;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			System.err.println("Error closing the daemon's socket: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Read a job from the connection, run it and send back the answer (on a worker thread)
+	 *
+	 * @param socket
+	 */
+	void handleJob(Socket socket) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+			String job = in.readLine();
+			try {
+				runJob(job, out);
+				out.println(DONE);
+			} catch (SimulatorException e) {
+				// the messages already start with "Error: "
+				out.println(ERROR + e.getMessage().replaceFirst("^Error:\\s*", ""));
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				out.println(ERROR + e);
+			}
+			out.flush();
+		} catch (IOException e) {
+			System.err.println("Error answering a job: " + e.getMessage());
+		} finally {
+			close(socket);
+		}
+	}
+
+	/**
+	 * Tell the client there are too many jobs waiting already (on the accepting thread)
+	 *
+	 * @param socket
+	 */
+	void refuseJob(Socket socket) {
+		try {
+			PrintStream out = new PrintStream(socket.getOutputStream(), false, "UTF-8");
+			out.println(ERROR + "too many jobs are waiting, try again later");
+			out.flush();
+		} catch (IOException e) {
+			System.err.println("Error refusing a job: " + e.getMessage());
+		} finally {
+			close(socket);
+		}
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing more can be sent anyway
+		}
+	}
+
+	/**
+	 * Run one job
+	 *
+	 * @param job the line the client sent (null if it sent nothing)
+	 * @param out where the answer goes
+	 * @throws SimulatorException if the job is invalid or fails
+	 */
+	void runJob(String job, PrintStream out) throws SimulatorException {
+		String[] words = job == null ? new String[0] : splitArguments(job);
+		if (words.length == 0) {
+			throw new SimulatorException("Error: empty job");
+		}
+		String[] args = Arrays.copyOfRange(words, 1, words.length);
+
+		if (words[0].equals("ping")) {
+			return;
+		} else if (words[0].equals("shutdown")) {
+			shutdown();
+		} else if (words[0].equals("batch")) {
+			runBatch(args, out);
+		} else if (words[0].equals("ladder")) {
+			runLadder(args, out);
+		} else {
+			throw new SimulatorException("Error: unknown job " + words[0] + " (it must be batch, ladder, ping or shutdown)");
+		}
+	}
+
+	void runBatch(String[] args, PrintStream out) throws SimulatorException {
+		JSAPResult config = parseJobArgs(RunBatch.initializeParser(), args);
+		new RunBatch(config).run(out);
+	}
+
+	void runLadder(String[] args, PrintStream out) throws SimulatorException {
+		JSAPResult config = parseJobArgs(RunLadder.initializeParser(), args);
+		if (config.getBoolean("graphics", false)) {
+			throw new SimulatorException("Error: the daemon can't show graphics");
+		}
+		// checks the config file names
+		new RunLadder(config);
+
+		Ladder ladder = new Ladder(config);
+		ladder.run();
+		ladder.printResultsToHTML();
+		out.println("team,averageScore");
+		for (TeamRecord record : ladder.getSortedLadderResults()) {
+			out.println(RunBatch.csv(record.getTeamName()) + "," + record.getAverageScore());
+		}
+	}
+
+	/**
+	 * Parse the arguments of a job (without exiting if they are wrong)
+	 *
+	 * @param parser
+	 * @param args
+	 * @return
+	 * @throws SimulatorException if the arguments don't parse or ask for debug mode
+	 */
+	static JSAPResult parseJobArgs(SimpleJSAP parser, String[] args) throws SimulatorException {
+		JSAPResult config = parser.parse(args);
+		if (!config.success() || parser.messagePrinted()) {
+			StringBuilder message = new StringBuilder("Error: invalid arguments");
+			for (Iterator<?> errors = config.getErrorMessageIterator(); errors.hasNext();) {
+				message.append("; ").append(errors.next());
+			}
+			throw new SimulatorException(message.toString());
+		}
+		// debug mode changes the simulator's timeouts for the whole JVM
+		if (config.getBoolean("debug", false)) {
+			throw new SimulatorException("Error: the daemon can't run jobs in debug mode");
+		}
+		return config;
+	}
+
+	/**
+	 * Split a job into words at spaces (except inside double quotes)
+	 *
+	 * @param job
+	 * @return
+	 */
+	static String[] splitArguments(String job) {
+		List<String> words = new ArrayList<String>();
+		StringBuilder word = null;
+		boolean quoted = false;
+		for (int i = 0; i < job.length(); i++) {
+			char c = job.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				if (word == null) {
+					word = new StringBuilder();
+				}
+			} else if (Character.isWhitespace(c) && !quoted) {
+				if (word != null) {
+					words.add(word.toString());
+					word = null;
+				}
+			} else {
+				if (word == null) {
+					word = new StringBuilder();
+				}
+				word.append(c);
+			}
+		}
+		if (word != null) {
+			words.add(word.toString());
+		}
+		return words.toArray(new String[words.size()]);
+	}
+
+	/**
+	 * Initialize the parser with all of the command line arguments
+	 * @return
+	 */
+	private static SimpleJSAP initializeParser() {
+		SimpleJSAP parser = null;
+
+		// create the parser and specify all the command line arguments
+		try {
+			parser = new SimpleJSAP(
+					"Daemon",
+					"Runs Spacewar batch and ladder jobs sent over a local socket on one JVM",
+					new Parameter[] {
+						new FlaggedOption("port",
+								JSAP.INTEGER_PARSER, Integer.toString(DEFAULT_PORT), JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "port",
+								"port on the loopback address to take jobs on"),
+						new FlaggedOption("numWorkers",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "numWorkers",
+								"number of jobs to run at the same time (each batch or ladder job can also run several games at once)"),
+						new FlaggedOption("maxQueuedJobs",
+								JSAP.INTEGER_PARSER, "64", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "maxQueuedJobs",
+								"number of jobs that can wait for a worker (more are turned away)"),
+					});
+		} catch (JSAPException e) {
+			e.printStackTrace();
+			System.err.println("Error in the parser - exiting");
+			System.exit(-1);
+		}
+		return parser;
+	}
+
+	/**
+	 * Start the daemon and take jobs until it is sent "shutdown"
+	 *
+	 * @param args
+	 * @throws SimulatorException
+	 */
+	public static void main(String[] args) throws SimulatorException {
+		SimpleJSAP parser = initializeParser();
+		JSAPResult config = parser.parse(args);
+		if (parser.messagePrinted()) {
+			System.exit(-1);
+		}
+		if (config.getInt("numWorkers") < 1) {
+			throw new SimulatorException("Error: numWorkers must be at least 1");
+		}
+
+		RunDaemon daemon;
+		try {
+			daemon = new RunDaemon(config.getInt("port"), config.getInt("numWorkers"), config.getInt("maxQueuedJobs"));
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't listen on port " + config.getInt("port") + ": " + e.getMessage());
+		}
+		System.out.println("Spacesettlers daemon taking jobs on port " + daemon.getPort() 
+				+ " (" + config.getInt("numWorkers") + " at a time)");
+		daemon.serve();
+		System.out.println("Spacesettlers daemon stopped");
+	}
+}
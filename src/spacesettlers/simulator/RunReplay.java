@@ -0,0 +1,139 @@
+package spacesettlers.simulator;
+
+import java.io.File;
+
+import spacesettlers.clients.Team;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+
+/**
+ * Plays back a game recorded with --replayFile (or RunBatch's --replayDirectory) as fast
+ * as possible.  No team client is loaded and there are no graphics: the world is remade
+ * from the recorded seed and configuration and the recorded decisions are applied to it.
+ * At the end the scores are checked against the ones recorded with the game.
+ */
+public class RunReplay {
+	JSAPResult config;
+
+	/**
+	 * Create a replay with the command line arguments parsed.  If they fail to parse, this will die
+	 * before moving on.
+	 * @param args
+	 */
+	public RunReplay(String[] args) {
+		SimpleJSAP parser = initializeParser();
+		config = parseArgs(args, parser);
+	}
+
+	/**
+	 * Initialize the parser with all of the command line arguments
+	 * @return
+	 */
+	private SimpleJSAP initializeParser() {
+		SimpleJSAP parser = null;
+
+		// create the parser and specify all the command line arguments
+		try {
+			parser = new SimpleJSAP(
+					"Replay",
+					"Plays back a recorded Spacewar game without graphics",
+					new Parameter[] {
+						new FlaggedOption("replayFile",
+								JSAP.STRING_PARSER, null, JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "replayFile",
+								"the recorded game"),
+						new FlaggedOption("physicsThreads",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "physicsThreads",
+								"number of threads that step the physics (the results are the same for any number)"),
+						new FlaggedOption("profileInterval",
+								JSAP.INTEGER_PARSER, "0", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "profileInterval",
+								"number of time steps between profile reports (0 for none)"),
+						new FlaggedOption("quiet",
+								JSAP.BOOLEAN_PARSER, "true", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "quiet",
+								"boolean stating if the simulator's progress messages are hidden"),
+					});
+		} catch (JSAPException e) {
+			e.printStackTrace();
+			System.err.println("Error in the parser - exiting");
+			System.exit(-1);
+		}
+		return parser;
+	}
+
+	/**
+	 * Actually parse the command line arguments
+	 * @param args
+	 * @param parser
+	 * @return
+	 */
+	private JSAPResult parseArgs(String[] args, SimpleJSAP parser) {
+		JSAPResult parserConfig = parser.parse(args);
+		if (parser.messagePrinted()) {
+			System.exit(-1);
+		}
+		return parserConfig;
+	}
+
+	/**
+	 * Play the game back and check that it ends with the recorded scores
+	 *
+	 * @return true if every team got its recorded score
+	 * @throws SimulatorException
+	 */
+	public boolean replay() throws SimulatorException {
+		String replayFile = config.getString("replayFile");
+		ReplayReader reader = new ReplayReader(replayFile);
+
+		long start = System.nanoTime();
+		SpaceSettlersSimulator simulator = new SpaceSettlersSimulator(reader, config);
+		simulator.run();
+		double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+		// the recorded scores follow the last step
+		if (reader.readStep() != null) {
+			reader.close();
+			throw new SimulatorException("Error: replay file " + replayFile + " has more than the "
+					+ reader.getConfig().getSimulationSteps() + " steps of its configuration");
+		}
+		double[] recordedScores = reader.getRecordedScores();
+
+		boolean matches = recordedScores.length == simulator.getTeams().size();
+		int t = 0;
+		for (Team team : simulator.getTeams()) {
+			double recorded = t < recordedScores.length ? recordedScores[t] : Double.NaN;
+			boolean same = Double.doubleToLongBits(recorded) == Double.doubleToLongBits(team.getScore());
+			matches &= same;
+			System.out.println("Team " + team.getLadderName() + " scored " + team.getScore()
+					+ (same ? "" : " but the recorded score is " + recorded));
+			t++;
+		}
+
+		System.out.println(String.format("Replayed %d steps in %.2f seconds (%.0f steps/second) from %d bytes",
+				reader.getStepsRead(), wallSeconds, reader.getStepsRead() / wallSeconds,
+				new File(replayFile).length()));
+		System.out.println(matches ? "The replay matches the recorded game"
+				: "The replay does NOT match the recorded game");
+		return matches;
+	}
+
+	/**
+	 * Play back a recorded game.  Exits with status 1 if the scores don't match the recording.
+	 *
+	 * @param args
+	 * @throws SimulatorException
+	 */
+	public static void main(String[] args) throws SimulatorException {
+		RunReplay runReplay = new RunReplay(args);
+		if (!runReplay.replay()) {
+			System.exit(1);
+		}
+	}
+}
@@ -48,10 +48,46 @@ public class RunSimulator {
 								JSAP.BOOLEAN_PARSER, "false", JSAP.REQUIRED,
 								JSAP.NO_SHORTFLAG, "graphics",
 								"boolean stating if graphics are to be shown (true) or not (false)"),
+						new FlaggedOption("framesPerSecond",
+								JSAP.INTEGER_PARSER, "25", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "framesPerSecond",
+								"number of times a second the graphics are drawn (they are drawn on their own thread)"),
 						new FlaggedOption("debug",
 								JSAP.BOOLEAN_PARSER, "false", JSAP.REQUIRED,
 								JSAP.NO_SHORTFLAG, "debug",
 								"boolean stating if debugging mode (single threading) is on (true) or not (false)"),
+						new FlaggedOption("physicsThreads",
+								JSAP.INTEGER_PARSER, "1", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "physicsThreads",
+								"number of threads that step the physics (the results are the same for any number)"),
+						new FlaggedOption("profileInterval",
+								JSAP.INTEGER_PARSER, "5000", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "profileInterval",
+								"number of time steps between profile reports (0 for none)"),
+						new FlaggedOption("profileFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "profileFile",
+								"file for the step profile (CSV every profileInterval steps or, if it ends in .json, a summary at the end)"),
+						new FlaggedOption("replayFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "replayFile",
+								"file to record a replay of the game in (play it back with RunReplay)"),
+						new FlaggedOption("eventLogFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "eventLogFile",
+								"file to log the events of the game in as CSV (collisions, hits, kills, flags, purchases, respawns)"),
+						new FlaggedOption("checkpointFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "checkpointFile",
+								"file to save a checkpoint of the game in (at checkpointStep)"),
+						new FlaggedOption("checkpointStep",
+								JSAP.INTEGER_PARSER, "0", JSAP.REQUIRED,
+								JSAP.NO_SHORTFLAG, "checkpointStep",
+								"time step at which the checkpoint is saved"),
+						new FlaggedOption("restoreFile",
+								JSAP.STRING_PARSER, null, JSAP.NOT_REQUIRED,
+								JSAP.NO_SHORTFLAG, "restoreFile",
+								"checkpoint to carry on from instead of starting a new game (its saved config is used)"),
 					});
 		} catch (JSAPException e) {
 			e.printStackTrace();
@@ -102,7 +138,16 @@ public class RunSimulator {
 	public static void main(String[] args) throws SimulatorException {
 		RunSimulator runSim = new RunSimulator(args);
 	
-		SpaceSettlersSimulator simulator = new SpaceSettlersSimulator(runSim.config);
+		SpaceSettlersSimulator simulator;
+		if (runSim.config.getString("restoreFile") != null) {
+			SimulationCheckpoint checkpoint = SimulationCheckpoint.read(runSim.config.getString("restoreFile"));
+			simulator = new SpaceSettlersSimulator(checkpoint, runSim.config, 0);
+		} else {
+			simulator = new SpaceSettlersSimulator(runSim.config);
+		}
+		if (runSim.config.getString("checkpointFile") != null) {
+			simulator.setCheckpoint(runSim.config.getString("checkpointFile"), runSim.config.getInt("checkpointStep"));
+		}
 		simulator.run();
 	}
 
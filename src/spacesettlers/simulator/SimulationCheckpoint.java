@@ -0,0 +1,445 @@
+package spacesettlers.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.thoughtworks.xstream.XStream;
+
+import spacesettlers.clients.Team;
+import spacesettlers.configs.SpaceSettlersConfig;
+import spacesettlers.configs.TeamClientConfig;
+import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Base;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Flag;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.weapons.AbstractWeapon;
+import spacesettlers.objects.weapons.EMP;
+import spacesettlers.objects.weapons.Missile;
+import spacesettlers.utilities.Position;
+
+/**
+ * The whole state of a running game saved in one binary file: every object in the space,
+ * the teams (resources, costs and totals), the random number generator and the time step,
+ * along with the configuration the game was made from so the file is all that is needed
+ * to carry on from it.  The file is laid out as
+ * <ul>
+ * <li>a header (magic, version, time step, seed, number of objects and teams and where their tables are)</li>
+ * <li>the simulator config, each team's client config (as XML) and the random number generator</li>
+ * <li>a table of where each object's record is and one of where each team's record is</li>
+ * <li>the records: an object's starts with its type and owner (team or firing ship) followed by
+ * what its writeCheckpoint wrote, a team's is what Team.writeCheckpoint wrote</li>
+ * </ul>
+ * It is read through a memory-mapped buffer and any record can be found from the tables, so
+ * restoring doesn't copy the file and several games can be restored from one checkpoint at once.
+ *
+ * The clients themselves are not saved.  When a checkpoint is restored, each team gets a new
+ * client that is initialized with the restored space (and the ships have no current action).
+ */
+public class SimulationCheckpoint {
+	/**
+	 * Marks a checkpoint file ("SSCK") and its format
+	 */
+	static final int MAGIC = 0x5353434B;
+	static final int VERSION = 1;
+
+	/**
+	 * The types of the object records
+	 */
+	static final byte ASTEROID = 1;
+	static final byte BASE = 2;
+	static final byte BEACON = 3;
+	static final byte FLAG = 4;
+	static final byte SHIP = 5;
+	static final byte MISSILE = 6;
+	static final byte EMP_WEAPON = 7;
+
+	/**
+	 * Bytes at the start of every object record (its type and owner)
+	 */
+	static final int OBJECT_HEADER_SIZE = 5;
+
+	String fileName;
+
+	/**
+	 * The whole (memory-mapped) file
+	 */
+	ByteBuffer buffer;
+
+	int timestep;
+	long randomSeed;
+	int numObjects, numTeams;
+
+	/**
+	 * Where the tables of record offsets are
+	 */
+	int objectTable, teamTable;
+
+	String configXML;
+
+	/**
+	 * The client config of each team (by team name, in the order of the teams)
+	 */
+	Map<String, String> teamClientConfigXML;
+
+	byte[] randomState;
+
+	private SimulationCheckpoint() {
+	}
+
+	/**
+	 * Save the state of the game
+	 *
+	 * @param fileName
+	 * @param simulator
+	 * @throws SimulatorException
+	 */
+	static void write(String fileName, SpaceSettlersSimulator simulator) throws SimulatorException {
+		List<AbstractObject> objects = new ArrayList<AbstractObject>(simulator.simulatedSpace.getAllObjects());
+		List<Team> teams = new ArrayList<Team>(simulator.teams);
+		Map<String, Integer> teamIndexes = new HashMap<String, Integer>();
+		for (int t = 0; t < teams.size(); t++) {
+			teamIndexes.put(teams.get(t).getTeamName(), t);
+		}
+
+		CheckpointRecord record = new CheckpointRecord(objects);
+		record.putInt(MAGIC);
+		record.putInt(VERSION);
+		record.putInt(simulator.timestep);
+		record.putLong(simulator.randomSeed);
+		record.putInt(objects.size());
+		record.putInt(teams.size());
+		int tablesPosition = record.buffer.position();
+		record.putInt(0);
+		record.putInt(0);
+
+		XStream xstream = SpaceSettlersSimulator.createConfigXStream();
+		record.putString(xstream.toXML(simulator.simConfig));
+		for (Team team : teams) {
+			record.putString(team.getTeamName());
+			record.putString(xstream.toXML(simulator.teamClientConfigs.get(team.getTeamName())));
+		}
+		record.putBytes(saveRandom(simulator.random));
+
+		// the tables are filled in as the records are written
+		int objectTable = record.buffer.position();
+		for (int i = 0; i < objects.size() + teams.size(); i++) {
+			record.putInt(0);
+		}
+		int teamTable = objectTable + 4 * objects.size();
+		record.buffer.putInt(tablesPosition, objectTable);
+		record.buffer.putInt(tablesPosition + 4, teamTable);
+
+		for (int i = 0; i < objects.size(); i++) {
+			AbstractObject object = objects.get(i);
+			record.buffer.putInt(objectTable + 4 * i, record.buffer.position());
+			byte type = getType(object);
+			int owner;
+			if (type == MISSILE || type == EMP_WEAPON) {
+				owner = record.getIndex(((AbstractWeapon) object).getFiringShip());
+			} else if (type == SHIP || type == BASE) {
+				owner = getTeamIndex(teamIndexes, ((AbstractActionableObject) object).getTeamName());
+			} else if (type == FLAG) {
+				owner = getTeamIndex(teamIndexes, ((Flag) object).getTeamName());
+			} else {
+				owner = -1;
+			}
+			record.ensureCapacity(OBJECT_HEADER_SIZE);
+			record.buffer.put(type);
+			record.buffer.putInt(owner);
+			object.writeCheckpoint(record);
+		}
+
+		for (int t = 0; t < teams.size(); t++) {
+			record.buffer.putInt(teamTable + 4 * t, record.buffer.position());
+			teams.get(t).writeCheckpoint(record);
+		}
+
+		ByteBuffer data = record.buffer;
+		data.flip();
+		try {
+			FileOutputStream out = new FileOutputStream(fileName);
+			try {
+				FileChannel channel = out.getChannel();
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't write checkpoint file " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Open a checkpoint (mapping it into memory) and read its header
+	 *
+	 * @param fileName
+	 * @return
+	 * @throws SimulatorException
+	 */
+	public static SimulationCheckpoint read(String fileName) throws SimulatorException {
+		SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+		checkpoint.fileName = fileName;
+		try {
+			RandomAccessFile file = new RandomAccessFile(fileName, "r");
+			try {
+				checkpoint.buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't read checkpoint file " + fileName + ": " + e.getMessage());
+		}
+
+		try {
+			CheckpointRecord record = new CheckpointRecord(checkpoint.buffer.duplicate(), null);
+			if (record.getInt() != MAGIC) {
+				throw new SimulatorException("Error: " + fileName + " is not a checkpoint file");
+			}
+			int version = record.getInt();
+			if (version != VERSION) {
+				throw new SimulatorException("Error: checkpoint file " + fileName + " is version " + version
+						+ " but only version " + VERSION + " can be read");
+			}
+			checkpoint.timestep = record.getInt();
+			checkpoint.randomSeed = record.getLong();
+			checkpoint.numObjects = record.getInt();
+			checkpoint.numTeams = record.getInt();
+			checkpoint.objectTable = record.getInt();
+			checkpoint.teamTable = record.getInt();
+			checkpoint.configXML = record.getString();
+			checkpoint.teamClientConfigXML = new LinkedHashMap<String, String>();
+			for (int t = 0; t < checkpoint.numTeams; t++) {
+				String teamName = record.getString();
+				checkpoint.teamClientConfigXML.put(teamName, record.getString());
+			}
+			checkpoint.randomState = record.getBytes();
+		} catch (BufferUnderflowException e) {
+			throw new SimulatorException("Error: checkpoint file " + fileName + " is cut short");
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Put the saved objects into the (empty) space and set the teams' state
+	 *
+	 * @param space
+	 * @param teams the teams of the game (made from the config, with their new clients)
+	 * @throws SimulatorException
+	 */
+	void restore(Toroidal2DPhysics space, Collection<Team> teams) throws SimulatorException {
+		// each restore reads through its own view so games can be restored at the same time
+		ByteBuffer view = buffer.duplicate();
+		AbstractObject[] objects = new AbstractObject[numObjects];
+		CheckpointRecord record = new CheckpointRecord(view, objects);
+
+		try {
+			// match the saved teams to the game's teams by name
+			Team[] savedTeams = new Team[numTeams];
+			for (int t = 0; t < numTeams; t++) {
+				view.position(view.getInt(teamTable + 4 * t));
+				String teamName = record.getString();
+				for (Team team : teams) {
+					if (team.getTeamName().equals(teamName)) {
+						savedTeams[t] = team;
+					}
+				}
+				if (savedTeams[t] == null) {
+					throw new SimulatorException("Error: checkpoint " + fileName + " has team " + teamName
+							+ " which is not in the game");
+				}
+			}
+
+			// make all of the objects before any are read since they refer to each other
+			// (the weapons are made last because they need the ships that fired them)
+			for (int pass = 0; pass < 2; pass++) {
+				for (int i = 0; i < numObjects; i++) {
+					view.position(view.getInt(objectTable + 4 * i));
+					byte type = view.get();
+					int owner = view.getInt();
+					boolean isWeapon = type == MISSILE || type == EMP_WEAPON;
+					if (isWeapon == (pass == 1)) {
+						objects[i] = createObject(type, owner, savedTeams, objects);
+					}
+				}
+			}
+
+			for (int i = 0; i < numObjects; i++) {
+				view.position(view.getInt(objectTable + 4 * i) + OBJECT_HEADER_SIZE);
+				objects[i].readCheckpoint(record);
+			}
+			for (AbstractObject object : objects) {
+				space.addObject(object);
+			}
+
+			for (int t = 0; t < numTeams; t++) {
+				view.position(view.getInt(teamTable + 4 * t));
+				savedTeams[t].readCheckpoint(record);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new SimulatorException("Error: checkpoint file " + fileName + " is cut short");
+		} catch (IndexOutOfBoundsException e) {
+			throw new SimulatorException("Error: checkpoint file " + fileName + " is broken: " + e.getMessage());
+		}
+		space.currentTimeStep = timestep;
+	}
+
+	/**
+	 * Make an object of the type (its state is read afterwards)
+	 *
+	 * @param type
+	 * @param owner
+	 * @param teams
+	 * @param objects
+	 * @return
+	 * @throws SimulatorException
+	 */
+	private AbstractObject createObject(byte type, int owner, Team[] teams, AbstractObject[] objects) throws SimulatorException {
+		switch (type) {
+		case ASTEROID:
+			return new Asteroid(new Position(0, 0), false, Asteroid.MIN_ASTEROID_RADIUS, false, 0, 0, 0);
+		case BEACON:
+			return new Beacon(new Position(0, 0));
+		case BASE:
+			return new Base(new Position(0, 0), teams[owner].getTeamName(), teams[owner], false);
+		case SHIP:
+			return new Ship(teams[owner].getTeamName(), teams[owner].getTeamColor(), new Position(0, 0));
+		case FLAG:
+			return new Flag(new Position(0, 0), teams[owner].getTeamName(), teams[owner], null);
+		case MISSILE:
+			return new Missile(new Position(0, 0), (Ship) objects[owner]);
+		case EMP_WEAPON:
+			return new EMP(new Position(0, 0), (Ship) objects[owner]);
+		default:
+			throw new SimulatorException("Error: checkpoint file " + fileName + " has an object of unknown type " + type);
+		}
+	}
+
+	/**
+	 * The type of the object's record
+	 *
+	 * @param object
+	 * @return
+	 * @throws SimulatorException if the simulator doesn't know how to checkpoint it
+	 */
+	private static byte getType(AbstractObject object) throws SimulatorException {
+		Class<?> objectClass = object.getClass();
+		if (objectClass == Asteroid.class) {
+			return ASTEROID;
+		} else if (objectClass == Base.class) {
+			return BASE;
+		} else if (objectClass == Beacon.class) {
+			return BEACON;
+		} else if (objectClass == Flag.class) {
+			return FLAG;
+		} else if (objectClass == Ship.class) {
+			return SHIP;
+		} else if (objectClass == Missile.class) {
+			return MISSILE;
+		} else if (objectClass == EMP.class) {
+			return EMP_WEAPON;
+		}
+		throw new SimulatorException("Error: can't checkpoint objects of class " + objectClass.getName());
+	}
+
+	private static int getTeamIndex(Map<String, Integer> teamIndexes, String teamName) throws SimulatorException {
+		Integer index = teamIndexes.get(teamName);
+		if (index == null) {
+			throw new SimulatorException("Error: can't checkpoint an object of team " + teamName + " which is not in the game");
+		}
+		return index;
+	}
+
+	/**
+	 * The state of the random number generator (it is serializable, so that is used to get at its seed)
+	 *
+	 * @param random
+	 * @return
+	 * @throws SimulatorException
+	 */
+	private static byte[] saveRandom(Random random) throws SimulatorException {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(random);
+			out.close();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't save the random number generator: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Make a random number generator in the saved state
+	 *
+	 * @return
+	 * @throws SimulatorException
+	 */
+	Random getRandom() throws SimulatorException {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(randomState));
+			return (Random) in.readObject();
+		} catch (IOException e) {
+			throw new SimulatorException("Error: can't read the random number generator from " + fileName + ": " + e.getMessage());
+		} catch (ClassNotFoundException e) {
+			throw new SimulatorException("Error: can't read the random number generator from " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The time step the game carries on from
+	 * @return
+	 */
+	public int getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * The seed the saved game was started with
+	 * @return
+	 */
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+
+	/**
+	 * The simulator config of the saved game (a new copy every call, so each restored game has its own)
+	 *
+	 * @return
+	 */
+	public SpaceSettlersConfig getConfig() {
+		return (SpaceSettlersConfig) SpaceSettlersSimulator.createConfigXStream().fromXML(configXML);
+	}
+
+	/**
+	 * @param teamName
+	 * @return the saved client config of the team (or null if there was no such team)
+	 */
+	public TeamClientConfig getTeamClientConfig(String teamName) {
+		String xml = teamClientConfigXML.get(teamName);
+		return xml == null ? null : (TeamClientConfig) SpaceSettlersSimulator.createConfigXStream().fromXML(xml);
+	}
+
+	public int getNumObjects() {
+		return numObjects;
+	}
+}
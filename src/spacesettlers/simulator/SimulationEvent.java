@@ -0,0 +1,160 @@
+package spacesettlers.simulator;
+
+import java.util.UUID;
+
+import spacesettlers.actions.PurchaseTypes;
+import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Flag;
+import spacesettlers.objects.weapons.AbstractWeapon;
+
+/**
+ * One event in a SimulationEventStream.  The stream makes its events once and fills
+ * them in again as they are published, so an event only holds the ids, teams and
+ * position of the objects (never the objects themselves) and listeners must copy
+ * anything they want to keep after handleEvent returns.
+ */
+public class SimulationEvent {
+	SimulationEventType type;
+	int timeStep;
+
+	/**
+	 * The object the event happened to (or that made it happen) and the other object
+	 * involved (if there is one)
+	 */
+	Class<? extends AbstractObject> subjectType, otherType;
+	long subjectIdHigh, subjectIdLow, otherIdHigh, otherIdLow;
+	String subjectTeam, otherTeam;
+
+	/**
+	 * Where the subject was
+	 */
+	double x, y;
+
+	double value;
+	PurchaseTypes purchase;
+
+	/**
+	 * Fill in the event
+	 */
+	void set(SimulationEventType type, int timeStep, AbstractObject subject, AbstractObject other, double value, PurchaseTypes purchase) {
+		this.type = type;
+		this.timeStep = timeStep;
+		this.value = value;
+		this.purchase = purchase;
+
+		subjectType = subject.getClass();
+		subjectIdHigh = subject.getIdHigh();
+		subjectIdLow = subject.getIdLow();
+		subjectTeam = getTeamName(subject);
+		x = subject.getPosition().getX();
+		y = subject.getPosition().getY();
+
+		if (other == null) {
+			otherType = null;
+			otherIdHigh = otherIdLow = 0;
+			otherTeam = null;
+		} else {
+			otherType = other.getClass();
+			otherIdHigh = other.getIdHigh();
+			otherIdLow = other.getIdLow();
+			otherTeam = getTeamName(other);
+		}
+	}
+
+	/**
+	 * The team of an object (a weapon's is the team of the ship that fired it)
+	 *
+	 * @param object
+	 * @return the team name or null for objects that don't belong to a team
+	 */
+	static String getTeamName(AbstractObject object) {
+		if (object instanceof AbstractActionableObject) {
+			return ((AbstractActionableObject) object).getTeamName();
+		} else if (object instanceof Flag) {
+			return ((Flag) object).getTeamName();
+		} else if (object instanceof AbstractWeapon) {
+			return ((AbstractWeapon) object).getFiringShip().getTeamName();
+		}
+		return null;
+	}
+
+	public SimulationEventType getType() {
+		return type;
+	}
+
+	public int getTimeStep() {
+		return timeStep;
+	}
+
+	public Class<? extends AbstractObject> getSubjectType() {
+		return subjectType;
+	}
+
+	/**
+	 * The id of the subject (makes a new UUID, so listeners that only compare ids
+	 * should use getSubjectIdHigh and getSubjectIdLow)
+	 *
+	 * @return
+	 */
+	public UUID getSubjectId() {
+		return new UUID(subjectIdHigh, subjectIdLow);
+	}
+
+	public long getSubjectIdHigh() {
+		return subjectIdHigh;
+	}
+
+	public long getSubjectIdLow() {
+		return subjectIdLow;
+	}
+
+	public String getSubjectTeam() {
+		return subjectTeam;
+	}
+
+	/**
+	 * @return the type of the other object or null if there isn't one
+	 */
+	public Class<? extends AbstractObject> getOtherType() {
+		return otherType;
+	}
+
+	/**
+	 * @return the id of the other object or null if there isn't one
+	 */
+	public UUID getOtherId() {
+		return otherType == null ? null : new UUID(otherIdHigh, otherIdLow);
+	}
+
+	public long getOtherIdHigh() {
+		return otherIdHigh;
+	}
+
+	public long getOtherIdLow() {
+		return otherIdLow;
+	}
+
+	public String getOtherTeam() {
+		return otherTeam;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	/**
+	 * @return what was bought (null for everything but PURCHASE events)
+	 */
+	public PurchaseTypes getPurchase() {
+		return purchase;
+	}
+}
@@ -0,0 +1,20 @@
+package spacesettlers.simulator;
+
+/**
+ * Consumes the events of a SimulationEventStream.  Listeners are called on the stream's
+ * consumer thread (never the simulator thread), one event at a time and in the order
+ * the events were published.
+ */
+public interface SimulationEventListener {
+	/**
+	 * Handle one event.  The event is reused once this returns, so copy anything to keep.
+	 *
+	 * @param event
+	 */
+	public void handleEvent(SimulationEvent event);
+
+	/**
+	 * Called on the consumer thread after the last event of the game
+	 */
+	public void close();
+}
@@ -0,0 +1,241 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import spacesettlers.actions.PurchaseTypes;
+import spacesettlers.objects.AbstractObject;
+
+/**
+ * Carries the events of a game (collisions, mining, hits, purchases, respawns and so on)
+ * from the simulator thread to listeners on a background thread.
+ *
+ * The events live in a ring that is made once: the simulator (the only producer) fills
+ * in the next free event and moves the published sequence on, and the consumer thread
+ * hands every published event to each listener and moves the consumed sequence on.  Neither
+ * side locks and publishing allocates nothing.  If the listeners fall a whole ring behind,
+ * new events are dropped (and counted) rather than holding up the game.
+ *
+ * Add the listeners, then start the stream; close it at the end of the game to deliver the
+ * remaining events and close the listeners.
+ */
+public class SimulationEventStream {
+	/**
+	 * Default number of events in the ring
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * How long the consumer sleeps when there is nothing to deliver
+	 */
+	static final long IDLE_NANOS = 1000000;
+
+	final SimulationEvent[] ring;
+	final int mask;
+
+	/**
+	 * Number of events published and number delivered to the listeners
+	 */
+	final AtomicLong published, consumed;
+
+	/**
+	 * The producer's copies (so publishing only reads consumed when the ring looks full)
+	 */
+	long nextSequence, cachedConsumed;
+	int timeStep;
+	volatile long dropped;
+
+	final List<SimulationEventListener> listeners;
+	Thread consumer;
+	volatile boolean closed;
+
+	/**
+	 * Make a stream with room for the default number of events
+	 */
+	public SimulationEventStream() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity number of events in the ring (rounded up to a power of two)
+	 */
+	public SimulationEventStream(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		ring = new SimulationEvent[size];
+		for (int i = 0; i < size; i++) {
+			ring[i] = new SimulationEvent();
+		}
+		mask = size - 1;
+		published = new AtomicLong();
+		consumed = new AtomicLong();
+		listeners = new ArrayList<SimulationEventListener>();
+	}
+
+	/**
+	 * Add a listener (only before the stream is started)
+	 *
+	 * @param listener
+	 */
+	public void addListener(SimulationEventListener listener) {
+		if (consumer != null) {
+			throw new IllegalStateException("Listeners must be added before the stream is started");
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Start delivering events on the consumer thread
+	 */
+	public void start() {
+		consumer = new Thread(new Runnable() {
+			public void run() {
+				consume();
+			}
+		}, "spacesettlers-events");
+		// a daemon so a listener that never returns can't keep the JVM alive
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	/**
+	 * Set the time step of the events published from now on
+	 *
+	 * @param timeStep
+	 */
+	public void setTimeStep(int timeStep) {
+		this.timeStep = timeStep;
+	}
+
+	/**
+	 * Publish an event (called only from the simulator thread)
+	 *
+	 * @param type
+	 * @param subject the object the event happened to
+	 * @param other the other object involved (or null)
+	 * @param value
+	 */
+	public void publish(SimulationEventType type, AbstractObject subject, AbstractObject other, double value) {
+		publish(type, subject, other, value, null);
+	}
+
+	/**
+	 * Publish an event (called only from the simulator thread)
+	 *
+	 * @param type
+	 * @param subject the object the event happened to
+	 * @param other the other object involved (or null)
+	 * @param value
+	 * @param purchase what was bought (for PURCHASE events)
+	 */
+	public void publish(SimulationEventType type, AbstractObject subject, AbstractObject other, double value, PurchaseTypes purchase) {
+		if (nextSequence - cachedConsumed > mask) {
+			cachedConsumed = consumed.get();
+			if (nextSequence - cachedConsumed > mask) {
+				dropped++;
+				return;
+			}
+		}
+		ring[(int) nextSequence & mask].set(type, timeStep, subject, other, value, purchase);
+		// the event is filled in before the consumer can see the new sequence
+		published.lazySet(++nextSequence);
+	}
+
+	/**
+	 * Deliver events until the stream is closed and every published event is delivered
+	 */
+	void consume() {
+		boolean[] failed = new boolean[listeners.size()];
+		long next = consumed.get();
+		while (true) {
+			long available = published.get();
+			if (next == available) {
+				if (closed) {
+					// closed is set after the last publish, so nothing more can come
+					if (published.get() == next) {
+						break;
+					}
+					continue;
+				}
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			for (; next < available; next++) {
+				SimulationEvent event = ring[(int) next & mask];
+				for (int i = 0; i < failed.length; i++) {
+					if (!failed[i]) {
+						failed[i] = !deliver(listeners.get(i), event);
+					}
+				}
+			}
+			consumed.lazySet(next);
+		}
+
+		for (SimulationEventListener listener : listeners) {
+			try {
+				listener.close();
+			} catch (RuntimeException e) {
+				System.err.println("Error closing event listener " + listener + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 * Give the event to the listener
+	 *
+	 * @return false if the listener threw an exception (and gets no more events)
+	 */
+	private boolean deliver(SimulationEventListener listener, SimulationEvent event) {
+		try {
+			listener.handleEvent(event);
+			return true;
+		} catch (RuntimeException e) {
+			System.err.println("Error in event listener " + listener + " (it gets no more events): " + e);
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Deliver the remaining events, close the listeners and stop the consumer thread
+	 * (called from the simulator thread at the end of the game)
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (consumer == null) {
+			return;
+		}
+		LockSupport.unpark(consumer);
+		try {
+			consumer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the number of events in the ring
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	/**
+	 * @return the number of events published (not counting the dropped ones)
+	 */
+	public long getNumPublished() {
+		return published.get();
+	}
+
+	/**
+	 * @return the number of events dropped because the listeners were a whole ring behind
+	 */
+	public long getNumDropped() {
+		return dropped;
+	}
+}
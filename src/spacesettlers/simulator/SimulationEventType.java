@@ -0,0 +1,52 @@
+package spacesettlers.simulator;
+
+/**
+ * The kinds of events published to a SimulationEventStream
+ */
+public enum SimulationEventType {
+	/**
+	 * Two objects bounced off each other
+	 */
+	COLLISION,
+
+	/**
+	 * A ship mined an asteroid (the value is the resources it got)
+	 */
+	MINE,
+
+	/**
+	 * A weapon hit a ship or a base (the subject fired it and the value is the damage)
+	 */
+	HIT,
+
+	/**
+	 * A missile killed a ship (the subject fired it)
+	 */
+	KILL,
+
+	/**
+	 * A ship picked up a beacon (the value is the energy it got)
+	 */
+	BEACON,
+
+	/**
+	 * A ship picked up another team's flag
+	 */
+	FLAG_PICKUP,
+
+	/**
+	 * A ship brought a flag back to its base
+	 */
+	FLAG_CAPTURE,
+
+	/**
+	 * A team bought something (the subject bought it, the other object is the new
+	 * ship or base if there is one and the value is the cost)
+	 */
+	PURCHASE,
+
+	/**
+	 * A dead object came back at a new location
+	 */
+	RESPAWN;
+}
@@ -0,0 +1,51 @@
+package spacesettlers.simulator;
+
+/**
+ * The parts of a simulator time step (in the order they happen), used to time the steps
+ */
+public enum SimulatorPhase {
+	/**
+	 * Making the team information shared with all the teams
+	 */
+	TEAM_INFO,
+
+	/**
+	 * Asking the teams for their actions
+	 */
+	MOVEMENT_START,
+
+	/**
+	 * Asking the teams for their power ups
+	 */
+	POWERUPS,
+
+	/**
+	 * Moving the objects and handling the collisions
+	 */
+	PHYSICS,
+
+	/**
+	 * Letting the teams see the result of their actions
+	 */
+	MOVEMENT_END,
+
+	/**
+	 * Asking the teams for their purchases (and making them)
+	 */
+	PURCHASES,
+
+	/**
+	 * Removing dead weapons
+	 */
+	WEAPON_CLEANUP,
+
+	/**
+	 * Respawning objects and spawning new asteroids
+	 */
+	RESPAWN,
+
+	/**
+	 * Updating the team scores
+	 */
+	SCORING;
+}
@@ -1,8 +1,8 @@
 package spacesettlers.simulator;
 
 import java.awt.Color;
-import java.io.File;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Random;
@@ -11,7 +11,6 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
@@ -22,6 +21,7 @@ import spacesettlers.actions.AbstractAction;
 import spacesettlers.actions.DoNothingAction;
 import spacesettlers.actions.PurchaseTypes;
 import spacesettlers.clients.ImmutableTeamInfo;
+import spacesettlers.clients.ReplayTeamClient;
 import spacesettlers.clients.Team;
 import spacesettlers.clients.TeamClient;
 import spacesettlers.configs.*;
@@ -34,6 +34,7 @@ import spacesettlers.objects.Beacon;
 import spacesettlers.objects.Flag;
 import spacesettlers.objects.Ship;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.objects.resources.ResourcePile;
 import spacesettlers.utilities.Position;
 import spacesettlers.utilities.Vector2D;
 
@@ -80,9 +81,10 @@ public final class SpaceSettlersSimulator {
 	SpaceSettlersGUI gui = null;
 
 	/**
-	 * Global random number generator for the game
+	 * Global random number generator for the game and its seed
 	 */
 	Random random;
+	long randomSeed;
 
 	/**
 	 * The configuration for this simulation
@@ -104,15 +106,70 @@ public final class SpaceSettlersSimulator {
 	 */
 	boolean debug = false;
 
+	/**
+	 * If quiet is true, the simulator doesn't print its progress (used for batch runs)
+	 */
+	boolean quiet = false;
+
+	/**
+	 * Times (and counts the allocations of) each phase of the time steps
+	 */
+	StepProfiler profiler;
+
+	/**
+	 * Runs all the team callbacks on threads that live for the whole game
+	 */
+	CallbackScheduler scheduler;
+
+	/**
+	 * Asks all the teams for their actions in parallel (made on the first time step
+	 * and reused after that)
+	 */
+	ExecutorService teamExecutor;
+
+	/**
+	 * The client configuration of each team (in the order the teams were made)
+	 */
+	Map<String, TeamClientConfig> teamClientConfigs;
+
+	/**
+	 * Records the game (if a replay file was given)
+	 */
+	ReplayWriter replayWriter;
+
+	/**
+	 * If not null, the game is a replay: the teams' decisions come from here and no 
+	 * client is asked for anything
+	 */
+	ReplayReader replayReader;
+
+	/**
+	 * Carries the events of the game to the event log and statistics (null if there is no event log)
+	 */
+	SimulationEventStream events;
+	EventStatistics eventStatistics;
+
+	/**
+	 * How long it took to make the simulator (reading the configs, making the world and 
+	 * the teams and initializing the clients)
+	 */
+	long startupNanos;
+
+	/**
+	 * If not null, the game is saved to this checkpoint file before checkpointStep is run
+	 */
+	String checkpointFile;
+	int checkpointStep;
+
 	/**
 	 * True if the simulation is paused and false otherwise
 	 */
-	boolean isPaused = false;
+	volatile boolean isPaused = false;
 
 	/**
-	 * Time to sleep between graphics updates (in milliseconds, set to 40 for default but can be changed in the GUI)
+	 * Time to sleep between steps when the graphics are shown (in milliseconds, set to 40 for default but can be changed in the GUI)
 	 */
-	int graphicsSleep = 40;
+	volatile int graphicsSleep = 40;
 
 	/**
 	 * Create a simulator with the command line arguments already parsed.  
@@ -120,23 +177,28 @@ public final class SpaceSettlersSimulator {
 	 * @throws SimulatorException 
 	 */
 	public SpaceSettlersSimulator(JSAPResult parserConfig) throws SimulatorException {
+		long startupStart = System.nanoTime();
 		// load in all the configuration
 		simConfig = loadConfigFiles(parserConfig);
 
 		teams = new LinkedHashSet<Team>();
 		clientMap = new HashMap<String, TeamClient>();
-
-		if (simConfig.getRandomSeed() == 0) {
-			random = new Random();
-		} else {
-			random = new Random(simConfig.getRandomSeed());
-		}
-
-		// and use it to make agents and the world
+		teamClientConfigs = new LinkedHashMap<String, TeamClientConfig>();
+		scheduler = new CallbackScheduler();
+		createProfiler(parserConfig);
+		quiet = parserConfig.getBoolean("quiet", false);
+		createRandom();
+
+		// and use it to make agents and the world (recording it if asked)
+		String replayFile = parserConfig.getString("replayFile", null);
+		String configXML = replayFile == null ? null : createConfigXStream().toXML(simConfig);
 		initializeSimulation(parserConfig);
+		if (replayFile != null) {
+			startRecording(replayFile, configXML);
+		}
 
 		// see if debug mode is on
-		if (parserConfig.getBoolean("debug")) {
+		if (parserConfig.getBoolean("debug", false)) {
 			debug = true;
 
 			TEAM_ACTION_TIMEOUT = Integer.MAX_VALUE;
@@ -146,7 +208,8 @@ public final class SpaceSettlersSimulator {
 		}
 
 		// create the GUI after everything is created in the simulator
-		System.out.println(this);
+		startupNanos = System.nanoTime() - startupStart;
+		log(this.toString());
 		createGUI(parserConfig);
 	}
 
@@ -157,28 +220,116 @@ public final class SpaceSettlersSimulator {
 	 * @throws SimulatorException
 	 */
 	public SpaceSettlersSimulator(SpaceSettlersConfig simConfig, JSAPResult parserConfig) throws SimulatorException {
+		this(simConfig, parserConfig, parserConfig.getString("replayFile", null));
+	}
+
+	/**
+	 * Initialize from an existing config file and record the game in the replay file
+	 * @param simConfig
+	 * @param parserConfig
+	 * @param replayFile where to record the game (null to not record it)
+	 * @throws SimulatorException
+	 */
+	public SpaceSettlersSimulator(SpaceSettlersConfig simConfig, JSAPResult parserConfig, String replayFile) throws SimulatorException {
+		long startupStart = System.nanoTime();
 		// load in all the configuration
 		this.simConfig = simConfig;
 
 		teams = new LinkedHashSet<Team>();
 		clientMap = new HashMap<String, TeamClient>();
+		teamClientConfigs = new LinkedHashMap<String, TeamClientConfig>();
+		scheduler = new CallbackScheduler();
+		createProfiler(parserConfig);
+		quiet = parserConfig.getBoolean("quiet", false);
+		createRandom();
+
+		// and use it to make agents and the world (recording it if asked)
+		String configXML = replayFile == null ? null : createConfigXStream().toXML(simConfig);
+		initializeSimulation(parserConfig);
+		if (replayFile != null) {
+			startRecording(replayFile, configXML);
+		}
 
-		if (simConfig.getRandomSeed() == 0) {
-			random = new Random();
-		} else {
-			random = new Random(simConfig.getRandomSeed());
+		// see if debug mode is on
+		if (parserConfig.getBoolean("debug", false)) {
+			debug = true;
+
+			TEAM_ACTION_TIMEOUT = Integer.MAX_VALUE;
+			MOVEMENT_TIMEOUT = Integer.MAX_VALUE;
+			TEAM_END_ACTION_TIMEOUT = Integer.MAX_VALUE;
+			TEAM_GRAPHICS_TIMEOUT = Integer.MAX_VALUE;
 		}
+		// create the GUI after everything is created in the simulator
+		startupNanos = System.nanoTime() - startupStart;
+		log(this.toString());
+		createGUI(parserConfig);
+	}
+
+	/**
+	 * Replay a recorded game.  The world is made from the recorded seed and configuration 
+	 * and the teams' decisions are read from the replay, so no client is loaded and there
+	 * is never a GUI.
+	 * 
+	 * @param replayReader
+	 * @param parserConfig
+	 * @throws SimulatorException
+	 */
+	public SpaceSettlersSimulator(ReplayReader replayReader, JSAPResult parserConfig) throws SimulatorException {
+		long startupStart = System.nanoTime();
+		this.replayReader = replayReader;
+		this.simConfig = replayReader.getConfig();
+
+		teams = new LinkedHashSet<Team>();
+		clientMap = new HashMap<String, TeamClient>();
+		teamClientConfigs = new LinkedHashMap<String, TeamClientConfig>();
+		scheduler = new CallbackScheduler();
+		createProfiler(parserConfig);
+		quiet = parserConfig.getBoolean("quiet", false);
+		randomSeed = replayReader.getRandomSeed();
+		random = new Random(randomSeed);
 
-		// and use it to make agents and the world
 		initializeSimulation(parserConfig);
+		startupNanos = System.nanoTime() - startupStart;
+		log(this.toString());
+	}
 
-		// create the GUI if the user asked for it
-		if (parserConfig.getBoolean("graphics")) {
-			gui = new SpaceSettlersGUI(simConfig, this);
+	/**
+	 * Carry on a game from a checkpoint.  The world and the teams are restored from the
+	 * checkpoint and each team gets a new client (initialized with the restored space).
+	 * 
+	 * @param checkpoint
+	 * @param parserConfig
+	 * @param randomSeed if not 0, the game carries on with a new random number generator
+	 * from this seed (so many different games can be played from one checkpoint) instead
+	 * of the saved one
+	 * @throws SimulatorException
+	 */
+	public SpaceSettlersSimulator(SimulationCheckpoint checkpoint, JSAPResult parserConfig, long randomSeed) throws SimulatorException {
+		long startupStart = System.nanoTime();
+		this.simConfig = checkpoint.getConfig();
+
+		teams = new LinkedHashSet<Team>();
+		clientMap = new HashMap<String, TeamClient>();
+		teamClientConfigs = new LinkedHashMap<String, TeamClientConfig>();
+		scheduler = new CallbackScheduler();
+		createProfiler(parserConfig);
+		quiet = parserConfig.getBoolean("quiet", false);
+
+		// the clients' generators come from the game's seed, then the game carries on
+		// from the saved generator (or the new seed)
+		this.randomSeed = checkpoint.getRandomSeed();
+		random = new Random(this.randomSeed);
+		restoreSimulation(checkpoint, parserConfig);
+		if (randomSeed != 0) {
+			this.randomSeed = randomSeed;
+			random = new Random(randomSeed);
+		} else {
+			random = checkpoint.getRandom();
 		}
+		timestep = checkpoint.getTimestep();
 
 		// see if debug mode is on
-		if (parserConfig.getBoolean("debug")) {
+		if (parserConfig.getBoolean("debug", false)) {
 			debug = true;
 
 			TEAM_ACTION_TIMEOUT = Integer.MAX_VALUE;
@@ -186,11 +337,40 @@ public final class SpaceSettlersSimulator {
 			TEAM_END_ACTION_TIMEOUT = Integer.MAX_VALUE;
 			TEAM_GRAPHICS_TIMEOUT = Integer.MAX_VALUE;
 		}
-		// create the GUI after everything is created in the simulator
-		System.out.println(this);
+
+		startupNanos = System.nanoTime() - startupStart;
+		log(this.toString());
 		createGUI(parserConfig);
 	}
 
+	/**
+	 * Make the random number generator from the seed in the config (or a random seed if 
+	 * it is 0, which is remembered so the game can be replayed)
+	 */
+	void createRandom() {
+		randomSeed = simConfig.getRandomSeed();
+		if (randomSeed == 0) {
+			randomSeed = new Random().nextLong();
+		}
+		random = new Random(randomSeed);
+	}
+
+	/**
+	 * Start recording the game
+	 * 
+	 * @param replayFile
+	 * @param configXML the simulator config as it was before the world was made
+	 * @throws SimulatorException
+	 */
+	void startRecording(String replayFile, String configXML) throws SimulatorException {
+		XStream xstream = createConfigXStream();
+		Map<String, String> teamClientConfigXML = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, TeamClientConfig> entry : teamClientConfigs.entrySet()) {
+			teamClientConfigXML.put(entry.getKey(), xstream.toXML(entry.getValue()));
+		}
+		replayWriter = new ReplayWriter(replayFile, randomSeed, configXML, teamClientConfigXML);
+	}
+
 	/**
 	 * Create the GUI after the simulator has been initialize
 	 * 
@@ -198,8 +378,9 @@ public final class SpaceSettlersSimulator {
 	 */
 	public void createGUI(JSAPResult parserConfig) {
 		// create the GUI if the user asked for it
-		if (parserConfig.getBoolean("graphics")) {
-			gui = new SpaceSettlersGUI(simConfig, this);
+		if (parserConfig.getBoolean("graphics", false)) {
+			gui = new SpaceSettlersGUI(simConfig, this,
+					parserConfig.getInt("framesPerSecond", SpaceSettlersGUI.DEFAULT_FRAMES_PER_SECOND));
 		}
 	}
 
@@ -223,6 +404,8 @@ public final class SpaceSettlersSimulator {
 	 */
 	void initializeSimulation(JSAPResult parserConfig) throws SimulatorException {
 		simulatedSpace = new Toroidal2DPhysics(simConfig);
+		simulatedSpace.setPhysicsThreads(parserConfig.getInt("physicsThreads", 1));
+		createEventStream(parserConfig);
 
 		// place the beacons
 		for (int b = 0; b < simConfig.getNumBeacons(); b++) {
@@ -255,7 +438,16 @@ public final class SpaceSettlersSimulator {
 				throw new SimulatorException("Error: duplicate team name " + teamConfig.getTeamName());
 			}
 
-			TeamClientConfig teamClientConfig = getTeamClientConfig(teamConfig, parserConfig.getString("configPath"));
+			TeamClientConfig teamClientConfig;
+			if (replayReader == null) {
+				teamClientConfig = getTeamClientConfig(teamConfig, parserConfig.getString("configPath"));
+			} else {
+				teamClientConfig = replayReader.getTeamClientConfig(teamConfig.getTeamName());
+				if (teamClientConfig == null) {
+					throw new SimulatorException("Error: the replay has no client config for team " + teamConfig.getTeamName());
+				}
+			}
+			teamClientConfigs.put(teamConfig.getTeamName(), teamClientConfig);
 
 			// grab the home base config for this team (to get starting locations as needed)
 			BaseConfig thisBaseConfig = null;
@@ -273,7 +465,7 @@ public final class SpaceSettlersSimulator {
 				teamConfig.setInitialRegionULY(thisBaseConfig.getBoundingBoxULY());
 				teamConfig.setInitialRegionLRX(thisBaseConfig.getBoundingBoxLRX());
 				teamConfig.setInitialRegionLRY(thisBaseConfig.getBoundingBoxLRY());
-				System.out.println("Initial provided for team " + teamConfig.getTeamName() 
+				log("Initial provided for team " + teamConfig.getTeamName() 
 				+ "UL (x,y) = " + teamConfig.getInitialRegionULX() + ", " +
 					teamConfig.getInitialRegionULY() + " LR (x,y) = " + 
 				teamConfig.getInitialRegionLRX() + ", " +  
@@ -287,7 +479,7 @@ public final class SpaceSettlersSimulator {
 					teamConfig.setInitialRegionULY(random.nextInt(simConfig.getHeight()));
 					teamConfig.setInitialRegionLRY(teamConfig.getInitialRegionULX() + simConfig.getHeight() / 4);
 
-					System.out.println("Initial location not provided for team " + teamConfig.getTeamName() 
+					log("Initial location not provided for team " + teamConfig.getTeamName() 
 						+ "...generating: UL (x,y) = " + teamConfig.getInitialRegionULX() + ", " +
 							teamConfig.getInitialRegionULY() + " LR (x,y) = " + 
 						teamConfig.getInitialRegionLRX() + ", " +
@@ -386,7 +578,7 @@ public final class SpaceSettlersSimulator {
 				//System.out.println("Starting Locations are " + startingPositions);
 				Position flagPosition = startingPositions[random.nextInt(startingPositions.length)];
 				//System.out.println("Chosen location is " + flagPosition);
-				Flag flag = new Flag(flagPosition, flagConfig.getTeamName(), thisTeam, startingPositions);
+				Flag flag = new Flag(flagPosition.deepCopy(), flagConfig.getTeamName(), thisTeam, startingPositions);
 				
 				simulatedSpace.addObject(flag);
 			}
@@ -395,6 +587,68 @@ public final class SpaceSettlersSimulator {
 
 	}
 
+	/**
+	 * Make the space and the teams from a checkpoint instead of the config.  The teams get
+	 * new clients, which are initialized once the space is restored.
+	 * 
+	 * @param checkpoint
+	 * @param parserConfig
+	 * @throws SimulatorException
+	 */
+	void restoreSimulation(SimulationCheckpoint checkpoint, JSAPResult parserConfig) throws SimulatorException {
+		simulatedSpace = new Toroidal2DPhysics(simConfig);
+		simulatedSpace.setPhysicsThreads(parserConfig.getInt("physicsThreads", 1));
+		createEventStream(parserConfig);
+
+		for (HighLevelTeamConfig teamConfig : simConfig.getTeams()) {
+			if (clientMap.containsKey(teamConfig.getTeamName())) {
+				throw new SimulatorException("Error: duplicate team name " + teamConfig.getTeamName());
+			}
+
+			TeamClientConfig teamClientConfig = checkpoint.getTeamClientConfig(teamConfig.getTeamName());
+			if (teamClientConfig == null) {
+				throw new SimulatorException("Error: the checkpoint has no client config for team " + teamConfig.getTeamName());
+			}
+			teamClientConfigs.put(teamConfig.getTeamName(), teamClientConfig);
+
+			TeamClient teamClient = makeTeamClient(teamConfig, teamClientConfig);
+			Team team = new Team(teamClient, teamClientConfig.getLadderName(), simConfig.getMaximumShipsPerTeam());
+			team.setScheduler(scheduler);
+			teams.add(team);
+			clientMap.put(teamConfig.getTeamName(), teamClient);
+		}
+
+		checkpoint.restore(simulatedSpace, teams);
+		updateTeamInfo();
+
+		for (Team team : teams) {
+			clientMap.get(team.getTeamName()).initialize(simulatedSpace.deepClone());
+		}
+	}
+
+	/**
+	 * Save the state of the game to a checkpoint file (it can be carried on from there with
+	 * the SimulationCheckpoint constructor)
+	 * 
+	 * @param fileName
+	 * @throws SimulatorException
+	 */
+	public void saveCheckpoint(String fileName) throws SimulatorException {
+		SimulationCheckpoint.write(fileName, this);
+		log("Saved a checkpoint at time step " + timestep + " in " + fileName);
+	}
+
+	/**
+	 * Save a checkpoint of the game when it gets to a time step
+	 * 
+	 * @param fileName
+	 * @param step the checkpoint is saved before this step is run
+	 */
+	public void setCheckpoint(String fileName, int step) {
+		checkpointFile = fileName;
+		checkpointStep = step;
+	}
+
 	/**
 	 * Create a new fixed location asteroid following all rules of the config files
 	 * 
@@ -480,13 +734,14 @@ public final class SpaceSettlersSimulator {
 		int numShips = Math.min(simConfig.getMaximumInitialShipsPerTeam(), teamClientConfig.getNumberInitialShipsInTeam());
 
 		Team team = new Team(teamClient, teamClientConfig.getLadderName(), simConfig.getMaximumShipsPerTeam());
+		team.setScheduler(scheduler);
 
 		for (int s = 0; s < numShips; s++) {
 			// put the ships in the initial region for the team
 			Position freeLocation = simulatedSpace.getRandomFreeLocationInRegion(random, Ship.SHIP_RADIUS * 2, 
 					teamConfig.getInitialRegionULX(), teamConfig.getInitialRegionULY(), 
 					teamConfig.getInitialRegionLRX(), teamConfig.getInitialRegionLRY());
-			System.out.println("Starting ship for team " + team.getTeamName() + " in location " + freeLocation);
+			log("Starting ship for team " + team.getTeamName() + " in location " + freeLocation);
 			Ship ship = new Ship(teamConfig.getTeamName(), team.getTeamColor(), freeLocation);
 			team.addShip(ship);
 		}
@@ -507,19 +762,7 @@ public final class SpaceSettlersSimulator {
 	 * @throws InstantiationException 
 	 */
 	public TeamClientConfig getTeamClientConfig(HighLevelTeamConfig teamConfig, String configPath) throws SimulatorException {
-		String fileName = configPath + teamConfig.getConfigFile();
-
-		XStream xstream = new XStream();
-		xstream.alias("TeamClientConfig", TeamClientConfig.class);
-		TeamClientConfig lowLevelTeamConfig;
-
-		try { 
-			lowLevelTeamConfig = (TeamClientConfig) xstream.fromXML(new File(fileName));
-		} catch (Exception e) {
-			throw new SimulatorException("Error parsing config team config file " + fileName + " at string " + e.getMessage());
-		}
-
-		return lowLevelTeamConfig;
+		return ConfigCache.readTeamClientConfig(configPath + teamConfig.getConfigFile());
 	}
 
 
@@ -531,21 +774,40 @@ public final class SpaceSettlersSimulator {
 	 * @return
 	 * @throws SimulatorException 
 	 */
-	@SuppressWarnings("unchecked")
 	public TeamClient createTeamClient(HighLevelTeamConfig teamConfig, TeamClientConfig teamClientConfig) throws SimulatorException {
+		TeamClient newTeamClient = makeTeamClient(teamConfig, teamClientConfig);
+		newTeamClient.initialize(simulatedSpace.deepClone());
+		return newTeamClient;
+	}
+
+	/**
+	 * Make the team client from the configuration file without initializing it
+	 * 
+	 * @param teamConfig
+	 * @param teamClientConfig
+	 * @return
+	 * @throws SimulatorException
+	 */
+	TeamClient makeTeamClient(HighLevelTeamConfig teamConfig, TeamClientConfig teamClientConfig) throws SimulatorException {
 		try {
-			// make a team client of the class specified in the config file
-			Class<TeamClient> newTeamClass = (Class<TeamClient>) Class.forName(teamClientConfig.getClassname());
-			TeamClient newTeamClient = (TeamClient) newTeamClass.newInstance();
+			// make a team client of the class specified in the config file (a replay doesn't
+			// need the real client since it already has all of the team's decisions)
+			TeamClient newTeamClient;
+			if (replayReader == null) {
+				newTeamClient = ConfigCache.getClientClass(teamClientConfig.getClassname()).newInstance();
+			} else {
+				newTeamClient = new ReplayTeamClient();
+			}
 
 			Color teamColor = new Color(teamClientConfig.getTeamColorRed(), teamClientConfig.getTeamColorGreen(), 
 					teamClientConfig.getTeamColorBlue());
 			newTeamClient.setTeamColor(teamColor);
 			newTeamClient.setTeamName(teamConfig.getTeamName());
 			newTeamClient.setKnowledgeFile(teamClientConfig.getKnowledgeFile());
-			newTeamClient.setRandom(random);
+			// each client gets its own generator (seeded from the game's) because the 
+			// clients run in parallel and would otherwise race for the shared one
+			newTeamClient.setRandom(new Random(random.nextLong()));
 			newTeamClient.setMaxNumberShips(simConfig.getMaximumShipsPerTeam());
-			newTeamClient.initialize(simulatedSpace.deepClone());
 			return newTeamClient;
 		} catch (ClassNotFoundException e) {
 			e.printStackTrace();
@@ -567,6 +829,41 @@ public final class SpaceSettlersSimulator {
 		return simulatedSpace.allObjects;
 	}
 
+	/**
+	 * Make the step profiler (reporting every profileInterval steps and writing
+	 * to the profileFile if one was given)
+	 * @param parserConfig
+	 * @throws SimulatorException
+	 */
+	void createProfiler(JSAPResult parserConfig) throws SimulatorException {
+		profiler = new StepProfiler(scheduler);
+		profiler.setReportInterval(parserConfig.getInt("profileInterval", 5000));
+		String profileFile = parserConfig.getString("profileFile", null);
+		if (profileFile != null) {
+			profiler.openProfileFile(profileFile);
+		}
+	}
+
+	/**
+	 * Publish the events of the game from the space to the eventLogFile and the event
+	 * statistics (if an eventLogFile was given)
+	 * 
+	 * @param parserConfig
+	 * @throws SimulatorException
+	 */
+	void createEventStream(JSAPResult parserConfig) throws SimulatorException {
+		String eventLogFile = parserConfig.getString("eventLogFile", null);
+		if (eventLogFile == null) {
+			return;
+		}
+		events = new SimulationEventStream();
+		eventStatistics = new EventStatistics();
+		events.addListener(eventStatistics);
+		events.addListener(new EventLogWriter(eventLogFile));
+		events.start();
+		simulatedSpace.setEventStream(events);
+	}
+
 	/**
 	 * Load in the configuration files
 	 * @throws SimulatorException 
@@ -575,6 +872,27 @@ public final class SpaceSettlersSimulator {
 	public SpaceSettlersConfig loadConfigFiles(JSAPResult parserConfig) throws SimulatorException {
 		String configFile = parserConfig.getString("configPath") + parserConfig.getString("simulatorConfigFile");
 
+		simConfig = readConfigFile(configFile);
+		return simConfig;
+	}
+
+	/**
+	 * Read a simulator configuration file (parsed once and then copied from the ConfigCache)
+	 * 
+	 * @param configFile path to the xml file
+	 * @return a config of the caller's own
+	 * @throws SimulatorException
+	 */
+	public static SpaceSettlersConfig readConfigFile(String configFile) throws SimulatorException {
+		return ConfigCache.readSimulatorConfig(configFile);
+	}
+
+	/**
+	 * XStream that reads (and writes) the simulator and team client config files
+	 * 
+	 * @return
+	 */
+	static XStream createConfigXStream() {
 		XStream xstream = new XStream();
 		xstream.alias("SpaceSettlersConfig", SpaceSettlersConfig.class);
 		xstream.alias("HighLevelTeamConfig", HighLevelTeamConfig.class);
@@ -582,107 +900,152 @@ public final class SpaceSettlersSimulator {
 		xstream.alias("AsteroidConfig", RandomAsteroidConfig.class);
 		xstream.alias("FixedAsteroidConfig", FixedAsteroidConfig.class);
 		xstream.alias("FlagConfig", FlagConfig.class);
-
-		try { 
-			simConfig = (SpaceSettlersConfig) xstream.fromXML(new File(configFile));
-		} catch (Exception e) {
-			throw new SimulatorException("Error parsing config file at string " + e.getMessage());
-		}
-		return simConfig;
+		xstream.alias("TeamClientConfig", TeamClientConfig.class);
+		return xstream;
 	}
 
 	/**
 	 * Advance time one step
+	 * @throws SimulatorException if the game is a replay and the replay is broken
 	 */
-	void advanceTime() {
+	void advanceTime() throws SimulatorException {
+		profiler.startStep();
+
+		// a replay has this step's decisions of all of the teams
+		ReplayStep replayStep = null;
+		if (replayReader != null) {
+			replayStep = replayReader.readStep();
+			if (replayStep == null) {
+				throw new SimulatorException("Error: the replay ended before time step " + timestep);
+			}
+		}
+
 		// update the team info (to send into the space for use by other teams)
 		updateTeamInfo();
+		profiler.lap(SimulatorPhase.TEAM_INFO);
 
-		ExecutorService teamExecutor;
-		if (debug) {
-			teamExecutor = Executors.newSingleThreadExecutor();
-		} else {
-			teamExecutor = Executors.newCachedThreadPool();
-		}
-		Map<Team, Future<Map<UUID,AbstractAction>>> clientActionFutures = 
-				new HashMap<Team, Future<Map<UUID,AbstractAction>>>();
+		if (replayStep == null) {
+			if (teamExecutor == null) {
+				teamExecutor = scheduler.newPool(debug);
 
-		// get the actions from each team
-		for (Team team : teams) {
-			clientActionFutures.put(team, teamExecutor.submit(new AdvanceTimeCallable(team)));
-		}
+				// the ships' actions also run on the pool (after the teams are done with it)
+				simulatedSpace.setMovementScheduler(scheduler, teamExecutor, MOVEMENT_TIMEOUT);
+			}
+			Map<Team, Future<Map<UUID,AbstractAction>>> clientActionFutures = 
+					new HashMap<Team, Future<Map<UUID,AbstractAction>>>();
 
-		for (Team team : teams) {
-			Map<UUID, AbstractAction> teamActions;
+			// get the actions from each team
+			for (Team team : teams) {
+				clientActionFutures.put(team, teamExecutor.submit(new AdvanceTimeCallable(team)));
+			}
 
-			try {
-				teamActions = clientActionFutures.get(team).get();
-			} catch (InterruptedException e) {
-				//something went wrong...return empty map
-				teamActions = new HashMap<UUID, AbstractAction>();
-			} catch (ExecutionException e) {
-				//something went wrong...return empty map
-				teamActions = new HashMap<UUID, AbstractAction>();
-			} 
+			for (Team team : teams) {
+				Map<UUID, AbstractAction> teamActions;
 
+				try {
+					teamActions = clientActionFutures.get(team).get();
+				} catch (InterruptedException e) {
+					//something went wrong...return empty map
+					teamActions = new HashMap<UUID, AbstractAction>();
+				} catch (ExecutionException e) {
+					//something went wrong...return empty map
+					teamActions = new HashMap<UUID, AbstractAction>();
+				} 
 
-			// get the actions for each ship
-			for (Ship ship : team.getShips()) {
-				// if the client forgets to set an action, set it to DoNothing
-				if (teamActions == null || !teamActions.containsKey(ship.getId())) {
-					teamActions.put(ship.getId(), new DoNothingAction());
+
+				// get the actions for each ship
+				for (Ship ship : team.getShips()) {
+					// if the client forgets to set an action, set it to DoNothing
+					if (teamActions == null || !teamActions.containsKey(ship.getId())) {
+						teamActions.put(ship.getId(), new DoNothingAction());
+					}
+					ship.setCurrentAction(teamActions.get(ship.getId()));
 				}
-				ship.setCurrentAction(teamActions.get(ship.getId()));
-			}
 
 
+			}
 		}
 
-		teamExecutor.shutdown();
+		// the ships now hold new actions so the teams need a new view of the space
+		simulatedSpace.invalidateClientSnapshot();
+		profiler.lap(SimulatorPhase.MOVEMENT_START);
 
 		// get the power ups being used on this turn
 		Map<UUID, SpaceSettlersPowerupEnum> allPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
-		for (Team team : teams) {
-			Map<UUID, SpaceSettlersPowerupEnum> powerups = team.getTeamPowerups(simulatedSpace);
-			if (powerups != null) {
-				for (UUID key : powerups.keySet()) {
-					// verify power ups belong to this team
-					if (!team.isValidTeamID(key)) {
-						continue;
-					}
-
-					// get the object and ensure it can have a power up on it
-					AbstractObject swObject = simulatedSpace.getObjectById(key);
-					if (!(swObject instanceof AbstractActionableObject)) {
-						continue;
-					}
-
-					// verify that the object has the power up associated with it
-					AbstractActionableObject actionableObject = (AbstractActionableObject) swObject;
-					if (actionableObject.isValidPowerup(powerups.get(key))) {
-						allPowerups.put(key, powerups.get(key));
+		if (replayStep != null) {
+			allPowerups = replayStep.getPowerups(teams);
+		} else {
+			for (Team team : teams) {
+				Map<UUID, SpaceSettlersPowerupEnum> powerups = team.getTeamPowerups(simulatedSpace);
+				if (powerups != null) {
+					for (UUID key : powerups.keySet()) {
+						// verify power ups belong to this team
+						if (!team.isValidTeamID(key)) {
+							continue;
+						}
+
+						// get the object and ensure it can have a power up on it
+						AbstractObject swObject = simulatedSpace.getObjectById(key);
+						if (!(swObject instanceof AbstractActionableObject)) {
+							continue;
+						}
+
+						// verify that the object has the power up associated with it
+						AbstractActionableObject actionableObject = (AbstractActionableObject) swObject;
+						if (actionableObject.isValidPowerup(powerups.get(key))) {
+							allPowerups.put(key, powerups.get(key));
+						}
 					}
 				}
 			}
 		}
+		if (replayWriter != null) {
+			replayWriter.getStep().recordPowerups(teams, allPowerups);
+		}
+
+		profiler.lap(SimulatorPhase.POWERUPS);
 
 		// now update the physics on all objects
+		if (replayStep != null) {
+			simulatedSpace.setReplayedMovements(replayStep.getMovements());
+		}
 		simulatedSpace.advanceTime(this.getTimestep(), allPowerups);
+		if (replayWriter != null) {
+			replayWriter.getStep().recordMovements(simulatedSpace.shipMovements, simulatedSpace.numControlledShips);
+		}
+		profiler.lap(SimulatorPhase.PHYSICS);
 
 		// and end any actions inside the team
 		for (Team team : teams) {
-			team.getTeamMovementEnd(simulatedSpace);
+			if (replayStep == null) {
+				team.getTeamMovementEnd(simulatedSpace);
+			} else {
+				team.updateTotals(simulatedSpace);
+			}
 		}
+		profiler.lap(SimulatorPhase.MOVEMENT_END);
 
 		// handle purchases at the end of a turn (so ships will have movements next turn)
+		int teamIndex = 0;
 		for (Team team : teams) {
 			// now get purchases for the team
-			Map<UUID, PurchaseTypes> purchases = team.getTeamPurchases(simulatedSpace);
+			Map<UUID, PurchaseTypes> purchases;
+			if (replayStep == null) {
+				purchases = team.getTeamPurchases(simulatedSpace);
+			} else {
+				purchases = replayStep.getPurchases(teamIndex, team);
+			}
+			if (replayWriter != null) {
+				replayWriter.getStep().recordPurchases(teamIndex, team, purchases);
+			}
 			handlePurchases(team, purchases);
+			teamIndex++;
 		}
+		profiler.lap(SimulatorPhase.PURCHASES);
 
 		// cleanup and remove dead weapons
 		simulatedSpace.cleanupDeadWeapons();
+		profiler.lap(SimulatorPhase.WEAPON_CLEANUP);
 
 		// respawn any objects that died (and that should respawn - this includes Flags)
 		final double asteroidMaxVelocity = simConfig.getRandomAsteroids().getMaxInitialVelocity();
@@ -699,9 +1062,17 @@ public final class SpaceSettlersSimulator {
 			}
 		}
 
-		
+		profiler.lap(SimulatorPhase.RESPAWN);
 
 		updateScores();
+		if (replayWriter != null) {
+			replayWriter.writeStep();
+		}
+		profiler.lap(SimulatorPhase.SCORING);
+		String report = profiler.endStep();
+		if (report != null) {
+			log(report);
+		}
 
 		//		for (Team team : teams) {
 		//			for (Ship ship : team.getShips()) {
@@ -741,6 +1112,12 @@ public final class SpaceSettlersSimulator {
 				continue;
 			}
 
+			// power ups change objects without adding them so the teams that purchase 
+			// after this one need a new view of the space
+			if (purchase != PurchaseTypes.NOTHING) {
+				simulatedSpace.invalidateClientSnapshot();
+			}
+
 			// get the object where the item is to be purchased (on on whom it is to be purchased)
 			AbstractActionableObject purchasingObject = (AbstractActionableObject) simulatedSpace.getObjectById(key);
 
@@ -765,8 +1142,7 @@ public final class SpaceSettlersSimulator {
 					simulatedSpace.addObject(base);
 					team.addBase(base);
 					// charge the team for the purchase
-					team.decrementAvailableResources(team.getCurrentCost(purchase));
-					team.updateCost(purchase);
+					chargeForPurchase(team, purchase, purchasingObject, base);
 				}
 				break;
 			case SHIP:
@@ -788,8 +1164,7 @@ public final class SpaceSettlersSimulator {
 					simulatedSpace.addObject(ship);
 					team.addShip(ship);
 					// charge the team for the purchase
-					team.decrementAvailableResources(team.getCurrentCost(purchase));
-					team.updateCost(purchase);
+					chargeForPurchase(team, purchase, purchasingObject, ship);
 				}
 
 				break;
@@ -797,9 +1172,8 @@ public final class SpaceSettlersSimulator {
 			case POWERUP_SHIELD:
 				purchasingObject.addPowerup(SpaceSettlersPowerupEnum.TOGGLE_SHIELD);
 				// charge the team for the purchase
-				team.decrementAvailableResources(team.getCurrentCost(purchase));
-				team.updateCost(purchase);
-				System.out.println("Buying a shield");
+				chargeForPurchase(team, purchase, purchasingObject, null);
+				log("Buying a shield");
 				break;
 
 			case POWERUP_EMP_LAUNCHER:
@@ -807,9 +1181,8 @@ public final class SpaceSettlersSimulator {
 				if (purchasingObject instanceof Ship) {
 					purchasingObject.addPowerup(SpaceSettlersPowerupEnum.FIRE_EMP);
 					// charge the team for the purchase
-					team.decrementAvailableResources(team.getCurrentCost(purchase));
-					team.updateCost(purchase);
-					System.out.println("Buying a emp launcher");
+					chargeForPurchase(team, purchase, purchasingObject, null);
+					log("Buying a emp launcher");
 				}
 				break;
 
@@ -818,26 +1191,23 @@ public final class SpaceSettlersSimulator {
 				if (purchasingObject instanceof Base) {
 					purchasingObject.addPowerup(SpaceSettlersPowerupEnum.DOUBLE_BASE_HEALING_SPEED);
 					// charge the team for the purchase
-					team.decrementAvailableResources(team.getCurrentCost(purchase));
-					team.updateCost(purchase);
-					System.out.println("Buying a healing doubler for a base");
+					chargeForPurchase(team, purchase, purchasingObject, null);
+					log("Buying a healing doubler for a base");
 				}
 				break;
 
 			case POWERUP_DOUBLE_MAX_ENERGY:
 				purchasingObject.addPowerup(SpaceSettlersPowerupEnum.DOUBLE_MAX_ENERGY);
 				// charge the team for the purchase
-				team.decrementAvailableResources(team.getCurrentCost(purchase));
-				team.updateCost(purchase);
-				System.out.println("Buying a energy doubler");
+				chargeForPurchase(team, purchase, purchasingObject, null);
+				log("Buying a energy doubler");
 				break;
 
 			case POWERUP_DOUBLE_WEAPON_CAPACITY:
 				purchasingObject.addPowerup(SpaceSettlersPowerupEnum.DOUBLE_WEAPON_CAPACITY);
 				// charge the team for the purchase
-				team.decrementAvailableResources(team.getCurrentCost(purchase));
-				team.updateCost(purchase);
-				System.out.println("Buying a weapons doubler");
+				chargeForPurchase(team, purchase, purchasingObject, null);
+				log("Buying a weapons doubler");
 				break;
 
 			case NOTHING:
@@ -854,6 +1224,23 @@ public final class SpaceSettlersSimulator {
 
 	}
 
+	/**
+	 * Charge the team for a purchase (and publish it)
+	 * 
+	 * @param team
+	 * @param purchase
+	 * @param purchasingObject
+	 * @param newObject the ship or base that was bought (or null)
+	 */
+	private void chargeForPurchase(Team team, PurchaseTypes purchase, AbstractActionableObject purchasingObject, AbstractObject newObject) {
+		ResourcePile cost = team.getCurrentCost(purchase);
+		if (events != null) {
+			events.publish(SimulationEventType.PURCHASE, purchasingObject, newObject, cost.getTotal(), purchase);
+		}
+		team.decrementAvailableResources(cost);
+		team.updateCost(purchase);
+	}
+
 	/**
 	 * Updates the scores for the teams
 	 */
@@ -913,30 +1300,38 @@ public final class SpaceSettlersSimulator {
 	 */
 	public void run() throws SimulatorException {
 		if (gui != null) {
-			gui.redraw();
+			gui.publishFrame(true);
 		}
 
 		// run the game loop until the maximum time has elapsed
 		// if the pause is activated, just wait
-		for (timestep = 0; timestep < simConfig.getSimulationSteps(); timestep++) {
+		// (a game carried on from a checkpoint starts at the checkpoint's time step)
+		for (; timestep < simConfig.getSimulationSteps(); timestep++) {
 			while (isPaused()) {
 				mySleep(50);
 			}
 
+			if (checkpointFile != null && timestep == checkpointStep) {
+				saveCheckpoint(checkpointFile);
+			}
+
 			advanceTime();
 
+			// the GUI draws the frames on its own thread so this only waits to let people watch
 			if (gui != null) {
-				gui.redraw();
-				mySleep(graphicsSleep);
+				gui.publishFrame(false);
+				if (graphicsSleep > 0) {
+					mySleep(graphicsSleep);
+				}
 			}
 
 			if (timestep % 5000 == 0) {
-				System.out.println("On time step " + timestep);
+				log("On time step " + timestep);
 				
 				// print out the score every 5000 steps for debugging
                 for (Team team : teams) {
                     String str = "Team: " + team.getLadderName() + " scored " + team.getScore();
-                    System.out.println(str);
+                    log(str);
                 }
 
 			}
@@ -945,6 +1340,10 @@ public final class SpaceSettlersSimulator {
 		// update the team info (to send into the space for use by other teams)
 		updateTeamInfo();
 
+		if (gui != null) {
+			gui.publishFrame(true);
+		}
+
 		// shutdown all the teams
 		shutdownTeams();
 	}
@@ -956,6 +1355,91 @@ public final class SpaceSettlersSimulator {
 		for (Team team : teams) {
 			team.shutdownClients(simulatedSpace);
 		}
+
+		if (teamExecutor != null) {
+			teamExecutor.shutdown();
+		}
+		scheduler.shutdown();
+		simulatedSpace.setPhysicsThreads(1);
+		log(scheduler.getReport());
+		profiler.close();
+
+		if (events != null) {
+			events.close();
+			log(eventStatistics.getReport());
+			if (events.getNumDropped() > 0) {
+				log("Dropped " + events.getNumDropped() + " events (the event listeners fell behind)");
+			}
+			events = null;
+		}
+
+		if (replayWriter != null) {
+			try {
+				replayWriter.close(teams);
+			} catch (SimulatorException e) {
+				System.err.println(e.getMessage());
+			}
+			replayWriter = null;
+		}
+	}
+
+	/**
+	 * Print a progress message (unless the simulator is quiet)
+	 * @param message
+	 */
+	void log(String message) {
+		if (!quiet) {
+			System.out.println(message);
+		}
+	}
+
+	/**
+	 * Returns the time spent in each phase of the time steps so far
+	 * @return
+	 */
+	public PhaseTimes getPhaseTimes() {
+		return profiler.getPhaseTimes();
+	}
+
+	/**
+	 * Returns how long it took to make the simulator (everything before the first step
+	 * except the GUI)
+	 * @return
+	 */
+	public double getStartupMillis() {
+		return startupNanos / 1e6;
+	}
+
+	/**
+	 * Returns the profiler timing the phases of the time steps
+	 * @return
+	 */
+	public StepProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Returns the scheduler running the team callbacks (for thread counts and latencies)
+	 * @return
+	 */
+	public CallbackScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Returns the configuration of the game
+	 * @return
+	 */
+	public SpaceSettlersConfig getSimConfig() {
+		return simConfig;
+	}
+
+	/**
+	 * Returns the seed the game's random number generator was made from
+	 * @return
+	 */
+	public long getRandomSeed() {
+		return randomSeed;
 	}
 
 	/**
@@ -0,0 +1,333 @@
+package spacesettlers.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.utilities.Position;
+
+/**
+ * Read-only uniform grid over the objects of one type in the toroidal space, used to
+ * answer nearest and within-radius queries without looking at every object.  The
+ * objects are binned by their center into cells sized so each cell holds a couple of
+ * objects, and a query only looks at the cells around the location (growing outwards
+ * until nothing outside can be nearer).
+ *
+ * The locations are copied when the index is built, so the index describes the space
+ * as of that moment.  Nothing changes after the build so any number of threads can
+ * query the same index at once.  Results are ordered by distance and ties go to the
+ * object that comes first in getAllObjects (the same answer a loop over the objects
+ * that keeps the first nearest one would give).
+ *
+ * @param <T> type of the objects in the index
+ */
+public class SpatialIndex<T extends AbstractObject> {
+	/**
+	 * Aim for about this many objects per cell
+	 */
+	static final double OBJECTS_PER_CELL = 2;
+
+	/**
+	 * Smallest allowed width/height of a cell
+	 */
+	static final double MIN_CELL_SIZE = 20;
+
+	/**
+	 * The space the objects are in (for the toroidal distances)
+	 */
+	Toroidal2DPhysics space;
+
+	/**
+	 * The objects (in the order of getAllObjects) and their locations when the index was built
+	 */
+	AbstractObject[] objects;
+	double[] x, y;
+
+	/**
+	 * Number of cells in each direction and their size
+	 */
+	int numCols, numRows;
+	double cellWidth, cellHeight;
+
+	/**
+	 * Indices of the objects in each cell: cell c holds cellObjects[cellStart[c]] up to
+	 * (but not including) cellObjects[cellStart[c + 1]], in ascending order
+	 */
+	int[] cellStart, cellObjects;
+
+	/**
+	 * Index the objects of the type in the space
+	 *
+	 * @param space
+	 * @param type
+	 */
+	public SpatialIndex(Toroidal2DPhysics space, Class<T> type) {
+		this.space = space;
+
+		ArrayList<AbstractObject> found = new ArrayList<AbstractObject>();
+		for (AbstractObject object : space.getAllObjects()) {
+			if (type.isInstance(object)) {
+				found.add(object);
+			}
+		}
+		int numObjects = found.size();
+		objects = found.toArray(new AbstractObject[numObjects]);
+		x = new double[numObjects];
+		y = new double[numObjects];
+
+		int width = space.getWidth();
+		int height = space.getHeight();
+		double cellSize = Math.max(MIN_CELL_SIZE,
+				Math.sqrt((double) width * height * OBJECTS_PER_CELL / Math.max(1, numObjects)));
+		numCols = Math.max(1, (int) (width / cellSize));
+		numRows = Math.max(1, (int) (height / cellSize));
+		cellWidth = (double) width / numCols;
+		cellHeight = (double) height / numRows;
+
+		// counting sort of the objects by cell (stable so each cell stays in ascending order)
+		int[] cellOf = new int[numObjects];
+		cellStart = new int[numCols * numRows + 1];
+		for (int i = 0; i < numObjects; i++) {
+			Position position = objects[i].getPosition();
+			x[i] = position.getX();
+			y[i] = position.getY();
+			cellOf[i] = getCellOf(x[i], y[i]);
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int c = 0; c < numCols * numRows; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		cellObjects = new int[numObjects];
+		int[] fill = Arrays.copyOf(cellStart, numCols * numRows);
+		for (int i = 0; i < numObjects; i++) {
+			cellObjects[fill[cellOf[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Cell that holds the location (the location must be inside the space)
+	 *
+	 * @param px
+	 * @param py
+	 * @return
+	 */
+	int getCellOf(double px, double py) {
+		return getRow(py) * numCols + getCol(px);
+	}
+
+	int getCol(double px) {
+		return Math.min(numCols - 1, Math.max(0, (int) (px / cellWidth)));
+	}
+
+	int getRow(double py) {
+		return Math.min(numRows - 1, Math.max(0, (int) (py / cellHeight)));
+	}
+
+	/**
+	 * The k best objects found so far by a query, in order of distance (then index)
+	 */
+	static class Best {
+		int[] indices;
+		double[] distances;
+		int count;
+
+		Best(int k) {
+			indices = new int[k];
+			distances = new double[k];
+		}
+
+		boolean isFull() {
+			return count == indices.length;
+		}
+
+		/**
+		 * @param index
+		 * @param distance
+		 * @return true if the object would be one of the k best
+		 */
+		boolean isBetter(int index, double distance) {
+			if (!isFull()) {
+				return true;
+			}
+			double worst = distances[count - 1];
+			return distance < worst || (distance == worst && index < indices[count - 1]);
+		}
+
+		void add(int index, double distance) {
+			int pos = isFull() ? count - 1 : count++;
+			while (pos > 0 && (distances[pos - 1] > distance
+					|| (distances[pos - 1] == distance && indices[pos - 1] > index))) {
+				indices[pos] = indices[pos - 1];
+				distances[pos] = distances[pos - 1];
+				pos--;
+			}
+			indices[pos] = index;
+			distances[pos] = distance;
+		}
+	}
+
+	/**
+	 * Find the k objects nearest to the location that the filter accepts.  The filter is
+	 * only asked about objects that are near enough to make the list.
+	 *
+	 * @param location
+	 * @param k
+	 * @param filter which objects may be returned (null for all)
+	 * @return up to k objects, nearest first
+	 */
+	public List<T> findNearest(Position location, int k, ObjectFilter<? super T> filter) {
+		k = Math.min(k, objects.length);
+		if (k <= 0) {
+			return new ArrayList<T>(0);
+		}
+
+		double px = location.getX();
+		double py = location.getY();
+		Best best = new Best(k);
+
+		// grow rings of cells around the location while they don't wrap onto each other
+		int col = getCol(px);
+		int row = getRow(py);
+		int maxRing = (Math.min(numCols, numRows) - 1) / 2;
+		double minCellSize = Math.min(cellWidth, cellHeight);
+		boolean done = false;
+		for (int ring = 0; ring <= maxRing; ring++) {
+			for (int dr = -ring; dr <= ring; dr++) {
+				int step = (dr == -ring || dr == ring) ? 1 : 2 * ring;
+				for (int dc = -ring; dc <= ring; dc += step) {
+					searchCell(wrap(row + dr, numRows) * numCols + wrap(col + dc, numCols), px, py, filter, best);
+				}
+			}
+
+			// anything outside the rings is at least ring cells away
+			double reach = ring * minCellSize;
+			if (best.isFull() && best.distances[k - 1] <= reach * reach) {
+				done = true;
+				break;
+			}
+		}
+
+		if (!done) {
+			// the rings cover the whole space, so check everything
+			best = new Best(k);
+			for (int i = 0; i < objects.length; i++) {
+				consider(i, px, py, filter, best);
+			}
+		}
+
+		return toList(best.indices, best.count);
+	}
+
+	/**
+	 * Find all of the objects whose centers are within the radius of the location
+	 *
+	 * @param location
+	 * @param radius
+	 * @param filter which objects may be returned (null for all)
+	 * @return the objects, nearest first
+	 */
+	public List<T> findWithinRadius(Position location, double radius, ObjectFilter<? super T> filter) {
+		double px = location.getX();
+		double py = location.getY();
+		double radiusSquared = radius * radius;
+
+		int colReach = (int) Math.ceil(radius / cellWidth);
+		int rowReach = (int) Math.ceil(radius / cellHeight);
+		int[] found = new int[8];
+		double[] distances = new double[8];
+		int count = 0;
+
+		if (2 * colReach + 1 > numCols || 2 * rowReach + 1 > numRows) {
+			// the radius covers the whole space, so check everything
+			for (int i = 0; i < objects.length; i++) {
+				double distance = space.shortestDistanceSquared(px, py, x[i], y[i]);
+				if (distance <= radiusSquared && accept(filter, i)) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+						distances = Arrays.copyOf(distances, count * 2);
+					}
+					found[count] = i;
+					distances[count++] = distance;
+				}
+			}
+		} else {
+			int col = getCol(px);
+			int row = getRow(py);
+			for (int dr = -rowReach; dr <= rowReach; dr++) {
+				int rowStart = wrap(row + dr, numRows) * numCols;
+				for (int dc = -colReach; dc <= colReach; dc++) {
+					int cell = rowStart + wrap(col + dc, numCols);
+					for (int c = cellStart[cell]; c < cellStart[cell + 1]; c++) {
+						int i = cellObjects[c];
+						double distance = space.shortestDistanceSquared(px, py, x[i], y[i]);
+						if (distance <= radiusSquared && accept(filter, i)) {
+							if (count == found.length) {
+								found = Arrays.copyOf(found, count * 2);
+								distances = Arrays.copyOf(distances, count * 2);
+							}
+							found[count] = i;
+							distances[count++] = distance;
+						}
+					}
+				}
+			}
+		}
+
+		// order by distance (then index) with an insertion sort since few objects are usually found
+		for (int i = 1; i < count; i++) {
+			int index = found[i];
+			double distance = distances[i];
+			int pos = i;
+			while (pos > 0 && (distances[pos - 1] > distance
+					|| (distances[pos - 1] == distance && found[pos - 1] > index))) {
+				found[pos] = found[pos - 1];
+				distances[pos] = distances[pos - 1];
+				pos--;
+			}
+			found[pos] = index;
+			distances[pos] = distance;
+		}
+		return toList(found, count);
+	}
+
+	private void searchCell(int cell, double px, double py, ObjectFilter<? super T> filter, Best best) {
+		for (int c = cellStart[cell]; c < cellStart[cell + 1]; c++) {
+			consider(cellObjects[c], px, py, filter, best);
+		}
+	}
+
+	private void consider(int i, double px, double py, ObjectFilter<? super T> filter, Best best) {
+		double distance = space.shortestDistanceSquared(px, py, x[i], y[i]);
+		if (best.isBetter(i, distance) && accept(filter, i)) {
+			best.add(i, distance);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean accept(ObjectFilter<? super T> filter, int i) {
+		return filter == null || filter.accept((T) objects[i]);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<T> toList(int[] indices, int count) {
+		ArrayList<T> list = new ArrayList<T>(count);
+		for (int i = 0; i < count; i++) {
+			list.add((T) objects[indices[i]]);
+		}
+		return list;
+	}
+
+	private static int wrap(int cell, int numCells) {
+		cell %= numCells;
+		return cell < 0 ? cell + numCells : cell;
+	}
+
+	/**
+	 * Number of objects in the index
+	 * @return
+	 */
+	public int size() {
+		return objects.length;
+	}
+}
@@ -0,0 +1,347 @@
+package spacesettlers.simulator;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Profiles the simulator time steps: the time of every phase (in total and as a histogram
+ * of the time per step), the bytes allocated in every phase (if the JVM can count them)
+ * and, from the callback scheduler, how long each team's callbacks took and how often
+ * they timed out.
+ *
+ * The simulator calls startStep, lap at the end of every phase and endStep.  Every
+ * reportInterval steps endStep returns a one line summary of the last interval and, if a
+ * profile file was opened, writes a CSV record for it.  A profile file ending in .json
+ * instead gets a summary of the whole game when the profiler is closed.
+ */
+public class StepProfiler {
+	/**
+	 * Header of the CSV records
+	 */
+	public static final String CSV_HEADER;
+	static {
+		StringBuilder header = new StringBuilder("step,steps,msPerStep");
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			header.append(',').append(phase).append("_msPerStep");
+		}
+		header.append(",kbPerStep");
+		CSV_HEADER = header.toString();
+	}
+
+	/**
+	 * Total time in each phase
+	 */
+	PhaseTimes phaseTimes;
+
+	/**
+	 * Time each phase took per step (indexed by SimulatorPhase ordinal)
+	 */
+	LatencyHistogram[] phaseLatencies;
+
+	/**
+	 * Time each whole step took
+	 */
+	LatencyHistogram stepLatency;
+
+	/**
+	 * Bytes allocated in each phase by the simulator and callback threads (indexed by SimulatorPhase ordinal)
+	 */
+	long[] allocatedBytes;
+
+	/**
+	 * Where the team callbacks run (and are timed)
+	 */
+	CallbackScheduler scheduler;
+
+	/**
+	 * Counts the allocated bytes or null if this JVM can't
+	 */
+	com.sun.management.ThreadMXBean threadBean;
+
+	long stepStart, phaseStart, phaseStartBytes;
+
+	/**
+	 * Steps between reports (0 for no reports)
+	 */
+	int reportInterval;
+
+	/**
+	 * Totals at the last report (so each report covers only its interval)
+	 */
+	long[] reportNanos;
+	long reportBytes, reportSteps;
+
+	/**
+	 * Where the CSV records or the JSON summary go (null for none)
+	 */
+	PrintStream profileOut;
+	boolean json;
+
+	public StepProfiler(CallbackScheduler scheduler) {
+		this.scheduler = scheduler;
+		phaseTimes = new PhaseTimes();
+		int numPhases = SimulatorPhase.values().length;
+		phaseLatencies = new LatencyHistogram[numPhases];
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			phaseLatencies[phase.ordinal()] = new LatencyHistogram(phase.toString());
+		}
+		stepLatency = new LatencyHistogram("STEP");
+		allocatedBytes = new long[numPhases];
+		reportNanos = new long[numPhases];
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+			if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+				threadBean = allocationBean;
+			}
+		}
+	}
+
+	/**
+	 * Set how often (in steps) a report is made
+	 *
+	 * @param reportInterval 0 for no reports
+	 */
+	public void setReportInterval(int reportInterval) {
+		this.reportInterval = reportInterval;
+	}
+
+	/**
+	 * Write the profile to the file: CSV records every report interval or, if the
+	 * name ends in .json, a JSON summary when the profiler is closed
+	 *
+	 * @param fileName
+	 * @throws SimulatorException
+	 */
+	public void openProfileFile(String fileName) throws SimulatorException {
+		try {
+			profileOut = new PrintStream(fileName);
+		} catch (FileNotFoundException e) {
+			throw new SimulatorException("Error: can't write profile file " + e.getMessage());
+		}
+		json = fileName.toLowerCase().endsWith(".json");
+		if (!json) {
+			profileOut.println(CSV_HEADER);
+		}
+	}
+
+	/**
+	 * Bytes allocated so far by this thread and the callback threads (or 0 if they can't be counted)
+	 *
+	 * @return
+	 */
+	long getThreadAllocatedBytes() {
+		if (threadBean == null) {
+			return 0;
+		}
+		long bytes = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (long threadBytes : threadBean.getThreadAllocatedBytes(scheduler.getLiveThreadIds())) {
+			if (threadBytes > 0) {
+				bytes += threadBytes;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Start timing a new step
+	 */
+	public void startStep() {
+		phaseStartBytes = getThreadAllocatedBytes();
+		stepStart = System.nanoTime();
+		phaseStart = stepStart;
+	}
+
+	/**
+	 * Charge the time and allocation since the last lap to the phase
+	 *
+	 * @param phase
+	 */
+	public void lap(SimulatorPhase phase) {
+		long now = phaseTimes.lap(phase, phaseStart);
+		phaseLatencies[phase.ordinal()].record(now - phaseStart);
+		phaseStart = now;
+
+		long bytes = getThreadAllocatedBytes();
+		// a callback thread that ended takes its bytes with it
+		allocatedBytes[phase.ordinal()] += Math.max(0, bytes - phaseStartBytes);
+		phaseStartBytes = bytes;
+	}
+
+	/**
+	 * Finish timing the step
+	 *
+	 * @return the report line if this step ends a report interval (or null otherwise)
+	 */
+	public String endStep() {
+		phaseTimes.endStep();
+		stepLatency.record(phaseStart - stepStart);
+
+		long steps = phaseTimes.getSteps();
+		if (reportInterval <= 0 || steps % reportInterval != 0) {
+			return null;
+		}
+
+		// the times and allocations for just this interval
+		long intervalSteps = steps - reportSteps;
+		long[] intervalNanos = new long[reportNanos.length];
+		long intervalTotal = 0;
+		long totalBytes = 0;
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			int p = phase.ordinal();
+			long phaseNanos = phaseTimes.getNanos(phase);
+			intervalNanos[p] = phaseNanos - reportNanos[p];
+			intervalTotal += intervalNanos[p];
+			reportNanos[p] = phaseNanos;
+			totalBytes += allocatedBytes[p];
+		}
+		long intervalBytes = totalBytes - reportBytes;
+		reportBytes = totalBytes;
+		reportSteps = steps;
+
+		if (profileOut != null && !json) {
+			StringBuilder record = new StringBuilder();
+			record.append(steps).append(',').append(intervalSteps).append(',')
+				.append(String.format("%.4f", intervalTotal / 1e6 / intervalSteps));
+			for (long phaseNanos : intervalNanos) {
+				record.append(',').append(String.format("%.4f", phaseNanos / 1e6 / intervalSteps));
+			}
+			record.append(',').append(threadBean == null ? "" : String.valueOf(intervalBytes / 1024 / intervalSteps));
+			profileOut.println(record);
+			profileOut.flush();
+		}
+
+		StringBuilder line = new StringBuilder();
+		line.append(String.format("Profile at step %d: %.3f ms/step (p99 < %d ms) |", steps,
+				intervalTotal / 1e6 / intervalSteps, stepLatency.getPercentileMicros(0.99) / 1000));
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			line.append(String.format(" %s %.1f%%", phase, 100.0 * intervalNanos[phase.ordinal()] / Math.max(1, intervalTotal)));
+		}
+		if (threadBean != null) {
+			line.append(" | " + intervalBytes / 1024 / intervalSteps + " KB/step");
+		}
+		LatencyHistogram slowest = getSlowestOwner();
+		if (slowest != null) {
+			line.append(" | slowest team " + slowest.getName() + ": mean " + slowest.getMeanMicros() + "us, "
+					+ slowest.getTimeouts() + " timeouts");
+		}
+		return line.toString();
+	}
+
+	/**
+	 * The owner (team) whose callbacks take the longest on average
+	 *
+	 * @return null if no callbacks have been made
+	 */
+	public LatencyHistogram getSlowestOwner() {
+		LatencyHistogram slowest = null;
+		for (LatencyHistogram latency : scheduler.getOwnerLatencies()) {
+			if (slowest == null || latency.getMeanMicros() > slowest.getMeanMicros()) {
+				slowest = latency;
+			}
+		}
+		return slowest;
+	}
+
+	/**
+	 * Write the JSON summary (if asked for) and close the profile file
+	 */
+	public void close() {
+		if (profileOut == null) {
+			return;
+		}
+		if (json) {
+			profileOut.println(toJSON());
+		}
+		profileOut.close();
+		profileOut = null;
+	}
+
+	/**
+	 * A summary of the whole game so far: per phase times and allocations and the
+	 * callback times by callback and by team
+	 *
+	 * @return
+	 */
+	public String toJSON() {
+		long steps = Math.max(1, phaseTimes.getSteps());
+		StringBuilder str = new StringBuilder();
+		str.append("{\n  \"steps\": ").append(phaseTimes.getSteps());
+		str.append(",\n  \"allocationsCounted\": ").append(threadBean != null);
+		str.append(",\n  \"step\": ");
+		appendJSON(str, stepLatency);
+		str.append(",\n  \"phases\": [");
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			int p = phase.ordinal();
+			str.append(p == 0 ? "\n    " : ",\n    ");
+			str.append(String.format("{\"phase\": \"%s\", \"msPerStep\": %.4f, \"bytesPerStep\": %d, \"latency\": ",
+					phase, phaseTimes.getNanos(phase) / 1e6 / steps, allocatedBytes[p] / steps));
+			appendJSON(str, phaseLatencies[p]);
+			str.append("}");
+		}
+		str.append("\n  ],\n  \"callbacks\": [");
+		appendJSON(str, scheduler.getLatencies());
+		str.append("\n  ],\n  \"teams\": [");
+		appendJSON(str, scheduler.getOwnerLatencies());
+		str.append("\n  ]\n}");
+		return str.toString();
+	}
+
+	private static void appendJSON(StringBuilder str, List<LatencyHistogram> latencies) {
+		for (int i = 0; i < latencies.size(); i++) {
+			str.append(i == 0 ? "\n    " : ",\n    ");
+			appendJSON(str, latencies.get(i));
+		}
+	}
+
+	private static void appendJSON(StringBuilder str, LatencyHistogram latency) {
+		str.append("{\"name\": \"").append(latency.getName().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"")
+			.append(", \"count\": ").append(latency.getCount())
+			.append(", \"meanMicros\": ").append(latency.getMeanMicros())
+			.append(", \"p50Micros\": ").append(latency.getPercentileMicros(0.5))
+			.append(", \"p90Micros\": ").append(latency.getPercentileMicros(0.9))
+			.append(", \"p99Micros\": ").append(latency.getPercentileMicros(0.99))
+			.append(", \"maxMicros\": ").append(latency.getMaxMicros())
+			.append(", \"timeouts\": ").append(latency.getTimeouts())
+			.append(", \"skipped\": ").append(latency.getSkipped())
+			.append("}");
+	}
+
+	public PhaseTimes getPhaseTimes() {
+		return phaseTimes;
+	}
+
+	public LatencyHistogram getPhaseLatency(SimulatorPhase phase) {
+		return phaseLatencies[phase.ordinal()];
+	}
+
+	public LatencyHistogram getStepLatency() {
+		return stepLatency;
+	}
+
+	/**
+	 * Bytes allocated in the phase so far
+	 *
+	 * @param phase
+	 * @return
+	 */
+	public long getAllocatedBytes(SimulatorPhase phase) {
+		return allocatedBytes[phase.ordinal()];
+	}
+
+	/**
+	 * True if this JVM can count the allocated bytes
+	 *
+	 * @return
+	 */
+	public boolean isCountingAllocations() {
+		return threadBean != null;
+	}
+
+	public CallbackScheduler getScheduler() {
+		return scheduler;
+	}
+}
@@ -1,12 +1,21 @@
 package spacesettlers.simulator;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import spacesettlers.actions.DoNothingAction;
 import spacesettlers.actions.AbstractAction;
@@ -25,7 +34,9 @@ import spacesettlers.objects.powerups.PowerupDoubleWeapon;
 import spacesettlers.objects.powerups.PowerupToggleShield;
 import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
 import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.objects.resources.ResourceTypes;
 import spacesettlers.objects.weapons.AbstractWeapon;
+import spacesettlers.objects.weapons.WeaponPool;
 import spacesettlers.utilities.Movement;
 import spacesettlers.utilities.Position;
 import spacesettlers.utilities.Vector2D;
@@ -44,46 +55,52 @@ public class Toroidal2DPhysics {
 
 	float halfHeight, halfWidth;
 
+	/**
+	 * The slots, handles and ids of all the objects in the space
+	 */
+	ObjectRegistry registry;
+
 	/**
 	 * All objects in the space
 	 */
-	Set<AbstractObject> allObjects;
+	ObjectRegistry.ObjectSet<AbstractObject> allObjects;
 
 	/**
 	 * The list of beacons
 	 */
-	Set<Beacon> beacons;
+	ObjectRegistry.ObjectSet<Beacon> beacons;
 	
 	/**
 	 * The list of asteroids
 	 */
-	Set<Asteroid> asteroids;
+	ObjectRegistry.ObjectSet<Asteroid> asteroids;
 	
 	/**
 	 * The list of bases
 	 */
-	Set<Base> bases;
+	ObjectRegistry.ObjectSet<Base> bases;
 
 	/**
 	 * The list of ships
 	 */
-	Set<Ship> ships;
+	ObjectRegistry.ObjectSet<Ship> ships;
 	
 	/**
 	 * The ets of flags
 	 */
-	Set<Flag> flags;
+	ObjectRegistry.ObjectSet<Flag> flags;
 	
 	/**
 	 * List of all weapons currently in play
 	 */
-	Set<AbstractWeapon> weapons;
+	ObjectRegistry.ObjectSet<AbstractWeapon> weapons;
 	
 	/**
-	 * A hashmap of objects by their ID
+	 * Weapons out of play that are fired again, and the dead weapons found by cleanupDeadWeapons
 	 */
-	HashMap <UUID, AbstractObject> objectsById;
-	
+	WeaponPool weaponPool = new WeaponPool();
+	AbstractWeapon[] deadWeapons = new AbstractWeapon[16];
+
 	/**
 	 * The timestep used for simulation of physics
 	 */
@@ -105,6 +122,11 @@ public class Toroidal2DPhysics {
 	 * Handles collisions between spacewar objects
 	 */
 	CollisionHandler collisionHandler;
+
+	/**
+	 * Where the events of the game are published (null for nowhere; copies of the space have none)
+	 */
+	SimulationEventStream events;
 	
 	/**
 	 * Maximum time step
@@ -116,6 +138,114 @@ public class Toroidal2DPhysics {
 	 */
 	Set<ImmutableTeamInfo> teamInfo;
 
+	/**
+	 * Broad phase for collision detection (rebuilt every time step) 
+	 */
+	ToroidalSpatialGrid collisionGrid;
+
+	/**
+	 * Reused array of all objects for collision detection
+	 */
+	AbstractObject[] collisionObjects;
+
+	/**
+	 * If false, collision detection tests all pairs of objects instead of using the grid
+	 */
+	boolean useSpatialGrid = true;
+
+	/**
+	 * Runs the parallel parts of a time step (null to do everything on the calling thread)
+	 */
+	ForkJoinPool physicsPool;
+
+	/**
+	 * Overlapping pairs found on the physics pool before the collisions are handled
+	 */
+	CollisionContacts collisionContacts;
+
+	/**
+	 * Grid cells a collision has changed since the contacts were found (and scratch 
+	 * space for checking them)
+	 */
+	boolean[] changedCells;
+	int[] neighborCells;
+
+	/**
+	 * Indices of the flags in the collision objects
+	 */
+	int[] flagIndices;
+	int numFlagIndices;
+
+	/**
+	 * Runs the ships' actions at the same time, each on its ship's lane with at most 
+	 * movementTimeout milliseconds (if null, the actions run one after another on the 
+	 * calling thread with no time limit)
+	 */
+	CallbackScheduler movementScheduler;
+	ExecutorService movementPool;
+	int movementTimeout;
+
+	/**
+	 * Movements of the ships being controlled by an action this time step
+	 */
+	Movement[] shipMovements;
+	int numControlledShips;
+
+	/**
+	 * Movements to use instead of asking the actions in the next time step (for replays)
+	 */
+	Movement[] replayedMovements;
+
+	/**
+	 * The objects that move on their own, copied into primitive arrays every time step
+	 */
+	PhysicsArrays movingObjects;
+
+	/**
+	 * If false, objects that move on their own are moved one at a time (with a new
+	 * Position for each) instead of through movingObjects
+	 */
+	boolean useArrayIntegration = true;
+
+	/**
+	 * Read-only deep copy of the space that is shared by all of the team clients 
+	 * until the space changes (see getClientSnapshot)
+	 */
+	Toroidal2DPhysics clientSnapshot;
+
+	/**
+	 * True for a client snapshot: neither the space nor its objects can be changed
+	 */
+	boolean readOnly;
+
+	/**
+	 * Spatial index of each type of object that has been queried since the space last
+	 * changed (see getSpatialIndex).  Replaced with an empty map on every change.
+	 */
+	volatile ConcurrentHashMap<Class<?>, SpatialIndex<?>> spatialIndexes = new ConcurrentHashMap<Class<?>, SpatialIndex<?>>();
+
+	/**
+	 * Random free locations are drawn this many times before the free location 
+	 * searches fall back to trying the points of a lattice in order
+	 */
+	public static final int MAX_FREE_LOCATION_ATTEMPTS = 10000;
+
+	/**
+	 * Free location searches check this many attempts against every object before 
+	 * indexing the space
+	 */
+	static final int SCANNED_FREE_LOCATION_ATTEMPTS = 2;
+
+	/**
+	 * Grid over all of the objects for the free location searches.  It is built at the 
+	 * start of each search (the objects move in between) and then every attempt only 
+	 * checks the objects in the grid cells around it.
+	 */
+	ToroidalSpatialGrid freeSpaceGrid;
+	AbstractObject[] freeSpaceObjects;
+	int numFreeSpaceObjects;
+	boolean freeSpaceIndexed;
+
 	/**
 	 * Constructor for the regular game
 	 * @param simConfig
@@ -125,16 +255,9 @@ public class Toroidal2DPhysics {
 		width = simConfig.getWidth();
 		halfHeight = height / 2.0f;
 		halfWidth = width / 2.0f;
-		allObjects = new LinkedHashSet<AbstractObject>();
+		createObjectSets();
 		timeStep = simConfig.getSimulationTimeStep();
 		collisionHandler = new CollisionHandler();
-		beacons = new LinkedHashSet<Beacon>();
-		asteroids = new LinkedHashSet<Asteroid>();
-		bases = new LinkedHashSet<Base>();
-		ships = new LinkedHashSet<Ship>();
-		flags = new LinkedHashSet<Flag>();
-		weapons = new LinkedHashSet<AbstractWeapon>();
-		objectsById = new HashMap<UUID, AbstractObject>();
 		maxTime = simConfig.getSimulationSteps();
 		teamInfo = new LinkedHashSet<ImmutableTeamInfo>();
 	} 
@@ -152,15 +275,8 @@ public class Toroidal2DPhysics {
 		this.timeStep = timeStep;
 		halfHeight = height / 2.0f;
 		halfWidth = width / 2.0f;
-		allObjects = new LinkedHashSet<AbstractObject>();
+		createObjectSets();
 		collisionHandler = new CollisionHandler();
-		beacons = new LinkedHashSet<Beacon>();
-		asteroids = new LinkedHashSet<Asteroid>();
-		bases = new LinkedHashSet<Base>();
-		ships = new LinkedHashSet<Ship>();
-		flags = new LinkedHashSet<Flag>();
-		weapons = new LinkedHashSet<AbstractWeapon>();
-		objectsById = new HashMap<UUID, AbstractObject>();
 		teamInfo = new LinkedHashSet<ImmutableTeamInfo>();
 	}
 
@@ -179,15 +295,8 @@ public class Toroidal2DPhysics {
 		this.currentTimeStep = other.currentTimeStep;
 		halfHeight = height / 2.0f;
 		halfWidth = width / 2.0f;
-		allObjects = new LinkedHashSet<AbstractObject>();
+		createObjectSets();
 		collisionHandler = new CollisionHandler();
-		beacons = new LinkedHashSet<Beacon>();
-		asteroids = new LinkedHashSet<Asteroid>();
-		bases = new LinkedHashSet<Base>();
-		ships = new LinkedHashSet<Ship>();
-		flags = new LinkedHashSet<Flag>();
-		weapons = new LinkedHashSet<AbstractWeapon>();
-		objectsById = new HashMap<UUID, AbstractObject>();
 		maxTime = other.maxTime;
 		teamInfo = new LinkedHashSet<ImmutableTeamInfo>(other.teamInfo);
 	}
@@ -195,37 +304,56 @@ public class Toroidal2DPhysics {
 	
 
 	/**
-	 * Add an object to the physics simulation
+	 * Make the registry and the (empty) sets of objects
+	 */
+	private void createObjectSets() {
+		registry = new ObjectRegistry();
+		allObjects = registry.newSet();
+		beacons = registry.newSet();
+		asteroids = registry.newSet();
+		bases = registry.newSet();
+		ships = registry.newSet();
+		flags = registry.newSet();
+		weapons = registry.newSet();
+	}
+
+	/**
+	 * Add an object to the physics simulation (an object with the same id as one 
+	 * already in it is ignored)
 	 * @param obj
 	 */
 	public void addObject(AbstractObject obj) {
-		allObjects.add(obj);
+		checkWritable();
+		invalidateClientSnapshot();
+		int slot = registry.add(obj);
+		if (slot < 0) {
+			return;
+		}
+		allObjects.add(obj, slot);
 
 		if (obj instanceof Beacon) {
-			beacons.add((Beacon) obj);
+			beacons.add((Beacon) obj, slot);
 		}
 		
 		if (obj instanceof Asteroid) {
-			asteroids.add((Asteroid) obj);
+			asteroids.add((Asteroid) obj, slot);
 		}
 		
 		if (obj instanceof Base) {
-			bases.add((Base) obj);
+			bases.add((Base) obj, slot);
 		}
 		
 		if (obj instanceof Ship) {
-			ships.add((Ship) obj);
+			ships.add((Ship) obj, slot);
 		}
 		
 		if (obj instanceof AbstractWeapon) {
-			weapons.add((AbstractWeapon)obj);
+			weapons.add((AbstractWeapon)obj, slot);
 		}
 		
 		if (obj instanceof Flag) {
-			flags.add((Flag) obj);
+			flags.add((Flag) obj, slot);
 		}
-		
-		objectsById.put(obj.getId(), obj);
 	}
 
 
@@ -234,33 +362,19 @@ public class Toroidal2DPhysics {
 	 * @param obj
 	 */
 	public void removeObject(AbstractObject obj) {
-		allObjects.remove(obj);
-
-		if (obj.getClass() == Beacon.class) {
-			beacons.remove((Beacon) obj);
-		}
-		
-		if (obj.getClass() == Asteroid.class) {
-			asteroids.remove((Asteroid) obj);
-		}
-		
-		if (obj.getClass() == Base.class) {
-			bases.remove((Base) obj);
+		checkWritable();
+		invalidateClientSnapshot();
+		int slot = registry.remove(obj);
+		if (slot < 0) {
+			return;
 		}
-		
-		if (obj.getClass() == Ship.class) {
-			ships.remove((Ship) obj);
-		}
-		
-		if (obj instanceof AbstractWeapon) {
-			weapons.remove((AbstractWeapon)obj);
-		}
-		
-		if (obj instanceof Flag) {
-			flags.remove((Flag) obj);
-		}
-		
-		objectsById.remove(obj.getId());
+		allObjects.remove(slot);
+		beacons.remove(slot);
+		asteroids.remove(slot);
+		bases.remove(slot);
+		ships.remove(slot);
+		weapons.remove(slot);
+		flags.remove(slot);
 	}
 
 	/**
@@ -269,7 +383,36 @@ public class Toroidal2DPhysics {
 	 * @return
 	 */
 	public AbstractObject getObjectById(UUID id) {
-		return objectsById.get(id);
+		if (id == null) {
+			return null;
+		}
+		return registry.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+	}
+
+	/**
+	 * Return an object by its handle (see AbstractObject.getHandle).  Handles are only
+	 * good in the space that gave them out: a copy of the space numbers its objects itself.
+	 * 
+	 * @param handle
+	 * @return the object or null if it has been removed or given a new id since
+	 */
+	public AbstractObject getObjectByHandle(int handle) {
+		return registry.get(handle);
+	}
+
+	/**
+	 * Give an object in the space a new id (and handle) that it can be found by
+	 * 
+	 * @param object
+	 */
+	public void resetId(AbstractObject object) {
+		checkWritable();
+		int slot = registry.slotOf(object);
+		if (slot < 0) {
+			object.resetId();
+		} else {
+			registry.resetId(slot);
+		}
 	}
 
 	/**
@@ -362,14 +505,26 @@ public class Toroidal2DPhysics {
 	 * @param radius the radius around the new location that must be free
 	 * @return
 	 */
-	public Position getRandomFreeLocation(Random rand, int radius) {
-		Position randLocation = new Position(rand.nextFloat() * width, rand.nextFloat() * height);
+	public synchronized Position getRandomFreeLocation(Random rand, int radius) {
+		try {
+			return findRandomFreeLocation(rand, radius);
+		} finally {
+			releaseFreeSpace();
+		}
+	}
 
-		while (!isLocationFree(randLocation, radius)) {
-			randLocation = new Position(rand.nextFloat() * width, rand.nextFloat() * height);
+	/**
+	 * getRandomFreeLocation without letting go of the free space index
+	 */
+	private Position findRandomFreeLocation(Random rand, int radius) {
+		for (int attempt = 0; attempt < MAX_FREE_LOCATION_ATTEMPTS; attempt++) {
+			Position randLocation = new Position(rand.nextFloat() * width, rand.nextFloat() * height);
+			if (isLocationFree(randLocation, radius, attempt)) {
+				return randLocation;
+			}
 		}
 
-		return randLocation;
+		return findFreeLocationInOrder(radius, width / 2.0, height / 2.0, width / 2.0, height / 2.0, Double.MAX_VALUE);
 	}
 
 	/**
@@ -379,22 +534,25 @@ public class Toroidal2DPhysics {
 	 * @param freeRadius the radius around the object that must be free
 	 * @return
 	 */
-	public Position getRandomFreeLocationInRegion(Random rand, int freeRadius, 
+	public synchronized Position getRandomFreeLocationInRegion(Random rand, int freeRadius, 
 			int centerX, int centerY, double maxDistance) {
-		Position centerPosition = new Position(centerX, centerY);
-		double newX = ((2 * rand.nextDouble()) - 1) * maxDistance + centerX;
-		double newY = ((2 * rand.nextDouble()) - 1) * maxDistance + centerY;
-		Position randLocation = new Position(newX, newY);
-		toroidalWrap(randLocation);
+		try {
+			Position centerPosition = new Position(centerX, centerY);
+			for (int attempt = 0; attempt < MAX_FREE_LOCATION_ATTEMPTS; attempt++) {
+				double newX = ((2 * rand.nextDouble()) - 1) * maxDistance + centerX;
+				double newY = ((2 * rand.nextDouble()) - 1) * maxDistance + centerY;
+				Position randLocation = new Position(newX, newY);
+				toroidalWrap(randLocation);
+
+				if (findShortestDistance(centerPosition, randLocation) <= maxDistance && isLocationFree(randLocation, freeRadius, attempt)) {
+					return randLocation;
+				}
+			}
 
-		while (!isLocationFree(randLocation, freeRadius) || findShortestDistance(centerPosition, randLocation) > maxDistance) {
-			newX = ((2 * rand.nextDouble()) - 1) * maxDistance + centerX;
-			newY = ((2 * rand.nextDouble()) - 1) * maxDistance + centerY;
-			randLocation = new Position(newX, newY);
-			toroidalWrap(randLocation);
+			return findFreeLocationInOrder(freeRadius, centerX, centerY, maxDistance, maxDistance, maxDistance);
+		} finally {
+			releaseFreeSpace();
 		}
-
-		return randLocation;
 	}
 
 	/**
@@ -403,7 +561,7 @@ public class Toroidal2DPhysics {
 	 * @param rand Random number generator
 	 * @return
 	 */
-	public Position getRandomFreeLocationInRegion(Random rand, int freeRadius, 
+	public synchronized Position getRandomFreeLocationInRegion(Random rand, int freeRadius, 
 			int ULX, int ULY, int LRX, int LRY) {
 		int boxWidth = LRX - ULX;
 		int boxHeight = LRY - ULY;
@@ -413,22 +571,159 @@ public class Toroidal2DPhysics {
 		
 		Position centerPosition = new Position(boxWidth / 2 + ULX, boxHeight / 2 + ULY);
 		//System.out.println("Center position is " + centerPosition);
-		double newX = ((2 * rand.nextDouble()) - 1) * (boxWidth / 2.0) + centerPosition.getX();
-		double newY = ((2 * rand.nextDouble()) - 1) * (boxHeight / 2.0) + centerPosition.getY();
-		Position randLocation = new Position(newX, newY);
-		toroidalWrap(randLocation);
+		try {
+			for (int attempt = 0; attempt < MAX_FREE_LOCATION_ATTEMPTS; attempt++) {
+				double newX = ((2 * rand.nextDouble()) - 1) * (boxWidth / 2.0) + centerPosition.getX();
+				double newY = ((2 * rand.nextDouble()) - 1) * (boxHeight / 2.0) + centerPosition.getY();
+				Position randLocation = new Position(newX, newY);
+				toroidalWrap(randLocation);
+
+				if (isLocationFree(randLocation, freeRadius, attempt)) {
+					//System.out.println("random location chosen is " + randLocation);
+					return randLocation;
+				}
+			}
 
-		while (!isLocationFree(randLocation, freeRadius)) {
-			newX = ((2 * rand.nextDouble()) - 1) * (boxWidth / 2.0) + centerPosition.getX();
-			newY = ((2 * rand.nextDouble()) - 1) * (boxHeight / 2.0) + centerPosition.getY();
-			randLocation = new Position(newX, newY);
-			toroidalWrap(randLocation);
+			return findFreeLocationInOrder(freeRadius, centerPosition.getX(), centerPosition.getY(), 
+					boxWidth / 2.0, boxHeight / 2.0, Double.MAX_VALUE);
+		} finally {
+			releaseFreeSpace();
 		}
+	}
 
-		//System.out.println("random location chosen is " + randLocation);
-		return randLocation;
+	/**
+	 * isLocationFree for an attempt of a free location search.  The first attempts check 
+	 * every object (cheapest when the space is mostly empty) and if they all fail the 
+	 * space is indexed for the rest of the search.
+	 * 
+	 * @param location
+	 * @param radius
+	 * @param attempt number of the attempt (from 0)
+	 * @return
+	 */
+	private boolean isLocationFree(Position location, int radius, int attempt) {
+		if (!freeSpaceIndexed) {
+			if (attempt < SCANNED_FREE_LOCATION_ATTEMPTS) {
+				return isLocationFree(location, radius);
+			}
+			indexFreeSpace(radius);
+		}
+		return isIndexedLocationFree(location, radius);
 	}
 
+	/**
+	 * Index all of the objects (alive or not, like isLocationFree) for free location 
+	 * searches of up to the specified radius.  The objects must not move until 
+	 * releaseFreeSpace unless the grid is updated.
+	 * 
+	 * @param maxFreeRadius
+	 */
+	private void indexFreeSpace(int maxFreeRadius) {
+		numFreeSpaceObjects = allObjects.size();
+		if (freeSpaceObjects == null || freeSpaceObjects.length < numFreeSpaceObjects) {
+			freeSpaceObjects = new AbstractObject[2 * numFreeSpaceObjects];
+		}
+		if (freeSpaceGrid == null) {
+			freeSpaceGrid = new ToroidalSpatialGrid(width, height);
+		}
+
+		int maxRadius = 0;
+		int index = 0;
+		for (AbstractObject object : allObjects) {
+			freeSpaceObjects[index++] = object;
+			maxRadius = Math.max(maxRadius, object.getRadius());
+		}
+
+		// anything that can be in the way of a location is in its cell or the ones next to it
+		freeSpaceGrid.rebuild(freeSpaceObjects, numFreeSpaceObjects, maxFreeRadius + maxRadius + 1);
+		freeSpaceIndexed = true;
+	}
+
+	/**
+	 * Let go of the objects indexed by indexFreeSpace
+	 */
+	private void releaseFreeSpace() {
+		if (freeSpaceIndexed) {
+			Arrays.fill(freeSpaceObjects, 0, numFreeSpaceObjects, null);
+			numFreeSpaceObjects = 0;
+			freeSpaceIndexed = false;
+		}
+	}
+
+	/**
+	 * isLocationFree on the free space index: only the objects in the grid cells around 
+	 * the location are checked
+	 * 
+	 * @param location
+	 * @param radius at most the radius the index was built for
+	 * @return
+	 */
+	private boolean isIndexedLocationFree(Position location, int radius) {
+		return freeSpaceGrid.isLocationFree(this, location, radius);
+	}
+
+	/**
+	 * The fallback when random locations keep landing on objects: try the points of a 
+	 * lattice (spaced by the free radius) around the center in rings, nearest ring first.
+	 * 
+	 * @param freeRadius
+	 * @param centerX
+	 * @param centerY
+	 * @param halfBoxWidth how far from the center the points can be in x
+	 * @param halfBoxHeight how far from the center the points can be in y
+	 * @param maxDistance how far from the center the points can be
+	 * @return the first free point
+	 * @throws IllegalStateException if none of the points is free
+	 */
+	private Position findFreeLocationInOrder(int freeRadius, double centerX, double centerY, 
+			double halfBoxWidth, double halfBoxHeight, double maxDistance) {
+		if (!freeSpaceIndexed) {
+			indexFreeSpace(freeRadius);
+		}
+		Position centerPosition = new Position(centerX, centerY);
+		double step = Math.max(1, freeRadius);
+		int maxRing = (int) Math.ceil(Math.max(halfBoxWidth, halfBoxHeight) / step);
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			// the top and bottom rows of the ring and then its sides
+			for (int i = -ring; i <= ring; i++) {
+				for (int side = -1; side <= 1; side += 2) {
+					Position location = getFreeLatticePoint(freeRadius, centerPosition, i * step, side * ring * step, 
+							halfBoxWidth, halfBoxHeight, maxDistance);
+					if (location == null && ring > 0 && i > -ring && i < ring) {
+						location = getFreeLatticePoint(freeRadius, centerPosition, side * ring * step, i * step, 
+								halfBoxWidth, halfBoxHeight, maxDistance);
+					}
+					if (location != null) {
+						return location;
+					}
+					if (ring == 0) {
+						break;
+					}
+				}
+			}
+		}
+
+		throw new IllegalStateException("No free location of radius " + freeRadius + " near (" + centerX + ", " + centerY + ")");
+	}
+
+	/**
+	 * The lattice point at the offset from the center if it is inside the region and free
+	 * 
+	 * @return the point or null
+	 */
+	private Position getFreeLatticePoint(int freeRadius, Position centerPosition, double dx, double dy, 
+			double halfBoxWidth, double halfBoxHeight, double maxDistance) {
+		if (Math.abs(dx) > halfBoxWidth || Math.abs(dy) > halfBoxHeight) {
+			return null;
+		}
+		Position location = new Position(centerPosition.getX() + dx, centerPosition.getY() + dy);
+		toroidalWrap(location);
+		if (findShortestDistance(centerPosition, location) > maxDistance || !isIndexedLocationFree(location, freeRadius)) {
+			return null;
+		}
+		return location;
+	}
 
 	/**
 	 * Is the specified location free (within the specified radius)?
@@ -439,7 +734,7 @@ public class Toroidal2DPhysics {
 	 */
 	public boolean isLocationFree(Position location, int radius) {
 		for (AbstractObject object : allObjects) {
-			if (findShortestDistanceVector(object.getPosition(), location).getMagnitude() <= (radius + object.getRadius())) {
+			if (findShortestDistance(object.getPosition(), location) <= (radius + object.getRadius())) {
 				return false;
 			}
 		}
@@ -456,7 +751,22 @@ public class Toroidal2DPhysics {
 	 * @return shortest distance vector pointing from location1 to location2
 	 */
 	public Vector2D findShortestDistanceVector(Position location1, Position location2) {
-		return findShortestDistanceVector(location1, location2, width, height, halfWidth, halfHeight);
+		return new Vector2D(wrapDifference(location2.getX() - location1.getX(), width, halfWidth),
+				wrapDifference(location2.getY() - location1.getY(), height, halfHeight));
+	}
+
+	/**
+	 * Finds the same vector as findShortestDistanceVector but writes it into the
+	 * array given (x in result[0] and y in result[1]) instead of making a new vector.
+	 * Use this inside loops where the vector is only needed for a moment.
+	 * 
+	 * @param location1
+	 * @param location2
+	 * @param result array of at least 2 that the x and y of the vector are written to
+	 */
+	public void findShortestDistanceVector(Position location1, Position location2, double[] result) {
+		result[0] = wrapDifference(location2.getX() - location1.getX(), width, halfWidth);
+		result[1] = wrapDifference(location2.getY() - location1.getY(), height, halfHeight);
 	}
 
 	/**
@@ -470,51 +780,74 @@ public class Toroidal2DPhysics {
 	 * @return shortest distance length (magnitude of the vector pointing from location1 to location2)
 	 */
 	public double findShortestDistance(Position location1, Position location2) {
-		Vector2D shortDist = findShortestDistanceVector(location1, location2, width, height, halfWidth, halfHeight);
-		return shortDist.getMagnitude();
+		return Math.sqrt(findShortestDistanceSquared(location1, location2));
 	}
 
-
 	/**
-	 * Finds the shortest distance in toroidal space. Returns a vector
-	 * pointing from the start to the target location and getMagnitude can be used
-	 * to find the distance and the angle.
+	 * The square of the shortest toroidal distance from one location to another.
+	 * Cheaper than findShortestDistance (no square root) and enough for comparing
+	 * distances, e.g. finding the nearest object.
 	 * 
 	 * @param location1
 	 * @param location2
-	 * @param width
-	 * @param height
-	 * @param halfWidth
-	 * @param halfHeight
+	 * @return the square of the shortest distance from location1 to location2
+	 */
+	public double findShortestDistanceSquared(Position location1, Position location2) {
+		return shortestDistanceSquared(location1.getX(), location1.getY(), location2.getX(), location2.getY());
+	}
+
+	/**
+	 * The square of the shortest toroidal distance between two points
+	 * 
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
 	 * @return
 	 */
-	private Vector2D findShortestDistanceVector(Position location1,
-			Position location2, float width, float height,
-			float halfWidth, float halfHeight) {
-		double x = location2.getX() - location1.getX();
-		double y = location2.getY() - location1.getY();
-		if (x > halfWidth) {
-			if (y > halfHeight) {
-				return new Vector2D(x - width, y - height);
-			} else if (y < -halfHeight) {
-				return new Vector2D(x - width, y + height);
-			} else {
-				return new Vector2D(x - width, y);
-			}
-		} else if (x < -halfWidth) {
-			if (y > halfHeight) {
-				return new Vector2D(x + width, y - height);
-			} else if (y < -halfHeight) {
-				return new Vector2D(x + width, y + height);
-			} else {
-				return new Vector2D(x + width, y);
-			}
-		} else if (y > halfHeight) {
-			return new Vector2D(x, y - height);
-		} else if (y < -halfHeight) {
-			return new Vector2D(x, y + height);
+	double shortestDistanceSquared(double x1, double y1, double x2, double y2) {
+		double x = wrapDifference(x2 - x1, width, halfWidth);
+		double y = wrapDifference(y2 - y1, height, halfHeight);
+		return x * x + y * y;
+	}
+
+	/**
+	 * Finds the shortest distance from the location to each of the objects and writes
+	 * them into distances in the order the objects are iterated (so distances[i] belongs
+	 * to the i-th object).  The array can be reused between calls.
+	 * 
+	 * @param location
+	 * @param objects the objects to measure to (e.g. getAsteroids())
+	 * @param distances array of at least objects.size() that the distances are written to
+	 * @return the number of distances written
+	 */
+	public int findShortestDistances(Position location, Collection<? extends AbstractObject> objects, double[] distances) {
+		if (distances.length < objects.size()) {
+			throw new IllegalArgumentException("Need room for " + objects.size() + " distances but the array holds " + distances.length);
+		}
+		int i = 0;
+		for (AbstractObject object : objects) {
+			distances[i++] = findShortestDistance(location, object.getPosition());
+		}
+		return i;
+	}
+
+	/**
+	 * Shortest difference along one axis of toroidal space (going around the 
+	 * other way if that is shorter)
+	 * 
+	 * @param difference coordinate2 - coordinate1
+	 * @param size width or height of the space
+	 * @param halfSize half of the size
+	 * @return
+	 */
+	private static double wrapDifference(double difference, float size, float halfSize) {
+		if (difference > halfSize) {
+			return difference - size;
+		} else if (difference < -halfSize) {
+			return difference + size;
 		} else {
-			return new Vector2D(x, y);
+			return difference;
 		}
 	}
 
@@ -522,8 +855,12 @@ public class Toroidal2DPhysics {
 	 * Move all moveable objects and handle power ups.
 	 */
 	public void advanceTime(int currentTimeStep, Map<UUID, SpaceSettlersPowerupEnum> powerups) {
-		
+		checkWritable();
 		this.currentTimeStep = currentTimeStep;
+		invalidateClientSnapshot();
+		if (events != null) {
+			events.setTimeStep(currentTimeStep);
+		}
 		
 		// heal any base injuries
 		for (Base base : bases) {
@@ -545,6 +882,29 @@ public class Toroidal2DPhysics {
 			handlePowerup((AbstractActionableObject)swobject, powerups.get(key));
 		}
 
+		// the actions all see the space as it was before anything moved this step.  
+		// The copy is only made if a ship will actually need it.
+		Toroidal2DPhysics actionSpace = null;
+		for (Ship ship : ships) {
+			if (replayedMovements == null && ship.isAlive() && ship.isControllable()) {
+				actionSpace = getClientSnapshot();
+				break;
+			}
+		}
+
+		// every action sees the same copy of the space, so all the movements can be found 
+		// (at the same time) before any of them are applied
+		findShipMovements(actionSpace);
+		int nextShip = 0;
+
+		// the objects that aren't controlled are collected and moved together after the loop
+		if (useArrayIntegration) {
+			if (movingObjects == null) {
+				movingObjects = new PhysicsArrays();
+			}
+			movingObjects.clear();
+		}
+
 		// now move all objects that are moveable (which may include weapons)
 		for (AbstractObject object : allObjects) {
 			// skip non-moveable objects or dead object
@@ -557,17 +917,9 @@ public class Toroidal2DPhysics {
 			// is it a ship that can be controlled?
 			if (object.isControllable()) {
 
+				// the ships are visited in the same order as findShipMovements visited them
 				Ship ship = (Ship) object;
-				AbstractAction action = ship.getCurrentAction();
-				
-				// handle a null action
-				if (action == null) {
-					action = new DoNothingAction();
-				}
-
-				// need to clone the ship and space because otherwise the ship can affect
-				// itself inside AbstractAction
-				Movement actionMovement = action.getMovement(this.deepClone(), ship.deepClone());
+				Movement actionMovement = shipMovements[nextShip++];
 
 				Position newPosition = applyMovement(currentPosition, actionMovement, timeStep);
 				if (newPosition.isValid()) {
@@ -596,6 +948,8 @@ public class Toroidal2DPhysics {
 //					System.out.println("Ship " + ship.getTeamName() + ship.getId() + " is dead");
 //				}
 				
+			} else if (useArrayIntegration) {
+				movingObjects.add(object);
 			} else {
 				// move all other types of objects
 				Position newPosition = moveOneTimestep(currentPosition);
@@ -609,7 +963,15 @@ public class Toroidal2DPhysics {
 			}
 
 		}
+
+		if (useArrayIntegration) {
+			movingObjects.moveOneTimestepAndStore(timeStep, width, height, physicsPool);
+			movingObjects.clear();
+		}
 		
+		// everything has moved so the copy the actions used is out of date
+		invalidateClientSnapshot();
+
 		// go through and see if any bases have died
 		Set<Base> basesClone = new LinkedHashSet<Base>(bases);
 		for (Base base : basesClone) {
@@ -650,6 +1012,143 @@ public class Toroidal2DPhysics {
 		}
 	}
 
+	/**
+	 * Find the movement of every ship being controlled by an action (in the order of 
+	 * allObjects).  With a movement scheduler, the actions all run at the same time, each 
+	 * with movementTimeout milliseconds, and a ship whose action runs out of time (or 
+	 * throws an exception) gets no movement.  Without one, a ship whose action tries to 
+	 * change the space it was given gets no movement.
+	 * 
+	 * @param actionSpace the read-only copy of the space the actions see
+	 */
+	private void findShipMovements(Toroidal2DPhysics actionSpace) {
+		numControlledShips = 0;
+		if (shipMovements == null || shipMovements.length < ships.size()) {
+			shipMovements = new Movement[Math.max(16, ships.size() * 2)];
+		}
+
+		Movement[] replayed = replayedMovements;
+		replayedMovements = null;
+
+		List<Future<Movement>> futures = null;
+		if (movementScheduler != null) {
+			futures = new ArrayList<Future<Movement>>();
+		}
+
+		for (AbstractObject object : allObjects) {
+			if (!object.isMoveable() || !object.isAlive() || !object.isControllable()) {
+				continue;
+			}
+
+			if (replayed != null) {
+				if (numControlledShips == replayed.length) {
+					throw new IllegalStateException("More ships are controlled than the " + replayed.length + " replayed movements");
+				}
+				shipMovements[numControlledShips] = replayed[numControlledShips];
+				numControlledShips++;
+				continue;
+			}
+
+			Ship ship = (Ship) object;
+			AbstractAction action = ship.getCurrentAction();
+
+			// handle a null action
+			if (action == null) {
+				action = new DoNothingAction();
+			}
+
+			// the action gets read-only copies of the ship and space because otherwise the ship 
+			// can affect itself (or the other ships) inside AbstractAction.  The space is copied 
+			// once per step, not per ship, and shared by all of the actions.
+			Ship actionShip = (Ship) actionSpace.getObjectById(ship.getId());
+			if (actionShip == null) {
+				actionShip = ship.deepClone();
+				actionShip.makeReadOnly();
+			}
+
+			if (movementScheduler == null) {
+				try {
+					shipMovements[numControlledShips] = action.getMovement(actionSpace, actionShip);
+				} catch (UnsupportedOperationException e) {
+					// the action tried to change the read-only space...no movement
+					shipMovements[numControlledShips] = new Movement();
+				}
+			} else {
+				futures.add(movementPool.submit(new MovementCallable(action, actionSpace, actionShip)));
+			}
+			numControlledShips++;
+		}
+
+		if (replayed != null && numControlledShips != replayed.length) {
+			throw new IllegalStateException("Only " + numControlledShips + " ships are controlled but "
+					+ replayed.length + " movements were replayed");
+		}
+
+		if (futures != null) {
+			for (int i = 0; i < numControlledShips; i++) {
+				Movement movement;
+				try {
+					movement = futures.get(i).get();
+				} catch (InterruptedException e) {
+					//something went wrong...no movement
+					movement = new Movement();
+				} catch (ExecutionException e) {
+					//something went wrong...no movement
+					movement = new Movement();
+				}
+				shipMovements[i] = movement;
+			}
+		}
+	}
+
+	/**
+	 * Use these movements for the ships controlled by an action in the next time step 
+	 * instead of asking their actions (used to replay a recorded game).  The i-th 
+	 * movement goes to the i-th controlled ship in the order of getAllObjects.
+	 * 
+	 * @param movements
+	 */
+	public void setReplayedMovements(Movement[] movements) {
+		replayedMovements = movements;
+	}
+
+	/**
+	 * Gets one ship's movement on the movement scheduler (with the time limit)
+	 */
+	class MovementCallable implements Callable<Movement> {
+		AbstractAction action;
+		Toroidal2DPhysics actionSpace;
+		Ship actionShip;
+
+		MovementCallable(AbstractAction action, Toroidal2DPhysics actionSpace, Ship actionShip) {
+			this.action = action;
+			this.actionSpace = actionSpace;
+			this.actionShip = actionShip;
+		}
+
+		public Movement call() {
+			return action.getMovement(actionSpace, actionShip, movementTimeout, movementScheduler);
+		}
+	}
+
+	/**
+	 * Run the ships' actions at the same time on the scheduler (one lane per ship), using 
+	 * the pool to wait for them.  Each action gets at most timeoutMillis milliseconds.
+	 * The actions of all of the teams then read the same client snapshot from different
+	 * threads, which is safe only because the snapshot (and every ship in it) is read-only.
+	 * An action object that a client gives to more than one ship may be called from more
+	 * than one thread at a time.
+	 * 
+	 * @param scheduler null to run the actions one after another on the calling thread
+	 * @param pool
+	 * @param timeoutMillis
+	 */
+	public void setMovementScheduler(CallbackScheduler scheduler, ExecutorService pool, int timeoutMillis) {
+		this.movementScheduler = scheduler;
+		this.movementPool = pool;
+		this.movementTimeout = timeoutMillis;
+	}
+
 	/**
 	 * Distribute the specified resources to nearby mineable asteroids (this happens when a ship dies)
 	 * Right now it drops it on the single nearest asteroid but that may change if this ends up making
@@ -664,7 +1163,7 @@ public class Toroidal2DPhysics {
 		
 		// first find the nearest asteroid
 		for (Asteroid asteroid : asteroids) {
-			double dist = findShortestDistance(position, asteroid.getPosition());
+			double dist = findShortestDistanceSquared(position, asteroid.getPosition());
 			if (dist < nearestDistance) {
 				nearestDistance = dist;
 				nearestAsteroid = asteroid;
@@ -691,7 +1190,7 @@ public class Toroidal2DPhysics {
 		switch(spacewarPowerup) {
 		case FIRE_MISSILE:
 			Ship ship = (Ship) swobject;
-			AbstractWeapon weapon = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_MISSILE);
+			AbstractWeapon weapon = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_MISSILE, weaponPool);
 			if (weapon != null && weapon.isValidWeapon(ship)) { 
 				addObject(weapon);
 				weapon.setFiringShip(ship);
@@ -701,7 +1200,7 @@ public class Toroidal2DPhysics {
 			
 		case FIRE_EMP:
 			ship = (Ship) swobject;
-			weapon = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_EMP);
+			weapon = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_EMP, weaponPool);
 			if (weapon != null && weapon.isValidWeapon(ship)) { 
 				addObject(weapon);
 				weapon.setFiringShip(ship);
@@ -776,21 +1275,211 @@ public class Toroidal2DPhysics {
 	 * Step through all the objects and ensure they are not colliding.  If they are,
 	 * call the collision handler for those objects.  Sometimes you bounce (asteroids)
 	 * and sometimes you pick the object up (beacons), etc.
+	 * 
+	 * Pairs are visited in the same order as a loop over all pairs (i < j) would visit them, 
+	 * but only pairs in neighboring cells of the spatial grid are tested.  A collision can move 
+	 * both objects, so they are re-binned afterwards and the remaining candidates for the first 
+	 * object are looked up again from its new position.
+	 * 
+	 * With a physics pool, the pairs that overlap before any collision is handled are found 
+	 * in parallel first.  The collisions are still handled one at a time in the same order: 
+	 * an object whose neighboring cells haven't been touched by a collision yet uses its 
+	 * precomputed pairs (they are exactly what the search would find) and any other object 
+	 * is searched as before, so the results are the same as on one thread.
 	 */
-	private void detectCollisions() {
+	void detectCollisions() {
 		// would prefer to iterate over the set (as this is inefficient) but
 		// the set iterator collides a with b and then b with a, allowing them to 
 		// pass through one another!
-		AbstractObject[] allObjectsArray = (AbstractObject[]) allObjects.toArray(new AbstractObject[allObjects.size()]);
+		int numObjects = allObjects.size();
+		if (collisionObjects == null || collisionObjects.length < numObjects) {
+			collisionObjects = new AbstractObject[2 * numObjects];
+		}
+		AbstractObject[] allObjectsArray = allObjects.toArray(collisionObjects);
+
+		if (!useSpatialGrid) {
+			detectCollisionsAllPairs(allObjectsArray, numObjects);
+			return;
+		}
+
+		// cells must be at least as large as the biggest pair of radii so colliding objects are neighbors
+		int maxRadius = 0;
+		for (int i = 0; i < numObjects; i++) {
+			maxRadius = Math.max(maxRadius, allObjectsArray[i].getRadius());
+		}
+		if (collisionGrid == null) {
+			collisionGrid = new ToroidalSpatialGrid(width, height);
+		}
+		collisionGrid.rebuild(allObjectsArray, numObjects, 2 * maxRadius + 1);
+
+		boolean useContacts = physicsPool != null;
+		if (useContacts) {
+			findContacts(allObjectsArray, numObjects);
+		}
+
+		for (int i = 0; i < numObjects; i++) {
+			AbstractObject object1 = allObjectsArray[i];
+			if (!object1.isAlive()) {
+				continue;
+			}
+
+			int lastChecked = i;
+			if (useContacts && !isNeighborhoodChanged(object1, i)) {
+				// nothing near the object has changed so the first overlapping pair is known
+				if (collisionContacts.getCount(i) == 0) {
+					continue;
+				}
+				int j = collisionContacts.getContact(i, 0);
+				collide(allObjectsArray, i, j, useContacts);
+				lastChecked = j;
+			}
+
+			boolean moved = true;
+			while (moved) {
+				moved = false;
+				Position position1 = object1.getPosition();
+				double x1 = position1.getX();
+				double y1 = position1.getY();
+				int numCandidates = collisionGrid.findCandidates(x1, y1, lastChecked);
+				int[] candidates = collisionGrid.getCandidates();
+
+				for (int c = 0; c < numCandidates; c++) {
+					int j = candidates[c];
+					lastChecked = j;
+					AbstractObject object2 = allObjectsArray[j];
+
+					if (!object2.isAlive()) {
+						continue;
+					}
+
+					// skip them if they are the same object
+					if (object1.equals(object2)) {
+						continue;
+					}
+
+					double distance = findShortestDistance(object1.getPosition(), object2.getPosition());
+
+					if (distance < (object1.getRadius() + object2.getRadius())) {
+						collide(allObjectsArray, i, j, useContacts);
+
+						// the rest of the candidates came from the old location
+						if (object1.getPosition().getX() != x1 || object1.getPosition().getY() != y1) {
+							moved = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		// don't hold onto objects that may be removed later
+		Arrays.fill(allObjectsArray, 0, numObjects, null);
+	}
 
+	/**
+	 * Handle the collision of the objects at indices i and j and re-bin them.  If 
+	 * the collision contacts are in use, the cells the objects were and are in are marked 
+	 * as changed (and so are the cells of the flags when a ship collides, since a ship 
+	 * can pick up, drop or deposit a flag).
+	 * 
+	 * @param allObjectsArray
+	 * @param i
+	 * @param j
+	 * @param useContacts
+	 */
+	private void collide(AbstractObject[] allObjectsArray, int i, int j, boolean useContacts) {
+		AbstractObject object1 = allObjectsArray[i];
+		AbstractObject object2 = allObjectsArray[j];
+		if (useContacts) {
+			changedCells[collisionGrid.getCellOf(i)] = true;
+			changedCells[collisionGrid.getCellOf(j)] = true;
+			if (object1 instanceof Ship || object2 instanceof Ship) {
+				for (int f = 0; f < numFlagIndices; f++) {
+					changedCells[collisionGrid.getCellOf(flagIndices[f])] = true;
+				}
+			}
+		}
+
+		collisionHandler.collide(object1, object2, this);
+		collisionGrid.update(i);
+		collisionGrid.update(j);
+
+		if (useContacts) {
+			changedCells[collisionGrid.getCellOf(i)] = true;
+			changedCells[collisionGrid.getCellOf(j)] = true;
+		}
+	}
+
+	/**
+	 * Find the overlapping pairs on the physics pool and reset the changed cells
+	 * 
+	 * @param allObjectsArray
+	 * @param numObjects
+	 */
+	private void findContacts(AbstractObject[] allObjectsArray, int numObjects) {
+		if (collisionContacts == null) {
+			collisionContacts = new CollisionContacts();
+			neighborCells = new int[9];
+			flagIndices = new int[0];
+		}
+		collisionContacts.find(physicsPool, this, collisionGrid, allObjectsArray, numObjects);
+
+		int numCells = collisionGrid.getNumCells();
+		if (changedCells == null || changedCells.length < numCells) {
+			changedCells = new boolean[numCells];
+		} else {
+			Arrays.fill(changedCells, 0, numCells, false);
+		}
+
+		numFlagIndices = 0;
+		for (int i = 0; i < numObjects; i++) {
+			if (allObjectsArray[i] instanceof Flag) {
+				if (numFlagIndices == flagIndices.length) {
+					flagIndices = Arrays.copyOf(flagIndices, Math.max(4, numFlagIndices * 2));
+				}
+				flagIndices[numFlagIndices++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a collision has changed the object's own cell or any of the cells 
+	 * that would be searched for its candidates
+	 * 
+	 * @param object
+	 * @param index index of the object in the grid
+	 * @return
+	 */
+	private boolean isNeighborhoodChanged(AbstractObject object, int index) {
+		if (changedCells[collisionGrid.getCellOf(index)]) {
+			return true;
+		}
+		Position position = object.getPosition();
+		int numCells = collisionGrid.getNeighborCells(position.getX(), position.getY(), neighborCells);
+		for (int c = 0; c < numCells; c++) {
+			if (changedCells[neighborCells[c]]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Test every pair of objects for collisions (the original algorithm, kept to 
+	 * check the spatial grid against)
+	 * 
+	 * @param allObjectsArray
+	 * @param numObjects
+	 */
+	private void detectCollisionsAllPairs(AbstractObject[] allObjectsArray, int numObjects) {
 		// loop through all pairs of objects and see if they are colliding
-		for (int i = 0; i < allObjectsArray.length; i++) {
+		for (int i = 0; i < numObjects; i++) {
 			AbstractObject object1 = allObjectsArray[i];
 			if (!object1.isAlive()) {
 				continue;
 			}
 			
-			for (int j = i + 1; j < allObjectsArray.length; j++) {
+			for (int j = i + 1; j < numObjects; j++) {
 				AbstractObject object2 = allObjectsArray[j];
 
 				if (!object2.isAlive()) {
@@ -809,6 +1498,9 @@ public class Toroidal2DPhysics {
 				}
 			}
 		}
+
+		// don't hold onto objects that may be removed later
+		Arrays.fill(allObjectsArray, 0, numObjects, null);
 	}
 
 	/**
@@ -893,9 +1585,30 @@ public class Toroidal2DPhysics {
 	 * Respawns any dead objects in new random locations.  Ships
 	 * have a delay before they can respawn.
 	 */
-	public void respawnDeadObjects(Random random, double asteroidMaxVelocity) {
+	public synchronized void respawnDeadObjects(Random random, double asteroidMaxVelocity) {
+		checkWritable();
+		invalidateClientSnapshot();
+
+		// find what respawns (canRespawn counts down the ship delays, so it is asked once per 
+		// object) and index the space for the largest free radius needed
+		ArrayList<AbstractObject> respawning = new ArrayList<AbstractObject>();
+		int maxFreeRadius = -1;
 		for (AbstractObject object : allObjects) {
 			if (!object.isAlive() && object.canRespawn()) {
+				respawning.add(object);
+				maxFreeRadius = Math.max(maxFreeRadius, object instanceof Flag ? object.getRadius() : object.getRadius() * 2);
+			}
+		}
+		if (respawning.isEmpty()) {
+			return;
+		}
+		indexFreeSpace(maxFreeRadius);
+
+		int index = 0;
+		int nextRespawn = 0;
+		for (AbstractObject object : allObjects) {
+			if (nextRespawn < respawning.size() && respawning.get(nextRespawn) == object) {
+				nextRespawn++;
 				Position newPosition = null;
 				
 				// flags should re-spawn at a randomly chosen starting location
@@ -905,15 +1618,24 @@ public class Toroidal2DPhysics {
 
 					// ensure their starting location is free (to handle the thought bug the class
 					// introduced of putting a ship or a base where the flag should spawn)
-					while (!this.isLocationFree(newPosition, flag.getRadius())) {
+					int attempts = 0;
+					while (!isIndexedLocationFree(newPosition, flag.getRadius())) {
+						if (++attempts > MAX_FREE_LOCATION_ATTEMPTS) {
+							newPosition = findFreeLocationInOrder(flag.getRadius(), newPosition.getX(), newPosition.getY(), 
+									width / 2.0, height / 2.0, Double.MAX_VALUE);
+							break;
+						}
 						double offset = ((random.nextDouble() * 2.0) - 1.0) * (flag.getRadius() * 5.0);
 						newPosition.setX(newPosition.getX() + offset);
 						offset = ((random.nextDouble() * 2.0) - 1.0) * (flag.getRadius() * 5.0);
 						newPosition.setY(newPosition.getY() + offset);
 					}
+
+					// the flag gets its own copy of the starting location since it is moved in place
+					newPosition = newPosition.deepCopy();
 					
 				} else {
-					newPosition = getRandomFreeLocation(random, object.getRadius() * 2);
+					newPosition = findRandomFreeLocation(random, object.getRadius() * 2);
 				}
 				
 				object.setPosition(newPosition);
@@ -922,7 +1644,7 @@ public class Toroidal2DPhysics {
 
 				// reset the UUID if it is a asteroid or beacon
 				if (object instanceof Asteroid || object instanceof Beacon) {
-					object.resetId();
+					resetId(object);
 				}
 
 				// make moveable asteroids move again when they respawn
@@ -931,10 +1653,58 @@ public class Toroidal2DPhysics {
                     object.getPosition().setTranslationalVelocity(randomMotion);
                 }
 
+				if (events != null) {
+					events.publish(SimulationEventType.RESPAWN, object, null, 0);
+				}
 			}
+
+			// the object may have moved
+			freeSpaceGrid.update(index++);
 		}
-		
+		releaseFreeSpace();
+	}
+
+	/**
+	 * Publish the collisions, their side effects and the respawns to the stream
+	 * 
+	 * @param events the stream (or null to stop publishing)
+	 */
+	public void setEventStream(SimulationEventStream events) {
+		this.events = events;
+		collisionHandler.events = events;
+	}
+
+	/**
+	 * @return where the events of the game are published (or null)
+	 */
+	public SimulationEventStream getEventStream() {
+		return events;
+	}
+
+	/**
+	 * Set how many threads step the physics.  With more than one, moving the objects and 
+	 * finding the overlapping pairs are split across a fork-join pool; the results are 
+	 * exactly the same as with one thread.
+	 * 
+	 * @param numThreads 1 (or less) to do everything on the simulator thread
+	 */
+	public void setPhysicsThreads(int numThreads) {
+		if (physicsPool != null) {
+			physicsPool.shutdown();
+			physicsPool = null;
+		}
+		if (numThreads > 1) {
+			physicsPool = new ForkJoinPool(numThreads);
+		}
+	}
 
+	/**
+	 * Returns how many threads step the physics
+	 * 
+	 * @return
+	 */
+	public int getPhysicsThreads() {
+		return physicsPool == null ? 1 : physicsPool.getParallelism();
 	}
 
 	/**
@@ -955,20 +1725,183 @@ public class Toroidal2DPhysics {
 	}
 
 	/**
-	 * Loop through all weapons and remove any dead ones
+	 * Returns a read-only deep copy of the space for the team clients and the ship 
+	 * actions.  The same copy is handed to every team until the space changes, so all 
+	 * teams in a phase of a time step see the same world and the simulator makes one 
+	 * copy per phase rather than one per team per call.  Since the copy is shared (and 
+	 * read from many threads at once), the copy and every object, position and resource 
+	 * pile in it throw an UnsupportedOperationException when something tries to change 
+	 * them.  A client that wants a world to change can deepClone the snapshot.
+	 * 
+	 * Anything that changes the space outside of the methods in this class (for example,
+	 * setting ship actions or applying purchases) must call invalidateClientSnapshot.
+	 * 
+	 * @return a read-only deep copy of the space as of the last change
 	 */
-	public void cleanupDeadWeapons() {
-		ArrayList<AbstractObject> deadObjects = new ArrayList<AbstractObject>();
+	public synchronized Toroidal2DPhysics getClientSnapshot() {
+		if (clientSnapshot == null) {
+			Toroidal2DPhysics snapshot = deepClone();
+			snapshot.makeReadOnly();
+			clientSnapshot = snapshot;
+		}
+		return clientSnapshot;
+	}
+
+	/**
+	 * Stop the space and all of its objects from being changed
+	 */
+	void makeReadOnly() {
+		readOnly = true;
+		teamInfo = Collections.unmodifiableSet(teamInfo);
 		for (AbstractObject object : allObjects) {
-			if (object instanceof AbstractWeapon && !object.isAlive()) {
-				deadObjects.add(object);
+			object.makeReadOnly();
+		}
+	}
+
+	/**
+	 * @return true if the space can't be changed (the client snapshot)
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("The client snapshot of the space is read-only (deepClone makes a copy to change)");
+		}
+	}
+
+	/**
+	 * Mark the space as changed so the next call to getClientSnapshot makes a new copy
+	 */
+	public synchronized void invalidateClientSnapshot() {
+		clientSnapshot = null;
+		if (!spatialIndexes.isEmpty()) {
+			spatialIndexes = new ConcurrentHashMap<Class<?>, SpatialIndex<?>>();
+		}
+	}
+
+	/**
+	 * Returns the spatial index of the objects of the type (e.g. Asteroid.class or 
+	 * AbstractObject.class for everything).  The index is built the first time a type 
+	 * is queried after the space changes and then shared, so it is cheapest on a space 
+	 * that doesn't change, like the snapshot handed to the clients.  Like the snapshot,
+	 * the index only notices changes made through this class or invalidateClientSnapshot.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends AbstractObject> SpatialIndex<T> getSpatialIndex(Class<T> type) {
+		ConcurrentHashMap<Class<?>, SpatialIndex<?>> indexes = spatialIndexes;
+		SpatialIndex<T> index = (SpatialIndex<T>) indexes.get(type);
+		if (index == null) {
+			index = new SpatialIndex<T>(this, type);
+			SpatialIndex<T> other = (SpatialIndex<T>) indexes.putIfAbsent(type, index);
+			if (other != null) {
+				index = other;
 			}
 		}
-		
-		for (AbstractObject deadObject : deadObjects) {
-			removeObject(deadObject);
+		return index;
+	}
+
+	/**
+	 * Find the object of the type nearest to the location
+	 * 
+	 * @param location
+	 * @param type
+	 * @return the nearest object or null if there are none
+	 */
+	public <T extends AbstractObject> T findNearest(Position location, Class<T> type) {
+		return findNearest(location, type, null);
+	}
+
+	/**
+	 * Find the object of the type nearest to the location that the filter accepts
+	 * 
+	 * @param location
+	 * @param type
+	 * @param filter which objects may be returned (null for all)
+	 * @return the nearest object or null if there are none
+	 */
+	public <T extends AbstractObject> T findNearest(Position location, Class<T> type, ObjectFilter<? super T> filter) {
+		List<T> nearest = getSpatialIndex(type).findNearest(location, 1, filter);
+		return nearest.isEmpty() ? null : nearest.get(0);
+	}
+
+	/**
+	 * Find the k objects of the type nearest to the location that the filter accepts
+	 * 
+	 * @param location
+	 * @param type
+	 * @param k
+	 * @param filter which objects may be returned (null for all)
+	 * @return up to k objects, nearest first
+	 */
+	public <T extends AbstractObject> List<T> findNearest(Position location, Class<T> type, int k, ObjectFilter<? super T> filter) {
+		return getSpatialIndex(type).findNearest(location, k, filter);
+	}
+
+	/**
+	 * Find all of the objects of the type whose centers are within the radius of the location
+	 * 
+	 * @param location
+	 * @param radius
+	 * @param type
+	 * @param filter which objects may be returned (null for all)
+	 * @return the objects, nearest first
+	 */
+	public <T extends AbstractObject> List<T> findWithinRadius(Position location, double radius, Class<T> type, ObjectFilter<? super T> filter) {
+		return getSpatialIndex(type).findWithinRadius(location, radius, filter);
+	}
+
+	/**
+	 * Find the mineable asteroid nearest to the location that has some of the resource
+	 * 
+	 * @param location
+	 * @param resourceType the resource the asteroid must have (null for any asteroid)
+	 * @return the nearest asteroid or null if there are none
+	 */
+	public Asteroid findNearestMineableAsteroid(Position location, final ResourceTypes resourceType) {
+		return findNearest(location, Asteroid.class, new ObjectFilter<Asteroid>() {
+			public boolean accept(Asteroid asteroid) {
+				return asteroid.isMineable() 
+						&& (resourceType == null || asteroid.getResources().getResourceQuantity(resourceType) > 0);
+			}
+		});
+	}
+
+	/**
+	 * Loop through all weapons and remove any dead ones (they go back to the weapon 
+	 * pool to be fired again)
+	 */
+	public void cleanupDeadWeapons() {
+		checkWritable();
+		int numDead = 0;
+		for (AbstractWeapon weapon : weapons) {
+			if (!weapon.isAlive()) {
+				if (numDead == deadWeapons.length) {
+					deadWeapons = Arrays.copyOf(deadWeapons, numDead * 2);
+				}
+				deadWeapons[numDead++] = weapon;
+			}
 		}
 		
+		for (int i = 0; i < numDead; i++) {
+			removeObject(deadWeapons[i]);
+			weaponPool.release(deadWeapons[i]);
+			deadWeapons[i] = null;
+		}
+	}
+
+	/**
+	 * Return the pool the weapons fired in the space come from (a read-only space 
+	 * has none to give out)
+	 * @return
+	 */
+	public WeaponPool getWeaponPool() {
+		checkWritable();
+		return weaponPool;
 	}
 	
 	/**
@@ -1000,39 +1933,80 @@ public class Toroidal2DPhysics {
 	 * @return Whether or not a straight line path between two positions contains obstructions from a given set
 	 */
 	public boolean isPathClearOfObstructions(Position startPosition, Position goalPosition, Set<AbstractObject> obstructions, int freeRadius) {
-		Vector2D pathToGoal = findShortestDistanceVector(startPosition,  goalPosition); 	// Shortest straight line path from startPosition to goalPosition
-		double distanceToGoal = pathToGoal.getMagnitude();										// Distance of straight line path
+		// Shortest straight line path from startPosition to goalPosition (kept as x and y so nothing is allocated)
+		double pathToGoalX = wrapDifference(goalPosition.getX() - startPosition.getX(), width, halfWidth);
+		double pathToGoalY = wrapDifference(goalPosition.getY() - startPosition.getY(), height, halfHeight);
+		double distanceToGoal = Math.sqrt(pathToGoalX * pathToGoalX + pathToGoalY * pathToGoalY);	// Distance of straight line path
 
-		boolean pathIsClear = true; // Boolean showing whether or not the path is clear
-		
-		// Calculate distance between obstruction center and path (including buffer for ship movement)
-		// Uses hypotenuse * sin(theta) = opposite (on a right hand triangle)
-		Vector2D pathToObstruction; // Vector from start position to obstruction
-		double angleBetween; 		// Angle between vector from start position to obstruction
-		
 		// Loop through obstructions
 		for (AbstractObject obstruction: obstructions) {
-			// If the distance to the obstruction is greater than the distance to the end goal, ignore the obstruction
-			pathToObstruction = findShortestDistanceVector(startPosition, obstruction.getPosition());
-		    if (pathToObstruction.getMagnitude() > distanceToGoal) {
-				continue;
-			}
-		    
-			// Ignore angles > 90 degrees
-			angleBetween = Math.abs(pathToObstruction.angleBetween(pathToGoal));
-			if (angleBetween > Math.PI/2) {
-				continue;
-			}
-
-			// Compare distance between obstruction and path with buffer distance
-			if (pathToObstruction.getMagnitude() * Math.sin(angleBetween) < obstruction.getRadius() + freeRadius*1.5) {
-				pathIsClear = false;
-				break;
+			if (isObstructing(startPosition, pathToGoalX, pathToGoalY, distanceToGoal,
+					obstruction.getPosition(), obstruction.getRadius(), freeRadius)) {
+				return false;
 			}
 		}
 		
-		return pathIsClear;
-		
+		return true;
+	}
+
+	/**
+	 * Check one obstruction the way isPathClearOfObstructions checks each of them (so planners
+	 * that keep track of which obstructions block which paths get the same answers)
+	 * 
+	 * @param startPosition the starting location of the straight line path
+	 * @param goalPosition the ending location of the straight line path
+	 * @param obstructionPosition
+	 * @param obstructionRadius
+	 * @param freeRadius used to determine free space buffer size
+	 * @return true if the obstruction is not in the way of the path
+	 */
+	public boolean isPathClearOfObstruction(Position startPosition, Position goalPosition, 
+			Position obstructionPosition, int obstructionRadius, int freeRadius) {
+		double pathToGoalX = wrapDifference(goalPosition.getX() - startPosition.getX(), width, halfWidth);
+		double pathToGoalY = wrapDifference(goalPosition.getY() - startPosition.getY(), height, halfHeight);
+		double distanceToGoal = Math.sqrt(pathToGoalX * pathToGoalX + pathToGoalY * pathToGoalY);
+		return !isObstructing(startPosition, pathToGoalX, pathToGoalY, distanceToGoal, 
+				obstructionPosition, obstructionRadius, freeRadius);
+	}
+
+	/**
+	 * Is the obstruction in the way of the path from the start?
+	 */
+	private boolean isObstructing(Position startPosition, double pathToGoalX, double pathToGoalY, double distanceToGoal,
+			Position obstructionPosition, int obstructionRadius, int freeRadius) {
+		// If the distance to the obstruction is greater than the distance to the end goal, ignore the obstruction
+		// Calculate distance between obstruction center and path (including buffer for ship movement)
+		// Uses hypotenuse * sin(theta) = opposite (on a right hand triangle)
+		double pathToObstructionX = wrapDifference(obstructionPosition.getX() - startPosition.getX(), width, halfWidth);
+		double pathToObstructionY = wrapDifference(obstructionPosition.getY() - startPosition.getY(), height, halfHeight);
+		double distanceToObstruction = Math.sqrt(pathToObstructionX * pathToObstructionX + pathToObstructionY * pathToObstructionY);
+		if (distanceToObstruction > distanceToGoal) {
+			return false;
+		}
+
+		// skip the angle if the obstruction is clearly further from the line than the buffer (the cross
+		// product is the distance times the path length, and the margin covers the rounding of the angle)
+		double cross = pathToObstructionX * pathToGoalY - pathToObstructionY * pathToGoalX;
+		if (Math.abs(cross) > (obstructionRadius + freeRadius*1.5 + distanceToObstruction * 1e-6) * distanceToGoal) {
+			return false;
+		}
+
+		// Ignore angles > 90 degrees (same as Vector2D.angleBetween without making the vectors)
+		double angleBetween;
+		double cosine = pathToObstructionX * pathToGoalX + pathToObstructionY * pathToGoalY;
+		double magnitudes = distanceToObstruction * distanceToGoal;
+		if (magnitudes == 0) {
+			angleBetween = 0;
+		} else {
+			cosine = Math.max(-magnitudes, Math.min(magnitudes, cosine));
+			angleBetween = (float) Math.acos(cosine / magnitudes);
+		}
+		if (angleBetween > Math.PI/2) {
+			return false;
+		}
+
+		// Compare distance between obstruction and path with buffer distance
+		return distanceToObstruction * Math.sin(angleBetween) < obstructionRadius + freeRadius*1.5;
 	}
 
 	/**
@@ -1040,6 +2014,8 @@ public class Toroidal2DPhysics {
 	 * @param teamInfo
 	 */
 	public void setTeamInfo(Set<ImmutableTeamInfo> teamInfo) {
+		checkWritable();
+		invalidateClientSnapshot();
 		this.teamInfo = teamInfo;
 	}
 
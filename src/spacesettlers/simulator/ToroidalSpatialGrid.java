@@ -0,0 +1,364 @@
+package spacesettlers.simulator;
+
+import java.util.Arrays;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.utilities.Position;
+
+/**
+ * Uniform grid over the toroidal space.  Objects are binned by their center into cells
+ * that are at least as wide (and tall) as the minimum cell size given to rebuild.  If the
+ * minimum cell size is at least the largest sum of two radii, any two objects that can be
+ * touching are either in the same cell or in one of the eight neighboring cells (including
+ * the cells that wrap around the edges of the space).
+ *
+ * Objects are referred to by their index in the array handed to rebuild.  Each cell is an
+ * intrusive doubly linked list over those indices so an object can be moved to a new cell
+ * in constant time (for example, when a collision moves it).  All of the arrays are reused
+ * between rebuilds so the grid does not allocate once it has grown to the size of the world.
+ */
+public class ToroidalSpatialGrid {
+	/**
+	 * Marks the end of a cell list
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * Size of the space being indexed
+	 */
+	int width, height;
+
+	/**
+	 * Number of cells in each direction and their size
+	 */
+	int numCols, numRows;
+	double cellWidth, cellHeight;
+
+	/**
+	 * The objects being indexed (shared with the caller, not copied)
+	 */
+	AbstractObject[] objects;
+	int numObjects;
+
+	/**
+	 * First object index in each cell
+	 */
+	int[] cellHeads;
+
+	/**
+	 * Cell of each object and the links for the cell lists
+	 */
+	int[] cellOf, next, prev;
+
+	/**
+	 * Scratch buffer that holds the result of the last candidate query
+	 */
+	Candidates candidates;
+
+	/**
+	 * The results of a candidate query.  Threads that query the grid at the same time
+	 * (while nobody changes it) each use their own.
+	 */
+	public static class Candidates {
+		int[] indices = new int[16];
+		int count;
+
+		/**
+		 * The candidate indices (only the first getCount() are valid)
+		 * @return
+		 */
+		public int[] getIndices() {
+			return indices;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * Make an empty grid for a space of the specified size
+	 *
+	 * @param width
+	 * @param height
+	 */
+	public ToroidalSpatialGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.cellHeads = new int[0];
+		this.cellOf = new int[0];
+		this.next = new int[0];
+		this.prev = new int[0];
+		this.candidates = new Candidates();
+	}
+
+	/**
+	 * Bin the first numObjects objects of the array into the grid.
+	 *
+	 * @param objects objects to index (the array is kept, not copied)
+	 * @param numObjects number of valid entries in objects
+	 * @param minCellSize the smallest allowed width/height of a cell
+	 */
+	public void rebuild(AbstractObject[] objects, int numObjects, double minCellSize) {
+		this.objects = objects;
+		this.numObjects = numObjects;
+
+		numCols = Math.max(1, (int) (width / minCellSize));
+		numRows = Math.max(1, (int) (height / minCellSize));
+		cellWidth = (double) width / numCols;
+		cellHeight = (double) height / numRows;
+
+		int numCells = numCols * numRows;
+		if (cellHeads.length < numCells) {
+			cellHeads = new int[numCells];
+		}
+		Arrays.fill(cellHeads, 0, numCells, NONE);
+
+		if (cellOf.length < numObjects) {
+			int newSize = Math.max(numObjects, cellOf.length * 2);
+			cellOf = new int[newSize];
+			next = new int[newSize];
+			prev = new int[newSize];
+		}
+
+		for (int i = 0; i < numObjects; i++) {
+			insert(i, getCell(objects[i].getPosition().getX(), objects[i].getPosition().getY()));
+		}
+	}
+
+	/**
+	 * Move the object at the specified index to the cell matching its current position
+	 *
+	 * @param index
+	 */
+	public void update(int index) {
+		int cell = getCell(objects[index].getPosition().getX(), objects[index].getPosition().getY());
+		if (cell != cellOf[index]) {
+			remove(index);
+			insert(index, cell);
+		}
+	}
+
+	/**
+	 * Find the indices (greater than minIndex) of all objects in the cell containing (x,y) and
+	 * its eight neighbors.  The results are placed in ascending order in the array returned by
+	 * getCandidates().
+	 *
+	 * @param x
+	 * @param y
+	 * @param minIndex only indices strictly greater than this are returned
+	 * @return the number of candidates found
+	 */
+	public int findCandidates(double x, double y, int minIndex) {
+		return findCandidates(x, y, minIndex, candidates);
+	}
+
+	/**
+	 * Same as findCandidates(x, y, minIndex) but the results go in the buffer given
+	 *
+	 * @param x
+	 * @param y
+	 * @param minIndex only indices strictly greater than this are returned
+	 * @param result buffer for the candidates (grown if needed)
+	 * @return the number of candidates found
+	 */
+	public int findCandidates(double x, double y, int minIndex, Candidates result) {
+		int col = wrap((int) Math.floor(x / cellWidth), numCols);
+		int row = wrap((int) Math.floor(y / cellHeight), numRows);
+
+		// small grids would visit the same cell more than once so just visit every cell once
+		int firstCol = numCols < 3 ? 0 : col - 1;
+		int colCount = numCols < 3 ? numCols : 3;
+		int firstRow = numRows < 3 ? 0 : row - 1;
+		int rowCount = numRows < 3 ? numRows : 3;
+
+		int[] indices = result.indices;
+		int count = 0;
+		for (int r = 0; r < rowCount; r++) {
+			int rowOffset = wrap(firstRow + r, numRows) * numCols;
+			for (int c = 0; c < colCount; c++) {
+				int index = cellHeads[rowOffset + wrap(firstCol + c, numCols)];
+				while (index != NONE) {
+					if (index > minIndex) {
+						if (count == indices.length) {
+							indices = Arrays.copyOf(indices, count * 2);
+						}
+						indices[count++] = index;
+					}
+					index = next[index];
+				}
+			}
+		}
+
+		Arrays.sort(indices, 0, count);
+		result.indices = indices;
+		result.count = count;
+		return count;
+	}
+
+	/**
+	 * Returns the buffer filled by the last call to findCandidates
+	 *
+	 * @return
+	 */
+	public int[] getCandidates() {
+		return candidates.indices;
+	}
+
+	/**
+	 * Is the location free within the radius of all of the objects in the cell containing
+	 * it and its neighbors (like Toroidal2DPhysics.isLocationFree but stopping at the first
+	 * object in the way)?  The cells must be at least the radius plus the largest object
+	 * radius across for this to cover every object that could be in the way.
+	 *
+	 * @param space used for the toroidal distances
+	 * @param location
+	 * @param radius
+	 * @return true if no object is within the radius plus its own radius of the location
+	 */
+	public boolean isLocationFree(Toroidal2DPhysics space, Position location, int radius) {
+		int col = wrap((int) Math.floor(location.getX() / cellWidth), numCols);
+		int row = wrap((int) Math.floor(location.getY() / cellHeight), numRows);
+		int firstCol = numCols < 3 ? 0 : col - 1;
+		int colCount = numCols < 3 ? numCols : 3;
+		int firstRow = numRows < 3 ? 0 : row - 1;
+		int rowCount = numRows < 3 ? numRows : 3;
+
+		for (int r = 0; r < rowCount; r++) {
+			int rowOffset = wrap(firstRow + r, numRows) * numCols;
+			for (int c = 0; c < colCount; c++) {
+				int index = cellHeads[rowOffset + wrap(firstCol + c, numCols)];
+				while (index != NONE) {
+					AbstractObject object = objects[index];
+					if (space.findShortestDistance(object.getPosition(), location) <= (radius + object.getRadius())) {
+						return false;
+					}
+					index = next[index];
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the cells searched by findCandidates for the location (the cell containing
+	 * (x,y) and its neighbors, each once)
+	 *
+	 * @param x
+	 * @param y
+	 * @param cells filled with the cells (needs room for 9)
+	 * @return the number of cells
+	 */
+	public int getNeighborCells(double x, double y, int[] cells) {
+		int col = wrap((int) Math.floor(x / cellWidth), numCols);
+		int row = wrap((int) Math.floor(y / cellHeight), numRows);
+		int firstCol = numCols < 3 ? 0 : col - 1;
+		int colCount = numCols < 3 ? numCols : 3;
+		int firstRow = numRows < 3 ? 0 : row - 1;
+		int rowCount = numRows < 3 ? numRows : 3;
+
+		int count = 0;
+		for (int r = 0; r < rowCount; r++) {
+			int rowOffset = wrap(firstRow + r, numRows) * numCols;
+			for (int c = 0; c < colCount; c++) {
+				cells[count++] = rowOffset + wrap(firstCol + c, numCols);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the cell the object at the index is binned in
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getCellOf(int index) {
+		return cellOf[index];
+	}
+
+	/**
+	 * Number of cells in the grid
+	 *
+	 * @return
+	 */
+	public int getNumCells() {
+		return numCols * numRows;
+	}
+
+	/**
+	 * Number of columns in the grid
+	 *
+	 * @return
+	 */
+	public int getNumCols() {
+		return numCols;
+	}
+
+	/**
+	 * Number of rows in the grid
+	 *
+	 * @return
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Returns the cell for the specified location (wrapping locations outside the space)
+	 *
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	int getCell(double x, double y) {
+		int col = wrap((int) Math.floor(x / cellWidth), numCols);
+		int row = wrap((int) Math.floor(y / cellHeight), numRows);
+		return row * numCols + col;
+	}
+
+	/**
+	 * Add the index to the front of the cell list
+	 *
+	 * @param index
+	 * @param cell
+	 */
+	private void insert(int index, int cell) {
+		int head = cellHeads[cell];
+		cellOf[index] = cell;
+		prev[index] = NONE;
+		next[index] = head;
+		if (head != NONE) {
+			prev[head] = index;
+		}
+		cellHeads[cell] = index;
+	}
+
+	/**
+	 * Unlink the index from its cell list
+	 *
+	 * @param index
+	 */
+	private void remove(int index) {
+		if (prev[index] != NONE) {
+			next[prev[index]] = next[index];
+		} else {
+			cellHeads[cellOf[index]] = next[index];
+		}
+		if (next[index] != NONE) {
+			prev[next[index]] = prev[index];
+		}
+	}
+
+	/**
+	 * Wrap a cell coordinate around the torus
+	 *
+	 * @param value
+	 * @param size
+	 * @return
+	 */
+	private static int wrap(int value, int size) {
+		int result = value % size;
+		return result < 0 ? result + size : result;
+	}
+}
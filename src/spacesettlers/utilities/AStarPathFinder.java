@@ -0,0 +1,376 @@
+package spacesettlers.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A* search over a graph of int vertices that any team client can keep and reuse.
+ * The graph is made with addVertex and addEdge (vertices and edges are numbered in
+ * the order they are added) and kept as arrays: the edges of each vertex are found
+ * through offsets into one array of edge numbers.  The search marks the vertices
+ * it expands with the number of the search instead of clearing anything, so once the
+ * arrays are big enough for the graph a search makes no new objects.
+ *
+ * The search expands vertices in the same order as the old search of dare2095.Graph:
+ * the queue is ordered by the current f cost of each entry's vertex (which changes
+ * when the vertex is reached again), a vertex reached twice is in the queue twice,
+ * and the path is the chain of entries that reached the goal.
+ */
+public class AStarPathFinder {
+	/**
+	 * The vertices: their heuristic cost to the nearest goal and whether they are goals
+	 */
+	int numVertices;
+	double[] heuristicCosts;
+	boolean[] isGoal;
+
+	/**
+	 * The edges (one way, from the from vertex to the to vertex) in the order they were added
+	 */
+	int numEdges;
+	int[] edgeFrom, edgeTo;
+	double[] edgeCosts;
+
+	/**
+	 * The edges of each vertex: vertexEdges[firstEdge[v]] to vertexEdges[firstEdge[v + 1] - 1]
+	 * in the order they were added.  Made again at the next search when edges are added.
+	 */
+	int[] firstEdge, vertexEdges;
+	boolean edgesSorted;
+
+	/**
+	 * True while every edge was added after all the edges of lower numbered vertices
+	 * (so the edges are already grouped by vertex)
+	 */
+	boolean edgesInOrder;
+
+	/**
+	 * The number of the current search.  A vertex is expanded in it if its stamp is the same.
+	 */
+	int search;
+	int[] expandedStamps;
+
+	/**
+	 * The cost of the path that last reached each vertex and that plus its heuristic
+	 */
+	double[] pathCosts, fCosts;
+
+	/**
+	 * The search tree: the vertex of each entry, the entry it came from and the edge it took
+	 */
+	int numEntries;
+	int[] entryVertex, entryParent, entryEdge;
+
+	/**
+	 * The queue of entries (a binary heap ordered by the f cost of the entry's vertex)
+	 */
+	int queueSize;
+	int[] queue;
+
+	/**
+	 * The vertices and edges of the last path found (the start has edge -1)
+	 */
+	int pathLength;
+	int[] pathVertices, pathEdges;
+
+	public AStarPathFinder() {
+		heuristicCosts = new double[16];
+		isGoal = new boolean[16];
+		expandedStamps = new int[16];
+		pathCosts = new double[16];
+		fCosts = new double[16];
+		firstEdge = new int[17];
+		edgeFrom = new int[16];
+		edgeTo = new int[16];
+		edgeCosts = new double[16];
+		vertexEdges = new int[16];
+		entryVertex = new int[16];
+		entryParent = new int[16];
+		entryEdge = new int[16];
+		queue = new int[16];
+		pathVertices = new int[16];
+		pathEdges = new int[16];
+		edgesInOrder = true;
+	}
+
+	/**
+	 * Remove all the vertices and edges (the arrays are kept for the next graph)
+	 */
+	public void clear() {
+		numVertices = 0;
+		numEdges = 0;
+		pathLength = 0;
+		edgesSorted = false;
+		edgesInOrder = true;
+	}
+
+	/**
+	 * Add a vertex
+	 *
+	 * @param heuristicCost estimated cost from the vertex to the nearest goal
+	 * @param goal true if the search can stop at the vertex
+	 * @return the number of the vertex
+	 */
+	public int addVertex(double heuristicCost, boolean goal) {
+		if (numVertices == heuristicCosts.length) {
+			int length = numVertices * 2;
+			heuristicCosts = Arrays.copyOf(heuristicCosts, length);
+			isGoal = Arrays.copyOf(isGoal, length);
+			expandedStamps = Arrays.copyOf(expandedStamps, length);
+			pathCosts = Arrays.copyOf(pathCosts, length);
+			fCosts = Arrays.copyOf(fCosts, length);
+			firstEdge = Arrays.copyOf(firstEdge, length + 1);
+		}
+		heuristicCosts[numVertices] = heuristicCost;
+		isGoal[numVertices] = goal;
+		edgesSorted = false;
+		return numVertices++;
+	}
+
+	/**
+	 * Add a one way edge (add one each way for an edge that can be used both ways).
+	 * The search tries the edges of a vertex in the order they were added.
+	 *
+	 * @param from
+	 * @param to
+	 * @param cost
+	 * @return the number of the edge
+	 */
+	public int addEdge(int from, int to, double cost) {
+		if (from < 0 || from >= numVertices || to < 0 || to >= numVertices) {
+			throw new IllegalArgumentException("No vertex " + (from < 0 || from >= numVertices ? from : to));
+		}
+		if (numEdges == edgeFrom.length) {
+			int length = numEdges * 2;
+			edgeFrom = Arrays.copyOf(edgeFrom, length);
+			edgeTo = Arrays.copyOf(edgeTo, length);
+			edgeCosts = Arrays.copyOf(edgeCosts, length);
+			vertexEdges = Arrays.copyOf(vertexEdges, length);
+		}
+		if (numEdges > 0 && from < edgeFrom[numEdges - 1]) {
+			edgesInOrder = false;
+		}
+		edgeFrom[numEdges] = from;
+		edgeTo[numEdges] = to;
+		edgeCosts[numEdges] = cost;
+		edgesSorted = false;
+		return numEdges++;
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	/**
+	 * Group the edges by the vertex they start from (keeping the order they were added)
+	 */
+	private void sortEdges() {
+		Arrays.fill(firstEdge, 0, numVertices + 1, 0);
+		for (int e = 0; e < numEdges; e++) {
+			firstEdge[edgeFrom[e] + 1]++;
+		}
+		for (int v = 0; v < numVertices; v++) {
+			firstEdge[v + 1] += firstEdge[v];
+		}
+		if (edgesInOrder) {
+			for (int e = 0; e < numEdges; e++) {
+				vertexEdges[e] = e;
+			}
+		} else {
+			// fill each vertex's edges using firstEdge[v] as its next free place, then move the offsets back
+			for (int e = 0; e < numEdges; e++) {
+				vertexEdges[firstEdge[edgeFrom[e]]++] = e;
+			}
+			for (int v = numVertices; v > 0; v--) {
+				firstEdge[v] = firstEdge[v - 1];
+			}
+			firstEdge[0] = 0;
+		}
+		edgesSorted = true;
+	}
+
+	/**
+	 * Search for a path from the start to a goal.  The start itself is never the goal.
+	 *
+	 * @param start the vertex to start from
+	 * @param maxSearchSteps the most vertices to expand before giving up
+	 * @return true if a path was found (see getPathLength, getPathVertex and getPathEdge)
+	 */
+	public boolean findPath(int start, int maxSearchSteps) {
+		if (start < 0 || start >= numVertices) {
+			throw new IllegalArgumentException("No vertex " + start);
+		}
+		if (!edgesSorted) {
+			sortEdges();
+		}
+		if (search == Integer.MAX_VALUE) {
+			Arrays.fill(expandedStamps, 0);
+			search = 0;
+		}
+		search++;
+		numEntries = 0;
+		queueSize = 0;
+		pathLength = 0;
+
+		// start the search with the children of the start
+		pathCosts[start] = 0;
+		expandedStamps[start] = search;
+		visitSuccessors(addEntry(start, -1, -1), start);
+
+		int goalEntry = -1;
+		int steps = 0;
+		while (steps < maxSearchSteps && queueSize > 0) {
+			int entry = poll();
+			int vertex = entryVertex[entry];
+			while (expandedStamps[vertex] == search) {
+				if (queueSize == 0) {
+					return false;
+				}
+				entry = poll();
+				vertex = entryVertex[entry];
+			}
+
+			if (isGoal[vertex]) {
+				goalEntry = entry;
+				break;
+			}
+
+			expandedStamps[vertex] = search;
+			visitSuccessors(entry, vertex);
+			steps++;
+		}
+
+		if (goalEntry < 0) {
+			return false;
+		}
+
+		// follow the entries back to the start
+		for (int entry = goalEntry; entry >= 0; entry = entryParent[entry]) {
+			pathLength++;
+		}
+		if (pathLength > pathVertices.length) {
+			pathVertices = new int[pathLength * 2];
+			pathEdges = new int[pathLength * 2];
+		}
+		int index = pathLength;
+		for (int entry = goalEntry; entry >= 0; entry = entryParent[entry]) {
+			index--;
+			pathVertices[index] = entryVertex[entry];
+			pathEdges[index] = entryEdge[entry];
+		}
+		return true;
+	}
+
+	/**
+	 * The number of vertices in the path found (0 if none was)
+	 *
+	 * @return
+	 */
+	public int getPathLength() {
+		return pathLength;
+	}
+
+	/**
+	 * The index-th vertex of the path (the start is 0)
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getPathVertex(int index) {
+		return pathVertices[index];
+	}
+
+	/**
+	 * The edge the path took to its index-th vertex (-1 for the start)
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getPathEdge(int index) {
+		return pathEdges[index];
+	}
+
+	/**
+	 * Queue all the vertices next to the vertex that are not expanded yet
+	 */
+	private void visitSuccessors(int parent, int vertex) {
+		for (int i = firstEdge[vertex]; i < firstEdge[vertex + 1]; i++) {
+			int edge = vertexEdges[i];
+			int child = edgeTo[edge];
+			if (expandedStamps[child] != search) {
+				pathCosts[child] = pathCosts[vertex] + edgeCosts[edge];
+				fCosts[child] = pathCosts[child] + heuristicCosts[child];
+				offer(addEntry(child, parent, edge));
+			}
+		}
+	}
+
+	private int addEntry(int vertex, int parent, int edge) {
+		if (numEntries == entryVertex.length) {
+			int length = numEntries * 2;
+			entryVertex = Arrays.copyOf(entryVertex, length);
+			entryParent = Arrays.copyOf(entryParent, length);
+			entryEdge = Arrays.copyOf(entryEdge, length);
+			queue = Arrays.copyOf(queue, length);
+		}
+		entryVertex[numEntries] = vertex;
+		entryParent[numEntries] = parent;
+		entryEdge[numEntries] = edge;
+		return numEntries++;
+	}
+
+	private int compare(int entry1, int entry2) {
+		double f1 = fCosts[entryVertex[entry1]];
+		double f2 = fCosts[entryVertex[entry2]];
+		if (f1 < f2) {
+			return -1;
+		} else if (f1 == f2) {
+			return 0;
+		} else {
+			return 1;
+		}
+	}
+
+	/**
+	 * Add an entry to the heap (sifting it up the same way java.util.PriorityQueue does)
+	 */
+	private void offer(int entry) {
+		int k = queueSize++;
+		while (k > 0) {
+			int parent = (k - 1) >>> 1;
+			if (compare(entry, queue[parent]) >= 0) {
+				break;
+			}
+			queue[k] = queue[parent];
+			k = parent;
+		}
+		queue[k] = entry;
+	}
+
+	/**
+	 * Remove the first entry of the heap (sifting the last one down the way java.util.PriorityQueue does)
+	 */
+	private int poll() {
+		int result = queue[0];
+		int last = queue[--queueSize];
+		int k = 0;
+		int half = queueSize >>> 1;
+		while (k < half) {
+			int child = 2 * k + 1;
+			int right = child + 1;
+			if (right < queueSize && compare(queue[child], queue[right]) > 0) {
+				child = right;
+			}
+			if (compare(last, queue[child]) <= 0) {
+				break;
+			}
+			queue[k] = queue[child];
+			k = child;
+		}
+		queue[k] = last;
+		return result;
+	}
+}
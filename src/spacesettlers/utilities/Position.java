@@ -9,6 +9,11 @@ public class Position {
 	double x, y, orientation, angularVelocity;
 	Vector2D velocity;
 
+	/**
+	 * True once the position belongs to the read-only client snapshot (see makeReadOnly)
+	 */
+	boolean readOnly;
+
 	public Position(double x, double y) {
 		super();
 		this.x = x;
@@ -53,10 +58,12 @@ public class Position {
 	}
 	
 	public void setX(double x) {
+		checkWritable();
 		this.x = x;
 	}
 
 	public void setY(double y) {
+		checkWritable();
 		this.y = y;
 	}
 
@@ -77,6 +84,7 @@ public class Position {
 	}
 	
 	public void setTranslationalVelocity(Vector2D newVel) {
+		checkWritable();
 		this.velocity = newVel;
 	}
 	
@@ -86,6 +94,7 @@ public class Position {
 	}
 	
 	public void setOrientation(double orientation) {
+		checkWritable();
 		this.orientation = orientation;
 	}
 	
@@ -94,6 +103,7 @@ public class Position {
 	}
 
 	public void setxVelocity(double xVelocity) {
+		checkWritable();
 		velocity.setX(xVelocity);
 	}
 
@@ -102,13 +112,37 @@ public class Position {
 	}
 
 	public void setyVelocity(double yVelocity) {
+		checkWritable();
 		velocity.setY(yVelocity);
 	}
 
 	public void setAngularVelocity(double angularVelocity) {
+		checkWritable();
 		this.angularVelocity = angularVelocity;
 	}
 
+	/**
+	 * Stop the position (and its velocity) from being changed.  deepCopy still 
+	 * makes a copy that can be changed.
+	 */
+	public void makeReadOnly() {
+		readOnly = true;
+		velocity.makeReadOnly();
+	}
+
+	/**
+	 * @return true if the position can't be changed
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("This position is read-only");
+		}
+	}
+
 	public String toString() {
 		String str = "(" + x + " , " + y + ", " + orientation + ") velocity: " + velocity + ", " + angularVelocity;
 		return str;
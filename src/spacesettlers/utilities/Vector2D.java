@@ -28,6 +28,11 @@ public final class Vector2D implements Serializable, Cloneable {
      */
     double magnitude;
 
+    /**
+     * True once the vector belongs to the read-only client snapshot (see makeReadOnly)
+     */
+    transient boolean readOnly;
+
     /**
      * Create a vector with the given x and y values.
      * @param x
@@ -122,6 +127,7 @@ public final class Vector2D implements Serializable, Cloneable {
      * @param x
      */
     public void setX(double x) {
+    	checkWritable();
     	this.x = x;
     }
     
@@ -130,6 +136,7 @@ public final class Vector2D implements Serializable, Cloneable {
      * @param y
      */
     public void setY(double y) {
+    	checkWritable();
     	this.y = y;
     }
     
@@ -165,10 +172,31 @@ public final class Vector2D implements Serializable, Cloneable {
      * Reset the vector to 0
      */
     public void reset() {
+    	checkWritable();
     	x = 0;
     	y = 0;
     }
     
+    /**
+     * Stop the vector from being changed (copies of it can still be changed)
+     */
+    public void makeReadOnly() {
+    	readOnly = true;
+    }
+
+    /**
+     * @return true if the vector can't be changed
+     */
+    public boolean isReadOnly() {
+    	return readOnly;
+    }
+
+    private void checkWritable() {
+    	if (readOnly) {
+    		throw new UnsupportedOperationException("This vector is read-only");
+    	}
+    }
+    
     /**
      * The angle of the vector
      * @return The angle of the vector.
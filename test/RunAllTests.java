@@ -1,7 +1,9 @@
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import dare2095.TestRoadmap;
 import spacesettlers.actions.ActionTests;
+import spacesettlers.objects.weapons.TestWeaponPool;
 import spacesettlers.simulator.SimulatorTests;
 import spacesettlers.utilities.UtilitiesTest;
 import spacesettlers.ladder.TestLadder;
@@ -12,6 +14,8 @@ import spacesettlers.ladder.TestLadder;
   SimulatorTests.class,
   TestLadder.class,
   UtilitiesTest.class,
+  TestRoadmap.class,
+  TestWeaponPool.class,
 })
 
 public class RunAllTests {
@@ -0,0 +1,189 @@
+package dare2095;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.clients.DoNothingTeamClient;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Base;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Ship;
+import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.AStarPathFinder;
+import spacesettlers.utilities.Position;
+
+public class TestRoadmap {
+	Toroidal2DPhysics space;
+	Random random;
+	List<Asteroid> asteroids;
+	Ship ship;
+
+	@Before
+	public void setUp() {
+		space = new Toroidal2DPhysics(1080, 1600, 0.05);
+		random = new Random(17);
+		asteroids = new ArrayList<Asteroid>();
+		for (int a = 0; a < 150; a++) {
+			addAsteroid();
+		}
+		for (int b = 0; b < 5; b++) {
+			space.addObject(new Beacon(randomPosition()));
+		}
+		ship = new Ship("team", Color.RED, randomPosition());
+		space.addObject(ship);
+		space.addObject(new Base(randomPosition(), "team", makeTeam("team"), true));
+		space.addObject(new Base(randomPosition(), "enemy", makeTeam("enemy"), true));
+	}
+
+	static Team makeTeam(String name) {
+		DoNothingTeamClient client = new DoNothingTeamClient();
+		client.setTeamName(name);
+		client.setTeamColor(Color.BLUE);
+		return new Team(client, name, 1);
+	}
+
+	Position randomPosition() {
+		return new Position(random.nextDouble() * 1600, random.nextDouble() * 1080);
+	}
+
+	void addAsteroid() {
+		Asteroid asteroid = new Asteroid(randomPosition(), random.nextBoolean(), 5 + random.nextInt(25), true, 0.3, 0.3, 0.4);
+		asteroids.add(asteroid);
+		space.addObject(asteroid);
+	}
+
+	static String key(Position position) {
+		return position.getX() + "," + position.getY();
+	}
+
+	static Set<String> getVertices(Graph graph) {
+		Set<String> vertices = new HashSet<String>();
+		for (Vertex vertex : graph.getVertices()) {
+			vertices.add(key(vertex.getPosition()));
+		}
+		return vertices;
+	}
+
+	/**
+	 * The edges with their ends in a fixed order (the graphs can have either direction or both)
+	 */
+	static Set<String> getEdges(Graph graph) {
+		Set<String> edges = new HashSet<String>();
+		for (Vertex vertex : graph.getVertices()) {
+			for (Edge edge : vertex.getEdges()) {
+				String key1 = key(edge.getVertex1().getPosition());
+				String key2 = key(edge.getVertex2().getPosition());
+				edges.add(key1.compareTo(key2) < 0 ? key1 + " " + key2 : key2 + " " + key1);
+			}
+		}
+		return edges;
+	}
+
+	/**
+	 * As the asteroids move, come and go, the kept roadmap gives the same graph as
+	 * making a new one from the same random vertices
+	 */
+	@Test
+	public void testSameGraphAsNewOne() {
+		Roadmap roadmap = new Roadmap(space, "team", new Random(5));
+
+		for (int round = 0; round < 20; round++) {
+			for (int m = 0; m < 30; m++) {
+				Position position = asteroids.get(random.nextInt(asteroids.size())).getPosition();
+				position.setX((position.getX() + random.nextDouble() * 40 - 20 + 1600) % 1600);
+				position.setY((position.getY() + random.nextDouble() * 40 - 20 + 1080) % 1080);
+			}
+			for (int r = 0; r < 3; r++) {
+				space.removeObject(asteroids.remove(random.nextInt(asteroids.size())));
+				addAsteroid();
+			}
+
+			// alternate between going to an asteroid and to a point in space
+			Position goal = round % 2 == 0 ? asteroids.get(random.nextInt(asteroids.size())).getPosition() : randomPosition();
+
+			Graph kept = roadmap.createGraphToGoalWithBeacons(space, ship, goal);
+			Graph made = AStarSearch.createGraphToGoalWithBeacons(space, ship, goal, new Random(5));
+			assertEquals(getVertices(made), getVertices(kept));
+			assertEquals(getEdges(made), getEdges(kept));
+			assertTrue(getEdges(kept).size() > 100);
+		}
+	}
+
+	/**
+	 * When most of the asteroids move the roadmap stops counting and checks the edges 
+	 * instead, and it goes back to counting once most of them stay put.  Either way the 
+	 * graph is the same as a new one.
+	 */
+	@Test
+	public void testSameGraphWhenMostAsteroidsMove() {
+		Roadmap roadmap = new Roadmap(space, "team", new Random(5));
+
+		for (int round = 0; round < 12; round++) {
+			// every third round only a few of the asteroids move
+			boolean fewMove = round % 3 == 2;
+			int numMoved = fewMove ? 5 : asteroids.size();
+			for (int m = 0; m < numMoved; m++) {
+				Position position = asteroids.get(fewMove ? random.nextInt(asteroids.size()) : m).getPosition();
+				position.setX((position.getX() + random.nextDouble() * 40 - 20 + 1600) % 1600);
+				position.setY((position.getY() + random.nextDouble() * 40 - 20 + 1080) % 1080);
+			}
+
+			// two plans for each round (the second sees nothing move)
+			for (int plan = 0; plan < 2; plan++) {
+				Position goal = plan == 0 ? asteroids.get(random.nextInt(asteroids.size())).getPosition() : randomPosition();
+				Graph kept = roadmap.createGraphToGoalWithBeacons(space, ship, goal);
+				Graph made = AStarSearch.createGraphToGoalWithBeacons(space, ship, goal, new Random(5));
+				assertEquals(fewMove, roadmap.isCounting);
+				assertEquals(getVertices(made), getVertices(kept));
+				assertEquals(getEdges(made), getEdges(kept));
+			}
+		}
+	}
+
+	/**
+	 * Planning straight into the path finder finds the same path as searching the graph
+	 * made as objects, and only the path is made as vertices
+	 */
+	@Test
+	public void testPathSameAsGraphSearch() {
+		Roadmap roadmap = new Roadmap(space, "team", new Random(5));
+		AStarPathFinder pathFinder = new AStarPathFinder();
+		int numPaths = 0;
+
+		for (int round = 0; round < 20; round++) {
+			for (int m = 0; m < 30; m++) {
+				Position position = asteroids.get(random.nextInt(asteroids.size())).getPosition();
+				position.setX((position.getX() + random.nextDouble() * 40 - 20 + 1600) % 1600);
+				position.setY((position.getY() + random.nextDouble() * 40 - 20 + 1080) % 1080);
+			}
+
+			Position goal = round % 2 == 0 ? asteroids.get(random.nextInt(asteroids.size())).getPosition() : randomPosition();
+			Vertex[] path = roadmap.findAStarPath(space, ship, goal, pathFinder);
+			Vertex[] graphPath = roadmap.createGraphToGoalWithBeacons(space, ship, goal).findAStarPath(space);
+			if (graphPath == null) {
+				assertNull(path);
+				continue;
+			}
+
+			assertEquals(graphPath.length, path.length);
+			for (int t = 0; t < path.length; t++) {
+				assertEquals(key(graphPath[t].getPosition()), key(path[t].getPosition()));
+				assertTrue(path[t].isSolution());
+			}
+			numPaths++;
+		}
+		assertTrue(numPaths > 5);
+	}
+}
@@ -2,12 +2,15 @@ package spacesettlers.actions;
 
 import static org.junit.Assert.*;
 
+import java.awt.Color;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import spacesettlers.actions.MoveAction;
 import spacesettlers.actions.SpaceSettlersActionException;
+import spacesettlers.objects.Ship;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Movement;
 import spacesettlers.utilities.Position;
@@ -237,6 +240,38 @@ public class TestMoveAction {
 
 	}
 
+	/**
+	 * The timed getMovement without a scheduler reuses one thread for every ship and
+	 * call instead of making new ones (batch and ladder runs call it for many ships)
+	 */
+	@Test
+	public void testTimedMovementReusesOneThread() {
+		int threadsBefore = countCallbackThreads();
+
+		for (int i = 0; i < 20; i++) {
+			Ship ship = new Ship("team" + i, Color.BLUE, new Position(50, 50));
+			moveAction = new MoveAction(space, ship.getPosition(), new Position(60, 50));
+			Movement movement = moveAction.getMovement(space, ship, 1000);
+			assertTrue(movement.getTranslationalAcceleration().getXValue() > 0);
+		}
+
+		assertEquals(1, AbstractAction.getSharedScheduler().getThreadsCreated());
+		assertTrue(countCallbackThreads() <= threadsBefore + 1);
+	}
+
+	/**
+	 * Number of live threads made by a callback scheduler
+	 */
+	static int countCallbackThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().startsWith("spacesettlers-callback")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	
 	
 }
@@ -294,4 +294,29 @@ public class TestLadder {
 		assertEquals(ladder.calculateNChooseK(0, 0), 0, 0);
 	}
 
+	/**
+	 * Make a record for one game of a team
+	 */
+	private TeamRecord gameRecord(String name, double score, int resources, int beacons) {
+		TeamRecord record = new TeamRecord(name);
+		record.numGames = 1;
+		record.totalScore = score;
+		record.totalResources = resources;
+		record.totalBeacons = beacons;
+		return record;
+	}
+
+	@Test
+	public void testAddTeamRecords() {
+		TeamRecord total = new TeamRecord("A");
+		total.add(gameRecord("A", 10, 100, 3));
+		total.add(gameRecord("A", 20, 201, 4));
+		total.add(gameRecord("A", -3, 0, 0));
+
+		assertEquals(3, total.numGames);
+		assertEquals(9, total.getAverageScore(), 0);
+		assertEquals(100, total.getAverageResources(), 0);
+		assertEquals(2, total.getAverageBeacons(), 0);
+	}
+
 }
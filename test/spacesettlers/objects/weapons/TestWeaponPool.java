@@ -0,0 +1,98 @@
+package spacesettlers.objects.weapons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.simulator.Toroidal2DPhysics;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+public class TestWeaponPool {
+	WeaponPool pool;
+	Ship ship, otherShip;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new WeaponPool();
+		Position position = new Position(100, 200, 0.5);
+		position.setTranslationalVelocity(new Vector2D(3, 4));
+		position.setAngularVelocity(0.25);
+		ship = new Ship("team", Color.RED, position);
+		otherShip = new Ship("other", Color.BLUE, new Position(300, 50, -2));
+	}
+
+	@Test
+	public void testReleasedMissileIsLikeANewOne() {
+		Missile missile = pool.getMissile(ship);
+		UUID id = missile.getId();
+		missile.setAlive(false);
+		missile.setDrawable(false);
+		pool.release(missile);
+		assertEquals(1, pool.getNumFree());
+
+		Missile reused = pool.getMissile(otherShip);
+		Missile expected = new Missile(otherShip.getPosition().deepCopy(), otherShip);
+		assertSame(missile, reused);
+		assertEquals(0, pool.getNumFree());
+		assertFalse(id.equals(reused.getId()));
+		assertTrue(reused.isAlive());
+		assertTrue(reused.isDrawable());
+		assertSame(otherShip, reused.getFiringShip());
+		assertEquals(expected.getPosition().getX(), reused.getPosition().getX(), 0);
+		assertEquals(expected.getPosition().getY(), reused.getPosition().getY(), 0);
+		assertEquals(expected.getPosition().getOrientation(), reused.getPosition().getOrientation(), 0);
+		assertEquals(expected.getPosition().getAngularVelocity(), reused.getPosition().getAngularVelocity(), 0);
+		assertEquals(expected.getPosition().getxVelocity(), reused.getPosition().getxVelocity(), 0);
+		assertEquals(expected.getPosition().getyVelocity(), reused.getPosition().getyVelocity(), 0);
+	}
+
+	@Test
+	public void testKindsAreKeptApart() {
+		Missile missile = pool.getMissile(ship);
+		EMP emp = pool.getEMP(ship);
+		pool.release(missile);
+		pool.release(emp);
+
+		assertSame(emp, pool.getEMP(otherShip));
+		assertEquals(EMP.FREEZE_STEPS, emp.getFreezeCount());
+		assertSame(missile, pool.getMissile(otherShip));
+	}
+
+	@Test
+	public void testReleasingTwiceKeepsItOnce() {
+		Missile missile = pool.getMissile(ship);
+		pool.release(missile);
+		pool.release(missile);
+		assertEquals(1, pool.getNumFree());
+		assertSame(missile, pool.getMissile(ship));
+		assertNotSame(missile, pool.getMissile(ship));
+	}
+
+	@Test
+	public void testCleanupReleasesDeadWeapons() {
+		Toroidal2DPhysics space = new Toroidal2DPhysics(480, 640, 0.05);
+		space.addObject(ship);
+		AbstractWeapon alive = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_MISSILE, space.getWeaponPool());
+		AbstractWeapon dead = ship.getNewWeapon(SpaceSettlersPowerupEnum.FIRE_EMP, space.getWeaponPool());
+		space.addObject(alive);
+		space.addObject(dead);
+		dead.setAlive(false);
+
+		space.cleanupDeadWeapons();
+		assertEquals(1, space.getWeapons().size());
+		assertTrue(space.getWeapons().contains(alive));
+		assertEquals(1, space.getWeaponPool().getNumFree());
+		assertSame(dead, space.getWeaponPool().getEMP(ship));
+	}
+}
@@ -7,6 +7,15 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
   TestToroidal2DPhysics.class,
   TestCollisionHandler.class,
+  TestToroidalSpatialGrid.class,
+  TestCallbackScheduler.class,
+  TestStepProfiler.class,
+  TestReplayStep.class,
+  TestCheckpointRecord.class,
+  TestObjectRegistry.class,
+  TestSimulationEventStream.class,
+  TestConfigCache.class,
+  TestRunDaemon.class,
 })
 
 public class SimulatorTests {
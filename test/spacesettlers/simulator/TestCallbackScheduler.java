@@ -0,0 +1,129 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCallbackScheduler {
+	CallbackScheduler scheduler;
+
+	@Before
+	public void setUp() throws Exception {
+		scheduler = new CallbackScheduler();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scheduler.shutdown();
+	}
+
+	/**
+	 * A callback that returns its value right away
+	 */
+	static Callable<Integer> returning(final int value) {
+		return new Callable<Integer>() {
+			public Integer call() {
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * A callback that ignores interrupts and only returns once the latch is released
+	 */
+	static Callable<Integer> hangingUntil(final CountDownLatch release) {
+		return new Callable<Integer>() {
+			public Integer call() {
+				while (release.getCount() > 0) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						// a badly behaved client keeps going
+					}
+				}
+				return 1;
+			}
+		};
+	}
+
+	@Test
+	public void testLaneThreadIsReused() {
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, (int) scheduler.call("team", "callback", returning(i), 1000, -1));
+		}
+		assertEquals(1, scheduler.getThreadsCreated());
+		assertEquals(100, scheduler.getLatency("callback").getCount());
+
+		scheduler.call("otherTeam", "callback", returning(0), 1000, -1);
+		assertEquals(2, scheduler.getThreadsCreated());
+	}
+
+	@Test
+	public void testExceptionReturnsDefault() {
+		Callable<Integer> crashing = new Callable<Integer>() {
+			public Integer call() {
+				throw new IllegalStateException("client crashed on purpose");
+			}
+		};
+		assertEquals(-1, (int) scheduler.call("team", "callback", crashing, 1000, -1));
+
+		// the lane can still be used after a crash
+		assertEquals(3, (int) scheduler.call("team", "callback", returning(3), 1000, -1));
+	}
+
+	@Test
+	public void testHungClientIsIsolated() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		assertEquals(-1, (int) scheduler.call("hung", "callback", hangingUntil(release), 50, -1));
+		assertEquals(1, scheduler.getLatency("callback").getTimeouts());
+		assertEquals(1, scheduler.getBusyLanes());
+
+		// the hung team gets the default right away while other teams run normally
+		long start = System.nanoTime();
+		assertEquals(-1, (int) scheduler.call("hung", "callback", returning(5), 1000, -1));
+		assertTrue(System.nanoTime() - start < 500 * 1000000L);
+		assertEquals(1, scheduler.getLatency("callback").getSkipped());
+		assertEquals(7, (int) scheduler.call("fine", "callback", returning(7), 1000, -1));
+
+		// once the client returns its lane is usable again
+		release.countDown();
+		for (int tries = 0; tries < 100 && scheduler.getBusyLanes() > 0; tries++) {
+			Thread.sleep(10);
+		}
+		assertEquals(5, (int) scheduler.call("hung", "callback", returning(5), 1000, -1));
+		assertEquals(2, scheduler.getThreadsCreated());
+	}
+
+	@Test
+	public void testOwnerLatencies() throws InterruptedException {
+		scheduler.call("team", "first", returning(1), 1000, -1);
+		scheduler.call("team", "second", returning(2), 1000, -1);
+		scheduler.call("otherTeam", "first", returning(3), 1000, -1);
+
+		assertEquals(2, scheduler.getOwnerLatency("team").getCount());
+		assertEquals(1, scheduler.getOwnerLatency("otherTeam").getCount());
+		assertEquals(2, scheduler.getOwnerLatencies().size());
+		assertEquals(2, scheduler.getLiveThreadIds().length);
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram latency = new LatencyHistogram("test");
+		for (int i = 0; i < 90; i++) {
+			latency.record(100 * 1000);
+		}
+		for (int i = 0; i < 10; i++) {
+			latency.record(5000 * 1000);
+		}
+		assertEquals(128, latency.getPercentileMicros(0.5));
+		assertEquals(128, latency.getPercentileMicros(0.9));
+		assertEquals(8192, latency.getPercentileMicros(0.99));
+		assertEquals(5000, latency.getMaxMicros());
+	}
+}
@@ -0,0 +1,100 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.objects.resources.ResourcePile;
+import spacesettlers.objects.resources.ResourceTypes;
+import spacesettlers.objects.weapons.Missile;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+public class TestCheckpointRecord {
+	/**
+	 * Objects written into a record and read back into blank objects have the same state
+	 * (and the missile points at the read ship, not the written one)
+	 */
+	@Test
+	public void testObjectsRoundTrip() {
+		Position shipPosition = new Position(100.5, 200.25, 1.5);
+		shipPosition.setTranslationalVelocity(new Vector2D(3, -4));
+		shipPosition.setAngularVelocity(0.25);
+		Ship ship = new Ship("team", Color.RED, shipPosition);
+		ship.updateEnergy(-1234);
+		ship.addResources(new ResourcePile(10, 20, 30));
+		ship.addPowerup(SpaceSettlersPowerupEnum.FIRE_MISSILE);
+		ship.incrementBeaconCount();
+		Asteroid asteroid = new Asteroid(new Position(7, 8), true, 12, true, 0.5, 0.25, 0.25);
+		Missile missile = new Missile(new Position(50, 60), ship);
+
+		List<AbstractObject> written = new ArrayList<AbstractObject>();
+		written.add(ship);
+		written.add(asteroid);
+		written.add(missile);
+		CheckpointRecord record = new CheckpointRecord(written);
+		for (AbstractObject object : written) {
+			object.writeCheckpoint(record);
+		}
+		ByteBuffer buffer = record.buffer;
+		buffer.flip();
+
+		Ship readShip = new Ship("other", Color.BLUE, new Position(0, 0));
+		Asteroid readAsteroid = new Asteroid(new Position(0, 0), false, 5, false, 1, 0, 0);
+		Missile readMissile = new Missile(new Position(0, 0), readShip);
+		readMissile.setFiringShip(null);
+		AbstractObject[] read = {readShip, readAsteroid, readMissile};
+		CheckpointRecord readRecord = new CheckpointRecord(buffer, read);
+		for (AbstractObject object : read) {
+			object.readCheckpoint(readRecord);
+		}
+		assertFalse(buffer.hasRemaining());
+
+		assertEquals(ship.getId(), readShip.getId());
+		assertEquals("team", readShip.getTeamName());
+		assertEquals(100.5, readShip.getPosition().getX(), 0);
+		assertEquals(200.25, readShip.getPosition().getY(), 0);
+		assertEquals(1.5, readShip.getPosition().getOrientation(), 0);
+		assertEquals(-4, readShip.getPosition().getTranslationalVelocityY(), 0);
+		assertEquals(0.25, readShip.getPosition().getAngularVelocity(), 0);
+		assertEquals(ship.getEnergy(), readShip.getEnergy(), 0);
+		assertEquals(30, readShip.getResources().getResourceQuantity(ResourceTypes.METALS));
+		assertTrue(readShip.isValidPowerup(SpaceSettlersPowerupEnum.FIRE_MISSILE));
+		assertEquals(1, readShip.getNumBeacons());
+		assertNull(readShip.getCurrentAction());
+
+		assertEquals(asteroid.getId(), readAsteroid.getId());
+		assertTrue(readAsteroid.isMineable());
+		assertTrue(readAsteroid.isMoveable());
+		assertEquals(12, readAsteroid.getRadius());
+		assertEquals(0.5, readAsteroid.getFuelProportion(), 0);
+
+		assertEquals(missile.getId(), readMissile.getId());
+		assertSame(readShip, readMissile.getFiringShip());
+	}
+
+	/**
+	 * Writing a reference to an object that isn't being checkpointed is an error
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownReference() {
+		Ship ship = new Ship("team", Color.RED, new Position(0, 0));
+		Missile missile = new Missile(new Position(50, 60), ship);
+		List<AbstractObject> written = new ArrayList<AbstractObject>();
+		written.add(missile);
+		missile.writeCheckpoint(new CheckpointRecord(written));
+	}
+}
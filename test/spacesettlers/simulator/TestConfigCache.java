@@ -0,0 +1,91 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.clients.DoNothingTeamClient;
+import spacesettlers.configs.SpaceSettlersConfig;
+import spacesettlers.configs.TeamClientConfig;
+
+public class TestConfigCache {
+	File configFile;
+
+	@Before
+	public void setUp() throws Exception {
+		ConfigCache.clear();
+		configFile = File.createTempFile("cached", ".xml");
+		writeConfig(480);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		configFile.delete();
+		ConfigCache.clear();
+	}
+
+	void writeConfig(int height) throws IOException {
+		FileWriter out = new FileWriter(configFile);
+		out.write("<SpaceSettlersConfig><height>" + height + "</height><width>640</width>"
+				+ "<teams><HighLevelTeamConfig><teamName>team</teamName></HighLevelTeamConfig></teams>"
+				+ "<bases><BaseConfig><teamName>team</teamName></BaseConfig></bases></SpaceSettlersConfig>");
+		out.close();
+	}
+
+	@Test
+	public void testEachReadGetsItsOwnCopy() throws Exception {
+		SpaceSettlersConfig first = ConfigCache.readSimulatorConfig(configFile.getPath());
+		first.getTeams()[0].setInitialRegionULX(100);
+		first.getBases()[0].setTeamName("renamed");
+		first.setRandomSeed(7);
+
+		SpaceSettlersConfig second = ConfigCache.readSimulatorConfig(configFile.getPath());
+		assertEquals(1, ConfigCache.getMisses());
+		assertEquals(1, ConfigCache.getHits());
+		assertNotSame(first, second);
+		assertEquals(480, second.getHeight());
+		assertEquals(0, second.getTeams()[0].getInitialRegionULX());
+		assertEquals("team", second.getBases()[0].getTeamName());
+		assertEquals(0, second.getRandomSeed());
+	}
+
+	@Test
+	public void testChangedFileIsReadAgain() throws Exception {
+		ConfigCache.readSimulatorConfig(configFile.getPath());
+		writeConfig(1080);
+		assertEquals(1080, ConfigCache.readSimulatorConfig(configFile.getPath()).getHeight());
+		assertEquals(2, ConfigCache.getMisses());
+	}
+
+	@Test(expected = SimulatorException.class)
+	public void testWrongKindOfConfig() throws Exception {
+		ConfigCache.readTeamClientConfig(configFile.getPath());
+	}
+
+	@Test
+	public void testTeamClientConfigsAndClassesAreShared() throws Exception {
+		FileWriter out = new FileWriter(configFile);
+		out.write("<TeamClientConfig><classname>spacesettlers.clients.DoNothingTeamClient</classname></TeamClientConfig>");
+		out.close();
+
+		TeamClientConfig config = ConfigCache.readTeamClientConfig(configFile.getPath());
+		assertSame(config, ConfigCache.readTeamClientConfig(configFile.getPath()));
+		assertSame(DoNothingTeamClient.class, ConfigCache.getClientClass(config.getClassname()));
+		assertSame(DoNothingTeamClient.class, ConfigCache.getClientClass(config.getClassname()));
+		assertEquals(2, ConfigCache.getMisses());
+		assertEquals(2, ConfigCache.getHits());
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void testClassThatIsNotAClient() throws Exception {
+		ConfigCache.getClientClass("java.lang.String");
+	}
+}
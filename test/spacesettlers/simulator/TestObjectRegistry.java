@@ -0,0 +1,129 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Beacon;
+import spacesettlers.utilities.Position;
+
+public class TestObjectRegistry {
+	Toroidal2DPhysics space;
+
+	@Before
+	public void setUp() throws Exception {
+		space = new Toroidal2DPhysics(480, 640, 0.05);
+	}
+
+	@Test
+	public void testHandlesOfRemovedObjectsAreStale() {
+		Beacon first = new Beacon(new Position(10, 10));
+		Beacon second = new Beacon(new Position(20, 20));
+		space.addObject(first);
+		space.addObject(second);
+		int handle = second.getHandle();
+		assertSame(second, space.getObjectByHandle(handle));
+
+		// the new beacon gets the freed slot but not the old handle
+		space.removeObject(second);
+		Beacon third = new Beacon(new Position(30, 30));
+		space.addObject(third);
+		assertEquals(handle & ObjectRegistry.SLOT_MASK, third.getHandle() & ObjectRegistry.SLOT_MASK);
+		assertNull(space.getObjectByHandle(handle));
+		assertSame(third, space.getObjectByHandle(third.getHandle()));
+		assertNull(space.getObjectById(second.getId()));
+		assertSame(first, space.getObjectById(first.getId()));
+	}
+
+	@Test
+	public void testResetIdFindsObjectByNewId() {
+		Asteroid asteroid = new Asteroid(new Position(100, 100), false, 10, true, .33, .33, .34);
+		space.addObject(asteroid);
+		UUID oldId = asteroid.getId();
+		int oldHandle = asteroid.getHandle();
+
+		space.resetId(asteroid);
+		assertFalse(oldId.equals(asteroid.getId()));
+		assertNull(space.getObjectById(oldId));
+		assertNull(space.getObjectByHandle(oldHandle));
+		assertSame(asteroid, space.getObjectById(asteroid.getId()));
+		assertSame(asteroid, space.getObjectByHandle(asteroid.getHandle()));
+		assertTrue(space.getAsteroids().contains(asteroid));
+	}
+
+	@Test
+	public void testAddingAnEqualCopyIsIgnored() {
+		Beacon beacon = new Beacon(new Position(10, 10));
+		space.addObject(beacon);
+		space.addObject(beacon.deepClone());
+		assertEquals(1, space.getAllObjects().size());
+		assertTrue(space.getBeacons().contains(beacon.deepClone()));
+	}
+
+	/**
+	 * Random adds and removes keep the same order as a LinkedHashSet and find
+	 * the same objects as a HashMap
+	 */
+	@Test
+	public void testMatchesJavaCollections() {
+		Random random = new Random(3);
+		LinkedHashSet<AbstractObject> expectedObjects = new LinkedHashSet<AbstractObject>();
+		Map<UUID, AbstractObject> expectedIds = new HashMap<UUID, AbstractObject>();
+		List<AbstractObject> removed = new ArrayList<AbstractObject>();
+
+		for (int i = 0; i < 5000; i++) {
+			if (expectedObjects.isEmpty() || random.nextInt(3) > 0) {
+				Beacon beacon = new Beacon(new Position(random.nextInt(640), random.nextInt(480)));
+				space.addObject(beacon);
+				expectedObjects.add(beacon);
+				expectedIds.put(beacon.getId(), beacon);
+			} else {
+				AbstractObject[] objects = expectedObjects.toArray(new AbstractObject[0]);
+				AbstractObject object = objects[random.nextInt(objects.length)];
+				space.removeObject(object);
+				expectedObjects.remove(object);
+				expectedIds.remove(object.getId());
+				removed.add(object);
+			}
+		}
+
+		assertEquals(expectedObjects.size(), space.getBeacons().size());
+		Iterator<Beacon> beacons = space.getBeacons().iterator();
+		for (AbstractObject object : expectedObjects) {
+			assertSame(object, beacons.next());
+			assertSame(object, space.getObjectById(object.getId()));
+			assertSame(object, space.getObjectByHandle(object.getHandle()));
+		}
+		assertFalse(beacons.hasNext());
+		for (AbstractObject object : removed) {
+			assertNull(space.getObjectById(object.getId()));
+			assertFalse(space.getAllObjects().contains(object));
+		}
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testChangeWhileIterating() {
+		space.addObject(new Beacon(new Position(10, 10)));
+		space.addObject(new Beacon(new Position(20, 20)));
+		for (Beacon beacon : space.getBeacons()) {
+			space.removeObject(beacon);
+		}
+	}
+}
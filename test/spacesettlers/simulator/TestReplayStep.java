@@ -0,0 +1,93 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import spacesettlers.utilities.Movement;
+import spacesettlers.utilities.Vector2D;
+
+public class TestReplayStep {
+	static Movement movement(double x, double y, double angular) {
+		Movement movement = new Movement();
+		movement.setTranslationalAcceleration(new Vector2D(x, y));
+		movement.setAngularAccleration(angular);
+		return movement;
+	}
+
+	static void assertSameMovements(Movement[] expected, ReplayStep step) {
+		Movement[] actual = step.getMovements();
+		assertEquals(expected.length, step.getNumMovements());
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(Double.doubleToRawLongBits(expected[i].getTranslationalAcceleration().getXValue()),
+					Double.doubleToRawLongBits(actual[i].getTranslationalAcceleration().getXValue()));
+			assertEquals(Double.doubleToRawLongBits(expected[i].getTranslationalAcceleration().getYValue()),
+					Double.doubleToRawLongBits(actual[i].getTranslationalAcceleration().getYValue()));
+			assertEquals(Double.doubleToRawLongBits(expected[i].getAngularAccleration()),
+					Double.doubleToRawLongBits(actual[i].getAngularAccleration()));
+		}
+	}
+
+	/**
+	 * Movements that are new, the same as the step before or zero all come back exactly
+	 * (and the ones that didn't change take one byte each)
+	 */
+	@Test
+	public void testMovementsRoundTrip() throws IOException {
+		Movement[] first = {movement(1.5, -2.25, 0.1), movement(0, 0, 0), movement(3, 4, -0.5)};
+		Movement[] second = {movement(1.5, -2.25, 0.1), movement(-0.0, 0, 0), movement(3, 4, -0.75),
+				movement(7, 8, 9)};
+
+		ReplayStep written = new ReplayStep();
+		ReplayStep writtenPrevious = new ReplayStep();
+		writtenPrevious.clear(0);
+		written.clear(0);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		written.recordMovements(first, first.length);
+		written.write(out, writtenPrevious);
+		int firstSize = out.size();
+		writtenPrevious.recordMovements(second, second.length);
+		writtenPrevious.write(out, written);
+		out.close();
+
+		// two counts, 1 byte for the repeated movement and 25 for each of the others (-0.0 isn't zero)
+		assertEquals(1 + 1 + 1 + 25 * 3, out.size() - firstSize);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		ReplayStep read = new ReplayStep();
+		ReplayStep readPrevious = new ReplayStep();
+		readPrevious.clear(0);
+		read.read(in, readPrevious, 0);
+		assertSameMovements(first, read);
+		readPrevious.read(in, read, 0);
+		assertSameMovements(second, readPrevious);
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testVarInt() throws IOException {
+		int[] values = {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE};
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int value : values) {
+			ReplayStep.writeVarInt(out, value);
+		}
+		out.close();
+		assertTrue(bytes.size() < values.length * 4);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int value : values) {
+			assertEquals(value, ReplayStep.readVarInt(in));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRunDaemon {
+	RunDaemon daemon;
+	Thread server;
+
+	@Before
+	public void setUp() throws Exception {
+		daemon = new RunDaemon(0, 1, 4);
+		server = new Thread(new Runnable() {
+			public void run() {
+				daemon.serve();
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		daemon.shutdown();
+		server.join(10000);
+	}
+
+	/**
+	 * Send a job and read the whole answer
+	 */
+	List<String> send(String job) throws Exception {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+		PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+		out.println(job);
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		List<String> lines = new ArrayList<String>();
+		for (String line = in.readLine(); line != null; line = in.readLine()) {
+			lines.add(line);
+		}
+		socket.close();
+		return lines;
+	}
+
+	@Test
+	public void testPing() throws Exception {
+		List<String> answer = send("ping");
+		assertEquals(1, answer.size());
+		assertEquals(RunDaemon.DONE, answer.get(0));
+	}
+
+	@Test
+	public void testBadJobsAreRefused() throws Exception {
+		List<String> answer = send("fly");
+		assertEquals(1, answer.size());
+		assertTrue(answer.get(0).startsWith(RunDaemon.ERROR));
+
+		answer = send("batch --numGames 2");
+		assertTrue(answer.get(0).startsWith(RunDaemon.ERROR));
+		assertTrue(answer.get(0).contains("simulatorConfigFile"));
+
+		answer = send("batch --configPath x/ --simulatorConfigFile x.xml --debug true");
+		assertTrue(answer.get(0).startsWith(RunDaemon.ERROR));
+		assertTrue(answer.get(0).contains("debug"));
+
+		// the daemon still takes jobs
+		assertEquals(RunDaemon.DONE, send("ping").get(0));
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		assertEquals(RunDaemon.DONE, send("shutdown").get(0));
+		server.join(10000);
+		assertFalse(server.isAlive());
+	}
+
+	@Test
+	public void testSplitArguments() {
+		assertArrayEquals(new String[] {"batch", "--configPath", "my configs/", "--numGames", "2"},
+				RunDaemon.splitArguments("  batch --configPath \"my configs/\"\t--numGames 2 "));
+		assertArrayEquals(new String[] {"a", ""}, RunDaemon.splitArguments("a \"\""));
+		assertEquals(0, RunDaemon.splitArguments("   ").length);
+	}
+}
@@ -0,0 +1,135 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Ship;
+import spacesettlers.utilities.Position;
+
+public class TestSimulationEventStream {
+	/**
+	 * Keeps a copy of the parts of each event the tests check
+	 */
+	static class RecordingListener implements SimulationEventListener {
+		List<SimulationEventType> types = new ArrayList<SimulationEventType>();
+		List<Integer> timeSteps = new ArrayList<Integer>();
+		List<Double> values = new ArrayList<Double>();
+		List<String> teams = new ArrayList<String>();
+		boolean closed;
+
+		public void handleEvent(SimulationEvent event) {
+			types.add(event.getType());
+			timeSteps.add(event.getTimeStep());
+			values.add(event.getValue());
+			teams.add(event.getSubjectTeam());
+		}
+
+		public void close() {
+			closed = true;
+		}
+	}
+
+	SimulationEventStream events;
+	RecordingListener listener;
+	Ship ship;
+
+	@Before
+	public void setUp() throws Exception {
+		events = new SimulationEventStream(8);
+		listener = new RecordingListener();
+		ship = new Ship("team", Color.RED, new Position(100, 100));
+	}
+
+	@Test
+	public void testEventsArriveInOrder() {
+		events.addListener(listener);
+		events.start();
+		for (int i = 0; i < 1000; i++) {
+			events.setTimeStep(i / 10);
+			events.publish(SimulationEventType.values()[i % SimulationEventType.values().length], ship, null, i);
+		}
+		events.close();
+
+		assertEquals(1000, listener.types.size() + events.getNumDropped());
+		for (int i = 1; i < listener.values.size(); i++) {
+			// dropped events leave gaps but never change the order
+			assertEquals(true, listener.values.get(i) > listener.values.get(i - 1));
+		}
+		assertEquals(true, listener.closed);
+		assertEquals("team", listener.teams.get(0));
+	}
+
+	@Test
+	public void testFullRingDropsNewEvents() {
+		events.addListener(listener);
+		for (int i = 0; i < 10; i++) {
+			events.publish(SimulationEventType.RESPAWN, ship, null, i);
+		}
+		assertEquals(8, events.getCapacity());
+		assertEquals(2, events.getNumDropped());
+
+		events.start();
+		events.close();
+		assertEquals(8, listener.values.size());
+		assertEquals(7.0, listener.values.get(7), 0);
+	}
+
+	@Test
+	public void testFailingListenerDoesNotStopTheOthers() {
+		events.addListener(new SimulationEventListener() {
+			public void handleEvent(SimulationEvent event) {
+				throw new IllegalStateException("broken listener");
+			}
+
+			public void close() {
+			}
+		});
+		events.addListener(listener);
+		events.start();
+		events.publish(SimulationEventType.KILL, ship, null, 0);
+		events.publish(SimulationEventType.HIT, ship, null, 0);
+		events.close();
+		assertEquals(2, listener.types.size());
+		assertEquals(true, listener.closed);
+	}
+
+	@Test
+	public void testCollisionsArePublished() {
+		Toroidal2DPhysics space = new Toroidal2DPhysics(480, 640, 0.05);
+		EventStatistics statistics = new EventStatistics();
+		events.addListener(statistics);
+		events.addListener(listener);
+		events.start();
+		space.setEventStream(events);
+
+		Asteroid asteroid = new Asteroid(new Position(100, 100), true, 10, true, .33, .33, .34);
+		Beacon beacon = new Beacon(new Position(100, 100));
+		space.addObject(ship);
+		space.addObject(asteroid);
+		space.addObject(beacon);
+		space.collisionHandler.collide(asteroid, ship, space);
+		space.collisionHandler.collide(ship, beacon, space);
+		events.close();
+
+		assertEquals(SimulationEventType.MINE, listener.types.get(0));
+		assertEquals(asteroid.getResources().getTotal(), listener.values.get(0), 0);
+		assertEquals(SimulationEventType.BEACON, listener.types.get(1));
+		assertEquals(1, statistics.getCount("team", SimulationEventType.MINE));
+		assertEquals(1, statistics.getCount("team", SimulationEventType.BEACON));
+		assertEquals(0, statistics.getCount("team", SimulationEventType.KILL));
+
+		// copies of the space don't publish
+		assertNull(space.deepClone().getEventStream());
+		assertSame(events, space.getEventStream());
+	}
+}
@@ -0,0 +1,95 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestStepProfiler {
+	CallbackScheduler scheduler;
+	StepProfiler profiler;
+
+	@Before
+	public void setUp() throws Exception {
+		scheduler = new CallbackScheduler();
+		profiler = new StepProfiler(scheduler);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scheduler.shutdown();
+	}
+
+	/**
+	 * Time one step that goes through every phase
+	 */
+	void step() {
+		profiler.startStep();
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			profiler.lap(phase);
+		}
+	}
+
+	@Test
+	public void testReportEveryInterval() {
+		profiler.setReportInterval(3);
+		for (int i = 1; i <= 9; i++) {
+			step();
+			String report = profiler.endStep();
+			if (i % 3 == 0) {
+				assertNotNull(report);
+				assertTrue(report.startsWith("Profile at step " + i));
+			} else {
+				assertNull(report);
+			}
+		}
+
+		assertEquals(9, profiler.getPhaseTimes().getSteps());
+		assertEquals(9, profiler.getStepLatency().getCount());
+		for (SimulatorPhase phase : SimulatorPhase.values()) {
+			assertEquals(9, profiler.getPhaseLatency(phase).getCount());
+		}
+	}
+
+	@Test
+	public void testCountsAllocations() {
+		if (!profiler.isCountingAllocations()) {
+			return;
+		}
+		profiler.startStep();
+		Object[] garbage = new Object[100000];
+		profiler.lap(SimulatorPhase.PHYSICS);
+		profiler.endStep();
+
+		assertTrue(garbage.length * 4 <= profiler.getAllocatedBytes(SimulatorPhase.PHYSICS));
+	}
+
+	@Test
+	public void testSlowestOwnerAndJSON() {
+		scheduler.call("fast", "callback", new Callable<Integer>() {
+			public Integer call() {
+				return 1;
+			}
+		}, 1000, -1);
+		scheduler.call("slow", "callback", new Callable<Integer>() {
+			public Integer call() throws InterruptedException {
+				Thread.sleep(20);
+				return 1;
+			}
+		}, 1000, -1);
+		step();
+		profiler.endStep();
+
+		assertEquals("slow", profiler.getSlowestOwner().getName());
+		String json = profiler.toJSON();
+		assertTrue(json.contains("\"steps\": 1"));
+		assertTrue(json.contains("\"phase\": \"PHYSICS\""));
+		assertTrue(json.contains("\"name\": \"slow\""));
+	}
+}
@@ -1,14 +1,39 @@
 package spacesettlers.simulator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import spacesettlers.actions.AbstractAction;
+import spacesettlers.clients.DoNothingTeamClient;
+import spacesettlers.clients.Team;
+import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.objects.resources.ResourceTypes;
 import spacesettlers.simulator.Toroidal2DPhysics;
 import spacesettlers.utilities.Movement;
 import spacesettlers.utilities.Position;
@@ -343,6 +368,656 @@ public class TestToroidal2DPhysics {
 		dist = space.findShortestDistance(center, center);
 		assertEquals(dist, 0, 0.01);
 	}
-	
 
+	/**
+	 * The primitive distance methods have to give exactly what the vector gives,
+	 * including when the shortest path wraps around the edges
+	 */
+	@Test
+	public void testPrimitiveDistancesMatchVector() {
+		Random random = new Random(3);
+		double[] scratch = new double[2];
+		for (int i = 0; i < 1000; i++) {
+			Position location1 = new Position(random.nextDouble() * width, random.nextDouble() * height);
+			Position location2 = new Position(random.nextDouble() * width, random.nextDouble() * height);
+			Vector2D shortestDist = space.findShortestDistanceVector(location1, location2);
+
+			space.findShortestDistanceVector(location1, location2, scratch);
+			assertEquals(shortestDist.getXValue(), scratch[0], 0);
+			assertEquals(shortestDist.getYValue(), scratch[1], 0);
+			assertEquals(shortestDist.getMagnitude(), space.findShortestDistance(location1, location2), 0);
+			assertEquals(shortestDist.getMagnitude() * shortestDist.getMagnitude(),
+					space.findShortestDistanceSquared(location1, location2), 0.000001);
+		}
+	}
+
+	@Test
+	public void testFindShortestDistances() {
+		Position center = new Position(0, 0);
+		space.addObject(new Beacon(new Position(10, 0)));
+		space.addObject(new Beacon(new Position(width - 20, 0)));
+		space.addObject(new Beacon(new Position(0, height - 30)));
+
+		double[] distances = new double[5];
+		assertEquals(3, space.findShortestDistances(center, space.getBeacons(), distances));
+		int i = 0;
+		for (Beacon beacon : space.getBeacons()) {
+			assertEquals(space.findShortestDistance(center, beacon.getPosition()), distances[i++], 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFindShortestDistancesNeedsRoom() {
+		space.addObject(new Beacon(new Position(10, 0)));
+		space.addObject(new Beacon(new Position(20, 0)));
+		space.findShortestDistances(new Position(0, 0), space.getBeacons(), new double[1]);
+	}
+
+
+	@Test
+	public void testClientSnapshotSharedUntilInvalidated() {
+		Beacon beacon = new Beacon(new Position(100, 100));
+		space.addObject(beacon);
+
+		Toroidal2DPhysics snapshot = space.getClientSnapshot();
+		assertTrue(snapshot != space);
+		assertTrue(snapshot == space.getClientSnapshot());
+
+		// the snapshot is a read-only copy of the live objects
+		AbstractObject snapshotBeacon = snapshot.getObjectById(beacon.getId());
+		assertTrue(snapshotBeacon != beacon);
+		assertTrue(snapshot.isReadOnly() && snapshotBeacon.isReadOnly());
+		assertFalse(space.isReadOnly() || beacon.isReadOnly());
+		try {
+			snapshotBeacon.getPosition().setX(200);
+			fail("the snapshot position was changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(snapshotBeacon.getPosition().getX(), 100, 0);
+		assertEquals(beacon.getPosition().getX(), 100, 0);
+
+		// a copy of the snapshot can be changed
+		Toroidal2DPhysics copy = snapshot.deepClone();
+		assertFalse(copy.isReadOnly());
+		copy.getObjectById(beacon.getId()).getPosition().setX(200);
+		copy.addObject(new Beacon(new Position(50, 50)));
+		assertEquals(snapshotBeacon.getPosition().getX(), 100, 0);
+		assertEquals(snapshot.getBeacons().size(), 1);
+
+		// changing the space makes a new snapshot
+		space.invalidateClientSnapshot();
+		Toroidal2DPhysics newSnapshot = space.getClientSnapshot();
+		assertTrue(newSnapshot != snapshot);
+		assertEquals(newSnapshot.getObjectById(beacon.getId()).getPosition().getX(), 100, 0);
+
+		space.addObject(new Beacon(new Position(300, 300)));
+		assertTrue(space.getClientSnapshot() != newSnapshot);
+		assertEquals(space.getClientSnapshot().getBeacons().size(), 2);
+	}
+
+	/**
+	 * A team client that tries to change the space it is given: it kills the beacon, 
+	 * moves and drains the ship and adds a beacon of its own
+	 */
+	class TamperingTeamClient extends DoNothingTeamClient {
+		UUID beaconId, shipId;
+		boolean sawBeaconAlive;
+		double sawShipX;
+		int sawShipWater, sawNumBeacons, numRefused;
+
+		TamperingTeamClient(String teamName, UUID beaconId, UUID shipId) {
+			setTeamName(teamName);
+			setTeamColor(Color.RED);
+			this.beaconId = beaconId;
+			this.shipId = shipId;
+		}
+
+		@Override
+		public Map<UUID, AbstractAction> getMovementStart(Toroidal2DPhysics space,
+				Set<AbstractActionableObject> actionableObjects) {
+			AbstractObject beacon = space.getObjectById(beaconId);
+			Ship ship = (Ship) space.getObjectById(shipId);
+			sawBeaconAlive = beacon.isAlive();
+			sawShipX = ship.getPosition().getX();
+			sawShipWater = ship.getResources().getResourceQuantity(ResourceTypes.WATER);
+			sawNumBeacons = space.getBeacons().size();
+			try {
+				beacon.setAlive(false);
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			try {
+				ship.getPosition().setX(400);
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			try {
+				ship.getResources().reset();
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			try {
+				space.addObject(new Beacon(new Position(10, 10)));
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			return super.getMovementStart(space, actionableObjects);
+		}
+	}
+
+	@Test
+	public void testTeamsCannotChangeTheSharedSnapshot() {
+		Beacon beacon = new Beacon(new Position(300, 300));
+		Ship ship = new Ship("first", Color.RED, new Position(100, 100));
+		ship.getResources().setResources(ResourceTypes.WATER, 50);
+		space.addObject(beacon);
+		space.addObject(ship);
+
+		CallbackScheduler scheduler = new CallbackScheduler();
+		TamperingTeamClient firstClient = new TamperingTeamClient("first", beacon.getId(), ship.getId());
+		TamperingTeamClient secondClient = new TamperingTeamClient("second", beacon.getId(), ship.getId());
+		Team first = new Team(firstClient, "first", 1);
+		Team second = new Team(secondClient, "second", 1);
+		first.setScheduler(scheduler);
+		second.setScheduler(scheduler);
+
+		first.getTeamMovementStart(space);
+		second.getTeamMovementStart(space);
+		scheduler.shutdown();
+
+		// both teams were handed the same snapshot, every change was refused and the 
+		// second team saw the world as it was
+		assertEquals(4, firstClient.numRefused);
+		assertEquals(4, secondClient.numRefused);
+		assertTrue(secondClient.sawBeaconAlive);
+		assertEquals(secondClient.sawShipX, 100, 0);
+		assertEquals(secondClient.sawShipWater, 50);
+		assertEquals(secondClient.sawNumBeacons, 1);
+		assertTrue(beacon.isAlive());
+		assertEquals(ship.getPosition().getX(), 100, 0);
+		assertEquals(ship.getResources().getResourceQuantity(ResourceTypes.WATER), 50);
+	}
+
+	/**
+	 * An action that remembers the space it was given (and whether the beacon was alive 
+	 * in it) and tries to kill the beacon and move its ship
+	 */
+	class TamperingAction extends AbstractAction {
+		Toroidal2DPhysics givenSpace;
+		Ship givenShip;
+		UUID beaconId;
+		boolean sawBeaconAlive;
+		int numRefused;
+
+		TamperingAction(UUID beaconId) {
+			this.beaconId = beaconId;
+		}
+
+		public Movement getMovement(Toroidal2DPhysics space, Ship ship) {
+			givenSpace = space;
+			givenShip = ship;
+			sawBeaconAlive = space.getObjectById(beaconId).isAlive();
+			try {
+				space.getObjectById(beaconId).setAlive(false);
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			try {
+				ship.getPosition().setX(400);
+			} catch (UnsupportedOperationException e) {
+				numRefused++;
+			}
+			Movement movement = new Movement();
+			movement.setTranslationalAcceleration(new Vector2D(10, 0));
+			return movement;
+		}
+
+		public boolean isMovementFinished(Toroidal2DPhysics space) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testActionsShareAReadOnlyCopyOfTheSpace() {
+		Beacon beacon = new Beacon(new Position(300, 300));
+		space.addObject(beacon);
+		Ship ship1 = new Ship("team", Color.BLUE, new Position(100, 100));
+		Ship ship2 = new Ship("team", Color.BLUE, new Position(100, 200));
+		space.addObject(ship1);
+		space.addObject(ship2);
+		TamperingAction action1 = new TamperingAction(beacon.getId());
+		TamperingAction action2 = new TamperingAction(beacon.getId());
+		ship1.setCurrentAction(action1);
+		ship2.setCurrentAction(action2);
+
+		space.advanceTime(0, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+
+		// both actions saw the same read-only copy of the space: the first could not kill
+		// the beacon or move its ship in the copy the second one saw, or in the real space
+		assertTrue(action1.givenSpace != space);
+		assertTrue(action1.givenSpace == action2.givenSpace);
+		assertTrue(action1.givenShip != ship1 && action1.givenShip.isReadOnly());
+		assertEquals(2, action1.numRefused);
+		assertEquals(2, action2.numRefused);
+		assertTrue(action1.sawBeaconAlive);
+		assertTrue(action2.sawBeaconAlive);
+		assertTrue(action2.givenSpace.getObjectById(beacon.getId()).isAlive());
+		assertEquals(action2.givenSpace.getObjectById(ship1.getId()).getPosition().getX(), 100, 0);
+		assertTrue(beacon.isAlive());
+
+		// the ships still moved (only the movements the actions returned were applied)
+		assertEquals(ship1.getPosition().getTranslationalVelocityX(), 10, 0);
+		assertEquals(ship2.getPosition().getTranslationalVelocityX(), 10, 0);
+
+		// the copy is not handed out again once the objects have moved
+		assertTrue(space.getClientSnapshot() != action1.givenSpace);
+	}
+
+	/**
+	 * Fill the space with moving asteroids (the same ones for the same seed)
+	 */
+	void addMovingAsteroids(Toroidal2DPhysics space, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < 200; i++) {
+			Position location = new Position(random.nextDouble() * width, random.nextDouble() * height,
+					(random.nextDouble() * 2 - 1) * Math.PI);
+			location.setTranslationalVelocity(Vector2D.getRandom(random, Toroidal2DPhysics.MAX_TRANSLATIONAL_VELOCITY));
+			location.setAngularVelocity((random.nextDouble() * 2 - 1) * Toroidal2DPhysics.MAX_ANGULAR_VELOCITY);
+			space.addObject(new Asteroid(location, false, 5 + random.nextInt(10), true, 0, 0, 0));
+		}
+	}
+
+	@Test
+	public void testArrayIntegrationMatchesObjects() {
+		Toroidal2DPhysics objectSpace = new Toroidal2DPhysics(height, width, 0.05);
+		objectSpace.useArrayIntegration = false;
+		Toroidal2DPhysics arraySpace = new Toroidal2DPhysics(height, width, 0.05);
+		addMovingAsteroids(objectSpace, 11);
+		addMovingAsteroids(arraySpace, 11);
+
+		for (int step = 0; step < 500; step++) {
+			objectSpace.advanceTime(step, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+			arraySpace.advanceTime(step, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+		}
+
+		Iterator<Asteroid> arrayAsteroids = arraySpace.getAsteroids().iterator();
+		for (Asteroid asteroid : objectSpace.getAsteroids()) {
+			Position expected = asteroid.getPosition();
+			Position actual = arrayAsteroids.next().getPosition();
+			assertEquals(expected.getX(), actual.getX(), 0);
+			assertEquals(expected.getY(), actual.getY(), 0);
+			assertEquals(expected.getOrientation(), actual.getOrientation(), 0);
+			assertEquals(expected.getTranslationalVelocityX(), actual.getTranslationalVelocityX(), 0);
+			assertEquals(expected.getTranslationalVelocityY(), actual.getTranslationalVelocityY(), 0);
+			assertTrue(actual.getX() >= 0 && actual.getX() < width);
+			assertTrue(actual.getY() >= 0 && actual.getY() < height);
+		}
+	}
+
+	/**
+	 * Fill the space with a crowd of asteroids, ships and bases (the same ones for the same seed)
+	 */
+	void addCrowd(Toroidal2DPhysics space, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < 1500; i++) {
+			Position location = new Position(random.nextDouble() * width, random.nextDouble() * height);
+			location.setTranslationalVelocity(Vector2D.getRandom(random, Toroidal2DPhysics.MAX_TRANSLATIONAL_VELOCITY));
+			space.addObject(new Asteroid(location, random.nextBoolean(), 3 + random.nextInt(8), random.nextInt(10) > 0, 0.3, 0.3, 0.4));
+		}
+		for (int i = 0; i < 10; i++) {
+			Ship ship = new Ship("team", Color.BLUE, new Position(random.nextDouble() * width, random.nextDouble() * height));
+			ship.getPosition().setTranslationalVelocity(Vector2D.getRandom(random, 50));
+			space.addObject(ship);
+			space.addObject(new Beacon(new Position(random.nextDouble() * width, random.nextDouble() * height)));
+		}
+	}
+
+	/**
+	 * The physics threads must not change the game.  This also fails (now and then, on 
+	 * Java 8) if the collision math uses a function whose JIT compiled result differs 
+	 * from the interpreted one, since the two spaces reach it at different times.
+	 */
+	@Test
+	public void testParallelPhysicsMatchesOneThread() {
+		Toroidal2DPhysics oneThread = new Toroidal2DPhysics(height, width, 0.05);
+		Toroidal2DPhysics parallel = new Toroidal2DPhysics(height, width, 0.05);
+		parallel.setPhysicsThreads(4);
+		assertEquals(4, parallel.getPhysicsThreads());
+		addCrowd(oneThread, 5);
+		addCrowd(parallel, 5);
+
+		for (int step = 0; step < 100; step++) {
+			oneThread.advanceTime(step, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+			parallel.advanceTime(step, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+		}
+		parallel.setPhysicsThreads(1);
+
+		Iterator<AbstractObject> parallelObjects = parallel.getAllObjects().iterator();
+		for (AbstractObject object : oneThread.getAllObjects()) {
+			AbstractObject other = parallelObjects.next();
+			Position expected = object.getPosition();
+			Position actual = other.getPosition();
+			assertEquals(object.isAlive(), other.isAlive());
+			assertEquals(expected.getX(), actual.getX(), 0);
+			assertEquals(expected.getY(), actual.getY(), 0);
+			assertEquals(expected.getTranslationalVelocityX(), actual.getTranslationalVelocityX(), 0);
+			assertEquals(expected.getTranslationalVelocityY(), actual.getTranslationalVelocityY(), 0);
+			if (object instanceof Ship) {
+				assertEquals(((Ship) object).getEnergy(), ((Ship) other).getEnergy(), 0);
+			}
+		}
+	}
+
+	/**
+	 * An action that takes its time and then accelerates to the right
+	 */
+	class SlowAction extends AbstractAction {
+		long sleepMillis;
+
+		SlowAction(long sleepMillis) {
+			this.sleepMillis = sleepMillis;
+		}
+
+		public Movement getMovement(Toroidal2DPhysics space, Ship ship) {
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				// stop early when the time runs out
+			}
+			Movement movement = new Movement();
+			movement.setTranslationalAcceleration(new Vector2D(10, 0));
+			return movement;
+		}
+
+		public boolean isMovementFinished(Toroidal2DPhysics space) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testShipMovementsRunAtTheSameTime() {
+		CallbackScheduler scheduler = new CallbackScheduler();
+		ExecutorService pool = scheduler.newPool(false);
+
+		Ship[] ships = new Ship[4];
+		for (int i = 0; i < ships.length; i++) {
+			ships[i] = new Ship("team", Color.BLUE, new Position(100, 100 + 50 * i));
+			ships[i].setCurrentAction(new SlowAction(200));
+			space.addObject(ships[i]);
+		}
+		Ship hungShip = new Ship("team", Color.BLUE, new Position(300, 100));
+		hungShip.setCurrentAction(new SlowAction(5000));
+		space.addObject(hungShip);
+		space.setMovementScheduler(scheduler, pool, 500);
+
+		long start = System.nanoTime();
+		space.advanceTime(0, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+		long millis = (System.nanoTime() - start) / 1000000;
+		scheduler.shutdown();
+		pool.shutdown();
+
+		// the slow actions ran side by side (one after another would be 1300 ms) and the 
+		// hung one was cut off at the timeout
+		assertTrue(millis < 1000);
+		for (Ship ship : ships) {
+			assertEquals(ship.getPosition().getTranslationalVelocityX(), 10, 0);
+		}
+		assertEquals(hungShip.getPosition().getTranslationalVelocityX(), 0, 0);
+		assertEquals(1, scheduler.getLatency("getMovement").getTimeouts());
+		assertEquals(5, scheduler.getOwnerLatency("team").getCount() + scheduler.getOwnerLatency("team").getTimeouts());
+	}
+
+	/**
+	 * A tampering action that waits for the other actions to start first, so they all
+	 * try to change the space at the same time
+	 */
+	class ConcurrentTamperingAction extends TamperingAction {
+		CountDownLatch started;
+
+		ConcurrentTamperingAction(UUID beaconId, CountDownLatch started) {
+			super(beaconId);
+			this.started = started;
+		}
+
+		public Movement getMovement(Toroidal2DPhysics space, Ship ship) {
+			started.countDown();
+			try {
+				started.await(2, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// tamper anyway
+			}
+			return super.getMovement(space, ship);
+		}
+	}
+
+	@Test
+	public void testParallelActionsCannotChangeEachOthersView() {
+		CallbackScheduler scheduler = new CallbackScheduler();
+		ExecutorService pool = scheduler.newPool(false);
+		Beacon beacon = new Beacon(new Position(300, 300));
+		space.addObject(beacon);
+
+		String[] teams = {"first", "second"};
+		CountDownLatch started = new CountDownLatch(2 * teams.length);
+		List<TamperingAction> actions = new ArrayList<TamperingAction>();
+		List<Ship> ships = new ArrayList<Ship>();
+		for (int i = 0; i < 2 * teams.length; i++) {
+			Ship ship = new Ship(teams[i % teams.length], Color.BLUE, new Position(100, 100 + 50 * i));
+			TamperingAction action = new ConcurrentTamperingAction(beacon.getId(), started);
+			ship.setCurrentAction(action);
+			space.addObject(ship);
+			ships.add(ship);
+			actions.add(action);
+		}
+		space.setMovementScheduler(scheduler, pool, 2000);
+
+		space.advanceTime(0, new HashMap<UUID, SpaceSettlersPowerupEnum>());
+		scheduler.shutdown();
+		pool.shutdown();
+
+		// the actions of both teams ran at the same time on one read-only copy: every 
+		// change was refused, they all saw the beacon alive and all of the movements applied
+		for (TamperingAction action : actions) {
+			assertTrue(action.givenSpace == actions.get(0).givenSpace);
+			assertEquals(2, action.numRefused);
+			assertTrue(action.sawBeaconAlive);
+		}
+		assertTrue(actions.get(0).givenSpace.getObjectById(beacon.getId()).isAlive());
+		assertTrue(beacon.isAlive());
+		for (Ship ship : ships) {
+			assertEquals(ship.getPosition().getTranslationalVelocityX(), 10, 0);
+		}
+	}
+
+	/**
+	 * The objects of the type that the filter accepts, nearest first (by looking at all of them)
+	 */
+	<T extends AbstractObject> List<T> findAllByDistance(final Position location, Class<T> type, ObjectFilter<? super T> filter) {
+		List<T> found = new ArrayList<T>();
+		for (AbstractObject object : space.getAllObjects()) {
+			if (type.isInstance(object) && (filter == null || filter.accept(type.cast(object)))) {
+				found.add(type.cast(object));
+			}
+		}
+		Collections.sort(found, new Comparator<T>() {
+			public int compare(T object1, T object2) {
+				return Double.compare(space.findShortestDistanceSquared(location, object1.getPosition()),
+						space.findShortestDistanceSquared(location, object2.getPosition()));
+			}
+		});
+		return found;
+	}
+
+	@Test
+	public void testSpatialQueriesMatchLinearScan() {
+		addCrowd(space, 17);
+		ObjectFilter<Asteroid> mineable = new ObjectFilter<Asteroid>() {
+			public boolean accept(Asteroid asteroid) {
+				return asteroid.isMineable();
+			}
+		};
+
+		Random random = new Random(3);
+		for (int query = 0; query < 200; query++) {
+			Position location = new Position(random.nextDouble() * width, random.nextDouble() * height);
+
+			List<Asteroid> asteroids = findAllByDistance(location, Asteroid.class, null);
+			assertEquals(asteroids.subList(0, 5), space.findNearest(location, Asteroid.class, 5, null));
+			assertEquals(asteroids.get(0), space.findNearest(location, Asteroid.class));
+
+			List<Asteroid> mineableAsteroids = findAllByDistance(location, Asteroid.class, mineable);
+			assertEquals(mineableAsteroids.get(0), space.findNearestMineableAsteroid(location, null));
+			assertEquals(mineableAsteroids.subList(0, 3), space.findNearest(location, Asteroid.class, 3, mineable));
+
+			// a sparse type and asking for more than there are
+			List<Beacon> beacons = findAllByDistance(location, Beacon.class, null);
+			assertEquals(beacons, space.findNearest(location, Beacon.class, 20, null));
+
+			double radius = random.nextDouble() * 150;
+			List<AbstractObject> within = new ArrayList<AbstractObject>();
+			for (AbstractObject object : findAllByDistance(location, AbstractObject.class, null)) {
+				if (space.findShortestDistance(location, object.getPosition()) <= radius) {
+					within.add(object);
+				}
+			}
+			assertEquals(within, space.findWithinRadius(location, radius, AbstractObject.class, null));
+		}
+	}
+
+	@Test
+	public void testSpatialQueriesSeeChanges() {
+		Position center = new Position(100, 100);
+		Beacon far = new Beacon(new Position(300, 300));
+		space.addObject(far);
+		assertEquals(far, space.findNearest(center, Beacon.class));
+		assertEquals(null, space.findNearest(center, Ship.class));
+		assertTrue(space.getSpatialIndex(Beacon.class) == space.getSpatialIndex(Beacon.class));
+
+		Beacon near = new Beacon(new Position(width - 10, 100));
+		space.addObject(near);
+		assertEquals(near, space.findNearest(center, Beacon.class));
+
+		space.removeObject(near);
+		assertEquals(far, space.findNearest(center, Beacon.class));
+		assertTrue(space.findWithinRadius(center, 100, Beacon.class, null).isEmpty());
+	}
+
+	/**
+	 * The free location searches as they were before the grid (every attempt checks every object)
+	 */
+	private Position getRandomFreeLocationByScan(Random rand, int radius) {
+		Position randLocation = new Position(rand.nextFloat() * width, rand.nextFloat() * height);
+		while (!space.isLocationFree(randLocation, radius)) {
+			randLocation = new Position(rand.nextFloat() * width, rand.nextFloat() * height);
+		}
+		return randLocation;
+	}
+
+	private Position getRandomFreeLocationInRegionByScan(Random rand, int freeRadius, int centerX, int centerY, double maxDistance) {
+		Position centerPosition = new Position(centerX, centerY);
+		Position randLocation;
+		do {
+			double newX = ((2 * rand.nextDouble()) - 1) * maxDistance + centerX;
+			double newY = ((2 * rand.nextDouble()) - 1) * maxDistance + centerY;
+			randLocation = new Position(newX, newY);
+			space.toroidalWrap(randLocation);
+		} while (!space.isLocationFree(randLocation, freeRadius) || space.findShortestDistance(centerPosition, randLocation) > maxDistance);
+		return randLocation;
+	}
+
+	private Position getRandomFreeLocationInBoxByScan(Random rand, int freeRadius, int ULX, int ULY, int LRX, int LRY) {
+		Position randLocation;
+		do {
+			double newX = ((2 * rand.nextDouble()) - 1) * ((LRX - ULX) / 2.0) + ((LRX - ULX) / 2 + ULX);
+			double newY = ((2 * rand.nextDouble()) - 1) * ((LRY - ULY) / 2.0) + ((LRY - ULY) / 2 + ULY);
+			randLocation = new Position(newX, newY);
+			space.toroidalWrap(randLocation);
+		} while (!space.isLocationFree(randLocation, freeRadius));
+		return randLocation;
+	}
+
+	@Test
+	public void testRandomFreeLocationsMatchScan() {
+		addCrowd(space, 5);
+		Random expectedRandom = new Random(11);
+		Random random = new Random(11);
+
+		for (int i = 0; i < 30; i++) {
+			int radius = 2 + i % 5;
+			Position expected, location;
+			if (i % 3 == 0) {
+				expected = getRandomFreeLocationByScan(expectedRandom, radius);
+				location = space.getRandomFreeLocation(random, radius);
+			} else if (i % 3 == 1) {
+				expected = getRandomFreeLocationInRegionByScan(expectedRandom, radius, 100, 50, 80);
+				location = space.getRandomFreeLocationInRegion(random, radius, 100, 50, 80);
+			} else {
+				expected = getRandomFreeLocationInBoxByScan(expectedRandom, radius, 400, 300, 600, 470);
+				location = space.getRandomFreeLocationInRegion(random, radius, 400, 300, 600, 470);
+			}
+			assertEquals(expected.getX(), location.getX(), 0);
+			assertEquals(expected.getY(), location.getY(), 0);
+
+			// fill the space up as we go
+			space.addObject(new Beacon(location));
+		}
+	}
+
+	@Test
+	public void testRespawnedObjectsDontOverlap() {
+		Random random = new Random(9);
+		List<AbstractObject> killed = new ArrayList<AbstractObject>();
+		for (int i = 0; i < 300; i++) {
+			Position location = new Position(random.nextDouble() * width, random.nextDouble() * height);
+			Asteroid asteroid = new Asteroid(location, false, 3 + random.nextInt(8), true, 0.3, 0.3, 0.4);
+			space.addObject(asteroid);
+			if (i % 3 == 0) {
+				asteroid.setAlive(false);
+				killed.add(asteroid);
+			}
+		}
+
+		space.respawnDeadObjects(new Random(4), 10);
+
+		for (AbstractObject respawned : killed) {
+			assertTrue(respawned.isAlive());
+			for (AbstractObject object : space.getAllObjects()) {
+				if (object != respawned) {
+					double distance = space.findShortestDistance(respawned.getPosition(), object.getPosition());
+					assertTrue(distance > respawned.getRadius() + object.getRadius());
+				}
+			}
+		}
+	}
+
+	/**
+	 * A dead ship waits its whole respawn delay even when other objects respawn in the
+	 * same steps
+	 */
+	@Test
+	public void testShipRespawnDelayWhileOthersRespawn() {
+		Ship ship = new Ship("team", Color.BLUE, new Position(100, 100));
+		space.addObject(ship);
+		Beacon beacon = new Beacon(new Position(300, 300));
+		space.addObject(beacon);
+		ship.setAlive(false);
+
+		Random random = new Random(2);
+		for (int step = 1; step < Ship.RESPAWN_INCREMENT; step++) {
+			beacon.setAlive(false);
+			space.respawnDeadObjects(random, 10);
+			assertTrue(beacon.isAlive());
+			assertFalse(ship.isAlive());
+		}
+		beacon.setAlive(false);
+		space.respawnDeadObjects(random, 10);
+		assertTrue(ship.isAlive());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoFreeLocation() {
+		space.addObject(new Asteroid(new Position(width / 2, height / 2), false, 1000, false, 0.3, 0.3, 0.4));
+		space.getRandomFreeLocation(new Random(1), 5);
+	}
 }
@@ -0,0 +1,177 @@
+package spacesettlers.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import spacesettlers.objects.AbstractActionableObject;
+import spacesettlers.objects.AbstractObject;
+import spacesettlers.objects.Asteroid;
+import spacesettlers.objects.Beacon;
+import spacesettlers.objects.Ship;
+import spacesettlers.objects.powerups.SpaceSettlersPowerupEnum;
+import spacesettlers.utilities.Position;
+import spacesettlers.utilities.Vector2D;
+
+public class TestToroidalSpatialGrid {
+	ToroidalSpatialGrid grid;
+	int height, width;
+
+	@Before
+	public void setUp() throws Exception {
+		height = 480;
+		width = 640;
+		grid = new ToroidalSpatialGrid(width, height);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Returns true if the index is one of the first count candidates
+	 */
+	private boolean isCandidate(int index, int count) {
+		for (int c = 0; c < count; c++) {
+			if (grid.getCandidates()[c] == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testCandidatesWrapAroundEdges() {
+		AbstractObject[] objects = new AbstractObject[4];
+		objects[0] = new Beacon(new Position(1, 1));
+		objects[1] = new Beacon(new Position(width - 1, 1));
+		objects[2] = new Beacon(new Position(1, height - 1));
+		objects[3] = new Beacon(new Position(width / 2, height / 2));
+		grid.rebuild(objects, objects.length, 21);
+
+		int count = grid.findCandidates(1, 1, -1);
+		assertEquals(3, count);
+		assertTrue(isCandidate(0, count));
+		assertTrue(isCandidate(1, count));
+		assertTrue(isCandidate(2, count));
+	}
+
+	@Test
+	public void testCandidatesSortedAndAfterMinIndex() {
+		AbstractObject[] objects = new AbstractObject[5];
+		for (int i = 0; i < objects.length; i++) {
+			objects[objects.length - 1 - i] = new Beacon(new Position(100 + i, 100));
+		}
+		grid.rebuild(objects, objects.length, 21);
+
+		int count = grid.findCandidates(100, 100, 1);
+		assertEquals(3, count);
+		assertEquals(2, grid.getCandidates()[0]);
+		assertEquals(3, grid.getCandidates()[1]);
+		assertEquals(4, grid.getCandidates()[2]);
+	}
+
+	@Test
+	public void testLocationFreeAcrossEdge() {
+		Toroidal2DPhysics space = new Toroidal2DPhysics(height, width, 0.05);
+		AbstractObject[] objects = new AbstractObject[2];
+		objects[0] = new Beacon(new Position(width - 5, 10));
+		objects[1] = new Beacon(new Position(300, 300));
+		grid.rebuild(objects, objects.length, 5 + Beacon.BEACON_RADIUS + 1);
+
+		assertFalse(grid.isLocationFree(space, new Position(3, 10), 5));
+		assertFalse(grid.isLocationFree(space, new Position(310, 300), 5));
+		assertTrue(grid.isLocationFree(space, new Position(3, 100), 5));
+		assertTrue(grid.isLocationFree(space, new Position(300, 300 + 5 + Beacon.BEACON_RADIUS + 1), 5));
+	}
+
+	@Test
+	public void testUpdateMovesObjectToNewCell() {
+		AbstractObject[] objects = new AbstractObject[2];
+		objects[0] = new Beacon(new Position(10, 10));
+		objects[1] = new Beacon(new Position(300, 300));
+		grid.rebuild(objects, objects.length, 21);
+		assertEquals(1, grid.findCandidates(300, 300, -1));
+
+		objects[0].setPosition(new Position(305, 300));
+		grid.update(0);
+		assertEquals(2, grid.findCandidates(300, 300, -1));
+		assertEquals(0, grid.findCandidates(10, 10, -1));
+	}
+
+	@Test
+	public void testSmallGridVisitsEachCellOnce() {
+		AbstractObject[] objects = new AbstractObject[3];
+		objects[0] = new Beacon(new Position(10, 10));
+		objects[1] = new Beacon(new Position(400, 100));
+		objects[2] = new Beacon(new Position(600, 400));
+		grid.rebuild(objects, objects.length, 300);
+
+		assertEquals(2, grid.getNumCols());
+		assertEquals(1, grid.getNumRows());
+		assertEquals(3, grid.findCandidates(10, 10, -1));
+	}
+
+	/**
+	 * Run a crowded world with the grid and with all pairs and ensure every object ends
+	 * up in exactly the same state
+	 */
+	@Test
+	public void testCollisionsMatchAllPairs() {
+		Random random = new Random(42);
+		Toroidal2DPhysics gridSpace = new Toroidal2DPhysics(height, width, 0.05);
+
+		for (int a = 0; a < 400; a++) {
+			int radius = random.nextInt(Asteroid.MAX_ASTEROID_RADIUS - Asteroid.MIN_ASTEROID_RADIUS) + Asteroid.MIN_ASTEROID_RADIUS;
+			Asteroid asteroid = new Asteroid(new Position(random.nextDouble() * width, random.nextDouble() * height),
+					random.nextBoolean(), radius, random.nextDouble() < 0.8, 0.3, 0.3, 0.4);
+			if (asteroid.isMoveable()) {
+				asteroid.getPosition().setTranslationalVelocity(Vector2D.getRandom(random, 60));
+			}
+			gridSpace.addObject(asteroid);
+		}
+		for (int b = 0; b < 20; b++) {
+			gridSpace.addObject(new Beacon(new Position(random.nextDouble() * width, random.nextDouble() * height)));
+		}
+		for (int s = 0; s < 6; s++) {
+			Ship ship = new Ship("team" + (s % 2), Color.BLUE, new Position(random.nextDouble() * width, random.nextDouble() * height));
+			ship.getPosition().setTranslationalVelocity(Vector2D.getRandom(random, 40));
+			gridSpace.addObject(ship);
+		}
+
+		Toroidal2DPhysics allPairsSpace = gridSpace.deepClone();
+		allPairsSpace.useSpatialGrid = false;
+
+		HashMap<UUID, SpaceSettlersPowerupEnum> noPowerups = new HashMap<UUID, SpaceSettlersPowerupEnum>();
+		for (int step = 0; step < 200; step++) {
+			gridSpace.advanceTime(step, noPowerups);
+			allPairsSpace.advanceTime(step, noPowerups);
+		}
+
+		assertEquals(allPairsSpace.getAllObjects().size(), gridSpace.getAllObjects().size());
+		Iterator<AbstractObject> allPairsIterator = allPairsSpace.getAllObjects().iterator();
+		for (AbstractObject gridObject : gridSpace.getAllObjects()) {
+			AbstractObject allPairsObject = allPairsIterator.next();
+			assertEquals(allPairsObject.getId(), gridObject.getId());
+			assertEquals(allPairsObject.isAlive(), gridObject.isAlive());
+			assertEquals(allPairsObject.getPosition().getX(), gridObject.getPosition().getX(), 0);
+			assertEquals(allPairsObject.getPosition().getY(), gridObject.getPosition().getY(), 0);
+			assertEquals(allPairsObject.getPosition().getTranslationalVelocityX(), gridObject.getPosition().getTranslationalVelocityX(), 0);
+			assertEquals(allPairsObject.getPosition().getTranslationalVelocityY(), gridObject.getPosition().getTranslationalVelocityY(), 0);
+			if (gridObject instanceof AbstractActionableObject) {
+				assertEquals(((AbstractActionableObject) allPairsObject).getEnergy(),
+						((AbstractActionableObject) gridObject).getEnergy(), 0);
+			}
+		}
+	}
+}
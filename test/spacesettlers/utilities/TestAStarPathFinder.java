@@ -0,0 +1,115 @@
+package spacesettlers.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAStarPathFinder {
+	AStarPathFinder finder;
+
+	@Before
+	public void setUp() throws Exception {
+		finder = new AStarPathFinder();
+	}
+
+	/**
+	 * Add an edge both ways
+	 */
+	private void addEdges(int vertex1, int vertex2, double cost) {
+		finder.addEdge(vertex1, vertex2, cost);
+		finder.addEdge(vertex2, vertex1, cost);
+	}
+
+	/**
+	 * A square with a short and a long way from the start (0) to the goal (3)
+	 */
+	private void makeSquare() {
+		finder.addVertex(2, false);
+		finder.addVertex(1, false);
+		finder.addVertex(1, false);
+		finder.addVertex(0, true);
+		addEdges(0, 1, 3);
+		addEdges(0, 2, 1);
+		addEdges(1, 3, 1);
+		addEdges(2, 3, 1);
+	}
+
+	@Test
+	public void testCheapestPath() {
+		makeSquare();
+
+		assertTrue(finder.findPath(0, 100));
+		assertEquals(3, finder.getPathLength());
+		assertEquals(0, finder.getPathVertex(0));
+		assertEquals(2, finder.getPathVertex(1));
+		assertEquals(3, finder.getPathVertex(2));
+
+		// the edges taken: 0 to 2 is the third edge added and 2 to 3 the seventh
+		assertEquals(-1, finder.getPathEdge(0));
+		assertEquals(2, finder.getPathEdge(1));
+		assertEquals(6, finder.getPathEdge(2));
+	}
+
+	@Test
+	public void testNoPath() {
+		finder.addVertex(1, false);
+		finder.addVertex(1, false);
+		finder.addVertex(0, true);
+		addEdges(0, 1, 1);
+
+		assertFalse(finder.findPath(0, 100));
+		assertEquals(0, finder.getPathLength());
+	}
+
+	@Test
+	public void testMaxSearchSteps() {
+		for (int v = 0; v < 5; v++) {
+			finder.addVertex(4 - v, v == 4);
+		}
+		for (int v = 0; v < 4; v++) {
+			addEdges(v, v + 1, 1);
+		}
+
+		// the start isn't a step, so the goal is only reached after expanding 1, 2 and 3
+		assertFalse(finder.findPath(0, 3));
+		assertTrue(finder.findPath(0, 4));
+		assertEquals(5, finder.getPathLength());
+	}
+
+	/**
+	 * Searching again, and adding the edges in another order, gives the same path
+	 */
+	@Test
+	public void testReuse() {
+		makeSquare();
+		assertTrue(finder.findPath(0, 100));
+		assertTrue(finder.findPath(0, 100));
+		assertEquals(3, finder.getPathLength());
+		assertEquals(2, finder.getPathVertex(1));
+
+		finder.clear();
+		finder.addVertex(2, false);
+		finder.addVertex(1, false);
+		finder.addVertex(1, false);
+		finder.addVertex(0, true);
+		addEdges(3, 2, 1);
+		addEdges(3, 1, 1);
+		addEdges(2, 0, 1);
+		addEdges(1, 0, 3);
+
+		assertTrue(finder.findPath(0, 100));
+		assertEquals(3, finder.getPathLength());
+		assertEquals(2, finder.getPathVertex(1));
+		assertEquals(3, finder.getPathVertex(2));
+		assertEquals(5, finder.getPathEdge(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownVertex() {
+		finder.addVertex(0, true);
+		finder.addEdge(0, 1, 1);
+	}
+}
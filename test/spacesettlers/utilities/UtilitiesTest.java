@@ -6,6 +6,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
   TestVector2D.class,
+  TestAStarPathFinder.class,
 })
 
 public class UtilitiesTest {